@@ -0,0 +1,103 @@
+package org.daodao.jdbc.benchmark;
+
+import org.daodao.jdbc.config.MySqlConfig;
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.PropertyException;
+import org.daodao.jdbc.mysql.FakeDatabase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+// Builds the connector a benchmark runs against.
+//
+// "fake" uses the in-process FakeDatabase stand-in, which answers at the JDBC level with a fixed users table and
+// so measures client-side cost only. "mysql" connects to the server in application.properties, migrating the
+// schema if needed. Select it with -p backend=mysql.
+final class BenchmarkBackend {
+    
+    static final String FAKE = "fake";
+    static final String MYSQL = "mysql";
+    static final int FAKE_USER_ROWS = 100;
+    
+    private BenchmarkBackend() {
+    }
+    
+    static MySqlConnector connect(String backend, String... overrides) {
+        MySqlConnector connector = switch (backend) {
+            case FAKE -> new MySqlConnector(new MySqlConfig(properties(fakeProperties(), overrides)), fakeDatabase().connectionFactory());
+            case MYSQL -> new MySqlConnector(new MySqlConfig(properties(applicationProperties(), overrides)));
+            default -> throw new IllegalArgumentException("Unknown benchmark backend: " + backend);
+        };
+        connector.connect();
+        if (backend.equals(MYSQL)) {
+            connector.migrate();
+        }
+        return connector;
+    }
+    
+    static FakeDatabase fakeDatabase() {
+        List<Object[]> users = new ArrayList<>(FAKE_USER_ROWS);
+        for (int i = 0; i < FAKE_USER_ROWS; i++) {
+            users.add(new Object[]{"user_" + i, "user_" + i + "@example.com", 20 + i % 50, "City " + i % 10});
+        }
+        FakeDatabase.Rows userRows = new FakeDatabase.Rows(List.of("username", "email", "age", "city"), users);
+        
+        FakeDatabase database = new FakeDatabase();
+        database.handler(call -> {
+            String sql = call.sql();
+            if (sql.startsWith("SELECT username, email FROM")) {
+                // Duplicate-key lookups of bulk inserts: benchmark users are always new
+                return FakeDatabase.Rows.empty();
+            }
+            if (sql.startsWith("SELECT @@max_allowed_packet")) {
+                return FakeDatabase.Rows.of(List.of("@@max_allowed_packet"), new Object[]{64L * 1024 * 1024});
+            }
+            if (sql.startsWith("SELECT COUNT(*)")) {
+                return FakeDatabase.Rows.of(List.of("COUNT(*)"), new Object[]{FAKE_USER_ROWS});
+            }
+            if (sql.startsWith("SELECT")) {
+                return userRows;
+            }
+            if (sql.startsWith("INSERT")) {
+                return Math.max(1, call.params().size() / 4);
+            }
+            return 1;
+        });
+        return database;
+    }
+    
+    private static Properties fakeProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("mysql.host", "localhost");
+        properties.setProperty("mysql.port", "3306");
+        properties.setProperty("mysql.database", "benchdb");
+        properties.setProperty("mysql.username", "bench");
+        properties.setProperty("mysql.password", "bench");
+        return properties;
+    }
+    
+    private static Properties applicationProperties() {
+        Properties properties = new Properties();
+        try (InputStream input = BenchmarkBackend.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (input == null) {
+                throw new PropertyException("Unable to find application.properties");
+            }
+            properties.load(input);
+        } catch (IOException e) {
+            throw new PropertyException("Error loading application.properties", e);
+        }
+        return properties;
+    }
+    
+    // Benchmarks measure the raw paths, so the query cache is off unless an override turns it on
+    private static Properties properties(Properties base, String... overrides) {
+        base.setProperty("mysql.query-cache.enabled", "false");
+        for (int i = 0; i + 1 < overrides.length; i += 2) {
+            base.setProperty(overrides[i], overrides[i + 1]);
+        }
+        return base;
+    }
+}
\ No newline at end of file
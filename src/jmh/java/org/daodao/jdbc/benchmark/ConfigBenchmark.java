@@ -0,0 +1,28 @@
+package org.daodao.jdbc.benchmark;
+
+import org.daodao.jdbc.config.MySqlConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of building the JDBC URL, which every physical connection open and the database bootstrap path go through.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigBenchmark {
+    
+    private MySqlConfig config;
+    
+    @Setup
+    public void setUp() {
+        config = new MySqlConfig("localhost", 3306, "testdb", "root", "secret");
+    }
+    
+    @Benchmark
+    public String getJdbcUrl() {
+        return config.getJdbcUrl();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package org.daodao.jdbc.benchmark;
+
+import org.daodao.jdbc.config.MySqlConfig;
+import org.daodao.jdbc.mysql.FakeDatabase;
+import org.daodao.jdbc.pool.ConnectionPool;
+import org.daodao.jdbc.pool.PooledConnection;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// Borrow-and-return cost of the connection pool, uncontended and with eight threads sharing four connections.
+// openPhysical (mysql backend only) opens a fresh JDBC connection for comparison with what the pool saves.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConnectionAcquireBenchmark {
+    
+    @Param({BenchmarkBackend.FAKE})
+    public String backend;
+    
+    private MySqlConfig config;
+    private ConnectionPool pool;
+    
+    @Setup
+    public void setUp() {
+        if (backend.equals(BenchmarkBackend.MYSQL)) {
+            config = new MySqlConfig();
+            pool = new ConnectionPool(poolConfig(config), () -> openPhysical(config));
+        } else {
+            config = new MySqlConfig("localhost", 3306, "benchdb", "bench", "bench");
+            FakeDatabase database = BenchmarkBackend.fakeDatabase();
+            pool = new ConnectionPool(poolConfig(config), database.connectionFactory());
+        }
+        pool.start();
+    }
+    
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+    
+    private static MySqlConfig poolConfig(MySqlConfig base) {
+        Properties properties = new Properties();
+        properties.setProperty("mysql.host", base.getHost());
+        properties.setProperty("mysql.port", String.valueOf(base.getPort()));
+        properties.setProperty("mysql.database", base.getDatabase());
+        properties.setProperty("mysql.username", base.getUsername());
+        properties.setProperty("mysql.password", base.getPassword());
+        properties.setProperty("mysql.pool.min-size", "4");
+        properties.setProperty("mysql.pool.max-size", "4");
+        return new MySqlConfig(properties);
+    }
+    
+    private static Connection openPhysical(MySqlConfig config) throws SQLException {
+        return DriverManager.getConnection(config.getJdbcUrl(), config.getUsername(), config.getPassword());
+    }
+    
+    @Benchmark
+    public Connection acquireRelease() {
+        try (PooledConnection conn = pool.acquire()) {
+            return conn.getConnection();
+        }
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public Connection acquireReleaseContended() {
+        try (PooledConnection conn = pool.acquire()) {
+            return conn.getConnection();
+        }
+    }
+    
+    @Benchmark
+    public void openPhysical() throws SQLException {
+        if (!backend.equals(BenchmarkBackend.MYSQL)) {
+            return;
+        }
+        openPhysical(config).close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package org.daodao.jdbc.benchmark;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Read paths end to end: pooled connection, cached statement, execution and row mapping. The legacy String methods
+// are measured next to the typed record methods they now delegate to. Against the fake backend every query returns
+// the same 100 rows.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConnectorReadBenchmark {
+    
+    @Param({BenchmarkBackend.FAKE})
+    public String backend;
+    
+    private MySqlConnector connector;
+    
+    @Setup
+    public void setUp() {
+        connector = BenchmarkBackend.connect(backend);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        connector.disconnect();
+    }
+    
+    @Benchmark
+    public List<String> findAllUsers() {
+        return connector.findAllUsers();
+    }
+    
+    @Benchmark
+    public List<User> findAllUserRecords() {
+        return connector.findAllUserRecords();
+    }
+    
+    @Benchmark
+    public List<String> findUsersByCity() {
+        return connector.findUsersByCity("New York");
+    }
+    
+    @Benchmark
+    public List<User> findUserRecordsByCity() {
+        return connector.findUserRecordsByCity("New York");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package org.daodao.jdbc.benchmark;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.model.BulkInsertResult;
+import org.daodao.jdbc.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Single-row insertUser calls against one multi-row insertUsers call for the same ROWS users. Scores are per row.
+// Every invocation inserts fresh usernames; against MySQL they are removed again in tear-down.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsertBenchmark {
+    
+    private static final int ROWS = 100;
+    
+    @Param({BenchmarkBackend.FAKE})
+    public String backend;
+    
+    private MySqlConnector connector;
+    private long sequence;
+    
+    @Setup
+    public void setUp() {
+        connector = BenchmarkBackend.connect(backend);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        if (backend.equals(BenchmarkBackend.MYSQL)) {
+            connector.execute("DELETE FROM users WHERE username LIKE 'jmh\\_%'");
+        }
+        connector.disconnect();
+    }
+    
+    private List<User> nextUsers() {
+        List<User> users = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            long id = sequence++;
+            users.add(new User("jmh_" + id, "jmh_" + id + "@example.com", 30, "Benchmark City"));
+        }
+        return users;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int singleInserts() {
+        int inserted = 0;
+        for (User user : nextUsers()) {
+            if (connector.insertUser(user.username(), user.email(), user.age(), user.city())) {
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BulkInsertResult batchedInsert() {
+        return connector.insertUsers(nextUsers());
+    }
+}
\ No newline at end of file
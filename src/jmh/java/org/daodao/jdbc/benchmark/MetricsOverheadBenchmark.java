@@ -0,0 +1,76 @@
+package org.daodao.jdbc.benchmark;
+
+import org.daodao.jdbc.config.MySqlConfig;
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.metrics.MetricsRegistry;
+import org.daodao.jdbc.metrics.OperationTimer;
+import org.daodao.jdbc.mysql.FakeDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// Cost of metrics recording on the CRUD path.
+//
+// crud runs insertUser, findUserRecordsByCity, updateUserEmail and deleteUser against the in-process FakeDatabase
+// with metrics on and off. With a simulated server latency of 0 the stand-in answers in well under a microsecond,
+// so that row is a worst-case upper bound; 100 us is closer to a LAN round trip. recordOnly times a single timer
+// start/close on its own.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+    
+    @Param({"true", "false"})
+    public boolean metricsEnabled;
+    
+    @Param({"0", "100"})
+    public long serverLatencyMicros;
+    
+    private MySqlConnector connector;
+    private MetricsRegistry registry;
+    
+    @Setup
+    public void setUp() {
+        FakeDatabase database = new FakeDatabase();
+        database.latencyMicros(serverLatencyMicros);
+        database.handler(call -> call.sql().startsWith("SELECT")
+            ? FakeDatabase.Rows.of(List.of("username", "email", "age", "city"), new Object[]{"bench", "bench@example.com", 30, "Bench City"})
+            : 1);
+        
+        Properties properties = new Properties();
+        properties.setProperty("mysql.host", "localhost");
+        properties.setProperty("mysql.port", "3306");
+        properties.setProperty("mysql.database", "benchdb");
+        properties.setProperty("mysql.username", "bench");
+        properties.setProperty("mysql.password", "bench");
+        properties.setProperty("mysql.metrics.enabled", String.valueOf(metricsEnabled));
+        connector = new MySqlConnector(new MySqlConfig(properties), database.connectionFactory());
+        connector.connect();
+        registry = new MetricsRegistry(metricsEnabled);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        connector.disconnect();
+    }
+    
+    @Benchmark
+    public boolean crud() {
+        connector.insertUser("bench", "bench@example.com", 30, "Bench City");
+        connector.findUserRecordsByCity("Bench City");
+        connector.updateUserEmail("bench", "bench@example.org");
+        return connector.deleteUser("bench");
+    }
+    
+    @Benchmark
+    public void recordOnly() {
+        try (OperationTimer timer = registry.start("insertUser", "INSERT IGNORE INTO users (username, email, age, city) VALUES (?, ?, ?, ?)")) {
+            timer.success(1);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package org.daodao.jdbc.benchmark;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.mapper.UserRowMapper;
+import org.daodao.jdbc.model.Page;
+import org.daodao.jdbc.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Fetching page N of users ordered by username with keyset pagination (findUsersPage, seeking past the previous
+// page's last username) against LIMIT/OFFSET, which reads and discards every row before the page. The users table
+// is topped up to page * PAGE_SIZE rows first and the added rows are removed in tear-down. It runs against MySQL
+// only: the fake backend ignores LIMIT, OFFSET and the seek predicate, so both sides would read the same rows.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaginationBenchmark {
+    
+    private static final int PAGE_SIZE = 20;
+    private static final int SEED_CHUNK = 10_000;
+    
+    @Param({BenchmarkBackend.MYSQL})
+    public String backend;
+    
+    @Param({"1", "100", "10000"})
+    public int page;
+    
+    private MySqlConnector connector;
+    private boolean seeded;
+    private String pageToken;
+    private String offsetSql;
+    
+    @Setup
+    public void setUp() {
+        if (!backend.equals(BenchmarkBackend.MYSQL)) {
+            throw new IllegalArgumentException("PaginationBenchmark needs backend=mysql; the " + backend
+                + " backend ignores LIMIT, OFFSET and the seek predicate");
+        }
+        connector = BenchmarkBackend.connect(backend);
+        seedUsers(page * PAGE_SIZE);
+        
+        // Walk to the page once; the benchmark then re-reads it from its token
+        for (int i = 1; i < page; i++) {
+            pageToken = connector.findUsersPage(pageToken, PAGE_SIZE).nextPageToken();
+        }
+        offsetSql = "SELECT username, email, age, city FROM users ORDER BY username LIMIT " + PAGE_SIZE
+            + " OFFSET " + (long) (page - 1) * PAGE_SIZE;
+    }
+    
+    private void seedUsers(int required) {
+        int missing = required - connector.getUserCount();
+        for (int from = 0; from < missing; from += SEED_CHUNK) {
+            List<User> users = new ArrayList<>(SEED_CHUNK);
+            for (int i = from; i < Math.min(missing, from + SEED_CHUNK); i++) {
+                String username = String.format("jmh_page_%07d", i);
+                users.add(new User(username, username + "@example.com", 20 + i % 50, "Benchmark City"));
+            }
+            connector.insertUsers(users);
+            seeded = true;
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        if (seeded) {
+            connector.execute("DELETE FROM users WHERE username LIKE 'jmh\\_page\\_%'");
+        }
+        connector.disconnect();
+    }
+    
+    @Benchmark
+    public Page<User> keyset() {
+        return connector.findUsersPage(pageToken, PAGE_SIZE);
+    }
+    
+    @Benchmark
+    public List<User> limitOffset() {
+        try (Stream<User> users = connector.streamQuery(offsetSql, UserRowMapper.DEFAULT)) {
+            return users.toList();
+        }
+    }
+}
\ No newline at end of file
@@ -4,18 +4,46 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.daodao.jdbc.config.MySqlConfig;
 import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.dataset.DatasetGenerator;
+import org.daodao.jdbc.dataset.DatasetSpec;
 import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.export.ExportRequest;
+import org.daodao.jdbc.ingest.ImportRequest;
+import org.daodao.jdbc.ingest.ImportResult;
+import org.daodao.jdbc.ingest.RejectedRow;
+import org.daodao.jdbc.load.LoadGenerator;
+import org.daodao.jdbc.load.LoadProfile;
+import org.daodao.jdbc.load.LoadReport;
+import org.daodao.jdbc.schema.MigrationReport;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 public class JdbcClientMain {
     
     private static final Logger log = LoggerFactory.getLogger(JdbcClientMain.class);
-
+    
+    // "load [--option=value ...]" runs the load generator, "generate [--option=value ...]" loads a
+    // synthetic dataset, "export [--option=value ...]" writes a query to a CSV/TSV file and "import [--option=value ...]"
+    // bulk loads one. Without a command it runs the CRUD demo; an unknown command exits with status 2.
     public static void main(String[] args) {
-        new JdbcClientMain().run();
+        String command = args.length > 0 ? args[0] : "";
+        String[] options = args.length > 0 ? Arrays.copyOfRange(args, 1, args.length) : args;
+        switch (command) {
+            case "" -> new JdbcClientMain().run();
+            case "load" -> new JdbcClientMain().runLoadTest(options);
+            case "generate" -> new JdbcClientMain().runGenerate(options);
+            case "export" -> new JdbcClientMain().runExport(options);
+            case "import" -> new JdbcClientMain().runImport(options);
+            default -> {
+                log.error("Unknown command '{}'", command);
+                log.error("Usage: [load|generate|export|import] [--option=value ...]; without a command runs the CRUD demo");
+                System.exit(2);
+            }
+        }
     }
-
+    
     private void run() {
         try {
             actionOnMySQL();
@@ -24,6 +52,106 @@ public class JdbcClientMain {
         }
     }
     
+    private void runLoadTest(String[] options) {
+        LoadProfile profile;
+        try {
+            profile = LoadProfile.parse(options);
+        } catch (IllegalArgumentException e) {
+            log.error("{}", e.getMessage());
+            log.error("Usage: load [--mix=read,insert,update,delete] [--concurrency=N] [--rate=ops/s] [--duration=30s] [--warmup=5s] [--cleanup=true] [--cache=false]");
+            return;
+        }
+        
+        // Overrides application.properties, which turns both on
+        String cache = Boolean.toString(profile.cache());
+        MySqlConnector mysqlConnector = new MySqlConnector(MySqlConfig.load(Map.of(
+            "mysql.query-cache.enabled", cache, "mysql.single-flight.enabled", cache)));
+        try {
+            mysqlConnector.connect();
+            mysqlConnector.migrate();
+            LoadReport report = new LoadGenerator(mysqlConnector, profile).run();
+            log.info("Load test finished{}{}", System.lineSeparator(), report);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Load test interrupted");
+        } catch (Exception e) {
+            log.error("Load test failed: ", e);
+        } finally {
+            mysqlConnector.disconnect();
+        }
+    }
+    
+    private void runGenerate(String[] options) {
+        DatasetSpec spec;
+        try {
+            spec = DatasetSpec.parse(options);
+        } catch (IllegalArgumentException e) {
+            log.error("{}", e.getMessage());
+            log.error("Usage: generate [--users=1m] [--products=100k] [--seed=42] [--prefix=gen] [--city-skew=1.0] [--category-skew=1.0] [--chunk-rows=1000] [--parallelism=4]");
+            return;
+        }
+        
+        MySqlConnector mysqlConnector = new MySqlConnector(new MySqlConfig());
+        try {
+            mysqlConnector.connect();
+            mysqlConnector.migrate();
+            new DatasetGenerator(spec).load(mysqlConnector);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Dataset generation interrupted");
+        } catch (Exception e) {
+            log.error("Dataset generation failed: ", e);
+        } finally {
+            mysqlConnector.disconnect();
+        }
+    }
+    
+    private void runExport(String[] options) {
+        ExportRequest request;
+        try {
+            request = ExportRequest.parse(options);
+        } catch (IllegalArgumentException e) {
+            log.error("{}", e.getMessage());
+            log.error("Usage: export --table=users | --query=\"SELECT ...\" --out=users.csv[.gz] [--format=csv|tsv] [--gzip=true] [--header=true] [--fetch-size=N] [--buffer-kb=256]");
+            return;
+        }
+        
+        MySqlConnector mysqlConnector = new MySqlConnector(new MySqlConfig());
+        try {
+            mysqlConnector.connect();
+            mysqlConnector.exportQuery(request.sql(), request.target(), request.options());
+        } catch (Exception e) {
+            log.error("Export failed: ", e);
+        } finally {
+            mysqlConnector.disconnect();
+        }
+    }
+    
+    private void runImport(String[] options) {
+        ImportRequest request;
+        try {
+            request = ImportRequest.parse(options);
+        } catch (IllegalArgumentException e) {
+            log.error("{}", e.getMessage());
+            log.error("Usage: import --table=users --file=users.csv[.gz] [--columns=username,email,-,age] [--format=csv|tsv] [--header=true] [--chunk-rows=10000] [--parallelism=4] [--max-errors=100]");
+            return;
+        }
+        
+        MySqlConnector mysqlConnector = new MySqlConnector(new MySqlConfig());
+        try {
+            mysqlConnector.connect();
+            mysqlConnector.migrate();
+            ImportResult result = mysqlConnector.importFile(request.source(), request.options());
+            for (RejectedRow row : result.rejected()) {
+                log.warn("Rejected row at line {}: {}", row.line(), row.reason());
+            }
+        } catch (Exception e) {
+            log.error("Import failed: ", e);
+        } finally {
+            mysqlConnector.disconnect();
+        }
+    }
+    
     
     private void actionOnMySQL() {
         MySqlConnector mysqlConnector = null;
@@ -37,12 +165,9 @@ public class JdbcClientMain {
             mysqlConnector.connect();
             log.info("Successfully connected to MySQL database.");
             
-            // Initialize database if empty
-            if (mysqlConnector.isDatabaseEmpty()) {
-                log.info("Database is empty, initializing with sample data...");
-                mysqlConnector.initializeDatabase();
-                log.info("Database initialized successfully.");
-            }
+            // Create or upgrade the schema; a database that is already current costs one query
+            MigrationReport migration = mysqlConnector.migrate();
+            log.info("Schema ready at version {} ({} migrations applied)", migration.schemaVersion(), migration.applied().size());
             
             // Find all users
             List<String> allUsers = mysqlConnector.findAllUsers();
@@ -0,0 +1,23 @@
+package org.daodao.jdbc.cache;
+
+public record QueryCacheStats(
+        long hits,
+        long misses,
+        long evictions,
+        long expirations,
+        long invalidations,
+        int entries,
+        long usedBytes,
+        long maxBytes) {
+    
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("QueryCacheStats[hits=%d, misses=%d, hitRatio=%.3f, evictions=%d, expirations=%d, invalidations=%d, entries=%d, usedBytes=%d, maxBytes=%d]",
+            hits, misses, hitRatio(), evictions, expirations, invalidations, entries, usedBytes, maxBytes);
+    }
+}
\ No newline at end of file
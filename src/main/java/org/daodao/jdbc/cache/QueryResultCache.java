@@ -0,0 +1,177 @@
+package org.daodao.jdbc.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// Read-through cache of query results keyed by SQL text and bound parameters.
+// Capacity is a byte budget: callers supply a size estimate for each value and the
+// least recently used entries are evicted until the total fits.
+public class QueryResultCache {
+    
+    // Rough per-entry cost of the map node, key record and parameter list
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+    
+    private final long maxBytes;
+    private final long ttlNanos;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped on every invalidation so loads that raced with a write are not cached
+    private final Map<String, Long> generations = new HashMap<>();
+    private long usedBytes;
+    
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    
+    private record Key(String sql, List<Object> params) {}
+    
+    private record Entry(String table, Object value, long bytes, long expiresAtNanos) {}
+    
+    // ttlMs of 0 keeps entries until they are evicted or invalidated
+    public QueryResultCache(long maxBytes, long ttlMs) {
+        this.maxBytes = maxBytes;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+    
+    // The loader runs outside the lock; its result must not be mutated after it is cached
+    @SuppressWarnings("unchecked")
+    public <T> T get(String table, String sql, List<?> params, ToLongFunction<? super T> sizer, Supplier<T> loader) {
+        String tableKey = table.toLowerCase(Locale.ROOT);
+        Key key = new Key(sql, Collections.unmodifiableList(new ArrayList<>(params)));
+        long generation;
+        
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (!isExpired(entry, System.nanoTime())) {
+                    hits++;
+                    return (T) entry.value();
+                }
+                remove(key, entry);
+                expirations++;
+            }
+            misses++;
+            generation = generations.computeIfAbsent(tableKey, t -> 0L);
+        } finally {
+            lock.unlock();
+        }
+        
+        T value = loader.get();
+        long bytes = ENTRY_OVERHEAD_BYTES + 2L * sql.length() + 16L * params.size() + sizer.applyAsLong(value);
+        if (bytes > maxBytes) {
+            return value;
+        }
+        
+        lock.lock();
+        try {
+            if (generations.getOrDefault(tableKey, 0L) != generation) {
+                return value;
+            }
+            Entry previous = entries.remove(key);
+            if (previous != null) {
+                usedBytes -= previous.bytes();
+            }
+            long expiresAt = ttlNanos > 0 ? System.nanoTime() + ttlNanos : Long.MAX_VALUE;
+            entries.put(key, new Entry(tableKey, value, bytes, expiresAt));
+            usedBytes += bytes;
+            evictToBudget();
+        } finally {
+            lock.unlock();
+        }
+        return value;
+    }
+    
+    public void invalidate(String table) {
+        String tableKey = table.toLowerCase(Locale.ROOT);
+        lock.lock();
+        try {
+            generations.merge(tableKey, 1L, Long::sum);
+            Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next().getValue();
+                if (entry.table().equals(tableKey)) {
+                    iterator.remove();
+                    usedBytes -= entry.bytes();
+                    invalidations++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generations.replaceAll((table, generation) -> generation + 1);
+            invalidations += entries.size();
+            entries.clear();
+            usedBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Tables that have been cached at least once, for callers that map raw SQL to invalidations
+    public Set<String> knownTables() {
+        lock.lock();
+        try {
+            return Set.copyOf(generations.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public QueryCacheStats getStats() {
+        lock.lock();
+        try {
+            return new QueryCacheStats(hits, misses, evictions, expirations, invalidations, entries.size(), usedBytes, maxBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private boolean isExpired(Entry entry, long now) {
+        return entry.expiresAtNanos() != Long.MAX_VALUE && now - entry.expiresAtNanos() > 0;
+    }
+    
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        usedBytes -= entry.bytes();
+    }
+    
+    private void evictToBudget() {
+        long now = System.nanoTime();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            usedBytes -= entry.bytes();
+            if (isExpired(entry, now)) {
+                expirations++;
+            } else {
+                evictions++;
+            }
+        }
+    }
+    
+    // Upper bound on the retained size of a string: object and array headers plus two bytes per char
+    public static long sizeOf(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+}
\ No newline at end of file
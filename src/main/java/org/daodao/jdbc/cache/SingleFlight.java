@@ -0,0 +1,176 @@
+package org.daodao.jdbc.cache;
+
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.exceptions.QueryTimeoutException;
+import org.daodao.jdbc.timeout.Deadline;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Collapses identical concurrent reads: the first caller for a given SQL text and parameters runs the query,
+// callers arriving while it is in flight wait for and share its result or exception. Nothing is kept once the
+// leader finishes, so this never serves stale data on its own; results are shared and must not be mutated.
+// A follower waits no longer than its own deadline, and a leader that timed out or was cancelled does not take
+// its followers down with it: they retry, one of them running the query again.
+public class SingleFlight {
+    
+    // ER_QUERY_INTERRUPTED, after KILL QUERY; ER_QUERY_TIMEOUT, after MAX_EXECUTION_TIME
+    private static final int QUERY_INTERRUPTED = 1317;
+    private static final int QUERY_TIMEOUT = 3024;
+    
+    private final ConcurrentHashMap<Key, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+    // Followers blocked on a leader's result; guarded by lock so an interrupt never outlives the wait
+    private final Set<Thread> waiters = new HashSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    private record Key(String sql, List<Object> params) {}
+    
+    private record Flight(String table, CompletableFuture<Object> result) {}
+    
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String table, String sql, List<?> params, Supplier<T> loader) {
+        Key key = new Key(sql, Collections.unmodifiableList(new ArrayList<>(params)));
+        String tableKey = table.toLowerCase(Locale.ROOT);
+        while (true) {
+            Flight flight = new Flight(tableKey, new CompletableFuture<>());
+            Flight leader = inFlight.putIfAbsent(key, flight);
+            if (leader == null) {
+                return lead(key, flight, loader);
+            }
+            followers.increment();
+            try {
+                return (T) await(leader.result());
+            } catch (LeaderCancelledException e) {
+                // Not collapsed after all; the next round counts this caller again
+                followers.decrement();
+            }
+        }
+    }
+    
+    private <T> T lead(Key key, Flight flight, Supplier<T> loader) {
+        leaders.increment();
+        T value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            // Removed before completing, so followers retrying after a cancelled leader find the slot free
+            inFlight.remove(key, flight);
+            flight.result().completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(key, flight);
+        flight.result().complete(value);
+        return value;
+    }
+    
+    private Object await(CompletableFuture<Object> result) {
+        Deadline deadline = Deadline.current();
+        lock.lock();
+        try {
+            waiters.add(Thread.currentThread());
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (deadline == null) {
+                return result.get();
+            }
+            if (deadline.isExpired()) {
+                throw new TimeoutException();
+            }
+            return result.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Deadline of " + deadline.timeout().toMillis()
+                + " ms passed while waiting for an identical query in flight");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MySqlException("Interrupted while waiting for an identical query in flight", e);
+        } catch (ExecutionException e) {
+            if (isCancellation(e.getCause())) {
+                throw new LeaderCancelledException();
+            }
+            // Followers see the leader's own exception, as if they had run the query themselves
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new MySqlException("Identical query in flight failed", e.getCause());
+        } finally {
+            lock.lock();
+            try {
+                waiters.remove(Thread.currentThread());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    // Interrupts thread only while it waits for a leader's result; returns whether it did
+    public boolean interruptWaiter(Thread thread) {
+        lock.lock();
+        try {
+            if (!waiters.contains(thread)) {
+                return false;
+            }
+            thread.interrupt();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // The leader's deadline, KILL QUERY or interrupt ended its query; none of that applies to its followers
+    private static boolean isCancellation(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException || cause instanceof InterruptedException
+                    || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException
+                    && (sqlException.getErrorCode() == QUERY_INTERRUPTED || sqlException.getErrorCode() == QUERY_TIMEOUT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // After a write, reads that started before it must not be joined; callers already waiting still share them
+    public void invalidate(String table) {
+        String tableKey = table.toLowerCase(Locale.ROOT);
+        inFlight.entrySet().removeIf(entry -> entry.getValue().table().equals(tableKey));
+    }
+    
+    public void invalidateAll() {
+        inFlight.clear();
+    }
+    
+    public SingleFlightStats getStats() {
+        return new SingleFlightStats(leaders.sum(), followers.sum(), inFlight.size());
+    }
+    
+    // Signals a follower to retry; never escapes execute
+    private static final class LeaderCancelledException extends RuntimeException {
+        
+        LeaderCancelledException() {
+            super(null, null, false, false);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+package org.daodao.jdbc.cache;
+
+// leaders ran a query, followers were collapsed into one already in flight
+public record SingleFlightStats(
+        long leaders,
+        long followers,
+        int inFlight) {
+    
+    public double collapsedRatio() {
+        long reads = leaders + followers;
+        return reads == 0 ? 0.0 : (double) followers / reads;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("SingleFlightStats[leaders=%d, followers=%d, collapsedRatio=%.3f, inFlight=%d]",
+            leaders, followers, collapsedRatio(), inFlight);
+    }
+}
\ No newline at end of file
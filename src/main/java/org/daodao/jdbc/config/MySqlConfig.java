@@ -6,6 +6,7 @@ import org.daodao.jdbc.exceptions.PropertyException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
 import java.util.Properties;
 
 public class MySqlConfig {
@@ -13,21 +14,263 @@ public class MySqlConfig {
     private static final Logger log = LoggerFactory.getLogger(MySqlConfig.class);
     private static final String PROPERTIES_FILE = "application.properties";
     
+    // Connection pool defaults, used when the mysql.pool.* keys are absent
+    private static final int DEFAULT_POOL_MIN_SIZE = 2;
+    private static final int DEFAULT_POOL_MAX_SIZE = 10;
+    private static final long DEFAULT_POOL_ACQUIRE_TIMEOUT_MS = 30_000;
+    private static final long DEFAULT_POOL_IDLE_TIMEOUT_MS = 600_000;
+    private static final long DEFAULT_POOL_MAX_LIFETIME_MS = 1_800_000;
+    private static final long DEFAULT_POOL_HOUSEKEEPING_INTERVAL_MS = 30_000;
+    private static final boolean DEFAULT_POOL_VALIDATE_ON_BORROW = true;
+    private static final int DEFAULT_POOL_VALIDATION_TIMEOUT_SECONDS = 5;
+    
+    // Prepared statement cache defaults
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    private static final boolean DEFAULT_STATEMENT_CACHE_SERVER_SIDE = false;
+    
+    // Bulk insert defaults
+    private static final int DEFAULT_BULK_BATCH_ROWS = 1000;
+    private static final int DEFAULT_BULK_MAX_PACKET_BYTES = 4 * 1024 * 1024;
+    
+    // Streaming defaults, 0 streams row by row
+    private static final int DEFAULT_STREAM_FETCH_SIZE = 0;
+    // Rows a Flow.Publisher reads ahead of subscriber demand
+    private static final int DEFAULT_STREAM_PUBLISHER_BUFFER_ROWS = 256;
+    
+    // Query result cache defaults, off unless enabled explicitly
+    private static final boolean DEFAULT_QUERY_CACHE_ENABLED = false;
+    private static final long DEFAULT_QUERY_CACHE_MAX_BYTES = 16L * 1024 * 1024;
+    private static final long DEFAULT_QUERY_CACHE_TTL_MS = 60_000;
+    
+    // Request coalescing of identical concurrent reads, off unless enabled explicitly
+    private static final boolean DEFAULT_SINGLE_FLIGHT_ENABLED = false;
+    
+    // Metrics defaults, 0 disables the periodic reporter
+    private static final boolean DEFAULT_METRICS_ENABLED = true;
+    private static final long DEFAULT_METRICS_REPORT_INTERVAL_MS = 0;
+    
+    // Row count defaults, 0 never resyncs tracked counts
+    private static final long DEFAULT_COUNT_CACHE_TTL_MS = 5_000;
+    private static final long DEFAULT_COUNT_TRACKED_RESYNC_MS = 300_000;
+    
+    // Import defaults; LOAD DATA LOCAL lets the server read client files, so it is opt-in as in Connector/J
+    private static final boolean DEFAULT_IMPORT_LOCAL_INFILE = false;
+    
+    // Multi-key lookup defaults; key sets of temp-table-threshold keys or more are joined through a temporary table
+    private static final int DEFAULT_LOOKUP_IN_LIST_KEYS = 1000;
+    private static final int DEFAULT_LOOKUP_TEMP_TABLE_THRESHOLD = 20_000;
+    private static final int DEFAULT_LOOKUP_PARALLELISM = 4;
+    // Batch loader defaults, window 0 dispatches only on dispatch(), close() or a full batch
+    private static final long DEFAULT_LOADER_WINDOW_MS = 2;
+    private static final int DEFAULT_LOADER_MAX_BATCH_KEYS = 1000;
+    
+    // Group commit defaults, off unless enabled explicitly; a group of max-rows rows is written without waiting
+    private static final boolean DEFAULT_GROUP_COMMIT_ENABLED = false;
+    private static final long DEFAULT_GROUP_COMMIT_MAX_WAIT_MICROS = 200;
+    private static final int DEFAULT_GROUP_COMMIT_MAX_ROWS = 100;
+    // Keeps every group statement within the 65535 placeholder limit
+    private static final int MAX_GROUP_COMMIT_ROWS = 10_000;
+    
+    // Write-behind defaults, off unless enabled explicitly; without force, journaled writes survive a process crash
+    // but not an OS crash or power loss
+    private static final boolean DEFAULT_WRITE_BEHIND_ENABLED = false;
+    private static final String DEFAULT_WRITE_BEHIND_JOURNAL_PATH = "write-behind.journal";
+    private static final int DEFAULT_WRITE_BEHIND_JOURNAL_BYTES = 64 * 1024 * 1024;
+    private static final boolean DEFAULT_WRITE_BEHIND_FORCE = false;
+    private static final int DEFAULT_WRITE_BEHIND_BATCH_ROWS = 1000;
+    private static final long DEFAULT_WRITE_BEHIND_FLUSH_INTERVAL_MS = 100;
+    // Room for the journal header and at least a few entries
+    private static final int MIN_WRITE_BEHIND_JOURNAL_BYTES = 4096;
+    
+    // Query timeout default; 0 leaves statements without a timeout unless the call has a deadline
+    private static final long DEFAULT_QUERY_TIMEOUT_MS = 0;
+    
+    // Async defaults; max-concurrency 0 follows mysql.pool.max-size, timeout 0 waits indefinitely
+    private static final int DEFAULT_ASYNC_MAX_CONCURRENCY = 0;
+    private static final int DEFAULT_ASYNC_MAX_QUEUED = 10_000;
+    private static final long DEFAULT_ASYNC_TIMEOUT_MS = 30_000;
+    private static final boolean DEFAULT_ASYNC_VIRTUAL_THREADS = true;
+    
     private final String mysqlHost;
     private final int mysqlPort;
     private final String mysqlDatabase;
     private final String mysqlUsername;
     private final String mysqlPassword;
     
+    private final int poolMinSize;
+    private final int poolMaxSize;
+    private final long poolAcquireTimeoutMs;
+    private final long poolIdleTimeoutMs;
+    private final long poolMaxLifetimeMs;
+    private final long poolHousekeepingIntervalMs;
+    private final boolean poolValidateOnBorrow;
+    private final int poolValidationTimeoutSeconds;
+    
+    private final int statementCacheSize;
+    private final boolean statementCacheServerSide;
+    
+    private final int bulkBatchRows;
+    private final int bulkMaxPacketBytes;
+    
+    private final int streamFetchSize;
+    private final int streamPublisherBufferRows;
+    
+    private final boolean queryCacheEnabled;
+    private final long queryCacheMaxBytes;
+    private final long queryCacheTtlMs;
+    
+    private final boolean singleFlightEnabled;
+    
+    private final boolean metricsEnabled;
+    private final long metricsReportIntervalMs;
+    
+    private final long countCacheTtlMs;
+    private final long countTrackedResyncMs;
+    
+    private final boolean importLocalInfile;
+    
+    private final int lookupInListKeys;
+    private final int lookupTempTableThreshold;
+    private final int lookupParallelism;
+    private final long loaderWindowMs;
+    private final int loaderMaxBatchKeys;
+    
+    private final boolean groupCommitEnabled;
+    private final long groupCommitMaxWaitMicros;
+    private final int groupCommitMaxRows;
+    
+    private final boolean writeBehindEnabled;
+    private final String writeBehindJournalPath;
+    private final int writeBehindJournalBytes;
+    private final boolean writeBehindForce;
+    private final int writeBehindBatchRows;
+    private final long writeBehindFlushIntervalMs;
+    
+    private final long queryTimeoutMs;
+    
+    private final int asyncMaxConcurrency;
+    private final int asyncMaxQueued;
+    private final long asyncTimeoutMs;
+    private final boolean asyncVirtualThreads;
+    
     public MySqlConfig() {
+        this(loadProperties());
+        log.info("MySQL configuration loaded successfully");
+    }
+    
+    // application.properties with some of its properties replaced, for runs that need a different setup
+    public static MySqlConfig load(Map<String, String> overrides) {
         Properties properties = loadProperties();
+        properties.putAll(overrides);
+        MySqlConfig config = new MySqlConfig(properties);
+        log.info("MySQL configuration loaded successfully with overrides for {}", overrides.keySet());
+        return config;
+    }
+    
+    public MySqlConfig(Properties properties) {
         this.mysqlHost = getProperty(properties, "mysql.host");
         this.mysqlPort = Integer.parseInt(getProperty(properties, "mysql.port"));
         this.mysqlDatabase = getProperty(properties, "mysql.database");
         this.mysqlUsername = getProperty(properties, "mysql.username");
         this.mysqlPassword = getProperty(properties, "mysql.password");
         
-        log.info("MySQL configuration loaded successfully");
+        this.poolMinSize = getIntProperty(properties, "mysql.pool.min-size", DEFAULT_POOL_MIN_SIZE);
+        this.poolMaxSize = getIntProperty(properties, "mysql.pool.max-size", DEFAULT_POOL_MAX_SIZE);
+        this.poolAcquireTimeoutMs = getLongProperty(properties, "mysql.pool.acquire-timeout-ms", DEFAULT_POOL_ACQUIRE_TIMEOUT_MS);
+        this.poolIdleTimeoutMs = getLongProperty(properties, "mysql.pool.idle-timeout-ms", DEFAULT_POOL_IDLE_TIMEOUT_MS);
+        this.poolMaxLifetimeMs = getLongProperty(properties, "mysql.pool.max-lifetime-ms", DEFAULT_POOL_MAX_LIFETIME_MS);
+        this.poolHousekeepingIntervalMs = getLongProperty(properties, "mysql.pool.housekeeping-interval-ms", DEFAULT_POOL_HOUSEKEEPING_INTERVAL_MS);
+        this.poolValidateOnBorrow = getBooleanProperty(properties, "mysql.pool.validate-on-borrow", DEFAULT_POOL_VALIDATE_ON_BORROW);
+        this.poolValidationTimeoutSeconds = getIntProperty(properties, "mysql.pool.validation-timeout-seconds", DEFAULT_POOL_VALIDATION_TIMEOUT_SECONDS);
+        
+        this.statementCacheSize = getIntProperty(properties, "mysql.statement-cache.size", DEFAULT_STATEMENT_CACHE_SIZE);
+        this.statementCacheServerSide = getBooleanProperty(properties, "mysql.statement-cache.server-side", DEFAULT_STATEMENT_CACHE_SERVER_SIDE);
+        
+        this.bulkBatchRows = getIntProperty(properties, "mysql.bulk.batch-rows", DEFAULT_BULK_BATCH_ROWS);
+        this.bulkMaxPacketBytes = getIntProperty(properties, "mysql.bulk.max-packet-bytes", DEFAULT_BULK_MAX_PACKET_BYTES);
+        
+        this.streamFetchSize = getIntProperty(properties, "mysql.stream.fetch-size", DEFAULT_STREAM_FETCH_SIZE);
+        this.streamPublisherBufferRows = getIntProperty(properties, "mysql.stream.publisher-buffer-rows", DEFAULT_STREAM_PUBLISHER_BUFFER_ROWS);
+        
+        this.queryCacheEnabled = getBooleanProperty(properties, "mysql.query-cache.enabled", DEFAULT_QUERY_CACHE_ENABLED);
+        this.queryCacheMaxBytes = getLongProperty(properties, "mysql.query-cache.max-bytes", DEFAULT_QUERY_CACHE_MAX_BYTES);
+        this.queryCacheTtlMs = getLongProperty(properties, "mysql.query-cache.ttl-ms", DEFAULT_QUERY_CACHE_TTL_MS);
+        
+        this.singleFlightEnabled = getBooleanProperty(properties, "mysql.single-flight.enabled", DEFAULT_SINGLE_FLIGHT_ENABLED);
+        
+        this.metricsEnabled = getBooleanProperty(properties, "mysql.metrics.enabled", DEFAULT_METRICS_ENABLED);
+        this.metricsReportIntervalMs = getLongProperty(properties, "mysql.metrics.report-interval-ms", DEFAULT_METRICS_REPORT_INTERVAL_MS);
+        
+        this.countCacheTtlMs = getLongProperty(properties, "mysql.count.cache-ttl-ms", DEFAULT_COUNT_CACHE_TTL_MS);
+        this.countTrackedResyncMs = getLongProperty(properties, "mysql.count.tracked-resync-ms", DEFAULT_COUNT_TRACKED_RESYNC_MS);
+        
+        this.importLocalInfile = getBooleanProperty(properties, "mysql.import.local-infile", DEFAULT_IMPORT_LOCAL_INFILE);
+        
+        this.lookupInListKeys = getIntProperty(properties, "mysql.lookup.in-list-keys", DEFAULT_LOOKUP_IN_LIST_KEYS);
+        this.lookupTempTableThreshold = getIntProperty(properties, "mysql.lookup.temp-table-threshold", DEFAULT_LOOKUP_TEMP_TABLE_THRESHOLD);
+        this.lookupParallelism = getIntProperty(properties, "mysql.lookup.parallelism", DEFAULT_LOOKUP_PARALLELISM);
+        this.loaderWindowMs = getLongProperty(properties, "mysql.loader.window-ms", DEFAULT_LOADER_WINDOW_MS);
+        this.loaderMaxBatchKeys = getIntProperty(properties, "mysql.loader.max-batch-keys", DEFAULT_LOADER_MAX_BATCH_KEYS);
+        
+        this.groupCommitEnabled = getBooleanProperty(properties, "mysql.group-commit.enabled", DEFAULT_GROUP_COMMIT_ENABLED);
+        this.groupCommitMaxWaitMicros = getLongProperty(properties, "mysql.group-commit.max-wait-micros", DEFAULT_GROUP_COMMIT_MAX_WAIT_MICROS);
+        this.groupCommitMaxRows = getIntProperty(properties, "mysql.group-commit.max-rows", DEFAULT_GROUP_COMMIT_MAX_ROWS);
+        
+        this.writeBehindEnabled = getBooleanProperty(properties, "mysql.write-behind.enabled", DEFAULT_WRITE_BEHIND_ENABLED);
+        String journalPath = getOptionalProperty(properties, "mysql.write-behind.journal-path");
+        this.writeBehindJournalPath = journalPath != null ? journalPath : DEFAULT_WRITE_BEHIND_JOURNAL_PATH;
+        this.writeBehindJournalBytes = getIntProperty(properties, "mysql.write-behind.journal-bytes", DEFAULT_WRITE_BEHIND_JOURNAL_BYTES);
+        this.writeBehindForce = getBooleanProperty(properties, "mysql.write-behind.force", DEFAULT_WRITE_BEHIND_FORCE);
+        this.writeBehindBatchRows = getIntProperty(properties, "mysql.write-behind.batch-rows", DEFAULT_WRITE_BEHIND_BATCH_ROWS);
+        this.writeBehindFlushIntervalMs = getLongProperty(properties, "mysql.write-behind.flush-interval-ms", DEFAULT_WRITE_BEHIND_FLUSH_INTERVAL_MS);
+        
+        this.queryTimeoutMs = getLongProperty(properties, "mysql.query.timeout-ms", DEFAULT_QUERY_TIMEOUT_MS);
+        
+        this.asyncMaxConcurrency = getIntProperty(properties, "mysql.async.max-concurrency", DEFAULT_ASYNC_MAX_CONCURRENCY);
+        this.asyncMaxQueued = getIntProperty(properties, "mysql.async.max-queued", DEFAULT_ASYNC_MAX_QUEUED);
+        this.asyncTimeoutMs = getLongProperty(properties, "mysql.async.timeout-ms", DEFAULT_ASYNC_TIMEOUT_MS);
+        this.asyncVirtualThreads = getBooleanProperty(properties, "mysql.async.virtual-threads", DEFAULT_ASYNC_VIRTUAL_THREADS);
+        
+        if (bulkBatchRows < 1 || bulkMaxPacketBytes < 1024) {
+            throw new PropertyException("Invalid bulk settings: mysql.bulk.batch-rows=" + bulkBatchRows + ", mysql.bulk.max-packet-bytes=" + bulkMaxPacketBytes);
+        }
+        if (queryCacheMaxBytes < 0 || queryCacheTtlMs < 0) {
+            throw new PropertyException("Invalid query cache settings: mysql.query-cache.max-bytes=" + queryCacheMaxBytes + ", mysql.query-cache.ttl-ms=" + queryCacheTtlMs);
+        }
+        if (countCacheTtlMs < 0 || countTrackedResyncMs < 0) {
+            throw new PropertyException("Invalid count settings: mysql.count.cache-ttl-ms=" + countCacheTtlMs + ", mysql.count.tracked-resync-ms=" + countTrackedResyncMs);
+        }
+        if (streamPublisherBufferRows < 1) {
+            throw new PropertyException("Invalid streaming settings: mysql.stream.publisher-buffer-rows=" + streamPublisherBufferRows);
+        }
+        if (lookupInListKeys < 1 || lookupTempTableThreshold < 1 || lookupParallelism < 1) {
+            throw new PropertyException("Invalid lookup settings: mysql.lookup.in-list-keys=" + lookupInListKeys
+                + ", mysql.lookup.temp-table-threshold=" + lookupTempTableThreshold + ", mysql.lookup.parallelism=" + lookupParallelism);
+        }
+        if (loaderWindowMs < 0 || loaderMaxBatchKeys < 1) {
+            throw new PropertyException("Invalid loader settings: mysql.loader.window-ms=" + loaderWindowMs
+                + ", mysql.loader.max-batch-keys=" + loaderMaxBatchKeys);
+        }
+        if (groupCommitMaxWaitMicros < 0 || groupCommitMaxRows < 1 || groupCommitMaxRows > MAX_GROUP_COMMIT_ROWS) {
+            throw new PropertyException("Invalid group commit settings: mysql.group-commit.max-wait-micros=" + groupCommitMaxWaitMicros
+                + ", mysql.group-commit.max-rows=" + groupCommitMaxRows + " (at most " + MAX_GROUP_COMMIT_ROWS + ")");
+        }
+        if (writeBehindJournalBytes < MIN_WRITE_BEHIND_JOURNAL_BYTES || writeBehindBatchRows < 1
+                || writeBehindBatchRows > MAX_GROUP_COMMIT_ROWS || writeBehindFlushIntervalMs < 1) {
+            throw new PropertyException("Invalid write-behind settings: mysql.write-behind.journal-bytes=" + writeBehindJournalBytes
+                + " (at least " + MIN_WRITE_BEHIND_JOURNAL_BYTES + "), mysql.write-behind.batch-rows=" + writeBehindBatchRows
+                + " (at most " + MAX_GROUP_COMMIT_ROWS + "), mysql.write-behind.flush-interval-ms=" + writeBehindFlushIntervalMs);
+        }
+        if (queryTimeoutMs < 0) {
+            throw new PropertyException("Invalid query timeout: mysql.query.timeout-ms=" + queryTimeoutMs);
+        }
+        if (asyncMaxConcurrency < 0 || asyncMaxQueued < 0 || asyncTimeoutMs < 0) {
+            throw new PropertyException("Invalid async settings: mysql.async.max-concurrency=" + asyncMaxConcurrency
+                + ", mysql.async.max-queued=" + asyncMaxQueued + ", mysql.async.timeout-ms=" + asyncTimeoutMs);
+        }
+        if (poolMinSize < 0 || poolMaxSize < 1 || poolMinSize > poolMaxSize) {
+            throw new PropertyException("Invalid pool size: mysql.pool.min-size=" + poolMinSize + ", mysql.pool.max-size=" + poolMaxSize);
+        }
     }
     
     public MySqlConfig(String host, int port, String database, String username, String password) {
@@ -36,11 +279,67 @@ public class MySqlConfig {
         this.mysqlDatabase = database;
         this.mysqlUsername = username;
         this.mysqlPassword = password;
+        
+        this.poolMinSize = DEFAULT_POOL_MIN_SIZE;
+        this.poolMaxSize = DEFAULT_POOL_MAX_SIZE;
+        this.poolAcquireTimeoutMs = DEFAULT_POOL_ACQUIRE_TIMEOUT_MS;
+        this.poolIdleTimeoutMs = DEFAULT_POOL_IDLE_TIMEOUT_MS;
+        this.poolMaxLifetimeMs = DEFAULT_POOL_MAX_LIFETIME_MS;
+        this.poolHousekeepingIntervalMs = DEFAULT_POOL_HOUSEKEEPING_INTERVAL_MS;
+        this.poolValidateOnBorrow = DEFAULT_POOL_VALIDATE_ON_BORROW;
+        this.poolValidationTimeoutSeconds = DEFAULT_POOL_VALIDATION_TIMEOUT_SECONDS;
+        
+        this.statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+        this.statementCacheServerSide = DEFAULT_STATEMENT_CACHE_SERVER_SIDE;
+        
+        this.bulkBatchRows = DEFAULT_BULK_BATCH_ROWS;
+        this.bulkMaxPacketBytes = DEFAULT_BULK_MAX_PACKET_BYTES;
+        
+        this.streamFetchSize = DEFAULT_STREAM_FETCH_SIZE;
+        this.streamPublisherBufferRows = DEFAULT_STREAM_PUBLISHER_BUFFER_ROWS;
+        
+        this.queryCacheEnabled = DEFAULT_QUERY_CACHE_ENABLED;
+        this.queryCacheMaxBytes = DEFAULT_QUERY_CACHE_MAX_BYTES;
+        this.queryCacheTtlMs = DEFAULT_QUERY_CACHE_TTL_MS;
+        
+        this.singleFlightEnabled = DEFAULT_SINGLE_FLIGHT_ENABLED;
+        
+        this.metricsEnabled = DEFAULT_METRICS_ENABLED;
+        this.metricsReportIntervalMs = DEFAULT_METRICS_REPORT_INTERVAL_MS;
+        
+        this.countCacheTtlMs = DEFAULT_COUNT_CACHE_TTL_MS;
+        this.countTrackedResyncMs = DEFAULT_COUNT_TRACKED_RESYNC_MS;
+        
+        this.importLocalInfile = DEFAULT_IMPORT_LOCAL_INFILE;
+        
+        this.lookupInListKeys = DEFAULT_LOOKUP_IN_LIST_KEYS;
+        this.lookupTempTableThreshold = DEFAULT_LOOKUP_TEMP_TABLE_THRESHOLD;
+        this.lookupParallelism = DEFAULT_LOOKUP_PARALLELISM;
+        this.loaderWindowMs = DEFAULT_LOADER_WINDOW_MS;
+        this.loaderMaxBatchKeys = DEFAULT_LOADER_MAX_BATCH_KEYS;
+        
+        this.groupCommitEnabled = DEFAULT_GROUP_COMMIT_ENABLED;
+        this.groupCommitMaxWaitMicros = DEFAULT_GROUP_COMMIT_MAX_WAIT_MICROS;
+        this.groupCommitMaxRows = DEFAULT_GROUP_COMMIT_MAX_ROWS;
+        
+        this.writeBehindEnabled = DEFAULT_WRITE_BEHIND_ENABLED;
+        this.writeBehindJournalPath = DEFAULT_WRITE_BEHIND_JOURNAL_PATH;
+        this.writeBehindJournalBytes = DEFAULT_WRITE_BEHIND_JOURNAL_BYTES;
+        this.writeBehindForce = DEFAULT_WRITE_BEHIND_FORCE;
+        this.writeBehindBatchRows = DEFAULT_WRITE_BEHIND_BATCH_ROWS;
+        this.writeBehindFlushIntervalMs = DEFAULT_WRITE_BEHIND_FLUSH_INTERVAL_MS;
+        
+        this.queryTimeoutMs = DEFAULT_QUERY_TIMEOUT_MS;
+        
+        this.asyncMaxConcurrency = DEFAULT_ASYNC_MAX_CONCURRENCY;
+        this.asyncMaxQueued = DEFAULT_ASYNC_MAX_QUEUED;
+        this.asyncTimeoutMs = DEFAULT_ASYNC_TIMEOUT_MS;
+        this.asyncVirtualThreads = DEFAULT_ASYNC_VIRTUAL_THREADS;
     }
     
-    private Properties loadProperties() {
+    private static Properties loadProperties() {
         Properties properties = new Properties();
-        try (InputStream input = getClass().getClassLoader().getResourceAsStream(PROPERTIES_FILE)) {
+        try (InputStream input = MySqlConfig.class.getClassLoader().getResourceAsStream(PROPERTIES_FILE)) {
             if (input == null) {
                 throw new PropertyException("Unable to find " + PROPERTIES_FILE);
             }
@@ -59,6 +358,43 @@ public class MySqlConfig {
         return value.trim();
     }
     
+    private String getOptionalProperty(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+    
+    private int getIntProperty(Properties properties, String key, int defaultValue) {
+        String value = getOptionalProperty(properties, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new PropertyException("Property '" + key + "' must be an integer but was '" + value + "'", e);
+        }
+    }
+    
+    private long getLongProperty(Properties properties, String key, long defaultValue) {
+        String value = getOptionalProperty(properties, key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new PropertyException("Property '" + key + "' must be a number but was '" + value + "'", e);
+        }
+    }
+    
+    private boolean getBooleanProperty(Properties properties, String key, boolean defaultValue) {
+        String value = getOptionalProperty(properties, key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+    
     public String getMysqlHost() {
         return mysqlHost;
     }
@@ -103,4 +439,186 @@ public class MySqlConfig {
     public String getJdbcUrl() {
         return String.format("jdbc:mysql://%s:%d/%s?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC", mysqlHost, mysqlPort, mysqlDatabase);
     }
+    
+    // Connection pool settings
+    public int getPoolMinSize() {
+        return poolMinSize;
+    }
+    
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+    
+    public long getPoolAcquireTimeoutMs() {
+        return poolAcquireTimeoutMs;
+    }
+    
+    public long getPoolIdleTimeoutMs() {
+        return poolIdleTimeoutMs;
+    }
+    
+    public long getPoolMaxLifetimeMs() {
+        return poolMaxLifetimeMs;
+    }
+    
+    public long getPoolHousekeepingIntervalMs() {
+        return poolHousekeepingIntervalMs;
+    }
+    
+    public boolean isPoolValidateOnBorrow() {
+        return poolValidateOnBorrow;
+    }
+    
+    public int getPoolValidationTimeoutSeconds() {
+        return poolValidationTimeoutSeconds;
+    }
+    
+    // Prepared statement cache settings
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+    
+    public boolean isStatementCacheServerSide() {
+        return statementCacheServerSide;
+    }
+    
+    // Bulk insert settings
+    public int getBulkBatchRows() {
+        return bulkBatchRows;
+    }
+    
+    public int getBulkMaxPacketBytes() {
+        return bulkMaxPacketBytes;
+    }
+    
+    // Streaming settings
+    public int getStreamFetchSize() {
+        return streamFetchSize;
+    }
+    
+    public int getStreamPublisherBufferRows() {
+        return streamPublisherBufferRows;
+    }
+    
+    // Query result cache settings
+    public boolean isQueryCacheEnabled() {
+        return queryCacheEnabled;
+    }
+    
+    public long getQueryCacheMaxBytes() {
+        return queryCacheMaxBytes;
+    }
+    
+    public long getQueryCacheTtlMs() {
+        return queryCacheTtlMs;
+    }
+    
+    // Single-flight settings
+    public boolean isSingleFlightEnabled() {
+        return singleFlightEnabled;
+    }
+    
+    // Metrics settings
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+    
+    public long getMetricsReportIntervalMs() {
+        return metricsReportIntervalMs;
+    }
+    
+    // Row count settings
+    public long getCountCacheTtlMs() {
+        return countCacheTtlMs;
+    }
+    
+    public long getCountTrackedResyncMs() {
+        return countTrackedResyncMs;
+    }
+    
+    // Import settings
+    public boolean isImportLocalInfile() {
+        return importLocalInfile;
+    }
+    
+    // Multi-key lookup settings
+    public int getLookupInListKeys() {
+        return lookupInListKeys;
+    }
+    
+    public int getLookupTempTableThreshold() {
+        return lookupTempTableThreshold;
+    }
+    
+    public int getLookupParallelism() {
+        return lookupParallelism;
+    }
+    
+    public long getLoaderWindowMs() {
+        return loaderWindowMs;
+    }
+    
+    public int getLoaderMaxBatchKeys() {
+        return loaderMaxBatchKeys;
+    }
+    
+    // Group commit settings
+    public boolean isGroupCommitEnabled() {
+        return groupCommitEnabled;
+    }
+    
+    public long getGroupCommitMaxWaitMicros() {
+        return groupCommitMaxWaitMicros;
+    }
+    
+    public int getGroupCommitMaxRows() {
+        return groupCommitMaxRows;
+    }
+    
+    // Write-behind settings
+    public boolean isWriteBehindEnabled() {
+        return writeBehindEnabled;
+    }
+    
+    public String getWriteBehindJournalPath() {
+        return writeBehindJournalPath;
+    }
+    
+    public int getWriteBehindJournalBytes() {
+        return writeBehindJournalBytes;
+    }
+    
+    public boolean isWriteBehindForce() {
+        return writeBehindForce;
+    }
+    
+    public int getWriteBehindBatchRows() {
+        return writeBehindBatchRows;
+    }
+    
+    public long getWriteBehindFlushIntervalMs() {
+        return writeBehindFlushIntervalMs;
+    }
+    
+    // Query timeout settings
+    public long getQueryTimeoutMs() {
+        return queryTimeoutMs;
+    }
+    
+    // Async settings
+    public int getAsyncMaxConcurrency() {
+        return asyncMaxConcurrency;
+    }
+    
+    public int getAsyncMaxQueued() {
+        return asyncMaxQueued;
+    }
+    
+    public long getAsyncTimeoutMs() {
+        return asyncTimeoutMs;
+    }
+    
+    public boolean isAsyncVirtualThreads() {
+        return asyncVirtualThreads;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,406 @@
+package org.daodao.jdbc.connectors;
+
+import org.daodao.jdbc.config.MySqlConfig;
+import org.daodao.jdbc.count.CountMode;
+import org.daodao.jdbc.export.ExportOptions;
+import org.daodao.jdbc.export.ExportResult;
+import org.daodao.jdbc.ingest.ImportOptions;
+import org.daodao.jdbc.ingest.ImportResult;
+import org.daodao.jdbc.model.BulkInsertResult;
+import org.daodao.jdbc.model.Page;
+import org.daodao.jdbc.model.Product;
+import org.daodao.jdbc.model.User;
+import org.daodao.jdbc.timeout.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// CompletableFuture facade over MySqlConnector. Each call runs the blocking connector method on its own thread,
+// virtual by default, with at most maxConcurrency calls running at once (by default the pool size, since more
+// would only wait for a connection) and up to maxQueued more waiting for a slot; beyond that calls fail fast with
+// a RejectedExecutionException instead of piling up.
+//
+// Cancelling a returned future, or its timeout expiring, kills the statement the call is running with KILL QUERY
+// and interrupts its thread if it is waiting for a slot or a pooled connection, so neither the server nor the pool
+// keeps working for a result nobody will read. A thread inside a statement is never interrupted: the driver would
+// close the connection under it.
+// Futures derived with thenApply etc. do not propagate cancellation back; cancel the future returned here.
+//
+// The timeout also becomes the call's Deadline, together with any deadline of the submitting thread's own call,
+// so the connector bounds the pool wait and the statements' server-side execution time by the same budget.
+public class AsyncMySqlConnector implements AutoCloseable {
+    
+    private static final Logger log = LoggerFactory.getLogger(AsyncMySqlConnector.class);
+    
+    private final MySqlConnector connector;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int maxConcurrency;
+    private final int maxQueued;
+    private final Duration defaultTimeout;
+    private final Semaphore permits;
+    private final ScheduledThreadPoolExecutor timer;
+    
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    
+    // Sized and timed by the mysql.async.* settings of the connector's configuration
+    public AsyncMySqlConnector(MySqlConnector connector) {
+        this(connector, connector.getConfig(), maxConcurrency(connector.getConfig()));
+    }
+    
+    private AsyncMySqlConnector(MySqlConnector connector, MySqlConfig config, int maxConcurrency) {
+        this(connector, newExecutor(config.isAsyncVirtualThreads(), maxConcurrency), true, maxConcurrency,
+            config.getAsyncMaxQueued(), Duration.ofMillis(config.getAsyncTimeoutMs()));
+    }
+    
+    // The executor stays owned by the caller and is not shut down by close(); a zero timeout waits indefinitely
+    public AsyncMySqlConnector(MySqlConnector connector, ExecutorService executor, int maxConcurrency, int maxQueued, Duration defaultTimeout) {
+        this(connector, executor, false, maxConcurrency, maxQueued, defaultTimeout);
+    }
+    
+    private AsyncMySqlConnector(MySqlConnector connector, ExecutorService executor, boolean ownsExecutor,
+                                int maxConcurrency, int maxQueued, Duration defaultTimeout) {
+        if (maxConcurrency < 1 || maxQueued < 0 || defaultTimeout.isNegative()) {
+            throw new IllegalArgumentException("Invalid async settings: maxConcurrency=" + maxConcurrency
+                + ", maxQueued=" + maxQueued + ", defaultTimeout=" + defaultTimeout);
+        }
+        this.connector = connector;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.defaultTimeout = defaultTimeout;
+        this.permits = new Semaphore(maxConcurrency);
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "mysql-async-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Most calls finish well before their timeout; don't keep their timers queued until then
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+    
+    private static int maxConcurrency(MySqlConfig config) {
+        return config.getAsyncMaxConcurrency() > 0 ? config.getAsyncMaxConcurrency() : config.getPoolMaxSize();
+    }
+    
+    private static ExecutorService newExecutor(boolean virtualThreads, int threads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mysql-async-", 0).factory());
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mysql-async-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // Runs any connector operation asynchronously with the default timeout
+    public <T> CompletableFuture<T> supplyAsync(Function<MySqlConnector, T> call) {
+        return supplyAsync(call, defaultTimeout);
+    }
+    
+    public <T> CompletableFuture<T> supplyAsync(Function<MySqlConnector, T> call, Duration timeout) {
+        Deadline deadline = timeout.isZero() ? Deadline.current() : Deadline.after(timeout).earlierOf(Deadline.current());
+        AsyncCall<T> future = new AsyncCall<>(call, deadline);
+        if (pending.incrementAndGet() > maxConcurrency + maxQueued) {
+            pending.decrementAndGet();
+            rejected.increment();
+            future.completeExceptionally(new RejectedExecutionException("Too many pending calls (running="
+                + running.get() + ", maxConcurrency=" + maxConcurrency + ", maxQueued=" + maxQueued + ")"));
+            return future;
+        }
+        if (!timeout.isZero()) {
+            ScheduledFuture<?> expiry = timer.schedule(() -> {
+                if (future.completeExceptionally(new TimeoutException("Call timed out after " + timeout.toMillis() + " ms"))) {
+                    timedOut.increment();
+                }
+            }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+            future.whenComplete((result, error) -> expiry.cancel(false));
+        }
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            rejected.increment();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    // CRUD Operations
+    
+    public CompletableFuture<Boolean> insertUserAsync(String username, String email, int age, String city) {
+        return supplyAsync(c -> c.insertUser(username, email, age, city));
+    }
+    
+    public CompletableFuture<BulkInsertResult> insertUsersAsync(Collection<User> users) {
+        return supplyAsync(c -> c.insertUsers(users));
+    }
+    
+    public CompletableFuture<Integer> insertProductsAsync(Collection<Product> products) {
+        return supplyAsync(c -> c.insertProducts(products));
+    }
+    
+    public CompletableFuture<Boolean> updateUserEmailAsync(String username, String newEmail) {
+        return supplyAsync(c -> c.updateUserEmail(username, newEmail));
+    }
+    
+    public CompletableFuture<Boolean> deleteUserAsync(String username) {
+        return supplyAsync(c -> c.deleteUser(username));
+    }
+    
+    public CompletableFuture<List<User>> findAllUserRecordsAsync() {
+        return supplyAsync(MySqlConnector::findAllUserRecords);
+    }
+    
+    public CompletableFuture<List<String>> findUsersByCityAsync(String city) {
+        return supplyAsync(c -> c.findUsersByCity(city));
+    }
+    
+    public CompletableFuture<List<User>> findUserRecordsByCityAsync(String city) {
+        return supplyAsync(c -> c.findUserRecordsByCity(city));
+    }
+    
+    public CompletableFuture<Map<String, User>> findUsersByUsernamesAsync(Collection<String> usernames) {
+        return supplyAsync(c -> c.findUsersByUsernames(usernames));
+    }
+    
+    public CompletableFuture<Page<User>> findUsersPageAsync(String pageToken, int pageSize) {
+        return supplyAsync(c -> c.findUsersPage(pageToken, pageSize));
+    }
+    
+    public CompletableFuture<Page<User>> findUsersByCityPageAsync(String city, String pageToken, int pageSize) {
+        return supplyAsync(c -> c.findUsersByCityPage(city, pageToken, pageSize));
+    }
+    
+    public CompletableFuture<List<Product>> findAllProductsAsync() {
+        return supplyAsync(MySqlConnector::findAllProducts);
+    }
+    
+    public CompletableFuture<List<Product>> findProductsByCategoryAsync(String category) {
+        return supplyAsync(c -> c.findProductsByCategory(category));
+    }
+    
+    public CompletableFuture<Integer> getUserCountAsync() {
+        return supplyAsync(MySqlConnector::getUserCount);
+    }
+    
+    public CompletableFuture<Long> getUserCountAsync(CountMode mode) {
+        return supplyAsync(c -> c.getUserCount(mode));
+    }
+    
+    public CompletableFuture<Void> executeAsync(String sql) {
+        return supplyAsync(c -> {
+            c.execute(sql);
+            return null;
+        });
+    }
+    
+    // Long-running operations usually want a longer timeout than the default
+    public CompletableFuture<ExportResult> exportQueryAsync(String sql, Path target, ExportOptions options, Duration timeout) {
+        return supplyAsync(c -> c.exportQuery(sql, target, options), timeout);
+    }
+    
+    public CompletableFuture<ImportResult> importFileAsync(Path file, ImportOptions options, Duration timeout) {
+        return supplyAsync(c -> c.importFile(file, options), timeout);
+    }
+    
+    public AsyncStats getStats() {
+        int runningCalls = running.get();
+        return new AsyncStats(runningCalls, Math.max(0, pending.get() - runningCalls), completed.sum(), failed.sum(),
+            timedOut.sum(), cancelled.sum(), rejected.sum());
+    }
+    
+    // Waits for submitted calls when the executor is owned by this facade; the connector stays connected
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.close();
+        }
+        timer.shutdownNow();
+    }
+    
+    private final class AsyncCall<T> extends CompletableFuture<T> implements Runnable {
+        
+        private final Function<MySqlConnector, T> call;
+        // Null when the call has no timeout and was not submitted from a call with a deadline
+        private final Deadline deadline;
+        // Guards runner, so an abort never interrupts a thread that has moved on to other work
+        private final ReentrantLock lock = new ReentrantLock();
+        private Thread runner;
+        // Whether the runner is inside connector.withDeadline
+        private volatile boolean invoking;
+        // Whether the runner is waiting for a permit, guarded by lock
+        private boolean awaitingPermit;
+        
+        AsyncCall(Function<MySqlConnector, T> call, Deadline deadline) {
+            this.call = call;
+            this.deadline = deadline;
+        }
+        
+        @Override
+        public void run() {
+            if (!enter()) {
+                // Cancelled or timed out while queued in the executor
+                pending.decrementAndGet();
+                return;
+            }
+            try {
+                awaitingPermit(true);
+                try {
+                    permits.acquire();
+                } finally {
+                    awaitingPermit(false);
+                }
+                try {
+                    if (!isDone()) {
+                        invoke();
+                    }
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                // Aborted while waiting for a slot, or the executor is shutting down
+                completeExceptionally(e);
+            } finally {
+                exit();
+                pending.decrementAndGet();
+            }
+        }
+        
+        private void invoke() {
+            running.incrementAndGet();
+            try {
+                T result;
+                if (deadline != null) {
+                    invoking = true;
+                    try {
+                        result = connector.withDeadline(deadline, call);
+                    } finally {
+                        invoking = false;
+                    }
+                } else {
+                    result = call.apply(connector);
+                }
+                if (complete(result)) {
+                    completed.increment();
+                }
+            } catch (RuntimeException e) {
+                // After an abort the call fails with the killed statement's error; the future already has its outcome
+                if (completeExceptionally(e)) {
+                    failed.increment();
+                }
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+        
+        private boolean enter() {
+            lock.lock();
+            try {
+                if (isDone()) {
+                    return false;
+                }
+                runner = Thread.currentThread();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void awaitingPermit(boolean waiting) {
+            lock.lock();
+            try {
+                awaitingPermit = waiting;
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void exit() {
+            lock.lock();
+            try {
+                runner = null;
+                // Don't leak an abort's interrupt into the executor's next task
+                Thread.interrupted();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean wasCancelled = super.cancel(mayInterruptIfRunning);
+            if (wasCancelled) {
+                cancelled.increment();
+                abort();
+            }
+            return wasCancelled;
+        }
+        
+        // Also reached through orTimeout() and the facade's own timeout
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            boolean completedNow = super.completeExceptionally(ex);
+            if (completedNow) {
+                abort();
+            }
+            return completedNow;
+        }
+        
+        private void abort() {
+            lock.lock();
+            try {
+                Thread thread = runner;
+                if (thread == null || thread == Thread.currentThread()) {
+                    return;
+                }
+                // The runner checks isDone once it has its permit, so an interrupt racing with the grant is harmless
+                if (awaitingPermit) {
+                    thread.interrupt();
+                    return;
+                }
+                // Past its deadline a call inside the connector is stopped by the connector's own watchdog
+                if (invoking && deadline.isExpired()) {
+                    return;
+                }
+                try {
+                    int killed = connector.cancelStatements(thread);
+                    boolean interrupted = connector.interruptWait(thread);
+                    log.debug("Aborted async call on {}, killed {} statements{}", thread, killed,
+                        interrupted ? ", interrupted its wait" : "");
+                } catch (RuntimeException e) {
+                    log.warn("Could not cancel the statements of an aborted async call: {}", e.getMessage());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package org.daodao.jdbc.connectors;
+
+// running calls hold a concurrency slot, queued calls wait for one; the counters cover the facade's lifetime
+public record AsyncStats(
+        int running,
+        int queued,
+        long completed,
+        long failed,
+        long timedOut,
+        long cancelled,
+        long rejected) {
+    
+    @Override
+    public String toString() {
+        return String.format("AsyncStats[running=%d, queued=%d, completed=%d, failed=%d, timedOut=%d, cancelled=%d, rejected=%d]",
+            running, queued, completed, failed, timedOut, cancelled, rejected);
+    }
+}
\ No newline at end of file
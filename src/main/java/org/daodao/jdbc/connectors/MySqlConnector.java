@@ -1,92 +1,561 @@
 package org.daodao.jdbc.connectors;
 
+import org.daodao.jdbc.cache.QueryCacheStats;
+import org.daodao.jdbc.cache.QueryResultCache;
+import org.daodao.jdbc.cache.SingleFlight;
+import org.daodao.jdbc.cache.SingleFlightStats;
 import org.daodao.jdbc.config.MySqlConfig;
+import org.daodao.jdbc.count.CountMode;
+import org.daodao.jdbc.count.RowCounter;
 import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.exceptions.QueryTimeoutException;
+import org.daodao.jdbc.export.ExportOptions;
+import org.daodao.jdbc.export.ExportResult;
+import org.daodao.jdbc.export.ResultSetExporter;
+import org.daodao.jdbc.ingest.BulkImporter;
+import org.daodao.jdbc.ingest.ImportOptions;
+import org.daodao.jdbc.ingest.ImportResult;
+import org.daodao.jdbc.mapper.ProductRowMapper;
+import org.daodao.jdbc.mapper.RowMapper;
+import org.daodao.jdbc.mapper.UserRowMapper;
+import org.daodao.jdbc.lookup.BatchLoader;
+import org.daodao.jdbc.lookup.KeyLookup;
+import org.daodao.jdbc.metrics.MetricsRegistry;
+import org.daodao.jdbc.metrics.MetricsReporter;
+import org.daodao.jdbc.metrics.MetricsSnapshot;
+import org.daodao.jdbc.metrics.OperationTimer;
+import org.daodao.jdbc.model.BulkInsertResult;
+import org.daodao.jdbc.model.InsertOutcome;
+import org.daodao.jdbc.model.Page;
+import org.daodao.jdbc.model.Product;
+import org.daodao.jdbc.model.User;
+import org.daodao.jdbc.pool.ConnectionFactory;
+import org.daodao.jdbc.pool.ConnectionPool;
+import org.daodao.jdbc.pool.PoolStats;
+import org.daodao.jdbc.pool.PooledConnection;
+import org.daodao.jdbc.pool.StatementCacheStats;
+import org.daodao.jdbc.scan.ScanOptions;
+import org.daodao.jdbc.scan.ScanResult;
+import org.daodao.jdbc.scan.TableScanner;
+import org.daodao.jdbc.schema.MigrationReport;
+import org.daodao.jdbc.schema.SchemaMigrations;
+import org.daodao.jdbc.schema.SchemaMigrator;
+import org.daodao.jdbc.timeout.Deadline;
+import org.daodao.jdbc.timeout.TimeoutStats;
+import org.daodao.jdbc.write.GroupCommitStats;
+import org.daodao.jdbc.write.GroupCommitter;
+import org.daodao.jdbc.write.WriteBehindBuffer;
+import org.daodao.jdbc.write.WriteBehindStats;
+import org.daodao.jdbc.write.WriteJournal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class MySqlConnector {
     
     private static final Logger log = LoggerFactory.getLogger(MySqlConnector.class);
     
-    private MySqlConfig config;
-    private Connection connection;
+    // MySQL prepared statements accept at most 65535 placeholders
+    private static final int MAX_PLACEHOLDERS = 65_535;
+    private static final int USER_INSERT_COLUMNS = 4;
+    private static final int PRODUCT_INSERT_COLUMNS = 4;
+    // Entry types in the write-behind journal
+    private static final byte INSERT_USER_ENTRY = 1;
+    private static final byte UPDATE_EMAIL_ENTRY = 2;
+    // Room left in each packet for the statement text and protocol framing
+    private static final int PACKET_HEADROOM_BYTES = 1024;
+    // Statements that never change data and so never invalidate cached results
+    private static final Pattern READ_ONLY_SQL = Pattern.compile("\\s*(SELECT|SHOW|EXPLAIN|DESCRIBE|DESC)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SQL_TOKEN_SEPARATOR = Pattern.compile("[^a-z0-9_$]+");
+    
+    static final int MAX_PAGE_SIZE = 10_000;
+    
+    // Kills the statements of calls that outlive their deadline; shared, since a firing watch only sends a KILL QUERY
+    private static final ScheduledThreadPoolExecutor DEADLINE_WATCHDOG = newDeadlineWatchdog();
+    // Innermost watch of the withDeadline call running on this thread
+    private static final ThreadLocal<DeadlineWatch> WATCH = new ThreadLocal<>();
+    
+    private final MySqlConfig config;
+    private final ConnectionFactory connectionFactory;
+    // Opens the connections of imports with mysql.import.local-infile, the only ones allowed LOAD DATA LOCAL
+    private final ConnectionFactory importConnectionFactory;
+    // Lifecycle changes are serialized with a lock rather than synchronized so virtual threads never pin on the handshake
+    private final ReentrantLock lifecycleLock = new ReentrantLock();
+    private volatile ConnectionPool pool;
+    private volatile int serverMaxAllowedPacket;
+    // Null when mysql.query-cache.enabled is false
+    private final QueryResultCache queryCache;
+    // Null when mysql.single-flight.enabled is false
+    private final SingleFlight singleFlight;
+    private final MetricsRegistry metrics;
+    private MetricsReporter metricsReporter;
+    private final RowCounter rowCounter;
+    // Null when mysql.group-commit.enabled is false
+    private final GroupCommitter<UserWrite, Boolean> groupCommitter;
+    // Null when mysql.write-behind.enabled is false or while disconnected
+    private volatile WriteBehindBuffer<UserWrite> writeBehind;
+    private final LongAdder deadlineCalls = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder statementsKilled = new LongAdder();
+    
+    // A single-row user write that group commit may combine with concurrent ones
+    private sealed interface UserWrite {
+    }
+    
+    private record InsertUserWrite(User user) implements UserWrite {
+    }
+    
+    private record UpdateEmailWrite(String username, String newEmail) implements UserWrite {
+    }
     
     public MySqlConnector() {
-        this.config = new MySqlConfig();
+        this(new MySqlConfig());
     }
     
     public MySqlConnector(MySqlConfig config) {
+        this(config, () -> openConnection(config, false), () -> openConnection(config, true));
+    }
+    
+    public MySqlConnector(MySqlConfig config, ConnectionFactory connectionFactory) {
+        this(config, connectionFactory, connectionFactory);
+    }
+    
+    public MySqlConnector(MySqlConfig config, ConnectionFactory connectionFactory, ConnectionFactory importConnectionFactory) {
         this.config = config;
+        this.connectionFactory = connectionFactory;
+        this.importConnectionFactory = importConnectionFactory;
+        this.queryCache = createQueryCache(config);
+        this.singleFlight = config.isSingleFlightEnabled() ? new SingleFlight() : null;
+        this.metrics = new MetricsRegistry(config.isMetricsEnabled());
+        this.rowCounter = createRowCounter();
+        this.groupCommitter = createGroupCommitter();
+    }
+    
+    private static ScheduledThreadPoolExecutor newDeadlineWatchdog() {
+        ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "mysql-deadline-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Most calls finish well before their deadline; don't keep their watches queued until then
+        watchdog.setRemoveOnCancelPolicy(true);
+        return watchdog;
+    }
+    
+    private static QueryResultCache createQueryCache(MySqlConfig config) {
+        return config.isQueryCacheEnabled() ? new QueryResultCache(config.getQueryCacheMaxBytes(), config.getQueryCacheTtlMs()) : null;
+    }
+    
+    private GroupCommitter<UserWrite, Boolean> createGroupCommitter() {
+        if (!config.isGroupCommitEnabled()) {
+            return null;
+        }
+        return new GroupCommitter<>(writes -> unwatched(() -> writeUserGroup(writes)), write -> unwatched(() -> writeUser(write)),
+            config.getGroupCommitMaxWaitMicros(), config.getGroupCommitMaxRows());
+    }
+    
+    private RowCounter createRowCounter() {
+        return new RowCounter(() -> pool().acquire(), metrics, config.getCountCacheTtlMs(), config.getCountTrackedResyncMs());
     }
     
     public void connect() {
+        lifecycleLock.lock();
         try {
-            if (connection != null && !connection.isClosed()) {
+            if (pool != null && !pool.isClosed()) {
                 log.info("MySQL connection already established");
                 return;
             }
             
-            Properties connectionProps = new Properties();
-            connectionProps.put("user", config.getUsername());
-            connectionProps.put("password", config.getPassword());
-            connectionProps.put("useSSL", "false");
-            connectionProps.put("allowPublicKeyRetrieval", "true");
-            connectionProps.put("serverTimezone", "UTC");
-            
-            // First try to connect to the specific database
+            ConnectionPool newPool = new ConnectionPool(config, connectionFactory);
             try {
-                connection = DriverManager.getConnection(config.getJdbcUrl(), connectionProps);
-                log.info("Connected to MySQL database at: {}", config.getJdbcUrl());
-            } catch (SQLException e) {
-                // If database doesn't exist, try to create it
-                if (e.getMessage().contains("Unknown database")) {
-                    log.info("Database '{}' does not exist, attempting to create it", config.getDatabase());
-                    
-                    // Connect to MySQL server without specifying database
-                    String serverUrl = String.format("jdbc:mysql://%s:%d?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC", 
-                                                   config.getHost(), config.getPort());
-                    try (Connection serverConnection = DriverManager.getConnection(serverUrl, connectionProps)) {
-                        try (Statement stmt = serverConnection.createStatement()) {
-                            stmt.execute("CREATE DATABASE " + config.getDatabase());
-                            log.info("Database '{}' created successfully", config.getDatabase());
-                        }
-                    }
-                    
-                    // Now connect to the newly created database
-                    connection = DriverManager.getConnection(config.getJdbcUrl(), connectionProps);
-                    log.info("Connected to MySQL database at: {}", config.getJdbcUrl());
-                } else {
-                    throw e;
-                }
+                newPool.start();
+                // Borrow once so a misconfigured server fails here even with mysql.pool.min-size=0
+                newPool.acquire().close();
+            } catch (MySqlException e) {
+                newPool.close();
+                log.error("Failed to connect to MySQL database: {}", e.getMessage());
+                throw new MySqlException("Failed to connect to MySQL database", e);
+            }
+            pool = newPool;
+            serverMaxAllowedPacket = 0;
+            if (config.isWriteBehindEnabled()) {
+                writeBehind = openWriteBehind(newPool);
             }
             
+            if (metrics.isEnabled() && config.getMetricsReportIntervalMs() > 0) {
+                metricsReporter = new MetricsReporter(metrics, config.getMetricsReportIntervalMs());
+                metricsReporter.start();
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+    
+    // Unflushed writes left by the previous run are flushed first
+    private WriteBehindBuffer<UserWrite> openWriteBehind(ConnectionPool newPool) {
+        Path journalPath = Path.of(config.getWriteBehindJournalPath());
+        try {
+            WriteJournal journal = WriteJournal.open(journalPath, config.getWriteBehindJournalBytes(), config.isWriteBehindForce());
+            WriteBehindBuffer<UserWrite> buffer = new WriteBehindBuffer<>(journal, MySqlConnector::encodeUserWrite,
+                MySqlConnector::decodeUserWrite, this::flushUserWrites, config.getWriteBehindBatchRows(), config.getWriteBehindFlushIntervalMs());
+            buffer.start();
+            return buffer;
+        } catch (IOException | RuntimeException e) {
+            pool = null;
+            newPool.close();
+            log.error("Failed to open write-behind journal {}: {}", journalPath, e.getMessage());
+            throw new MySqlException("Failed to open write-behind journal " + journalPath, e);
+        }
+    }
+    
+    private static Connection openConnection(MySqlConfig config, boolean localInfile) throws SQLException {
+        Properties connectionProps = new Properties();
+        connectionProps.put("user", config.getUsername());
+        connectionProps.put("password", config.getPassword());
+        connectionProps.put("useSSL", "false");
+        connectionProps.put("allowPublicKeyRetrieval", "true");
+        connectionProps.put("serverTimezone", "UTC");
+        if (config.isStatementCacheServerSide()) {
+            // Use the binary protocol; statements are cached per pooled connection, not by the driver
+            connectionProps.put("useServerPrepStmts", "true");
+            connectionProps.put("cachePrepStmts", "false");
+        }
+        if (config.getStreamFetchSize() > 0) {
+            // Fetch streamed results in server-side cursor batches instead of row by row
+            connectionProps.put("useCursorFetch", "true");
+        }
+        if (localInfile) {
+            // Needed for LOAD DATA LOCAL INFILE fed from setLocalInfileInputStream; pooled connections never get it
+            connectionProps.put("allowLoadLocalInfile", "true");
+        }
+        
+        // First try to connect to the specific database
+        try {
+            Connection connection = DriverManager.getConnection(config.getJdbcUrl(), connectionProps);
+            log.debug("Connected to MySQL database at: {}", config.getJdbcUrl());
+            return connection;
         } catch (SQLException e) {
-            log.error("Failed to connect to MySQL database: {}", e.getMessage());
-            throw new MySqlException("Failed to connect to MySQL database", e);
+            // If database doesn't exist, try to create it
+            if (e.getMessage() == null || !e.getMessage().contains("Unknown database")) {
+                throw e;
+            }
+            log.info("Database '{}' does not exist, attempting to create it", config.getDatabase());
+            
+            // Connect to MySQL server without specifying database
+            String serverUrl = String.format("jdbc:mysql://%s:%d?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC",
+                                           config.getHost(), config.getPort());
+            try (Connection serverConnection = DriverManager.getConnection(serverUrl, connectionProps)) {
+                try (Statement stmt = serverConnection.createStatement()) {
+                    stmt.execute("CREATE DATABASE IF NOT EXISTS " + config.getDatabase());
+                    log.info("Database '{}' created successfully", config.getDatabase());
+                }
+            }
+            
+            // Now connect to the newly created database
+            Connection connection = DriverManager.getConnection(config.getJdbcUrl(), connectionProps);
+            log.info("Connected to MySQL database at: {}", config.getJdbcUrl());
+            return connection;
         }
     }
     
     public void disconnect() {
+        lifecycleLock.lock();
         try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+            // Drained while the pool is still open; what cannot be written stays in the journal
+            if (writeBehind != null) {
+                try {
+                    writeBehind.close();
+                } finally {
+                    writeBehind = null;
+                }
+            }
+            if (pool != null && !pool.isClosed()) {
+                pool.close();
                 log.info("Disconnected from MySQL database");
             }
-        } catch (SQLException e) {
-            log.error("Error closing MySQL connection: {}", e.getMessage());
-            throw new MySqlException("Error closing MySQL connection", e);
+            if (metricsReporter != null) {
+                metricsReporter.close();
+                metricsReporter = null;
+            }
+            // Nothing observes writes while disconnected, so start from an empty cache on reconnect
+            if (queryCache != null) {
+                queryCache.invalidateAll();
+            }
+            rowCounter.resetAll();
+        } finally {
+            lifecycleLock.unlock();
         }
     }
     
-    public boolean isDatabaseEmpty() {
+    public MySqlConfig getConfig() {
+        return config;
+    }
+    
+    public PoolStats getPoolStats() {
+        return pool().getStats();
+    }
+    
+    // Kills the statements running on connections borrowed by thread; its call fails with a MySqlException
+    public int cancelStatements(Thread thread) {
+        return pool().cancelStatements(thread);
+    }
+    
+    // Interrupts thread if it is waiting for a pooled connection or for an identical query in flight, and only
+    // then; returns whether it did
+    public boolean interruptWait(Thread thread) {
+        return pool().interruptWaiter(thread) || singleFlight != null && singleFlight.interruptWaiter(thread);
+    }
+    
+    // Runs call with a time budget. Connections are waited for no longer than the deadline, every statement the call
+    // prepares carries the time left as query timeout and MAX_EXECUTION_TIME hint, and a statement still running when
+    // the deadline passes is killed with KILL QUERY. Cached reads wait for an identical query in flight no longer
+    // than the deadline either. A call that fails after its deadline passed throws a QueryTimeoutException. Calls
+    // nested in another deadline keep the earlier of the two.
+    public <T> T withDeadline(Deadline deadline, Function<MySqlConnector, T> call) {
+        Deadline effective = deadline.earlierOf(Deadline.current());
+        deadlineCalls.increment();
+        if (effective.isExpired()) {
+            timedOut.increment();
+            throw new QueryTimeoutException("Deadline of " + effective.timeout().toMillis() + " ms passed before the call started");
+        }
+        DeadlineWatch watch = new DeadlineWatch(Thread.currentThread(), effective, WATCH.get());
+        ScheduledFuture<?> expiry = DEADLINE_WATCHDOG.schedule(watch, effective.remainingNanos(), TimeUnit.NANOSECONDS);
+        WATCH.set(watch);
+        try {
+            return effective.call(() -> call.apply(this));
+        } catch (MySqlException e) {
+            if (!effective.isExpired()) {
+                throw e;
+            }
+            timedOut.increment();
+            if (e instanceof QueryTimeoutException) {
+                throw e;
+            }
+            log.warn("Call exceeded its deadline of {} ms: {}", effective.timeout().toMillis(), e.getMessage());
+            throw new QueryTimeoutException("Call exceeded its deadline of " + effective.timeout().toMillis() + " ms", e);
+        } finally {
+            if (watch.parent == null) {
+                WATCH.remove();
+            } else {
+                WATCH.set(watch.parent);
+            }
+            watch.finish();
+            expiry.cancel(false);
+        }
+    }
+    
+    // Runs write with the watches of this thread's withDeadline calls stood down, unless it runs under their own
+    // deadline. A group commit leader writes for other callers, whose statements its deadline must not kill.
+    private <T> T unwatched(Supplier<T> write) {
+        DeadlineWatch watch = WATCH.get();
+        if (watch == null || watch.deadline == Deadline.current()) {
+            return write.get();
+        }
+        watch.suspend(1);
         try {
-            DatabaseMetaData metaData = connection.getMetaData();
+            return write.get();
+        } finally {
+            watch.suspend(-1);
+        }
+    }
+    
+    public <T> T withTimeout(Duration timeout, Function<MySqlConnector, T> call) {
+        return withDeadline(Deadline.after(timeout), call);
+    }
+    
+    public TimeoutStats getTimeoutStats() {
+        return new TimeoutStats(deadlineCalls.sum(), timedOut.sum(), statementsKilled.sum());
+    }
+    
+    // Fires when a call's deadline passes while the call is still running
+    private final class DeadlineWatch implements Runnable {
+        
+        private final Thread thread;
+        private final Deadline deadline;
+        // Watch of the enclosing withDeadline call on the same thread, or null
+        private final DeadlineWatch parent;
+        // Held while killing, so a watch never kills statements of work the thread moved on to after its call
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean finished;
+        private int suspended;
+        
+        DeadlineWatch(Thread thread, Deadline deadline, DeadlineWatch parent) {
+            this.thread = thread;
+            this.deadline = deadline;
+            this.parent = parent;
+        }
+        
+        @Override
+        public void run() {
+            lock.lock();
+            try {
+                ConnectionPool current = pool;
+                if (finished || suspended > 0 || current == null || current.isClosed()) {
+                    return;
+                }
+                int killed = current.cancelStatements(thread);
+                statementsKilled.add(killed);
+                log.debug("Deadline passed on {}, killed {} statements", thread, killed);
+            } catch (RuntimeException e) {
+                log.warn("Could not cancel the statements of a call past its deadline: {}", e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        // Applies to the enclosing watches too; waits for a kill in flight
+        void suspend(int delta) {
+            for (DeadlineWatch watch = this; watch != null; watch = watch.parent) {
+                watch.lock.lock();
+                try {
+                    watch.suspended += delta;
+                } finally {
+                    watch.lock.unlock();
+                }
+            }
+        }
+        
+        void finish() {
+            lock.lock();
+            try {
+                finished = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    public StatementCacheStats getStatementCacheStats() {
+        return pool().getStatementCacheStats();
+    }
+    
+    // Counters accumulate for the lifetime of the connector, across reconnects
+    public MetricsSnapshot getMetricsSnapshot() {
+        return metrics.snapshot();
+    }
+    
+    public QueryCacheStats getQueryCacheStats() {
+        return queryCache != null ? queryCache.getStats() : new QueryCacheStats(0, 0, 0, 0, 0, 0, 0, 0);
+    }
+    
+    public GroupCommitStats getGroupCommitStats() {
+        return groupCommitter != null ? groupCommitter.getStats() : new GroupCommitStats(0, 0, 0, 0);
+    }
+    
+    public WriteBehindStats getWriteBehindStats() {
+        WriteBehindBuffer<UserWrite> buffer = writeBehind;
+        return buffer != null ? buffer.getStats() : new WriteBehindStats(0, 0, 0, 0, 0, 0, 0, 0);
+    }
+    
+    public SingleFlightStats getSingleFlightStats() {
+        return singleFlight != null ? singleFlight.getStats() : new SingleFlightStats(0, 0, 0);
+    }
+    
+    // Cache misses for the same SQL and parameters are coalesced, so a burst of identical reads costs one query.
+    // The loader runs on the calling thread, under its deadline and watch; a load that fails is never cached.
+    private <T> T cached(String table, String sql, List<?> params, ToLongFunction<? super T> sizer, Supplier<T> loader) {
+        Supplier<T> coalesced = singleFlight != null ? () -> singleFlight.execute(table, sql, params, loader) : loader;
+        return queryCache != null ? queryCache.get(table, sql, params, sizer, coalesced) : coalesced.get();
+    }
+    
+    private void invalidateCache(String table) {
+        if (queryCache != null) {
+            queryCache.invalidate(table);
+        }
+        if (singleFlight != null) {
+            singleFlight.invalidate(table);
+        }
+    }
+    
+    // Drops cached results and row counts of every table a write statement mentions; database-level statements clear everything
+    private void invalidateCacheFor(String sql) {
+        if (READ_ONLY_SQL.matcher(sql).lookingAt()) {
+            return;
+        }
+        // In-flight reads are few and short-lived, so any write simply stops new callers from joining them
+        if (singleFlight != null) {
+            singleFlight.invalidateAll();
+        }
+        List<String> tokens = Arrays.asList(SQL_TOKEN_SEPARATOR.split(sql.trim().toLowerCase(Locale.ROOT)));
+        if (tokens.contains("database") || tokens.contains("schema") || tokens.get(0).equals("use")) {
+            if (queryCache != null) {
+                queryCache.invalidateAll();
+            }
+            rowCounter.resetAll();
+            return;
+        }
+        if (queryCache != null) {
+            for (String table : queryCache.knownTables()) {
+                if (tokens.contains(table)) {
+                    queryCache.invalidate(table);
+                }
+            }
+        }
+        for (String table : rowCounter.knownTables()) {
+            if (tokens.contains(table)) {
+                rowCounter.reset(table);
+            }
+        }
+    }
+    
+    private static long estimateUserBytes(List<User> users) {
+        long bytes = 16 + 8L * users.size();
+        for (User user : users) {
+            bytes += 32 + QueryResultCache.sizeOf(user.username()) + QueryResultCache.sizeOf(user.email()) + QueryResultCache.sizeOf(user.city());
+        }
+        return bytes;
+    }
+    
+    private ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current == null || current.isClosed()) {
+            throw new MySqlException("MySQL connector is not connected");
+        }
+        return current;
+    }
+    
+    public boolean isDatabaseEmpty() {
+        try (PooledConnection conn = pool().acquire()) {
+            DatabaseMetaData metaData = conn.getConnection().getMetaData();
             ResultSet tables = metaData.getTables(null, null, "users", new String[]{"TABLE"});
             boolean hasUsersTable = tables.next();
             tables.close();
@@ -95,207 +564,946 @@ public class MySqlConnector {
                 return true;
             }
             
-            ResultSet rs = connection.createStatement().executeQuery("SELECT COUNT(*) FROM users");
-            rs.next();
-            int count = rs.getInt(1);
-            rs.close();
-            
-            return count == 0;
-            
+            // Stops at the first row instead of counting them all
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(conn.hintMaxExecutionTime("SELECT 1 FROM users LIMIT 1"))) {
+                return !rs.next();
+            }
+        
         } catch (SQLException e) {
             log.error("Error checking if database is empty: {}", e.getMessage());
             throw new MySqlException("Error checking if database is empty", e);
         }
     }
     
+    // Kept for existing callers: the schema is now created and upgraded by versioned migrations
     public void initializeDatabase() {
-        log.info("Initializing MySQL database with schema, tables, and sample data");
-        
-        // Create users table
-        String createUsersTable = """
-            CREATE TABLE IF NOT EXISTS users (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                username VARCHAR(50) NOT NULL UNIQUE,
-                email VARCHAR(100) NOT NULL UNIQUE,
-                age INT,
-                city VARCHAR(50),
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
-            )
-            """;
-        execute(createUsersTable);
-        log.info("Users table created successfully");
-        
-        // Create products table
-        String createProductsTable = """
-            CREATE TABLE IF NOT EXISTS products (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                name VARCHAR(100) NOT NULL,
-                category VARCHAR(50),
-                price DECIMAL(10,2),
-                stock_quantity INT DEFAULT 0,
-                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-            )
-            """;
-        execute(createProductsTable);
-        log.info("Products table created successfully");
-        
-        // Create indexes (MySQL doesn't support IF NOT EXISTS for CREATE INDEX)
-        try {
-            String createEmailIndex = "CREATE INDEX idx_users_email ON users(email)";
-            execute(createEmailIndex);
-        } catch (Exception e) {
-            log.debug("Email index may already exist: {}", e.getMessage());
-        }
-        
-        try {
-            String createUsernameIndex = "CREATE INDEX idx_users_username ON users(username)";
-            execute(createUsernameIndex);
-        } catch (Exception e) {
-            log.debug("Username index may already exist: {}", e.getMessage());
-        }
-        
-        try {
-            String createProductsCategoryIndex = "CREATE INDEX idx_products_category ON products(category)";
-            execute(createProductsCategoryIndex);
-        } catch (Exception e) {
-            log.debug("Products category index may already exist: {}", e.getMessage());
-        }
-        
-        try {
-            String createProductsPriceIndex = "CREATE INDEX idx_products_price ON products(price)";
-            execute(createProductsPriceIndex);
-        } catch (Exception e) {
-            log.debug("Products price index may already exist: {}", e.getMessage());
+        migrate();
+    }
+    
+    // Applies pending SchemaMigrations; on an up-to-date database this is a single query against schema_version
+    public MigrationReport migrate() {
+        try (OperationTimer timer = metrics.start("migrate", null)) {
+            MigrationReport report = new SchemaMigrator(() -> pool().acquire(), SchemaMigrations.ALL).migrate();
+            if (!report.isWarmStart()) {
+                // Migrations bypass execute(), so drop whatever the cache and counters saw before them
+                if (queryCache != null) {
+                    queryCache.invalidateAll();
+                }
+                rowCounter.resetAll();
+            }
+            timer.success(report.applied().size());
+            return report;
         }
-        
-        log.info("Indexes created successfully");
-        
-        // Create view
-        String createView = """
-            CREATE OR REPLACE VIEW user_product_summary AS
-            SELECT 
-                u.id as user_id,
-                u.username,
-                u.email,
-                u.city,
-                COUNT(p.id) as product_count,
-                COALESCE(SUM(p.price), 0) as total_product_value
-            FROM users u
-            LEFT JOIN products p ON u.id = p.id
-            GROUP BY u.id, u.username, u.email, u.city
-            """;
-        execute(createView);
-        log.info("View created successfully");
-        
-        // Insert sample data
-        insertSampleData();
-        
-        log.info("Database initialization completed successfully");
-    }
-    
-    private void insertSampleData() {
-        // Insert sample users
-        String insertUsers = """
-            INSERT IGNORE INTO users (username, email, age, city) VALUES
-            ('john_doe', 'john.doe@example.com', 30, 'New York'),
-            ('jane_smith', 'jane.smith@example.com', 25, 'Los Angeles'),
-            ('bob_wilson', 'bob.wilson@example.com', 35, 'Chicago'),
-            ('alice_brown', 'alice.brown@example.com', 28, 'Houston'),
-            ('charlie_davis', 'charlie.davis@example.com', 32, 'Phoenix')
-            """;
-        execute(insertUsers);
-        
-        // Insert sample products
-        String insertProducts = """
-            INSERT IGNORE INTO products (name, category, price, stock_quantity) VALUES
-            ('Laptop', 'Electronics', 999.99, 50),
-            ('Smartphone', 'Electronics', 699.99, 100),
-            ('Desk Chair', 'Furniture', 199.99, 25),
-            ('Coffee Maker', 'Appliances', 89.99, 75),
-            ('Headphones', 'Electronics', 149.99, 60)
-            """;
-        execute(insertProducts);
-        
-        log.info("Sample data inserted successfully");
     }
     
     public void execute(String sql) throws MySqlException {
-        try {
-            Statement stmt = connection.createStatement();
+        try (OperationTimer timer = metrics.start("execute", sql);
+             PooledConnection conn = pool().acquire();
+             Statement stmt = conn.createStatement()) {
             log.debug("Executing SQL: {}", sql);
-            stmt.execute(sql);
-            stmt.close();
+            boolean hasResultSet = stmt.execute(conn.hintMaxExecutionTime(sql));
+            invalidateCacheFor(sql);
+            timer.success(hasResultSet ? 0 : stmt.getUpdateCount());
         } catch (SQLException e) {
             log.error("Error executing SQL: {}", sql);
             throw new MySqlException("Error executing SQL: " + sql, e);
         }
     }
     
+    // Results are copied into a disconnected row set so the pooled connection can be returned immediately
     public ResultSet executeQuery(String sql) throws SQLException {
         log.debug("Executing query: {}", sql);
-        return connection.createStatement().executeQuery(sql);
+        try (OperationTimer timer = metrics.start("executeQuery", sql);
+             PooledConnection conn = pool().acquire();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(conn.hintMaxExecutionTime(sql))) {
+            CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+            rowSet.populate(rs);
+            timer.success(rowSet.size());
+            return rowSet;
+        }
     }
     
     // CRUD Operations
     
     public List<String> findAllUsers() {
-        List<String> users = new ArrayList<>();
+        List<User> records = findAllUserRecords();
+        List<String> users = new ArrayList<>(records.size());
+        for (User user : records) {
+            users.add("User: " + user.username() + ", Email: " + user.email() + ", Age: " + user.age() + ", City: " + user.city());
+        }
+        return users;
+    }
+    
+    public List<User> findAllUserRecords() {
         String sql = "SELECT username, email, age, city FROM users ORDER BY username";
         
-        try {
-            ResultSet rs = executeQuery(sql);
-            while (rs.next()) {
-                String user = String.format("User: %s, Email: %s, Age: %d, City: %s",
-                    rs.getString("username"),
-                    rs.getString("email"),
-                    rs.getInt("age"),
-                    rs.getString("city"));
-                users.add(user);
-            }
-            rs.close();
+        try (OperationTimer timer = metrics.start("findAllUserRecords", sql);
+             PooledConnection conn = pool().acquire()) {
+            List<User> users = queryList(conn, sql, UserRowMapper.DEFAULT);
+            timer.success(users.size());
+            return users;
         } catch (SQLException e) {
             log.error("Error retrieving users: {}", e.getMessage());
             throw new MySqlException("Error retrieving users", e);
         }
+    }
+    
+    public List<Product> findAllProducts() {
+        String sql = "SELECT id, name, category, price, stock_quantity FROM products ORDER BY id";
         
-        return users;
+        try (OperationTimer timer = metrics.start("findAllProducts", sql);
+             PooledConnection conn = pool().acquire()) {
+            List<Product> products = queryList(conn, sql, ProductRowMapper.DEFAULT);
+            timer.success(products.size());
+            return products;
+        } catch (SQLException e) {
+            log.error("Error retrieving products: {}", e.getMessage());
+            throw new MySqlException("Error retrieving products", e);
+        }
+    }
+    
+    public List<Product> findProductsByCategory(String category) {
+        String sql = "SELECT id, name, category, price, stock_quantity FROM products WHERE category = ? ORDER BY id";
+        
+        try (OperationTimer timer = metrics.start("findProductsByCategory", sql);
+             PooledConnection conn = pool().acquire()) {
+            List<Product> products = queryList(conn, sql, ProductRowMapper.DEFAULT, category);
+            timer.success(products.size());
+            return products;
+        } catch (SQLException e) {
+            log.error("Error finding products by category: {}", e.getMessage());
+            throw new MySqlException("Error finding products by category", e);
+        }
+    }
+    
+    private <T> List<T> queryList(PooledConnection conn, String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) {
+            pstmt.setObject(i + 1, params[i]);
+        }
+        
+        List<T> rows = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                rows.add(mapper.mapRow(rs));
+            }
+        }
+        return rows;
+    }
+    
+    // Keyset pagination: each page seeks past the last username of the previous page through the unique
+    // username index, so a deep page costs the same as the first one. Pass a null token for the first page.
+    public Page<User> findUsersPage(String pageToken, int pageSize) {
+        checkPageSize(pageSize);
+        String sql;
+        Object[] params;
+        if (pageToken == null) {
+            sql = "SELECT username, email, age, city FROM users ORDER BY username LIMIT ?";
+            params = new Object[]{pageSize + 1};
+        } else {
+            String after = PageToken.decode(pageToken, "users", 1)[0];
+            sql = "SELECT username, email, age, city FROM users WHERE username > ? ORDER BY username LIMIT ?";
+            params = new Object[]{after, pageSize + 1};
+        }
+        
+        try (OperationTimer timer = metrics.start("findUsersPage", sql);
+             PooledConnection conn = pool().acquire()) {
+            List<User> users = queryList(conn, sql, UserRowMapper.DEFAULT, params);
+            Page<User> page = toPage(users, pageSize, last -> PageToken.encode("users", last.username()));
+            timer.success(page.items().size());
+            return page;
+        } catch (SQLException e) {
+            log.error("Error retrieving users page: {}", e.getMessage());
+            throw new MySqlException("Error retrieving users page", e);
+        }
+    }
+    
+    // Seeks on (city, username) through idx_users_city_username; a token is only valid for the city it was issued for
+    public Page<User> findUsersByCityPage(String city, String pageToken, int pageSize) {
+        checkPageSize(pageSize);
+        String sql;
+        Object[] params;
+        if (pageToken == null) {
+            sql = "SELECT username, email, age, city FROM users WHERE city = ? ORDER BY username LIMIT ?";
+            params = new Object[]{city, pageSize + 1};
+        } else {
+            String[] keys = PageToken.decode(pageToken, "users-by-city", 2);
+            if (!keys[0].equals(city)) {
+                throw new IllegalArgumentException("Page token was issued for city '" + keys[0] + "', not '" + city + "'");
+            }
+            sql = "SELECT username, email, age, city FROM users WHERE city = ? AND username > ? ORDER BY username LIMIT ?";
+            params = new Object[]{city, keys[1], pageSize + 1};
+        }
+        
+        try (OperationTimer timer = metrics.start("findUsersByCityPage", sql);
+             PooledConnection conn = pool().acquire()) {
+            List<User> users = queryList(conn, sql, UserRowMapper.DEFAULT, params);
+            Page<User> page = toPage(users, pageSize, last -> PageToken.encode("users-by-city", city, last.username()));
+            timer.success(page.items().size());
+            return page;
+        } catch (SQLException e) {
+            log.error("Error finding users page by city: {}", e.getMessage());
+            throw new MySqlException("Error finding users page by city", e);
+        }
+    }
+    
+    private static void checkPageSize(int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + " but was " + pageSize);
+        }
+    }
+    
+    // Pages are fetched with LIMIT pageSize + 1; the extra row only tells us whether another page exists
+    private static <T> Page<T> toPage(List<T> rows, int pageSize, Function<T, String> tokenFor) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new Page<>(items, tokenFor.apply(items.get(pageSize - 1)));
     }
     
+    // The stream holds a pooled connection until it is closed or fully consumed; use try-with-resources
+    public Stream<User> streamAllUsers() {
+        return streamQuery("SELECT username, email, age, city FROM users ORDER BY username", UserRowMapper.DEFAULT);
+    }
+    
+    public <T> Stream<T> streamQuery(String sql, RowMapper<T> mapper) {
+        ResultSetSpliterator<T> spliterator = openStream(sql, mapper);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+    
+    // Each subscriber runs the query on its own connection, reading rows only as it requests them and at most
+    // mysql.stream.publisher-buffer-rows ahead; the connection is released on completion, error or cancel
+    public Flow.Publisher<User> publishAllUsers() {
+        return publishQuery("SELECT username, email, age, city FROM users ORDER BY username", UserRowMapper.DEFAULT);
+    }
+    
+    public <T> Flow.Publisher<T> publishQuery(String sql, RowMapper<T> mapper) {
+        return publishQuery(sql, mapper, config.getStreamPublisherBufferRows());
+    }
+    
+    public <T> Flow.Publisher<T> publishQuery(String sql, RowMapper<T> mapper, int bufferRows) {
+        if (bufferRows < 1) {
+            throw new IllegalArgumentException("bufferRows must be at least 1 but was " + bufferRows);
+        }
+        return new ResultSetPublisher<>(() -> openStream(sql, mapper), bufferRows);
+    }
+    
+    private <T> ResultSetSpliterator<T> openStream(String sql, RowMapper<T> mapper) {
+        PooledConnection conn = pool().acquire();
+        PreparedStatement stmt = null;
+        try {
+            stmt = prepareStreaming(conn, sql, config.getStreamFetchSize());
+            log.debug("Streaming query: {}", sql);
+            ResultSet rs = stmt.executeQuery();
+            
+            return new ResultSetSpliterator<>(conn, stmt, rs, mapper);
+        } catch (SQLException | RuntimeException e) {
+            if (stmt != null) {
+                try {
+                    stmt.close();
+                } catch (SQLException closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            conn.close();
+            if (e instanceof MySqlException mySqlException) {
+                throw mySqlException;
+            }
+            log.error("Error starting streaming query: {}", e.getMessage());
+            throw new MySqlException("Error starting streaming query: " + sql, e);
+        }
+    }
+    
+    // Scans the whole table on up to options.parallelism() connections by primary key range; the consumer is
+    // called on this thread, one row at a time
+    public ScanResult scanUsers(Consumer<? super User> consumer, ScanOptions options) {
+        return scanTable("users", "id", List.of("username", "email", "age", "city"), UserRowMapper.DEFAULT, consumer, options);
+    }
+    
+    public ScanResult scanProducts(Consumer<? super Product> consumer, ScanOptions options) {
+        return scanTable("products", "id", List.of("id", "name", "category", "price", "stock_quantity"), ProductRowMapper.DEFAULT, consumer, options);
+    }
+    
+    public <T> ScanResult scanTable(String table, String keyColumn, List<String> columns, RowMapper<T> mapper,
+                                    Consumer<? super T> consumer, ScanOptions options) {
+        // Workers and the coordinator hold a connection each at the same time
+        int parallelism = Math.min(options.parallelism(), Math.max(1, config.getPoolMaxSize() - 1));
+        if (parallelism < options.parallelism()) {
+            log.warn("Scan parallelism {} exceeds mysql.pool.max-size {} less one coordinator connection, using {}",
+                options.parallelism(), config.getPoolMaxSize(), parallelism);
+        }
+        ConnectionPool pool = pool();
+        try (OperationTimer timer = metrics.start("scanTable", null)) {
+            ScanResult result = new TableScanner(pool::acquire, options.withParallelism(parallelism), config.getStreamFetchSize())
+                .scan(table, keyColumn, columns, mapper, consumer);
+            timer.success(result.rows());
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MySqlException("Scan of " + table + " interrupted", e);
+        }
+    }
+    
+    // Not taken from the statement cache: streaming statements are closed with their result set
+    private PreparedStatement prepareStreaming(PooledConnection conn, String sql, int fetchSize) throws SQLException {
+        PreparedStatement stmt = conn.getConnection().prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(fetchSize > 0 ? fetchSize : Integer.MIN_VALUE);
+        return stmt;
+    }
+    
+    // Streams the result of any query into a CSV or TSV file; memory use is bounded by the fetch size and
+    // ExportOptions.bufferBytes, not by the number of rows
+    public ExportResult exportQuery(String sql, Path target, ExportOptions options) {
+        int fetchSize = options.fetchSize() > 0 ? options.fetchSize() : config.getStreamFetchSize();
+        if (fetchSize > 0 && config.getStreamFetchSize() <= 0) {
+            // Without useCursorFetch the driver would buffer the whole result for a positive fetch size
+            log.warn("Fetch size {} needs mysql.stream.fetch-size > 0 to enable cursor fetch, streaming row by row instead", fetchSize);
+            fetchSize = 0;
+        }
+        log.debug("Exporting query to {}: {}", target, sql);
+        try (OperationTimer timer = metrics.start("exportQuery", sql);
+             PooledConnection conn = pool().acquire();
+             PreparedStatement stmt = prepareStreaming(conn, sql, fetchSize);
+             ResultSet rs = stmt.executeQuery()) {
+            ExportResult result = new ResultSetExporter(options).export(rs, target);
+            timer.success(result.rows());
+            return result;
+        } catch (SQLException e) {
+            log.error("Error exporting query: {}", e.getMessage());
+            throw new MySqlException("Error exporting query: " + sql, e);
+        } catch (IOException e) {
+            log.error("Error writing export file {}: {}", target, e.getMessage());
+            throw new MySqlException("Error writing export file " + target, e);
+        }
+    }
+    
+    // With group commit enabled, concurrent calls are written together; each still returns its own result
     public boolean insertUser(String username, String email, int age, String city) {
+        if (groupCommitter != null && username != null && email != null) {
+            try (OperationTimer timer = metrics.start("insertUser", null)) {
+                boolean inserted = groupCommitter.submit(new InsertUserWrite(new User(username, email, age, city)));
+                timer.success(inserted ? 1 : 0);
+                return inserted;
+            }
+        }
         String sql = "INSERT IGNORE INTO users (username, email, age, city) VALUES (?, ?, ?, ?)";
         
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (OperationTimer timer = metrics.start("insertUser", sql)) {
+            boolean inserted = insertUserRow(sql, username, email, age, city);
+            timer.success(inserted ? 1 : 0);
+            return inserted;
+        }
+    }
+    
+    private boolean insertUserRow(String sql, String username, String email, int age, String city) {
+        try (PooledConnection conn = pool().acquire()) {
+            PreparedStatement pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, username);
             pstmt.setString(2, email);
             pstmt.setInt(3, age);
             pstmt.setString(4, city);
             
             int rowsAffected = pstmt.executeUpdate();
-            pstmt.close();
-            log.info("User inserted successfully: {}", username);
+            if (rowsAffected > 0) {
+                invalidateCache("users");
+                rowCounter.adjust("users", rowsAffected);
+            }
+            log.debug("User inserted successfully: {}", username);
             return rowsAffected > 0;
-            
+        
         } catch (SQLException e) {
             log.error("Error inserting user: {}", e.getMessage());
             throw new MySqlException("Error inserting user", e);
         }
     }
     
+    public BulkInsertResult insertUsers(Collection<User> users) {
+        List<User> rows = List.copyOf(users);
+        InsertOutcome[] outcomes = new InsertOutcome[rows.size()];
+        int maxRows = Math.min(config.getBulkBatchRows(), MAX_PLACEHOLDERS / USER_INSERT_COLUMNS);
+        int chunks = 0;
+        BulkInsertResult result = null;
+        
+        // Chunk statements vary in row count, so only the operation is timed
+        try (OperationTimer timer = metrics.start("insertUsers", null);
+             PooledConnection conn = pool().acquire()) {
+            int packetLimit = effectivePacketLimit(conn);
+            // Keys claimed by earlier rows of this call, lower-cased to follow the case-insensitive collation
+            Set<String> claimed = new HashSet<>();
+            
+            int from = 0;
+            while (from < rows.size()) {
+                int to = chunkEnd(rows, from, maxRows, packetLimit);
+                insertUserChunk(conn, rows, from, to, outcomes, claimed);
+                from = to;
+                chunks++;
+            }
+            result = new BulkInsertResult(Arrays.asList(outcomes), chunks);
+            rowCounter.adjust("users", result.insertedCount());
+            timer.success(result.insertedCount());
+        } catch (SQLException e) {
+            log.error("Error bulk inserting users: {}", e.getMessage());
+            throw new MySqlException("Error bulk inserting users", e);
+        } finally {
+            // Chunks committed before a failure are still visible
+            if (chunks > 0) {
+                invalidateCache("users");
+                // How many rows the committed chunks added is unknown after a failure
+                if (result == null) {
+                    rowCounter.reset("users");
+                }
+            }
+        }
+        
+        log.debug("Bulk inserted {} of {} users in {} chunks", result.insertedCount(), rows.size(), chunks);
+        return result;
+    }
+    
+    // One chunk = one transaction
+    private void insertUserChunk(PooledConnection conn, List<User> rows, int from, int to, InsertOutcome[] outcomes,
+                                 Set<String> claimed) throws SQLException {
+        Connection connection = conn.getConnection();
+        connection.setAutoCommit(false);
+        try {
+            insertUserRows(conn, rows, from, to, outcomes, claimed);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+    
+    // Finds existing keys, then a single multi-row INSERT IGNORE for the rest; runs in the caller's transaction
+    private void insertUserRows(PooledConnection conn, List<User> rows, int from, int to, InsertOutcome[] outcomes,
+                                Set<String> claimed) throws SQLException {
+        Set<String> existing = findExistingUserKeys(conn, rows.subList(from, to));
+        
+        List<Integer> candidates = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            User user = rows.get(i);
+            String usernameKey = "u:" + user.username().toLowerCase(Locale.ROOT);
+            String emailKey = "e:" + user.email().toLowerCase(Locale.ROOT);
+            if (existing.contains(usernameKey) || existing.contains(emailKey)
+                    || claimed.contains(usernameKey) || claimed.contains(emailKey)) {
+                outcomes[i] = InsertOutcome.DUPLICATE;
+            } else {
+                claimed.add(usernameKey);
+                claimed.add(emailKey);
+                outcomes[i] = InsertOutcome.INSERTED;
+                candidates.add(i);
+            }
+        }
+        
+        if (!candidates.isEmpty()) {
+            int inserted;
+            try (PreparedStatement pstmt = conn.prepareUncachedStatement(multiRowInsertSql(candidates.size()))) {
+                int index = 1;
+                for (int row : candidates) {
+                    User user = rows.get(row);
+                    pstmt.setString(index++, user.username());
+                    pstmt.setString(index++, user.email());
+                    pstmt.setInt(index++, user.age());
+                    pstmt.setString(index++, user.city());
+                }
+                inserted = pstmt.executeUpdate();
+            }
+            if (inserted != candidates.size()) {
+                // A concurrent writer claimed some keys between the lookup and the insert
+                log.warn("Bulk insert expected {} new users but inserted {}, resolving outcomes", candidates.size(), inserted);
+                resolveInsertedUsers(conn, rows, candidates, outcomes);
+            }
+        }
+    }
+    
+    private boolean writeUser(UserWrite write) {
+        return switch (write) {
+            case InsertUserWrite insert -> insertUserRow("INSERT IGNORE INTO users (username, email, age, city) VALUES (?, ?, ?, ?)",
+                insert.user().username(), insert.user().email(), insert.user().age(), insert.user().city());
+            case UpdateEmailWrite update -> updateUserEmailRow("UPDATE users SET email = ?, updated_at = CURRENT_TIMESTAMP WHERE username = ?",
+                update.username(), update.newEmail());
+        };
+    }
+    
+    // One transaction for the whole group: inserts first, with the same duplicate detection as insertUsers, then
+    // one UPDATE for every email change. Results are per write, in order.
+    private List<Boolean> writeUserGroup(List<UserWrite> writes) {
+        Boolean[] results = new Boolean[writes.size()];
+        List<User> inserts = new ArrayList<>();
+        List<Integer> insertPositions = new ArrayList<>();
+        // Concurrent changes of one user's email are applied in arrival order, so the last one sticks
+        Map<String, UpdateEmailWrite> updates = new LinkedHashMap<>();
+        for (int i = 0; i < writes.size(); i++) {
+            if (writes.get(i) instanceof InsertUserWrite insert) {
+                inserts.add(insert.user());
+                insertPositions.add(i);
+            } else if (writes.get(i) instanceof UpdateEmailWrite update) {
+                updates.put(update.username().toLowerCase(Locale.ROOT), update);
+            }
+        }
+        
+        int inserted = 0;
+        Set<String> updated = Set.of();
+        try (OperationTimer timer = metrics.start("groupCommit", null);
+             PooledConnection conn = pool().acquire()) {
+            Connection connection = conn.getConnection();
+            connection.setAutoCommit(false);
+            try {
+                if (!inserts.isEmpty()) {
+                    InsertOutcome[] outcomes = new InsertOutcome[inserts.size()];
+                    insertUserRows(conn, inserts, 0, inserts.size(), outcomes, new HashSet<>());
+                    for (int i = 0; i < outcomes.length; i++) {
+                        results[insertPositions.get(i)] = outcomes[i] == InsertOutcome.INSERTED;
+                        inserted += outcomes[i] == InsertOutcome.INSERTED ? 1 : 0;
+                    }
+                }
+                if (!updates.isEmpty()) {
+                    updated = updateUserEmails(conn, updates);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            timer.success(writes.size());
+        } catch (SQLException e) {
+            // The group committer retries every write on its own, which logs whatever still fails
+            throw new MySqlException("Error writing group of " + writes.size() + " user writes", e);
+        }
+        
+        for (int i = 0; i < writes.size(); i++) {
+            if (writes.get(i) instanceof UpdateEmailWrite update) {
+                results[i] = updated.contains(update.username().toLowerCase(Locale.ROOT));
+            }
+        }
+        if (inserted > 0 || !updated.isEmpty()) {
+            invalidateCache("users");
+            rowCounter.adjust("users", inserted);
+        }
+        log.debug("Group committed {} user writes", writes.size());
+        return Arrays.asList(results);
+    }
+    
+    // Locks the users to change, then sets every email in one statement; returns the lower-cased usernames found,
+    // which are the updates that report success, as the driver counts matched rather than changed rows
+    private Set<String> updateUserEmails(PooledConnection conn, Map<String, UpdateEmailWrite> updates) throws SQLException {
+        Set<String> found = new HashSet<>();
+        try (PreparedStatement lock = conn.prepareUncachedStatement(
+                 "SELECT username FROM users WHERE username IN (" + placeholders(updates.size()) + ") FOR UPDATE")) {
+            int index = 1;
+            for (UpdateEmailWrite update : updates.values()) {
+                lock.setString(index++, update.username());
+            }
+            try (ResultSet rs = lock.executeQuery()) {
+                while (rs.next()) {
+                    found.add(rs.getString(1).toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        List<UpdateEmailWrite> existing = new ArrayList<>(found.size());
+        updates.forEach((username, update) -> {
+            if (found.contains(username)) {
+                existing.add(update);
+            }
+        });
+        if (existing.isEmpty()) {
+            return found;
+        }
+        
+        StringBuilder sql = new StringBuilder(96 + existing.size() * 16).append("UPDATE users SET email = CASE username");
+        for (int i = 0; i < existing.size(); i++) {
+            sql.append(" WHEN ? THEN ?");
+        }
+        sql.append(" END, updated_at = CURRENT_TIMESTAMP WHERE username IN (").append(placeholders(existing.size())).append(")");
+        try (PreparedStatement pstmt = conn.prepareUncachedStatement(sql.toString())) {
+            int index = 1;
+            for (UpdateEmailWrite update : existing) {
+                pstmt.setString(index++, update.username());
+                pstmt.setString(index++, update.newEmail());
+            }
+            for (UpdateEmailWrite update : existing) {
+                pstmt.setString(index++, update.username());
+            }
+            pstmt.executeUpdate();
+        }
+        return found;
+    }
+    
+    // Journals the insert and returns at once. It reaches MySQL with a later write-behind batch, where a duplicate
+    // username or email is skipped rather than reported; reads see it only after that batch.
+    public void queueInsertUser(String username, String email, int age, String city) {
+        if (username == null || email == null) {
+            throw new IllegalArgumentException("username and email are required");
+        }
+        writeBehind().submit(new InsertUserWrite(new User(username, email, age, city)));
+    }
+    
+    // Journals the update and returns at once; an update of an unknown user is skipped when its batch is written
+    public void queueUpdateUserEmail(String username, String newEmail) {
+        if (username == null || newEmail == null) {
+            throw new IllegalArgumentException("username and newEmail are required");
+        }
+        writeBehind().submit(new UpdateEmailWrite(username, newEmail));
+    }
+    
+    // Waits until every write queued so far is in MySQL; false if it took longer than timeoutMillis
+    public boolean flushWriteBehind(long timeoutMillis) {
+        return writeBehind().flush(timeoutMillis);
+    }
+    
+    private WriteBehindBuffer<UserWrite> writeBehind() {
+        WriteBehindBuffer<UserWrite> buffer = writeBehind;
+        if (buffer == null) {
+            throw new MySqlException(config.isWriteBehindEnabled() ? "MySQL connector is not connected" : "Write-behind is not enabled");
+        }
+        return buffer;
+    }
+    
+    // Runs on the write-behind thread. The batch is written in journal order: a group write puts inserts before email
+    // updates, so the batch is cut into runs that never have an insert after an update, each written as one group. If
+    // a run fails on bad data, its writes are retried one by one and those that still fail on bad data are rejected.
+    // Any other failure, such as a lost connection, is thrown so the whole batch is retried later, which is safe as
+    // replayed inserts and email updates are idempotent.
+    private int flushUserWrites(List<UserWrite> writes) {
+        try (OperationTimer timer = metrics.start("writeBehindFlush", null)) {
+            int rejected = 0;
+            int start = 0;
+            while (start < writes.size()) {
+                int end = endOfOrderedRun(writes, start);
+                rejected += flushUserWriteRun(writes.subList(start, end));
+                start = end;
+            }
+            timer.success(writes.size() - rejected);
+            return rejected;
+        }
+    }
+    
+    // End of the longest run from start in which no insert follows an email update
+    private static int endOfOrderedRun(List<UserWrite> writes, int start) {
+        boolean seenUpdate = false;
+        int end = start;
+        while (end < writes.size()) {
+            if (writes.get(end) instanceof UpdateEmailWrite) {
+                seenUpdate = true;
+            } else if (seenUpdate) {
+                break;
+            }
+            end++;
+        }
+        return end;
+    }
+    
+    private int flushUserWriteRun(List<UserWrite> run) {
+        try {
+            writeUserGroup(run);
+            return 0;
+        } catch (MySqlException e) {
+            if (!isDataError(e)) {
+                throw e;
+            }
+        }
+        int rejected = 0;
+        for (UserWrite write : run) {
+            try {
+                writeUser(write);
+            } catch (MySqlException writeError) {
+                if (!isDataError(writeError)) {
+                    throw writeError;
+                }
+                log.warn("Rejected write-behind write {}: {}", write, writeError.getMessage());
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+    
+    // Integrity constraint (SQLSTATE class 23) and data (class 22) errors fail the same way however often they are retried
+    private static boolean isDataError(MySqlException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                return sqlException.getSQLState().startsWith("23") || sqlException.getSQLState().startsWith("22");
+            }
+        }
+        return false;
+    }
+    
+    private static byte[] encodeUserWrite(UserWrite write) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            switch (write) {
+                case InsertUserWrite insert -> {
+                    out.writeByte(INSERT_USER_ENTRY);
+                    out.writeUTF(insert.user().username());
+                    out.writeUTF(insert.user().email());
+                    out.writeInt(insert.user().age());
+                    out.writeBoolean(insert.user().city() != null);
+                    out.writeUTF(insert.user().city() != null ? insert.user().city() : "");
+                }
+                case UpdateEmailWrite update -> {
+                    out.writeByte(UPDATE_EMAIL_ENTRY);
+                    out.writeUTF(update.username());
+                    out.writeUTF(update.newEmail());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static UserWrite decodeUserWrite(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte type = in.readByte();
+            if (type == INSERT_USER_ENTRY) {
+                String username = in.readUTF();
+                String email = in.readUTF();
+                int age = in.readInt();
+                boolean hasCity = in.readBoolean();
+                String city = in.readUTF();
+                return new InsertUserWrite(new User(username, email, age, hasCity ? city : null));
+            }
+            if (type == UPDATE_EMAIL_ENTRY) {
+                return new UpdateEmailWrite(in.readUTF(), in.readUTF());
+            }
+            throw new MySqlException("Unknown write-behind journal entry type " + type);
+        } catch (IOException e) {
+            throw new MySqlException("Unreadable write-behind journal entry", e);
+        }
+    }
+    
+    private Set<String> findExistingUserKeys(PooledConnection conn, List<User> chunk) throws SQLException {
+        String placeholders = placeholders(chunk.size());
+        String sql = "SELECT username, email FROM users WHERE username IN (" + placeholders + ") OR email IN (" + placeholders + ")";
+        Set<String> existing = new HashSet<>();
+        try (PreparedStatement pstmt = conn.prepareUncachedStatement(sql)) {
+            int index = 1;
+            for (User user : chunk) {
+                pstmt.setString(index++, user.username());
+            }
+            for (User user : chunk) {
+                pstmt.setString(index++, user.email());
+            }
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add("u:" + rs.getString(1).toLowerCase(Locale.ROOT));
+                    existing.add("e:" + rs.getString(2).toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return existing;
+    }
+    
+    private void resolveInsertedUsers(PooledConnection conn, List<User> rows, List<Integer> candidates,
+                                      InsertOutcome[] outcomes) throws SQLException {
+        Map<String, String> stored = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareUncachedStatement(
+                 "SELECT username, email FROM users WHERE username IN (" + placeholders(candidates.size()) + ")")) {
+            for (int i = 0; i < candidates.size(); i++) {
+                pstmt.setString(i + 1, rows.get(candidates.get(i)).username());
+            }
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    stored.put(rs.getString(1).toLowerCase(Locale.ROOT), rs.getString(2));
+                }
+            }
+        }
+        for (int row : candidates) {
+            User user = rows.get(row);
+            String email = stored.get(user.username().toLowerCase(Locale.ROOT));
+            outcomes[row] = user.email().equalsIgnoreCase(email) ? InsertOutcome.INSERTED : InsertOutcome.DUPLICATE;
+        }
+    }
+    
+    private static String multiRowInsertSql(int rowCount) {
+        StringBuilder sql = new StringBuilder(64 + rowCount * 14);
+        sql.append("INSERT IGNORE INTO users (username, email, age, city) VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+        }
+        return sql.toString();
+    }
+    
+    // Multi-row INSERTs of up to mysql.bulk.batch-rows products, each chunk committed on its own; ids are ignored
+    // and assigned by AUTO_INCREMENT. Products have no natural key, so there is no duplicate detection.
+    public int insertProducts(Collection<Product> products) {
+        List<Product> rows = List.copyOf(products);
+        int maxRows = Math.min(config.getBulkBatchRows(), MAX_PLACEHOLDERS / PRODUCT_INSERT_COLUMNS);
+        int inserted = 0;
+        
+        try (OperationTimer timer = metrics.start("insertProducts", null);
+             PooledConnection conn = pool().acquire()) {
+            for (int from = 0; from < rows.size(); from += maxRows) {
+                int to = Math.min(rows.size(), from + maxRows);
+                try (PreparedStatement pstmt = conn.prepareUncachedStatement(multiRowProductInsertSql(to - from))) {
+                    int index = 1;
+                    for (Product product : rows.subList(from, to)) {
+                        pstmt.setString(index++, product.name());
+                        pstmt.setString(index++, product.category());
+                        pstmt.setBigDecimal(index++, product.price());
+                        pstmt.setInt(index++, product.stockQuantity());
+                    }
+                    inserted += pstmt.executeUpdate();
+                }
+            }
+            timer.success(inserted);
+            return inserted;
+        } catch (SQLException e) {
+            log.error("Error bulk inserting products: {}", e.getMessage());
+            throw new MySqlException("Error bulk inserting products", e);
+        } finally {
+            if (inserted > 0) {
+                invalidateCache("products");
+                rowCounter.adjust("products", inserted);
+            }
+        }
+    }
+    
+    private static String multiRowProductInsertSql(int rowCount) {
+        StringBuilder sql = new StringBuilder(80 + rowCount * 14);
+        sql.append("INSERT INTO products (name, category, price, stock_quantity) VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+        }
+        return sql.toString();
+    }
+    
+    // Bulk imports CSV/TSV through LOAD DATA LOCAL INFILE when mysql.import.local-infile is enabled, and through
+    // multi-row INSERT IGNORE otherwise. A .gz file is decompressed while reading.
+    public ImportResult importFile(Path file, ImportOptions options) {
+        try (InputStream input = openImportFile(file)) {
+            return importStream(input, options);
+        } catch (IOException e) {
+            log.error("Error reading import file {}: {}", file, e.getMessage());
+            throw new MySqlException("Error reading import file " + file, e);
+        }
+    }
+    
+    private static InputStream openImportFile(Path file) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        if (!file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            return input;
+        }
+        try {
+            return new GZIPInputStream(input, 64 * 1024);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+    
+    // With mysql.import.local-infile the chunks are loaded on dedicated connections opened for the import, so
+    // pooled connections never allow LOAD DATA LOCAL; otherwise on pooled connections
+    public ImportResult importStream(InputStream input, ImportOptions options) {
+        ConnectionPool pool = pool();
+        try (OperationTimer timer = metrics.start("importRows", null)) {
+            int packetLimit;
+            try (PooledConnection conn = pool.acquire()) {
+                packetLimit = effectivePacketLimit(conn);
+            }
+            Supplier<PooledConnection> connections = config.isImportLocalInfile()
+                ? () -> pool.openDedicated(importConnectionFactory) : pool::acquire;
+            ImportResult result = new BulkImporter(connections, options, config.isImportLocalInfile(), packetLimit).importFrom(input);
+            timer.success(result.rowsImported());
+            return result;
+        } catch (SQLException e) {
+            log.error("Error importing into {}: {}", options.table(), e.getMessage());
+            throw new MySqlException("Error importing into " + options.table(), e);
+        } catch (IOException e) {
+            log.error("Error reading import input for {}: {}", options.table(), e.getMessage());
+            throw new MySqlException("Error reading import input for " + options.table(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MySqlException("Import into " + options.table() + " interrupted", e);
+        } finally {
+            // Chunks commit independently, so even a failed import may have written rows
+            invalidateCache(options.table());
+            rowCounter.reset(options.table());
+        }
+    }
+    
+    private static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.toString();
+    }
+    
+    // Ends the chunk at the row limit or before the estimated statement outgrows the packet limit
+    private static int chunkEnd(List<User> rows, int from, int maxRows, int packetLimit) {
+        long bytes = 0;
+        int to = from;
+        while (to < rows.size() && to - from < maxRows) {
+            long rowBytes = estimateRowBytes(rows.get(to));
+            if (to > from && bytes + rowBytes > packetLimit) {
+                break;
+            }
+            bytes += rowBytes;
+            to++;
+        }
+        return to;
+    }
+    
+    // Worst case for client-side interpolation: every character escaped, plus quotes and separators
+    private static long estimateRowBytes(User user) {
+        return 2L * (utf8Length(user.username()) + utf8Length(user.email()) + utf8Length(user.city())) + 32;
+    }
+    
+    private static int utf8Length(String value) {
+        return value == null ? 4 : value.getBytes(StandardCharsets.UTF_8).length;
+    }
+    
+    private int effectivePacketLimit(PooledConnection conn) throws SQLException {
+        int serverLimit = serverMaxAllowedPacket;
+        if (serverLimit == 0) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(conn.hintMaxExecutionTime("SELECT @@max_allowed_packet"))) {
+                serverLimit = rs.next() && rs.getLong(1) > 0 ? (int) Math.min(rs.getLong(1), Integer.MAX_VALUE) : Integer.MAX_VALUE;
+            }
+            serverMaxAllowedPacket = serverLimit;
+        }
+        return Math.max(PACKET_HEADROOM_BYTES, Math.min(serverLimit, config.getBulkMaxPacketBytes()) - PACKET_HEADROOM_BYTES);
+    }
+    
+    // With group commit enabled, concurrent calls are written together; each still returns its own result
     public boolean updateUserEmail(String username, String newEmail) {
+        if (groupCommitter != null && username != null && newEmail != null) {
+            try (OperationTimer timer = metrics.start("updateUserEmail", null)) {
+                boolean updated = groupCommitter.submit(new UpdateEmailWrite(username, newEmail));
+                timer.success(updated ? 1 : 0);
+                return updated;
+            }
+        }
         String sql = "UPDATE users SET email = ?, updated_at = CURRENT_TIMESTAMP WHERE username = ?";
         
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (OperationTimer timer = metrics.start("updateUserEmail", sql)) {
+            boolean updated = updateUserEmailRow(sql, username, newEmail);
+            timer.success(updated ? 1 : 0);
+            return updated;
+        }
+    }
+    
+    private boolean updateUserEmailRow(String sql, String username, String newEmail) {
+        try (PooledConnection conn = pool().acquire()) {
+            PreparedStatement pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, newEmail);
             pstmt.setString(2, username);
             
             int rowsAffected = pstmt.executeUpdate();
-            pstmt.close();
-            log.info("User email updated successfully: {} -> {}", username, newEmail);
+            if (rowsAffected > 0) {
+                invalidateCache("users");
+            }
+            log.debug("User email updated successfully: {} -> {}", username, newEmail);
             return rowsAffected > 0;
-            
+        
         } catch (SQLException e) {
             log.error("Error updating user email: {}", e.getMessage());
             throw new MySqlException("Error updating user email", e);
@@ -305,15 +1513,20 @@ public class MySqlConnector {
     public boolean deleteUser(String username) {
         String sql = "DELETE FROM users WHERE username = ?";
         
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
+        try (OperationTimer timer = metrics.start("deleteUser", sql);
+             PooledConnection conn = pool().acquire()) {
+            PreparedStatement pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, username);
             
             int rowsAffected = pstmt.executeUpdate();
-            pstmt.close();
-            log.info("User deleted successfully: {}", username);
+            if (rowsAffected > 0) {
+                invalidateCache("users");
+                rowCounter.adjust("users", -rowsAffected);
+            }
+            timer.success(rowsAffected);
+            log.debug("User deleted successfully: {}", username);
             return rowsAffected > 0;
-            
+        
         } catch (SQLException e) {
             log.error("Error deleting user: {}", e.getMessage());
             throw new MySqlException("Error deleting user", e);
@@ -321,43 +1534,102 @@ public class MySqlConnector {
     }
     
     public List<String> findUsersByCity(String city) {
-        List<String> users = new ArrayList<>();
-        String sql = "SELECT username, email, age FROM users WHERE city = ? ORDER BY username";
+        List<User> records = findUserRecordsByCity(city);
+        List<String> users = new ArrayList<>(records.size());
+        for (User user : records) {
+            users.add("User: " + user.username() + ", Email: " + user.email() + ", Age: " + user.age());
+        }
+        return users;
+    }
+    
+    // Served from the query cache when enabled; the returned list is read-only
+    public List<User> findUserRecordsByCity(String city) {
+        String sql = "SELECT username, email, age, city FROM users WHERE city = ? ORDER BY username";
         
-        try {
-            PreparedStatement pstmt = connection.prepareStatement(sql);
-            pstmt.setString(1, city);
-            
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                String user = String.format("User: %s, Email: %s, Age: %d",
-                    rs.getString("username"),
-                    rs.getString("email"),
-                    rs.getInt("age"));
-                users.add(user);
-            }
-            rs.close();
-            pstmt.close();
+        // The operation includes cache hits; the statement digest only times trips to the server
+        try (OperationTimer timer = metrics.start("findUserRecordsByCity", null)) {
+            List<User> users = cached("users", sql, Arrays.asList(city), MySqlConnector::estimateUserBytes, () -> {
+                try (OperationTimer statementTimer = metrics.start(null, sql);
+                     PooledConnection conn = pool().acquire()) {
+                    List<User> loaded = List.copyOf(queryList(conn, sql, UserRowMapper.DEFAULT, city));
+                    statementTimer.success(loaded.size());
+                    return loaded;
+                } catch (SQLException e) {
+                    log.error("Error finding users by city: {}", e.getMessage());
+                    throw new MySqlException("Error finding users by city", e);
+                }
+            });
+            timer.success(users.size());
+            return users;
+        }
+    }
+    
+    // Users for many usernames at once, keyed by the usernames passed; usernames without a user are left out.
+    // Not cached: the result is assembled from many statements.
+    public Map<String, User> findUsersByUsernames(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return Map.of();
+        }
+        ConnectionPool pool = pool();
+        try (OperationTimer timer = metrics.start("findUsersByUsernames", null)) {
+            int packetLimit;
+            try (PooledConnection conn = pool.acquire()) {
+                packetLimit = effectivePacketLimit(conn);
+            }
+            // Lookups never hold the calling thread's connection, so the whole pool is available
+            int parallelism = Math.min(config.getLookupParallelism(), config.getPoolMaxSize());
+            KeyLookup lookup = new KeyLookup(pool::acquire, config.getLookupInListKeys(), config.getLookupTempTableThreshold(),
+                parallelism, packetLimit);
+            Map<String, User> users = lookup.find("users", "username", List.of("username", "email", "age", "city"),
+                UserRowMapper.DEFAULT, User::username, usernames);
+            timer.success(users.size());
+            return users;
         } catch (SQLException e) {
-            log.error("Error finding users by city: {}", e.getMessage());
-            throw new MySqlException("Error finding users by city", e);
+            log.error("Error finding users by username: {}", e.getMessage());
+            throw new MySqlException("Error finding users by username", e);
         }
-        
-        return users;
+    }
+    
+    // A loader for one request scope: point lookups from anywhere in the request are batched into
+    // findUsersByUsernames calls. Each batch is timed as the loadUsers operation, with its key count as rows.
+    public BatchLoader<User> newUserLoader() {
+        return new BatchLoader<>(usernames -> {
+            try (OperationTimer timer = metrics.start("loadUsers", null)) {
+                Map<String, User> users = findUsersByUsernames(usernames);
+                timer.success(usernames.size());
+                return users;
+            }
+        }, config.getLoaderWindowMs(), config.getLoaderMaxBatchKeys());
     }
     
     public int getUserCount() {
         String sql = "SELECT COUNT(*) FROM users";
         
-        try {
-            ResultSet rs = executeQuery(sql);
-            rs.next();
-            int count = rs.getInt(1);
-            rs.close();
+        try (OperationTimer timer = metrics.start("getUserCount", null)) {
+            int count = cached("users", sql, List.of(), value -> 16, () -> {
+                try (OperationTimer statementTimer = metrics.start(null, sql);
+                     PooledConnection conn = pool().acquire();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(conn.hintMaxExecutionTime(sql))) {
+                    rs.next();
+                    statementTimer.success(1);
+                    return rs.getInt(1);
+                } catch (SQLException e) {
+                    log.error("Error getting user count: {}", e.getMessage());
+                    throw new MySqlException("Error getting user count", e);
+                }
+            });
+            timer.success(1);
+            return count;
+        }
+    }
+    
+    // EXACT scans the table; dashboards polling at high frequency should use CACHED, APPROXIMATE or TRACKED
+    public long getUserCount(CountMode mode) {
+        try (OperationTimer timer = metrics.start("getUserCount." + mode.name().toLowerCase(Locale.ROOT), null)) {
+            long count = rowCounter.count("users", mode);
+            timer.success(1);
             return count;
-        } catch (SQLException e) {
-            log.error("Error getting user count: {}", e.getMessage());
-            throw new MySqlException("Error getting user count", e);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package org.daodao.jdbc.connectors;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+// Opaque continuation token: the query scope followed by the keyset values of the last row returned,
+// written with writeUTF so values may contain any character, then Base64url encoded
+final class PageToken {
+    
+    private static final int VERSION = 1;
+    
+    private PageToken() {
+    }
+    
+    static String encode(String scope, String... keys) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(scope);
+            out.writeByte(keys.length);
+            for (String key : keys) {
+                out.writeUTF(key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+    
+    // Rejects tokens that are malformed or were issued by a different query
+    static String[] decode(String token, String scope, int keyCount) {
+        String[] keys = new String[keyCount];
+        boolean sameQuery;
+        // Base64 decoding reports bad input as IllegalArgumentException, truncated data as EOFException
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            sameQuery = in.readByte() == VERSION && in.readUTF().equals(scope) && in.readByte() == keyCount;
+            if (sameQuery) {
+                for (int i = 0; i < keyCount; i++) {
+                    keys[i] = in.readUTF();
+                }
+                if (in.available() > 0) {
+                    throw new IOException("Unexpected trailing bytes");
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed page token", e);
+        }
+        if (!sameQuery) {
+            throw new IllegalArgumentException("Page token was not issued by this query");
+        }
+        return keys;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,133 @@
+package org.daodao.jdbc.connectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Cold, unicast publisher over a streaming query: every subscriber gets its own query, run on a virtual thread
+// that owns the result set. The thread reads rows while there is demand, and up to bufferRows ahead of it
+// while the subscriber is busy, then parks until more is requested. Cancelling stops the statement on the
+// server before the result set is closed, so the connection is not held until the remaining rows drain.
+class ResultSetPublisher<T> implements Flow.Publisher<T> {
+    
+    private static final Logger log = LoggerFactory.getLogger(ResultSetPublisher.class);
+    
+    private final Supplier<ResultSetSpliterator<T>> opener;
+    private final int bufferRows;
+    
+    ResultSetPublisher(Supplier<ResultSetSpliterator<T>> opener, int bufferRows) {
+        this.opener = opener;
+        this.bufferRows = bufferRows;
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        RowSubscription subscription = new RowSubscription(subscriber);
+        Thread emitter = Thread.ofVirtual().name("mysql-publisher").unstarted(subscription);
+        subscription.emitter = emitter;
+        emitter.start();
+    }
+    
+    private final class RowSubscription implements Flow.Subscription, Runnable {
+        
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final Queue<T> buffer = new ArrayDeque<>();
+        private volatile Thread emitter;
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+        private volatile ResultSetSpliterator<T> source;
+        
+        RowSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+        
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // Reactive Streams rule 3.9
+                invalidRequest = new IllegalArgumentException("Subscription request must be positive but was " + n);
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            LockSupport.unpark(emitter);
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            ResultSetSpliterator<T> current = source;
+            if (current != null) {
+                current.cancel();
+            }
+            LockSupport.unpark(emitter);
+        }
+        
+        @Override
+        public void run() {
+            subscriber.onSubscribe(this);
+            try {
+                emit();
+            } catch (RuntimeException e) {
+                // A cancelled query fails on the server; the subscriber asked for no further signals
+                if (!cancelled) {
+                    cancelled = true;
+                    subscriber.onError(e);
+                }
+            } finally {
+                if (source != null) {
+                    source.close();
+                }
+            }
+        }
+        
+        private void emit() {
+            if (cancelled) {
+                return;
+            }
+            source = opener.get();
+            boolean exhausted = false;
+            while (!cancelled) {
+                if (invalidRequest != null) {
+                    cancelled = true;
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                if (!buffer.isEmpty() && demand.get() > 0) {
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                    deliver(buffer.poll());
+                } else if (exhausted) {
+                    if (buffer.isEmpty()) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    LockSupport.park(this);
+                } else if (buffer.size() < bufferRows) {
+                    // The spliterator releases the connection as soon as the last row is read
+                    exhausted = !source.tryAdvance(buffer::add);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        }
+        
+        private void deliver(T row) {
+            try {
+                subscriber.onNext(row);
+            } catch (RuntimeException e) {
+                // Reactive Streams rule 2.13: treat the subscription as cancelled
+                log.warn("Subscriber failed in onNext, cancelling the query: {}", e.getMessage());
+                cancel();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package org.daodao.jdbc.connectors;
+
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.mapper.RowMapper;
+import org.daodao.jdbc.pool.PooledConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+// Pulls one row per tryAdvance from a streaming ResultSet and owns the statement and
+// pooled connection behind it until close(), which runs on exhaustion, error or Stream.close()
+class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+    
+    private static final Logger log = LoggerFactory.getLogger(ResultSetSpliterator.class);
+    
+    private final PooledConnection conn;
+    private final Statement stmt;
+    private final ResultSet rs;
+    private final RowMapper<T> mapper;
+    private volatile boolean closed;
+    
+    ResultSetSpliterator(PooledConnection conn, Statement stmt, ResultSet rs, RowMapper<T> mapper) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.conn = conn;
+        this.stmt = stmt;
+        this.rs = rs;
+        this.mapper = mapper;
+    }
+    
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (closed) {
+            return false;
+        }
+        T row;
+        try {
+            if (!rs.next()) {
+                close();
+                return false;
+            }
+            row = mapper.mapRow(rs);
+        } catch (SQLException e) {
+            close();
+            log.error("Error streaming query results: {}", e.getMessage());
+            throw new MySqlException("Error streaming query results", e);
+        }
+        action.accept(row);
+        return true;
+    }
+    
+    // Safe from another thread: the server stops sending rows, so the owner's close() need not drain the rest
+    // of a streaming result
+    void cancel() {
+        if (closed) {
+            return;
+        }
+        try {
+            stmt.cancel();
+        } catch (SQLException e) {
+            log.debug("Error cancelling streaming statement: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            rs.close();
+        } catch (SQLException e) {
+            log.debug("Error closing streaming result set: {}", e.getMessage());
+        }
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            log.debug("Error closing streaming statement: {}", e.getMessage());
+        }
+        conn.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package org.daodao.jdbc.count;
+
+public enum CountMode {
+    // SELECT COUNT(*): always correct, but a full index scan in InnoDB
+    EXACT,
+    // An exact count reused for up to mysql.count.cache-ttl-ms
+    CACHED,
+    // The optimizer's row estimate from information_schema.TABLES, typically within a few percent
+    APPROXIMATE,
+    // An exact count adjusted by this connector's own inserts and deletes; misses other clients' writes until resync
+    TRACKED
+}
\ No newline at end of file
@@ -0,0 +1,192 @@
+package org.daodao.jdbc.count;
+
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.metrics.MetricsRegistry;
+import org.daodao.jdbc.metrics.OperationTimer;
+import org.daodao.jdbc.pool.PooledConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// Row counts in the four CountMode flavours. Only EXACT, cache misses and TRACKED seeding scan the table;
+// callers polling at high frequency should use CACHED, APPROXIMATE or TRACKED.
+public class RowCounter {
+    
+    private static final Logger log = LoggerFactory.getLogger(RowCounter.class);
+    
+    // Table names are spliced into COUNT(*) statements, so only plain identifiers are accepted
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z0-9_$]+");
+    private static final String APPROXIMATE_SQL =
+        "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+    
+    private final Supplier<PooledConnection> connections;
+    private final MetricsRegistry metrics;
+    private final long cacheTtlNanos;
+    private final long trackedResyncNanos;
+    
+    private final Map<String, CachedCount> cachedCounts = new ConcurrentHashMap<>();
+    private final Map<String, TrackedCount> trackedCounts = new ConcurrentHashMap<>();
+    // Serializes seeding so concurrent TRACKED readers of a cold table run one COUNT(*), not one each
+    private final ReentrantLock seedLock = new ReentrantLock();
+    
+    private record CachedCount(long count, long loadedAtNanos) {}
+    
+    private static final class TrackedCount {
+        final LongAdder delta = new LongAdder();
+        volatile long base;
+        volatile long seededAtNanos;
+        volatile boolean seeded;
+        
+        long value() {
+            return Math.max(0, base + delta.sum());
+        }
+    }
+    
+    public RowCounter(Supplier<PooledConnection> connections, MetricsRegistry metrics, long cacheTtlMs, long trackedResyncMs) {
+        this.connections = connections;
+        this.metrics = metrics;
+        this.cacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(cacheTtlMs);
+        this.trackedResyncNanos = TimeUnit.MILLISECONDS.toNanos(trackedResyncMs);
+    }
+    
+    public long count(String table, CountMode mode) {
+        String key = key(table);
+        return switch (mode) {
+            case EXACT -> exact(key);
+            case CACHED -> cached(key);
+            case APPROXIMATE -> approximate(key);
+            case TRACKED -> tracked(key);
+        };
+    }
+    
+    // Called by the connector after its own writes commit; only tables already being tracked are adjusted
+    public void adjust(String table, long delta) {
+        TrackedCount tracked = trackedCounts.get(key(table));
+        if (tracked != null) {
+            tracked.delta.add(delta);
+        }
+    }
+    
+    // Forgets cached and tracked counts, e.g. after a write whose row count the connector cannot attribute
+    public void reset(String table) {
+        String key = key(table);
+        cachedCounts.remove(key);
+        trackedCounts.remove(key);
+    }
+    
+    public void resetAll() {
+        cachedCounts.clear();
+        trackedCounts.clear();
+    }
+    
+    public Set<String> knownTables() {
+        Set<String> tables = new HashSet<>(cachedCounts.keySet());
+        tables.addAll(trackedCounts.keySet());
+        return tables;
+    }
+    
+    private long exact(String table) {
+        String sql = "SELECT COUNT(*) FROM " + table;
+        try (OperationTimer timer = metrics.start(null, sql);
+             PooledConnection conn = connections.get();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(conn.hintMaxExecutionTime(sql))) {
+            rs.next();
+            long count = rs.getLong(1);
+            timer.success(1);
+            return count;
+        } catch (SQLException e) {
+            log.error("Error counting rows of {}: {}", table, e.getMessage());
+            throw new MySqlException("Error counting rows of " + table, e);
+        }
+    }
+    
+    private long cached(String table) {
+        long now = System.nanoTime();
+        CachedCount cached = cachedCounts.get(table);
+        if (cached != null && now - cached.loadedAtNanos() < cacheTtlNanos) {
+            return cached.count();
+        }
+        long count = exact(table);
+        cachedCounts.put(table, new CachedCount(count, now));
+        return count;
+    }
+    
+    // InnoDB samples a few index pages for TABLE_ROWS, and MySQL 8 caches it for information_schema_stats_expiry
+    // seconds (86400 by default), so the estimate can lag far behind a fast-growing table
+    private long approximate(String table) {
+        try (OperationTimer timer = metrics.start(null, APPROXIMATE_SQL);
+             PooledConnection conn = connections.get()) {
+            PreparedStatement pstmt = conn.prepareStatement(APPROXIMATE_SQL);
+            pstmt.setString(1, table);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new MySqlException("Table " + table + " not found in information_schema");
+                }
+                long count = rs.getLong(1);
+                timer.success(1);
+                return count;
+            }
+        } catch (SQLException e) {
+            log.error("Error estimating rows of {}: {}", table, e.getMessage());
+            throw new MySqlException("Error estimating rows of " + table, e);
+        }
+    }
+    
+    private long tracked(String table) {
+        TrackedCount tracked = trackedCounts.get(table);
+        if (isCurrent(tracked)) {
+            return tracked.value();
+        }
+        
+        seedLock.lock();
+        try {
+            tracked = trackedCounts.get(table);
+            if (isCurrent(tracked)) {
+                return tracked.value();
+            }
+            // Installed before the count runs so writes committed meanwhile are not lost; a write that lands
+            // between the count's snapshot and its adjust() is counted twice until the next resync
+            TrackedCount fresh = new TrackedCount();
+            trackedCounts.put(table, fresh);
+            try {
+                fresh.base = exact(table);
+            } catch (RuntimeException e) {
+                trackedCounts.remove(table, fresh);
+                throw e;
+            }
+            fresh.seededAtNanos = System.nanoTime();
+            fresh.seeded = true;
+            log.debug("Seeded tracked row count of {} at {}", table, fresh.base);
+            return fresh.value();
+        } finally {
+            seedLock.unlock();
+        }
+    }
+    
+    private boolean isCurrent(TrackedCount tracked) {
+        return tracked != null && tracked.seeded
+            && (trackedResyncNanos == 0 || System.nanoTime() - tracked.seededAtNanos < trackedResyncNanos);
+    }
+    
+    private static String key(String table) {
+        if (table == null || !TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid table name: " + table);
+        }
+        return table.toLowerCase(Locale.ROOT);
+    }
+}
\ No newline at end of file
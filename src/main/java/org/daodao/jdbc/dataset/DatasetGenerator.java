@@ -0,0 +1,163 @@
+package org.daodao.jdbc.dataset;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.model.BulkInsertResult;
+import org.daodao.jdbc.model.Product;
+import org.daodao.jdbc.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Every row is derived from (seed, row index) alone, so a dataset is identical whatever the chunk size,
+// parallelism or order in which chunks are loaded. Workers claim chunks of chunkRows rows and load each with
+// one insertUsers / insertProducts call, so they spread over up to parallelism pooled connections.
+public class DatasetGenerator {
+    
+    private static final Logger log = LoggerFactory.getLogger(DatasetGenerator.class);
+    
+    // Most popular first; Zipf ranks follow this order
+    static final String[] CITIES = {
+        "New York", "Los Angeles", "Chicago", "Houston", "Phoenix", "Philadelphia", "San Antonio", "San Diego",
+        "Dallas", "Jacksonville", "Austin", "Fort Worth", "San Jose", "Columbus", "Charlotte", "Indianapolis",
+        "San Francisco", "Seattle", "Denver", "Oklahoma City", "Nashville", "Washington", "El Paso", "Las Vegas",
+        "Boston", "Detroit", "Portland", "Louisville", "Memphis", "Baltimore"
+    };
+    static final String[] CATEGORIES = {
+        "Electronics", "Clothing", "Home", "Books", "Beauty", "Sports", "Toys", "Grocery", "Furniture",
+        "Appliances", "Automotive", "Garden", "Health", "Jewelry", "Music", "Office", "Pet Supplies", "Tools"
+    };
+    
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long USER_STREAM = 1;
+    private static final long PRODUCT_STREAM = 2;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    
+    private final DatasetSpec spec;
+    private final ZipfDistribution cities;
+    private final ZipfDistribution categories;
+    
+    public DatasetGenerator(DatasetSpec spec) {
+        this.spec = spec;
+        this.cities = new ZipfDistribution(CITIES.length, spec.citySkew());
+        this.categories = new ZipfDistribution(CATEGORIES.length, spec.categorySkew());
+    }
+    
+    // A cheap, well-mixed seed per row: SplittableRandom scrambles its seed on the first draw
+    private SplittableRandom rowRandom(long stream, long index) {
+        return new SplittableRandom((spec.seed() * 31 + stream) * GOLDEN_GAMMA + index);
+    }
+    
+    public User user(long index) {
+        SplittableRandom random = rowRandom(USER_STREAM, index);
+        String username = spec.prefix() + "_" + index;
+        // Adult ages, roughly normal around 38
+        int age = (int) Math.max(18, Math.min(90, Math.round(38 + 13 * random.nextGaussian())));
+        return new User(username, username + "@example.com", age, CITIES[cities.sample(random)]);
+    }
+    
+    public Product product(long index) {
+        SplittableRandom random = rowRandom(PRODUCT_STREAM, index);
+        String category = CATEGORIES[categories.sample(random)];
+        // Log-normal prices: median around $33, a long tail into the thousands
+        long cents = Math.max(99, Math.min(99_999_999L, Math.round(Math.exp(3.5 + random.nextGaussian()) * 100)));
+        return new Product(0, category + " item " + index, category, BigDecimal.valueOf(cents, 2), random.nextInt(1_000));
+    }
+    
+    public List<User> users(long from, long to) {
+        List<User> users = new ArrayList<>((int) (to - from));
+        for (long index = from; index < to; index++) {
+            users.add(user(index));
+        }
+        return users;
+    }
+    
+    public List<Product> products(long from, long to) {
+        List<Product> products = new ArrayList<>((int) (to - from));
+        for (long index = from; index < to; index++) {
+            products.add(product(index));
+        }
+        return products;
+    }
+    
+    public DatasetLoadResult load(MySqlConnector connector) throws InterruptedException {
+        long userChunks = chunkCount(spec.users());
+        long totalChunks = userChunks + chunkCount(spec.products());
+        log.info("Generating {} users and {} products (seed={}, prefix={}) in {} chunks over {} workers",
+            spec.users(), spec.products(), spec.seed(), spec.prefix(), totalChunks, spec.parallelism());
+        
+        AtomicLong nextChunk = new AtomicLong();
+        LongAdder usersInserted = new LongAdder();
+        LongAdder skippedUsers = new LongAdder();
+        LongAdder productsInserted = new LongAdder();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        long start = System.nanoTime();
+        AtomicLong nextProgressAt = new AtomicLong(start + PROGRESS_INTERVAL_NANOS);
+        
+        Runnable worker = () -> {
+            long chunk;
+            while (failure.get() == null && (chunk = nextChunk.getAndIncrement()) < totalChunks) {
+                try {
+                    if (chunk < userChunks) {
+                        long from = chunk * spec.chunkRows();
+                        BulkInsertResult result = connector.insertUsers(users(from, Math.min(spec.users(), from + spec.chunkRows())));
+                        usersInserted.add(result.insertedCount());
+                        skippedUsers.add(result.duplicateCount());
+                    } else {
+                        long from = (chunk - userChunks) * spec.chunkRows();
+                        productsInserted.add(connector.insertProducts(products(from, Math.min(spec.products(), from + spec.chunkRows()))));
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    return;
+                }
+                logProgress(nextProgressAt, start, usersInserted.sum() + skippedUsers.sum() + productsInserted.sum());
+            }
+        };
+        
+        List<Thread> workers = new ArrayList<>(spec.parallelism());
+        for (int i = 0; i < spec.parallelism(); i++) {
+            workers.add(Thread.ofVirtual().name("dataset-loader-" + i).start(worker));
+        }
+        try {
+            for (Thread thread : workers) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            // Workers stop after their current chunk
+            failure.compareAndSet(null, new MySqlException("Dataset load interrupted"));
+            throw e;
+        }
+        
+        if (failure.get() != null) {
+            log.error("Dataset load failed after {} users and {} products: {}", usersInserted.sum(), productsInserted.sum(), failure.get().getMessage());
+            throw new MySqlException("Dataset load failed", failure.get());
+        }
+        DatasetLoadResult result = new DatasetLoadResult(usersInserted.sum(), skippedUsers.sum(), productsInserted.sum(),
+            Duration.ofNanos(System.nanoTime() - start));
+        log.info("{}", result);
+        return result;
+    }
+    
+    private long chunkCount(long rows) {
+        return (rows + spec.chunkRows() - 1) / spec.chunkRows();
+    }
+    
+    private void logProgress(AtomicLong nextProgressAt, long start, long rows) {
+        long now = System.nanoTime();
+        long due = nextProgressAt.get();
+        if (now >= due && nextProgressAt.compareAndSet(due, now + PROGRESS_INTERVAL_NANOS)) {
+            double seconds = (now - start) / 1_000_000_000.0;
+            log.info("Loaded {} of {} rows ({} rows/s)", rows, spec.users() + spec.products(), Math.round(rows / seconds));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package org.daodao.jdbc.dataset;
+
+import java.time.Duration;
+
+// skippedUsers counts generated users that already existed, e.g. when the same seed and prefix are loaded twice
+public record DatasetLoadResult(long usersInserted, long skippedUsers, long productsInserted, Duration elapsed) {
+    
+    public double rowsPerSecond() {
+        double seconds = elapsed.toNanos() / 1_000_000_000.0;
+        return seconds == 0 ? 0 : (usersInserted + skippedUsers + productsInserted) / seconds;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Loaded %d users (%d already present) and %d products in %.1f s (%.0f rows/s)",
+            usersInserted, skippedUsers, productsInserted, elapsed.toMillis() / 1_000.0, rowsPerSecond());
+    }
+}
\ No newline at end of file
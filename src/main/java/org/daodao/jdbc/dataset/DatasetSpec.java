@@ -0,0 +1,82 @@
+package org.daodao.jdbc.dataset;
+
+import java.util.Locale;
+
+// Usernames are prefix + "_" + row index, so a different prefix loads a second dataset next to the first
+public record DatasetSpec(
+        long users,
+        long products,
+        long seed,
+        String prefix,
+        double citySkew,
+        double categorySkew,
+        int chunkRows,
+        int parallelism) {
+    
+    public static final DatasetSpec DEFAULT = new DatasetSpec(1_000_000, 100_000, 42, "gen", 1.0, 1.0, 1_000, 4);
+    
+    public DatasetSpec {
+        if (users < 0 || products < 0) {
+            throw new IllegalArgumentException("Row counts must not be negative but were users=" + users + ", products=" + products);
+        }
+        if (prefix == null || !prefix.matches("[A-Za-z0-9]{1,20}")) {
+            throw new IllegalArgumentException("Prefix must be 1 to 20 letters or digits but was '" + prefix + "'");
+        }
+        if (citySkew < 0 || categorySkew < 0) {
+            throw new IllegalArgumentException("Skew exponents must not be negative");
+        }
+        if (chunkRows < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Chunk rows and parallelism must be at least 1 but were " + chunkRows + ", " + parallelism);
+        }
+    }
+    
+    // Parses --users=10m --products=500k --seed=7 --prefix=gen --city-skew=1.1 --category-skew=0.9
+    // --chunk-rows=1000 --parallelism=8; omitted options keep their DEFAULT values
+    public static DatasetSpec parse(String... args) {
+        long users = DEFAULT.users;
+        long products = DEFAULT.products;
+        long seed = DEFAULT.seed;
+        String prefix = DEFAULT.prefix;
+        double citySkew = DEFAULT.citySkew;
+        double categorySkew = DEFAULT.categorySkew;
+        int chunkRows = DEFAULT.chunkRows;
+        int parallelism = DEFAULT.parallelism;
+        
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --option=value but got '" + arg + "'");
+            }
+            String option = arg.substring(2, separator);
+            String value = arg.substring(separator + 1).trim();
+            try {
+                switch (option) {
+                    case "users" -> users = parseCount(value);
+                    case "products" -> products = parseCount(value);
+                    case "seed" -> seed = Long.parseLong(value);
+                    case "prefix" -> prefix = value;
+                    case "city-skew" -> citySkew = Double.parseDouble(value);
+                    case "category-skew" -> categorySkew = Double.parseDouble(value);
+                    case "chunk-rows" -> chunkRows = Integer.parseInt(value);
+                    case "parallelism" -> parallelism = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option --" + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for --" + option + ": '" + value + "'", e);
+            }
+        }
+        return new DatasetSpec(users, products, seed, prefix, citySkew, categorySkew, chunkRows, parallelism);
+    }
+    
+    // Accepts 2500, 500k or 10m
+    static long parseCount(String value) {
+        String text = value.toLowerCase(Locale.ROOT).replace("_", "");
+        if (text.endsWith("k")) {
+            return Long.parseLong(text.substring(0, text.length() - 1)) * 1_000;
+        }
+        if (text.endsWith("m")) {
+            return Long.parseLong(text.substring(0, text.length() - 1)) * 1_000_000;
+        }
+        return Long.parseLong(text);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package org.daodao.jdbc.dataset;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Rank r (0-based) is drawn with probability proportional to 1 / (r + 1)^exponent. An exponent of 0 is uniform;
+// around 1 the first rank gets several times the traffic of the tenth, as with real city or category popularity.
+public final class ZipfDistribution {
+    
+    private final double[] cumulative;
+    
+    public ZipfDistribution(int size, double exponent) {
+        if (size < 1 || exponent < 0) {
+            throw new IllegalArgumentException("Zipf needs size >= 1 and exponent >= 0 but got " + size + ", " + exponent);
+        }
+        cumulative = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= total;
+        }
+    }
+    
+    public int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+    
+    public double probability(int rank) {
+        return rank == 0 ? cumulative[0] : cumulative[rank] - cumulative[rank - 1];
+    }
+    
+    public int size() {
+        return cumulative.length;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package org.daodao.jdbc.exceptions;
+
+// Thrown when a call runs past its deadline; a statement still running at the deadline has been killed
+public class QueryTimeoutException extends MySqlException {
+    
+    public QueryTimeoutException(String message) {
+        super(message);
+    }
+    
+    public QueryTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+package org.daodao.jdbc.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// Encodes fields as UTF-8 straight into one reusable buffer and hands it to the channel whenever it fills,
+// so heap use stays at the buffer size however many rows are written and no per-row String is built.
+// Also used by the bulk importer to encode LOAD DATA input.
+public final class DelimitedWriter implements Closeable {
+    
+    // Longest encoding of a single char: a 4 byte code point or a 2 byte escape
+    private static final int MAX_CHAR_BYTES = 4;
+    
+    private final WritableByteChannel channel;
+    private final ExportFormat format;
+    private final ByteBuffer buffer;
+    private long bytesWritten;
+    private boolean rowStarted;
+    
+    public DelimitedWriter(WritableByteChannel channel, ExportFormat format, int bufferBytes) {
+        this.channel = channel;
+        this.format = format;
+        this.buffer = ByteBuffer.allocate(bufferBytes);
+    }
+    
+    public void field(String value) throws IOException {
+        if (rowStarted) {
+            putAscii(format.delimiter());
+        }
+        rowStarted = true;
+        if (value == null) {
+            for (int i = 0; i < format.nullToken().length(); i++) {
+                putAscii(format.nullToken().charAt(i));
+            }
+        } else if (format == ExportFormat.TSV) {
+            writeEscaped(value);
+        } else if (needsQuotes(value)) {
+            writeQuoted(value);
+        } else {
+            writeText(value);
+        }
+    }
+    
+    public void endRow() throws IOException {
+        putAscii('\n');
+        rowStarted = false;
+    }
+    
+    public long bytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+    
+    private boolean needsQuotes(String value) {
+        if (value.isEmpty()) {
+            // Keeps the empty string apart from NULL
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == format.delimiter() || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void writeQuoted(String value) throws IOException {
+        putAscii('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                putAscii('"');
+            }
+            i = putChar(value, i);
+        }
+        putAscii('"');
+    }
+    
+    private void writeEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            char escape = switch (c) {
+                case '\t' -> 't';
+                case '\n' -> 'n';
+                case '\r' -> 'r';
+                case '\\' -> '\\';
+                case '\0' -> '0';
+                default -> 0;
+            };
+            if (escape != 0) {
+                putAscii('\\');
+                putAscii(escape);
+            } else {
+                i = putChar(value, i);
+            }
+        }
+    }
+    
+    private void writeText(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            i = putChar(value, i);
+        }
+    }
+    
+    // Writes the char at index as UTF-8 and returns the index of the last char consumed (surrogate pairs take two)
+    private int putChar(String value, int index) throws IOException {
+        char c = value.charAt(index);
+        if (buffer.remaining() < MAX_CHAR_BYTES) {
+            flush();
+        }
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | c >> 6));
+            buffer.put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            buffer.put((byte) (0xF0 | codePoint >> 18));
+            buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+            buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+            buffer.put((byte) (0x80 | codePoint & 0x3F));
+            return index + 1;
+        } else if (Character.isSurrogate(c)) {
+            // Unpaired surrogate, not encodable
+            buffer.put((byte) '?');
+        } else {
+            buffer.put((byte) (0xE0 | c >> 12));
+            buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+            buffer.put((byte) (0x80 | c & 0x3F));
+        }
+        return index;
+    }
+    
+    private void putAscii(char c) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) c);
+    }
+    
+    private void flush() throws IOException {
+        buffer.flip();
+        bytesWritten += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package org.daodao.jdbc.export;
+
+// CSV follows RFC 4180 quoting with \n line ends; NULL is an empty unquoted field and the empty string is "".
+// TSV uses the escaping of MySQL's LOAD DATA / SELECT ... INTO OUTFILE defaults (\t \n \r \\ \0, NULL as \N),
+// so a TSV export can be loaded back without extra options.
+public enum ExportFormat {
+    CSV(',', ""),
+    TSV('\t', "\\N");
+    
+    private final char delimiter;
+    private final String nullToken;
+    
+    ExportFormat(char delimiter, String nullToken) {
+        this.delimiter = delimiter;
+        this.nullToken = nullToken;
+    }
+    
+    public char delimiter() {
+        return delimiter;
+    }
+    
+    public String nullToken() {
+        return nullToken;
+    }
+}
\ No newline at end of file
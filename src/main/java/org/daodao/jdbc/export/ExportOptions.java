@@ -0,0 +1,39 @@
+package org.daodao.jdbc.export;
+
+// fetchSize 0 uses mysql.stream.fetch-size; bufferBytes bounds the heap used for encoding whatever the row count
+public record ExportOptions(ExportFormat format, boolean header, boolean gzip, int fetchSize, int bufferBytes) {
+    
+    public static final ExportOptions DEFAULT = new ExportOptions(ExportFormat.CSV, true, false, 0, 256 * 1024);
+    
+    public ExportOptions {
+        if (format == null) {
+            throw new IllegalArgumentException("Export format must not be null");
+        }
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("Fetch size must not be negative but was " + fetchSize);
+        }
+        if (bufferBytes < 4 * 1024) {
+            throw new IllegalArgumentException("Buffer must be at least 4096 bytes but was " + bufferBytes);
+        }
+    }
+    
+    public ExportOptions withFormat(ExportFormat format) {
+        return new ExportOptions(format, header, gzip, fetchSize, bufferBytes);
+    }
+    
+    public ExportOptions withHeader(boolean header) {
+        return new ExportOptions(format, header, gzip, fetchSize, bufferBytes);
+    }
+    
+    public ExportOptions withGzip(boolean gzip) {
+        return new ExportOptions(format, header, gzip, fetchSize, bufferBytes);
+    }
+    
+    public ExportOptions withFetchSize(int fetchSize) {
+        return new ExportOptions(format, header, gzip, fetchSize, bufferBytes);
+    }
+    
+    public ExportOptions withBufferBytes(int bufferBytes) {
+        return new ExportOptions(format, header, gzip, fetchSize, bufferBytes);
+    }
+}
\ No newline at end of file
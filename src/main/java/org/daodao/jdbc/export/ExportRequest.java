@@ -0,0 +1,81 @@
+package org.daodao.jdbc.export;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+// What the "export" command runs: a query, the file it goes to and how it is written
+public record ExportRequest(String sql, Path target, ExportOptions options) {
+    
+    public ExportRequest {
+        if (sql == null || sql.isBlank()) {
+            throw new IllegalArgumentException("Either --table or --query is required");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("--out is required");
+        }
+    }
+    
+    // Parses --table=users | --query="SELECT ..." --out=users.csv.gz [--format=csv|tsv] [--gzip=true]
+    // [--header=true] [--fetch-size=N] [--buffer-kb=256]. Format and gzip default from the file name,
+    // so --out=users.tsv.gz writes gzipped TSV.
+    public static ExportRequest parse(String... args) {
+        String table = null;
+        String query = null;
+        Path target = null;
+        ExportFormat format = null;
+        Boolean gzip = null;
+        ExportOptions options = ExportOptions.DEFAULT;
+        
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --option=value but got '" + arg + "'");
+            }
+            String option = arg.substring(2, separator);
+            String value = arg.substring(separator + 1).trim();
+            try {
+                switch (option) {
+                    case "table" -> table = value;
+                    case "query" -> query = value;
+                    case "out" -> target = Path.of(value);
+                    case "format" -> format = parseFormat(value);
+                    case "gzip" -> gzip = parseBoolean(option, value);
+                    case "header" -> options = options.withHeader(parseBoolean(option, value));
+                    case "fetch-size" -> options = options.withFetchSize(Integer.parseInt(value));
+                    case "buffer-kb" -> options = options.withBufferBytes(Math.multiplyExact(Integer.parseInt(value), 1024));
+                    default -> throw new IllegalArgumentException("Unknown option --" + option);
+                }
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new IllegalArgumentException("Invalid value for --" + option + ": '" + value + "'", e);
+            }
+        }
+        
+        if (table != null && query != null) {
+            throw new IllegalArgumentException("--table and --query are mutually exclusive");
+        }
+        if (table != null && !table.matches("[A-Za-z0-9_$]+")) {
+            throw new IllegalArgumentException("Invalid table name '" + table + "'");
+        }
+        String fileName = target == null ? "" : target.getFileName().toString().toLowerCase(Locale.ROOT);
+        String baseName = fileName.endsWith(".gz") ? fileName.substring(0, fileName.length() - 3) : fileName;
+        options = options
+            .withFormat(format != null ? format : baseName.endsWith(".tsv") ? ExportFormat.TSV : ExportFormat.CSV)
+            .withGzip(gzip != null ? gzip : fileName.endsWith(".gz"));
+        return new ExportRequest(table != null ? "SELECT * FROM " + table : query, target, options);
+    }
+    
+    private static ExportFormat parseFormat(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "csv" -> ExportFormat.CSV;
+            case "tsv" -> ExportFormat.TSV;
+            default -> throw new IllegalArgumentException("Invalid value for --format: '" + value + "', expected csv or tsv");
+        };
+    }
+    
+    private static boolean parseBoolean(String option, String value) {
+        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("Invalid value for --" + option + ": '" + value + "', expected true or false");
+        }
+        return Boolean.parseBoolean(value);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package org.daodao.jdbc.export;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// bytes counts the encoded text before compression, fileBytes what ended up on disk
+public record ExportResult(Path target, long rows, long bytes, long fileBytes, Duration elapsed) {
+    
+    private static final double MEGABYTE = 1024 * 1024;
+    
+    public double rowsPerSecond() {
+        double seconds = elapsed.toNanos() / 1_000_000_000.0;
+        return seconds == 0 ? 0 : rows / seconds;
+    }
+    
+    public double megabytesPerSecond() {
+        double seconds = elapsed.toNanos() / 1_000_000_000.0;
+        return seconds == 0 ? 0 : bytes / MEGABYTE / seconds;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Exported %d rows (%.1f MB, %.1f MB on disk) to %s in %.1f s (%.0f rows/s, %.1f MB/s)",
+            rows, bytes / MEGABYTE, fileBytes / MEGABYTE, target, elapsed.toMillis() / 1_000.0, rowsPerSecond(), megabytesPerSecond());
+    }
+}
\ No newline at end of file
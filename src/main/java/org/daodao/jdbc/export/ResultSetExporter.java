@@ -0,0 +1,97 @@
+package org.daodao.jdbc.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Writes a forward-only ResultSet to a delimited file row by row. Output goes to <target>.part and is renamed
+// over the target only once the last row is written, so downstream jobs never pick up a truncated file.
+public class ResultSetExporter {
+    
+    private static final Logger log = LoggerFactory.getLogger(ResultSetExporter.class);
+    
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int PROGRESS_CHECK_ROWS = 10_000;
+    
+    private final ExportOptions options;
+    
+    public ResultSetExporter(ExportOptions options) {
+        this.options = options;
+    }
+    
+    public ExportResult export(ResultSet rs, Path target) throws SQLException, IOException {
+        long start = System.nanoTime();
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        long rows = 0;
+        long bytes;
+        try {
+            DelimitedWriter writer = new DelimitedWriter(open(partial), options.format(), options.bufferBytes());
+            try (writer) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columns = metaData.getColumnCount();
+                if (options.header()) {
+                    for (int column = 1; column <= columns; column++) {
+                        writer.field(metaData.getColumnLabel(column));
+                    }
+                    writer.endRow();
+                }
+                long nextProgressAt = start + PROGRESS_INTERVAL_NANOS;
+                while (rs.next()) {
+                    for (int column = 1; column <= columns; column++) {
+                        writer.field(rs.getString(column));
+                    }
+                    writer.endRow();
+                    if (++rows % PROGRESS_CHECK_ROWS == 0 && System.nanoTime() >= nextProgressAt) {
+                        nextProgressAt = System.nanoTime() + PROGRESS_INTERVAL_NANOS;
+                        log.info("Exported {} rows ({} MB) to {}", rows, writer.bytesWritten() / (1024 * 1024), target);
+                    }
+                }
+            }
+            bytes = writer.bytesWritten();
+            move(partial, target);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        
+        ExportResult result = new ExportResult(target, rows, bytes, Files.size(target), Duration.ofNanos(System.nanoTime() - start));
+        log.info("{}", result);
+        return result;
+    }
+    
+    private WritableByteChannel open(Path path) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (!options.gzip()) {
+            return file;
+        }
+        try {
+            return Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(file), options.bufferBytes()));
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+    
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
\ No newline at end of file
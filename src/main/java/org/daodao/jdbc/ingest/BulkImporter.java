@@ -0,0 +1,348 @@
+package org.daodao.jdbc.ingest;
+
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.export.DelimitedWriter;
+import org.daodao.jdbc.export.ExportFormat;
+import org.daodao.jdbc.pool.PooledConnection;
+import org.daodao.jdbc.timeout.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Streams delimited input into a table. The calling thread parses records and cuts them into chunks; each chunk
+// is loaded by a virtual thread on a connection of the import, with at most parallelism chunks in memory or in
+// flight. Chunks are re-encoded as TSV and sent through LOAD DATA LOCAL INFILE from an in-memory stream, or
+// inserted with multi-row INSERT IGNORE when local infile is disabled on either side. Each chunk commits on its
+// own, so a failed import leaves the chunks before the failure in place.
+public class BulkImporter {
+    
+    private static final Logger log = LoggerFactory.getLogger(BulkImporter.class);
+    
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_$]+");
+    private static final Pattern WARNING_ROW = Pattern.compile("at row (\\d+)");
+    private static final Pattern DUPLICATE_ENTRY = Pattern.compile("^Duplicate entry '(.*)' for key ", Pattern.DOTALL);
+    private static final int MAX_PLACEHOLDERS = 65_535;
+    
+    // Server refuses LOAD DATA LOCAL: local_infile=OFF (3948), or older servers and clients (1148)
+    private static final int ER_NOT_ALLOWED_COMMAND = 1148;
+    private static final int ER_CLIENT_LOCAL_FILES_DISABLED = 3948;
+    
+    private final Supplier<PooledConnection> connections;
+    private final ImportOptions options;
+    private final AtomicBoolean localInfile;
+    private final int packetLimit;
+    // Connections stay with the import between chunks and are closed when it ends
+    private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    
+    // packetLimit caps the estimated size of each INSERT of the fallback, as for MySqlConnector.insertUsers
+    public BulkImporter(Supplier<PooledConnection> connections, ImportOptions options, boolean localInfile, int packetLimit) {
+        this.connections = connections;
+        this.options = options;
+        this.localInfile = new AtomicBoolean(localInfile);
+        this.packetLimit = packetLimit;
+    }
+    
+    static boolean isIdentifier(String name) {
+        return IDENTIFIER.matcher(name).matches();
+    }
+    
+    // Rows of one chunk with the input line each started on, for error reporting
+    private record Chunk(List<List<String>> rows, long[] lines) {
+    }
+    
+    public ImportResult importFrom(InputStream input) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        LongAdder imported = new LongAdder();
+        List<RejectedRow> rejected = new ArrayList<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Semaphore inFlight = new Semaphore(options.parallelism());
+        long rowsRead = 0;
+        
+        try (DelimitedReader reader = new DelimitedReader(new InputStreamReader(input, StandardCharsets.UTF_8), options.format());
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<String> fileColumns = options.columns();
+            if (options.header()) {
+                List<String> header = reader.next();
+                if (fileColumns.isEmpty() && header != null) {
+                    for (String column : header) {
+                        if (column == null || !isIdentifier(column)) {
+                            throw new IllegalArgumentException("Invalid column '" + column + "' in the header of the import input");
+                        }
+                    }
+                    fileColumns = header;
+                }
+            }
+            if (fileColumns.isEmpty()) {
+                log.info("Import input for {} is empty", options.table());
+                return new ImportResult(0, 0, List.of(), localInfile.get(), Duration.ofNanos(System.nanoTime() - start));
+            }
+            List<Integer> fieldIndexes = new ArrayList<>();
+            List<String> tableColumns = new ArrayList<>();
+            for (int i = 0; i < fileColumns.size(); i++) {
+                if (!fileColumns.get(i).equals(ImportOptions.SKIP)) {
+                    fieldIndexes.add(i);
+                    tableColumns.add(fileColumns.get(i));
+                }
+            }
+            
+            List<List<String>> rows = new ArrayList<>(options.chunkRows());
+            long[] lines = new long[options.chunkRows()];
+            List<String> record;
+            while (failure.get() == null && (record = reader.next()) != null) {
+                rowsRead++;
+                if (record.size() != fileColumns.size()) {
+                    reject(rejected, reader.recordLine(), "Expected " + fileColumns.size() + " fields but found " + record.size());
+                    continue;
+                }
+                List<String> row = new ArrayList<>(fieldIndexes.size());
+                for (int index : fieldIndexes) {
+                    row.add(record.get(index));
+                }
+                lines[rows.size()] = reader.recordLine();
+                rows.add(row);
+                if (rows.size() == options.chunkRows()) {
+                    submit(executor, inFlight, new Chunk(rows, lines), tableColumns, imported, rejected, failure);
+                    rows = new ArrayList<>(options.chunkRows());
+                    lines = new long[options.chunkRows()];
+                }
+            }
+            if (!rows.isEmpty() && failure.get() == null) {
+                submit(executor, inFlight, new Chunk(rows, lines), tableColumns, imported, rejected, failure);
+            }
+        } finally {
+            // The executor has waited for the loaders by now
+            for (PooledConnection conn; (conn = idle.poll()) != null; ) {
+                conn.close();
+            }
+        }
+        
+        if (failure.get() != null) {
+            log.error("Import into {} failed after {} rows: {}", options.table(), imported.sum(), failure.get().getMessage());
+            throw failure.get();
+        }
+        List<RejectedRow> report;
+        synchronized (rejected) {
+            rejected.sort(Comparator.comparingLong(RejectedRow::line));
+            report = List.copyOf(rejected);
+        }
+        ImportResult result = new ImportResult(rowsRead, imported.sum(), report, localInfile.get(), Duration.ofNanos(System.nanoTime() - start));
+        log.info("{} into {}", result, options.table());
+        return result;
+    }
+    
+    private void submit(ExecutorService executor, Semaphore inFlight, Chunk chunk, List<String> columns,
+                        LongAdder imported, List<RejectedRow> rejected, AtomicReference<RuntimeException> failure) throws InterruptedException {
+        // Bounds memory: the reader waits until a loader is free
+        inFlight.acquire();
+        // Loaders run under the deadline of the importing call
+        Deadline deadline = Deadline.current();
+        executor.execute(() -> Deadline.within(deadline, () -> {
+            PooledConnection conn = idle.poll();
+            try {
+                if (conn == null) {
+                    conn = connections.get();
+                }
+                imported.add(load(conn, chunk, columns, rejected));
+                idle.push(conn);
+                conn = null;
+            } catch (SQLException e) {
+                failure.compareAndSet(null, new MySqlException("Error importing into " + options.table(), e));
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                // A connection that failed a chunk is not reused
+                if (conn != null) {
+                    conn.close();
+                }
+                inFlight.release();
+            }
+            return null;
+        }));
+    }
+    
+    private long load(PooledConnection conn, Chunk chunk, List<String> columns, List<RejectedRow> rejected) throws SQLException {
+        if (localInfile.get()) {
+            try (Statement stmt = conn.createStatement()) {
+                if (stmt.isWrapperFor(JdbcStatement.class)) {
+                    stmt.unwrap(JdbcStatement.class).setLocalInfileInputStream(new ByteArrayInputStream(encode(chunk)));
+                    long loaded = stmt.executeUpdate(loadDataSql(columns));
+                    reportWarnings(stmt.getWarnings(), chunk, 0, chunk.rows().size(), rejected);
+                    return loaded;
+                }
+                disableLocalInfile("the JDBC driver does not support local infile streams");
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ER_CLIENT_LOCAL_FILES_DISABLED && e.getErrorCode() != ER_NOT_ALLOWED_COMMAND) {
+                    throw e;
+                }
+                disableLocalInfile(e.getMessage());
+            }
+        }
+        return insert(conn, chunk, columns, rejected);
+    }
+    
+    private void disableLocalInfile(String reason) {
+        if (localInfile.compareAndSet(true, false)) {
+            log.warn("LOAD DATA LOCAL INFILE unavailable ({}), importing {} with multi-row INSERTs", reason, options.table());
+        }
+    }
+    
+    // TSV with MySQL's default LOAD DATA escaping, so the statement needs no FIELDS or LINES clause options
+    private static byte[] encode(Chunk chunk) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(chunk.rows().size() * 64);
+        try (DelimitedWriter writer = new DelimitedWriter(Channels.newChannel(bytes), ExportFormat.TSV, 64 * 1024)) {
+            for (List<String> row : chunk.rows()) {
+                for (String value : row) {
+                    writer.field(value);
+                }
+                writer.endRow();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("In-memory write failed", e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private String loadDataSql(List<String> columns) {
+        return "LOAD DATA LOCAL INFILE 'import.tsv' IGNORE INTO TABLE `" + options.table() + "` CHARACTER SET utf8mb4 "
+            + "FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' (" + columnList(columns) + ")";
+    }
+    
+    private long insert(PooledConnection conn, Chunk chunk, List<String> columns, List<RejectedRow> rejected) throws SQLException {
+        int maxRows = Math.max(1, MAX_PLACEHOLDERS / columns.size());
+        long inserted = 0;
+        for (int from = 0, to; from < chunk.rows().size(); from = to) {
+            to = statementEnd(chunk.rows(), from, maxRows);
+            try (PreparedStatement pstmt = conn.prepareUncachedStatement(insertSql(columns, to - from))) {
+                int index = 1;
+                for (List<String> row : chunk.rows().subList(from, to)) {
+                    for (String value : row) {
+                        if (value == null) {
+                            pstmt.setNull(index++, Types.VARCHAR);
+                        } else {
+                            pstmt.setString(index++, value);
+                        }
+                    }
+                }
+                inserted += pstmt.executeUpdate();
+                reportWarnings(pstmt.getWarnings(), chunk, from, to, rejected);
+            }
+        }
+        return inserted;
+    }
+    
+    // Ends the statement at the placeholder limit or before its estimated size outgrows the packet limit
+    private int statementEnd(List<List<String>> rows, int from, int maxRows) {
+        long bytes = 0;
+        int to = from;
+        while (to < rows.size() && to - from < maxRows) {
+            long rowBytes = estimateRowBytes(rows.get(to));
+            if (to > from && bytes + rowBytes > packetLimit) {
+                break;
+            }
+            bytes += rowBytes;
+            to++;
+        }
+        return to;
+    }
+    
+    // Worst case for client-side interpolation: every character escaped, plus quotes and separators
+    private static long estimateRowBytes(List<String> row) {
+        long bytes = 4;
+        for (String value : row) {
+            bytes += value == null ? 6 : 2L * value.getBytes(StandardCharsets.UTF_8).length + 4;
+        }
+        return bytes;
+    }
+    
+    private String insertSql(List<String> columns, int rowCount) {
+        StringBuilder row = new StringBuilder("(");
+        for (int i = 0; i < columns.size(); i++) {
+            row.append(i == 0 ? "?" : ", ?");
+        }
+        row.append(')');
+        StringBuilder sql = new StringBuilder(64 + rowCount * (row.length() + 2));
+        sql.append("INSERT IGNORE INTO `").append(options.table()).append("` (").append(columnList(columns)).append(") VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            sql.append(i == 0 ? "" : ", ").append(row);
+        }
+        return sql.toString();
+    }
+    
+    private static String columnList(List<String> columns) {
+        StringBuilder list = new StringBuilder();
+        for (String column : columns) {
+            list.append(list.isEmpty() ? "`" : ", `").append(column).append('`');
+        }
+        return list.toString();
+    }
+    
+    // Ignored rows come back as warnings (up to the server's max_error_count per statement) for the statement's rows
+    // from to to of the chunk. "at row N" counts from the first of them. Duplicate key warnings name the value
+    // instead, so they go to the last row not yet reported that holds it in a field: the later of two rows of the
+    // statement with the same key is the one skipped. Composite or truncated values match no field and stay at line 0.
+    private void reportWarnings(SQLWarning warning, Chunk chunk, int from, int to, List<RejectedRow> rejected) {
+        boolean[] reported = new boolean[to - from];
+        for (; warning != null; warning = warning.getNextWarning()) {
+            String message = String.valueOf(warning.getMessage());
+            int row = -1;
+            Matcher matcher = WARNING_ROW.matcher(message);
+            Matcher duplicate = DUPLICATE_ENTRY.matcher(message);
+            if (matcher.find()) {
+                row = Integer.parseInt(matcher.group(1)) - 1;
+            } else if (duplicate.find()) {
+                row = lastRowHolding(chunk, from, to, duplicate.group(1), reported);
+            }
+            long line = 0;
+            if (row >= 0 && row < reported.length) {
+                reported[row] = true;
+                line = chunk.lines()[from + row];
+            }
+            reject(rejected, line, warning.getMessage());
+        }
+    }
+    
+    private static int lastRowHolding(Chunk chunk, int from, int to, String value, boolean[] reported) {
+        for (int row = to - from - 1; row >= 0; row--) {
+            if (!reported[row] && chunk.rows().get(from + row).contains(value)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+    
+    private void reject(List<RejectedRow> rejected, long line, String reason) {
+        synchronized (rejected) {
+            if (rejected.size() < options.maxReportedErrors()) {
+                rejected.add(new RejectedRow(line, reason));
+            }
+        }
+    }
+}
\ No newline at end of file
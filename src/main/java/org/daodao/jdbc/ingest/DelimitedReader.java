@@ -0,0 +1,156 @@
+package org.daodao.jdbc.ingest;
+
+import org.daodao.jdbc.export.ExportFormat;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads records in the formats DelimitedWriter produces, one at a time so input of any size streams through.
+// CSV fields may be quoted across line breaks and an empty unquoted field is NULL; TSV fields use MySQL's
+// backslash escapes with \N as NULL. A trailing \r is dropped so files with CRLF line ends read the same.
+public final class DelimitedReader implements Closeable {
+    
+    private static final int NONE = -2;
+    
+    private final BufferedReader in;
+    private final ExportFormat format;
+    private final char delimiter;
+    private final StringBuilder field = new StringBuilder();
+    private int pushedBack = NONE;
+    private long line = 1;
+    private long recordLine;
+    
+    public DelimitedReader(Reader in, ExportFormat format) {
+        this.in = new BufferedReader(in, 64 * 1024);
+        this.format = format;
+        this.delimiter = format.delimiter();
+    }
+    
+    // Returns null at the end of the input
+    public List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        if (format == ExportFormat.CSV) {
+            readCsv(c, fields);
+        } else {
+            readTsv(c, fields);
+        }
+        line++;
+        return fields;
+    }
+    
+    // 1-based line on which the record last returned by next() starts
+    public long recordLine() {
+        return recordLine;
+    }
+    
+    private void readCsv(int c, List<String> fields) throws IOException {
+        while (true) {
+            field.setLength(0);
+            boolean quoted = c == '"';
+            if (quoted) {
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            break;
+                        }
+                    } else if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            }
+            // Unquoted text, or stray text after a closing quote, runs to the next delimiter or line end
+            while (c != -1 && c != delimiter && c != '\n' && c != '\r') {
+                field.append((char) c);
+                c = read();
+            }
+            fields.add(quoted || !field.isEmpty() ? field.toString() : null);
+            if (c != delimiter) {
+                endRecord(c);
+                return;
+            }
+            c = read();
+        }
+    }
+    
+    private void readTsv(int c, List<String> fields) throws IOException {
+        field.setLength(0);
+        boolean nullMarker = false;
+        while (true) {
+            if (c == -1 || c == '\n' || c == '\r' || c == delimiter) {
+                fields.add(nullMarker && field.isEmpty() ? null : field.toString());
+                if (c != delimiter) {
+                    endRecord(c);
+                    return;
+                }
+                field.setLength(0);
+                nullMarker = false;
+            } else if (c == '\\') {
+                int escaped = read();
+                switch (escaped) {
+                    case 't' -> field.append('\t');
+                    case 'n' -> field.append('\n');
+                    case 'r' -> field.append('\r');
+                    case '0' -> field.append('\0');
+                    case 'b' -> field.append('\b');
+                    case 'Z' -> field.append('\u001A');
+                    case 'N' -> {
+                        if (field.isEmpty() && !nullMarker) {
+                            nullMarker = true;
+                        } else {
+                            field.append('N');
+                        }
+                    }
+                    case -1 -> field.append('\\');
+                    default -> field.append((char) escaped);
+                }
+            } else {
+                if (nullMarker) {
+                    // \N followed by more text is the literal N
+                    field.append('N');
+                    nullMarker = false;
+                }
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+    
+    // Consumes \r\n as one line end; a lone \r also ends the record
+    private void endRecord(int c) throws IOException {
+        if (c == '\r') {
+            int next = read();
+            if (next != '\n' && next != -1) {
+                pushedBack = next;
+            }
+        }
+    }
+    
+    private int read() throws IOException {
+        if (pushedBack != NONE) {
+            int c = pushedBack;
+            pushedBack = NONE;
+            return c;
+        }
+        return in.read();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
\ No newline at end of file
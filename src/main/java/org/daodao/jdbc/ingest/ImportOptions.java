@@ -0,0 +1,76 @@
+package org.daodao.jdbc.ingest;
+
+import org.daodao.jdbc.export.ExportFormat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// columns maps file fields to table columns by position, "-" skips a field; when empty the header row names
+// the columns. Each chunk of chunkRows rows is loaded by one statement, up to parallelism chunks at a time.
+public record ImportOptions(
+        String table,
+        List<String> columns,
+        ExportFormat format,
+        boolean header,
+        int chunkRows,
+        int parallelism,
+        int maxReportedErrors) {
+    
+    public static final String SKIP = "-";
+    
+    public ImportOptions {
+        if (table == null || !BulkImporter.isIdentifier(table)) {
+            throw new IllegalArgumentException("Invalid table name '" + table + "'");
+        }
+        columns = List.copyOf(columns);
+        Set<String> seen = new HashSet<>();
+        for (String column : columns) {
+            if (!column.equals(SKIP) && (!BulkImporter.isIdentifier(column) || !seen.add(column))) {
+                throw new IllegalArgumentException("Invalid or duplicate column '" + column + "'");
+            }
+        }
+        if (!columns.isEmpty() && seen.isEmpty()) {
+            throw new IllegalArgumentException("At least one column must be imported");
+        }
+        if (columns.isEmpty() && !header) {
+            throw new IllegalArgumentException("Columns are required when the input has no header row");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Import format must not be null");
+        }
+        if (chunkRows < 1 || parallelism < 1 || maxReportedErrors < 0) {
+            throw new IllegalArgumentException("Invalid chunk rows, parallelism or max reported errors: "
+                + chunkRows + ", " + parallelism + ", " + maxReportedErrors);
+        }
+    }
+    
+    // CSV with a header row naming the columns, 10,000 row chunks on 4 connections
+    public static ImportOptions forTable(String table) {
+        return new ImportOptions(table, List.of(), ExportFormat.CSV, true, 10_000, 4, 100);
+    }
+    
+    public ImportOptions withColumns(List<String> columns) {
+        return new ImportOptions(table, columns, format, header, chunkRows, parallelism, maxReportedErrors);
+    }
+    
+    public ImportOptions withFormat(ExportFormat format) {
+        return new ImportOptions(table, columns, format, header, chunkRows, parallelism, maxReportedErrors);
+    }
+    
+    public ImportOptions withHeader(boolean header) {
+        return new ImportOptions(table, columns, format, header, chunkRows, parallelism, maxReportedErrors);
+    }
+    
+    public ImportOptions withChunkRows(int chunkRows) {
+        return new ImportOptions(table, columns, format, header, chunkRows, parallelism, maxReportedErrors);
+    }
+    
+    public ImportOptions withParallelism(int parallelism) {
+        return new ImportOptions(table, columns, format, header, chunkRows, parallelism, maxReportedErrors);
+    }
+    
+    public ImportOptions withMaxReportedErrors(int maxReportedErrors) {
+        return new ImportOptions(table, columns, format, header, chunkRows, parallelism, maxReportedErrors);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package org.daodao.jdbc.ingest;
+
+import org.daodao.jdbc.export.ExportFormat;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+// What the "import" command runs: the input file and how it maps onto a table
+public record ImportRequest(Path source, ImportOptions options) {
+    
+    public ImportRequest {
+        if (source == null) {
+            throw new IllegalArgumentException("--file is required");
+        }
+    }
+    
+    // Parses --table=users --file=users.csv.gz [--columns=username,email,-,age] [--format=csv|tsv]
+    // [--header=true] [--chunk-rows=10000] [--parallelism=4] [--max-errors=100]. The format defaults
+    // from the file name and a .gz file is decompressed while reading.
+    public static ImportRequest parse(String... args) {
+        String table = null;
+        Path source = null;
+        ExportFormat format = null;
+        String columns = null;
+        Boolean header = null;
+        Integer chunkRows = null;
+        Integer parallelism = null;
+        Integer maxErrors = null;
+        
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --option=value but got '" + arg + "'");
+            }
+            String option = arg.substring(2, separator);
+            String value = arg.substring(separator + 1).trim();
+            try {
+                switch (option) {
+                    case "table" -> table = value;
+                    case "file" -> source = Path.of(value);
+                    case "columns" -> columns = value;
+                    case "format" -> format = switch (value.toLowerCase(Locale.ROOT)) {
+                        case "csv" -> ExportFormat.CSV;
+                        case "tsv" -> ExportFormat.TSV;
+                        default -> throw new IllegalArgumentException("Invalid value for --format: '" + value + "', expected csv or tsv");
+                    };
+                    case "header" -> {
+                        if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+                            throw new IllegalArgumentException("Invalid value for --header: '" + value + "', expected true or false");
+                        }
+                        header = Boolean.parseBoolean(value);
+                    }
+                    case "chunk-rows" -> chunkRows = Integer.parseInt(value);
+                    case "parallelism" -> parallelism = Integer.parseInt(value);
+                    case "max-errors" -> maxErrors = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Unknown option --" + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for --" + option + ": '" + value + "'", e);
+            }
+        }
+        
+        if (table == null) {
+            throw new IllegalArgumentException("--table is required");
+        }
+        ImportOptions options = ImportOptions.forTable(table);
+        if (columns != null) {
+            options = options.withColumns(Arrays.stream(columns.split(",")).map(String::trim).toList());
+        }
+        if (format == null && source != null) {
+            String fileName = source.getFileName().toString().toLowerCase(Locale.ROOT);
+            format = fileName.endsWith(".tsv") || fileName.endsWith(".tsv.gz") ? ExportFormat.TSV : ExportFormat.CSV;
+        }
+        options = options.withFormat(format != null ? format : ExportFormat.CSV);
+        if (header != null) {
+            options = options.withHeader(header);
+        }
+        if (chunkRows != null) {
+            options = options.withChunkRows(chunkRows);
+        }
+        if (parallelism != null) {
+            options = options.withParallelism(parallelism);
+        }
+        if (maxErrors != null) {
+            options = options.withMaxReportedErrors(maxErrors);
+        }
+        return new ImportRequest(source, options);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package org.daodao.jdbc.ingest;
+
+import java.time.Duration;
+import java.util.List;
+
+// rowsSkipped covers rows rejected by the reader and rows the server ignored (duplicate keys, bad values);
+// rejected holds the first ImportOptions.maxReportedErrors of them
+public record ImportResult(long rowsRead, long rowsImported, List<RejectedRow> rejected, boolean localInfile, Duration elapsed) {
+    
+    public long rowsSkipped() {
+        return rowsRead - rowsImported;
+    }
+    
+    public double rowsPerSecond() {
+        double seconds = elapsed.toNanos() / 1_000_000_000.0;
+        return seconds == 0 ? 0 : rowsRead / seconds;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Imported %d of %d rows (%d skipped) with %s in %.1f s (%.0f rows/s)",
+            rowsImported, rowsRead, rowsSkipped(), localInfile ? "LOAD DATA LOCAL INFILE" : "multi-row INSERTs",
+            elapsed.toMillis() / 1_000.0, rowsPerSecond());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,5 @@
+package org.daodao.jdbc.ingest;
+
+// line is the 1-based input line the row starts on, or 0 when a server warning could not be tied to a row
+public record RejectedRow(long line, String reason) {
+}
\ No newline at end of file
@@ -0,0 +1,215 @@
+package org.daodao.jdbc.load;
+
+import org.daodao.jdbc.cache.QueryCacheStats;
+import org.daodao.jdbc.cache.SingleFlightStats;
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.metrics.LatencyHistogram;
+import org.daodao.jdbc.metrics.LatencySnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Drives a MySqlConnector with a weighted mix of reads and writes from virtual-thread workers.
+// Open-loop runs follow a fixed schedule shared round-robin by the workers (as wrk2 does), so
+// when the server stalls the scheduled start keeps moving and the wait is counted as latency.
+public class LoadGenerator {
+    
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+    
+    // Usernames created by the load test, removed again when cleanup is on
+    static final String USERNAME_PREFIX = "loadgen_";
+    private static final String[] CITIES = {"New York", "Los Angeles", "Chicago", "Houston", "Phoenix"};
+    
+    private final MySqlConnector connector;
+    private final LoadProfile profile;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    
+    private final Recorder[] recorders = new Recorder[LoadOperation.values().length];
+    // Cache counters when the first measured call started, so the report's cache counts match its latencies
+    private final AtomicReference<CacheCounters> measuredFrom = new AtomicReference<>();
+    
+    private record CacheCounters(QueryCacheStats queryCache, SingleFlightStats singleFlight) {}
+    
+    private static final class Recorder {
+        final LatencyHistogram responseTime = new LatencyHistogram();
+        final LatencyHistogram serviceTime = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+    }
+    
+    public LoadGenerator(MySqlConnector connector, LoadProfile profile) {
+        this.connector = connector;
+        this.profile = profile;
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new Recorder();
+        }
+    }
+    
+    public LoadReport run() throws InterruptedException {
+        log.info("Starting load test: {}", profile);
+        long start = System.nanoTime();
+        long measureFrom = start + profile.warmup().toNanos();
+        long end = measureFrom + profile.duration().toNanos();
+        
+        List<Thread> workers = new ArrayList<>(profile.concurrency());
+        for (int worker = 0; worker < profile.concurrency(); worker++) {
+            int id = worker;
+            workers.add(Thread.ofVirtual().name("load-worker-" + id).start(() -> runWorker(id, start, measureFrom, end)));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long measuredNanos = Math.max(System.nanoTime(), end) - measureFrom;
+        QueryCacheStats cacheAfter = connector.getQueryCacheStats();
+        SingleFlightStats singleFlightAfter = connector.getSingleFlightStats();
+        CacheCounters before = measuredFrom.get();
+        QueryCacheStats cacheBefore = before != null ? before.queryCache() : cacheAfter;
+        SingleFlightStats singleFlightBefore = before != null ? before.singleFlight() : singleFlightAfter;
+        QueryCacheStats queryCache = new QueryCacheStats(cacheAfter.hits() - cacheBefore.hits(),
+            cacheAfter.misses() - cacheBefore.misses(), cacheAfter.evictions() - cacheBefore.evictions(),
+            cacheAfter.expirations() - cacheBefore.expirations(), cacheAfter.invalidations() - cacheBefore.invalidations(),
+            cacheAfter.entries(), cacheAfter.usedBytes(), cacheAfter.maxBytes());
+        SingleFlightStats singleFlight = new SingleFlightStats(singleFlightAfter.leaders() - singleFlightBefore.leaders(),
+            singleFlightAfter.followers() - singleFlightBefore.followers(), singleFlightAfter.inFlight());
+        
+        if (profile.cleanup()) {
+            connector.execute("DELETE FROM users WHERE username LIKE '" + USERNAME_PREFIX + runId + "\\_%'");
+        }
+        return report(measuredNanos, queryCache, singleFlight);
+    }
+    
+    private void runWorker(int worker, long start, long measureFrom, long end) {
+        SplittableRandom random = new SplittableRandom(start + worker);
+        WorkerState state = new WorkerState(worker);
+        double intervalNanos = profile.isOpenLoop() ? TimeUnit.SECONDS.toNanos(1) / profile.targetRate() : 0;
+        
+        for (long sequence = 0; ; sequence++) {
+            long scheduled;
+            if (profile.isOpenLoop()) {
+                // Worker w owns slots w, w + n, w + 2n, ... of the global schedule
+                scheduled = start + (long) ((sequence * profile.concurrency() + worker) * intervalNanos);
+                if (scheduled >= end) {
+                    return;
+                }
+                waitUntil(scheduled);
+            } else {
+                scheduled = System.nanoTime();
+                if (scheduled >= end) {
+                    return;
+                }
+            }
+            
+            if (scheduled >= measureFrom && measuredFrom.get() == null) {
+                measuredFrom.compareAndSet(null, new CacheCounters(connector.getQueryCacheStats(), connector.getSingleFlightStats()));
+            }
+            LoadOperation operation = pick(random);
+            long begin = System.nanoTime();
+            boolean succeeded = execute(operation, state, random);
+            long finish = System.nanoTime();
+            
+            if (scheduled >= measureFrom) {
+                Recorder recorder = recorders[operation.ordinal()];
+                recorder.responseTime.record(finish - scheduled);
+                recorder.serviceTime.record(finish - begin);
+                if (!succeeded) {
+                    recorder.errors.increment();
+                }
+            }
+        }
+    }
+    
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+    
+    private LoadOperation pick(SplittableRandom random) {
+        int roll = random.nextInt(profile.totalWeight());
+        if ((roll -= profile.readWeight()) < 0) {
+            return LoadOperation.READ;
+        }
+        if ((roll -= profile.insertWeight()) < 0) {
+            return LoadOperation.INSERT;
+        }
+        if (roll - profile.updateWeight() < 0) {
+            return LoadOperation.UPDATE;
+        }
+        return LoadOperation.DELETE;
+    }
+    
+    // Each worker updates and deletes only users it inserted itself, so workers never contend on rows
+    private final class WorkerState {
+        final String prefix;
+        final Deque<String> inserted = new ArrayDeque<>();
+        long next;
+        
+        WorkerState(int worker) {
+            this.prefix = USERNAME_PREFIX + runId + "_" + worker + "_";
+        }
+    }
+    
+    private boolean execute(LoadOperation operation, WorkerState state, SplittableRandom random) {
+        try {
+            switch (operation) {
+                case READ -> connector.findUserRecordsByCity(CITIES[random.nextInt(CITIES.length)]);
+                case INSERT -> {
+                    String username = state.prefix + state.next++;
+                    if (connector.insertUser(username, username + "@load.example.com", 18 + random.nextInt(60), CITIES[random.nextInt(CITIES.length)])) {
+                        state.inserted.addLast(username);
+                    }
+                }
+                case UPDATE -> {
+                    String username = state.inserted.isEmpty() ? state.prefix + "missing" : state.inserted.peekLast();
+                    connector.updateUserEmail(username, username + "." + random.nextInt(1_000_000) + "@load.example.com");
+                }
+                case DELETE -> {
+                    String username = state.inserted.isEmpty() ? state.prefix + "missing" : state.inserted.pollFirst();
+                    connector.deleteUser(username);
+                }
+            }
+            return true;
+        } catch (MySqlException e) {
+            log.debug("Load operation {} failed: {}", operation, e.getMessage());
+            return false;
+        }
+    }
+    
+    private LoadReport report(long measuredNanos, QueryCacheStats queryCache, SingleFlightStats singleFlight) {
+        LatencyHistogram totalResponse = new LatencyHistogram();
+        LatencyHistogram totalService = new LatencyHistogram();
+        List<OperationResult> operations = new ArrayList<>();
+        long errors = 0;
+        
+        for (LoadOperation operation : LoadOperation.values()) {
+            Recorder recorder = recorders[operation.ordinal()];
+            LatencySnapshot responseTime = recorder.responseTime.snapshot();
+            OperationResult result = new OperationResult(operation.name().toLowerCase(Locale.ROOT), responseTime.count(),
+                recorder.errors.sum(), responseTime, recorder.serviceTime.snapshot());
+            if (result.count() > 0) {
+                operations.add(result);
+                totalResponse.add(recorder.responseTime);
+                totalService.add(recorder.serviceTime);
+                errors += result.errors();
+            }
+        }
+        
+        LatencySnapshot responseTime = totalResponse.snapshot();
+        OperationResult total = new OperationResult("total", responseTime.count(), errors, responseTime, totalService.snapshot());
+        double throughput = total.count() / (measuredNanos / 1_000_000_000.0);
+        return new LoadReport(profile, Duration.ofNanos(measuredNanos), throughput, total, operations, connector.getPoolStats(),
+            queryCache, singleFlight);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package org.daodao.jdbc.load;
+
+public enum LoadOperation {
+    READ,
+    INSERT,
+    UPDATE,
+    DELETE
+}
\ No newline at end of file
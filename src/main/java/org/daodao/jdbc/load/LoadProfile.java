@@ -0,0 +1,111 @@
+package org.daodao.jdbc.load;
+
+import java.time.Duration;
+import java.util.Locale;
+
+// targetRate of 0 runs closed loop: every worker issues its next call as soon as the previous one returns.
+// A positive targetRate runs open loop: calls are scheduled at fixed intervals and latency is measured
+// from the scheduled start, so a stalled server shows up in the percentiles (coordinated omission).
+// cache runs reads through the query cache and single-flight; off by default, since reads over a handful of
+// cities would otherwise measure cache hits rather than the server.
+public record LoadProfile(
+        int readWeight,
+        int insertWeight,
+        int updateWeight,
+        int deleteWeight,
+        int concurrency,
+        double targetRate,
+        Duration duration,
+        Duration warmup,
+        boolean cleanup,
+        boolean cache) {
+    
+    public static final LoadProfile DEFAULT = new LoadProfile(70, 10, 15, 5, 16, 0, Duration.ofSeconds(30), Duration.ofSeconds(5), true, false);
+    
+    public LoadProfile {
+        if (readWeight < 0 || insertWeight < 0 || updateWeight < 0 || deleteWeight < 0
+                || readWeight + insertWeight + updateWeight + deleteWeight == 0) {
+            throw new IllegalArgumentException("Operation mix needs non-negative weights with a positive sum");
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1 but was " + concurrency);
+        }
+        if (targetRate < 0) {
+            throw new IllegalArgumentException("Target rate must not be negative but was " + targetRate);
+        }
+        if (duration.isNegative() || duration.isZero() || warmup.isNegative()) {
+            throw new IllegalArgumentException("Duration must be positive and warmup must not be negative");
+        }
+    }
+    
+    public boolean isOpenLoop() {
+        return targetRate > 0;
+    }
+    
+    public int totalWeight() {
+        return readWeight + insertWeight + updateWeight + deleteWeight;
+    }
+    
+    // Parses --mix=70,10,15,5 --concurrency=16 --rate=500 --duration=30s --warmup=5s --cleanup=true --cache=false;
+    // omitted options keep their DEFAULT values
+    public static LoadProfile parse(String... args) {
+        int[] mix = {DEFAULT.readWeight, DEFAULT.insertWeight, DEFAULT.updateWeight, DEFAULT.deleteWeight};
+        int concurrency = DEFAULT.concurrency;
+        double rate = DEFAULT.targetRate;
+        Duration duration = DEFAULT.duration;
+        Duration warmup = DEFAULT.warmup;
+        boolean cleanup = DEFAULT.cleanup;
+        boolean cache = DEFAULT.cache;
+        
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --option=value but got '" + arg + "'");
+            }
+            String option = arg.substring(2, separator);
+            String value = arg.substring(separator + 1).trim();
+            try {
+                switch (option) {
+                    case "mix" -> mix = parseMix(value);
+                    case "concurrency" -> concurrency = Integer.parseInt(value);
+                    case "rate" -> rate = Double.parseDouble(value);
+                    case "duration" -> duration = parseDuration(value);
+                    case "warmup" -> warmup = parseDuration(value);
+                    case "cleanup" -> cleanup = Boolean.parseBoolean(value);
+                    case "cache" -> cache = Boolean.parseBoolean(value);
+                    default -> throw new IllegalArgumentException("Unknown option --" + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for --" + option + ": '" + value + "'", e);
+            }
+        }
+        return new LoadProfile(mix[0], mix[1], mix[2], mix[3], concurrency, rate, duration, warmup, cleanup, cache);
+    }
+    
+    private static int[] parseMix(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("--mix takes read,insert,update,delete weights but was '" + value + "'");
+        }
+        int[] mix = new int[4];
+        for (int i = 0; i < 4; i++) {
+            mix[i] = Integer.parseInt(parts[i].trim());
+        }
+        return mix;
+    }
+    
+    // Accepts 500ms, 30s, 2m, or a bare number of seconds
+    static Duration parseDuration(String value) {
+        String text = value.toLowerCase(Locale.ROOT);
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(text));
+    }
+}
\ No newline at end of file
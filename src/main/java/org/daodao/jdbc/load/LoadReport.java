@@ -0,0 +1,65 @@
+package org.daodao.jdbc.load;
+
+import org.daodao.jdbc.cache.QueryCacheStats;
+import org.daodao.jdbc.cache.SingleFlightStats;
+import org.daodao.jdbc.pool.PoolStats;
+
+import java.time.Duration;
+import java.util.List;
+
+// queryCache and singleFlight count what happened in the measured window only
+public record LoadReport(
+        LoadProfile profile,
+        Duration measured,
+        double throughputPerSecond,
+        OperationResult total,
+        List<OperationResult> operations,
+        PoolStats poolStats,
+        QueryCacheStats queryCache,
+        SingleFlightStats singleFlight) {
+    
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Load test: %s, concurrency=%d, mix=%d/%d/%d/%d (read/insert/update/delete), measured %.1fs%n",
+            profile.isOpenLoop() ? String.format("open loop at %.1f ops/s", profile.targetRate()) : "closed loop",
+            profile.concurrency(), profile.readWeight(), profile.insertWeight(), profile.updateWeight(), profile.deleteWeight(),
+            measured.toMillis() / 1_000.0));
+        report.append(String.format("Throughput: %.1f ops/s%n", throughputPerSecond));
+        if (!profile.isOpenLoop()) {
+            report.append("Closed loop latencies are service times and omit queueing delay; use --rate for corrected percentiles")
+                .append(System.lineSeparator());
+        }
+        report.append(String.format("%-8s %10s %8s %10s %10s %10s %10s %10s %12s%n",
+            "op", "count", "errors", "mean(us)", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)"));
+        for (OperationResult result : operations) {
+            appendRow(report, result);
+        }
+        appendRow(report, total);
+        if (profile.isOpenLoop()) {
+            report.append(String.format("Service time (total): p50=%.1fus, p99=%.1fus, max=%.1fus%n",
+                total.serviceTime().p50Nanos() / 1_000.0, total.serviceTime().p99Nanos() / 1_000.0, total.serviceTime().maxNanos() / 1_000.0));
+        }
+        if (profile.cache()) {
+            report.append(String.format("Read caching: %d cache hits of %d lookups (%.1f%%), %d of %d loads collapsed into one in flight%n",
+                queryCache.hits(), queryCache.hits() + queryCache.misses(), queryCache.hitRatio() * 100,
+                singleFlight.followers(), singleFlight.leaders() + singleFlight.followers()));
+        } else {
+            report.append("Read caching: off, every read goes to the server; use --cache=true to include the query cache and single-flight")
+                .append(System.lineSeparator());
+        }
+        report.append(poolStats);
+        return report.toString();
+    }
+    
+    private static void appendRow(StringBuilder report, OperationResult result) {
+        report.append(String.format("%-8s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f %12.1f%n",
+            result.name(), result.count(), result.errors(),
+            result.responseTime().meanNanos() / 1_000.0,
+            result.responseTime().p50Nanos() / 1_000.0,
+            result.responseTime().p90Nanos() / 1_000.0,
+            result.responseTime().p99Nanos() / 1_000.0,
+            result.responseTime().p999Nanos() / 1_000.0,
+            result.responseTime().maxNanos() / 1_000.0));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package org.daodao.jdbc.load;
+
+import org.daodao.jdbc.metrics.LatencySnapshot;
+
+// responseTime is measured from the scheduled start in open-loop runs and equals serviceTime in closed-loop runs
+public record OperationResult(String name, long count, long errors, LatencySnapshot responseTime, LatencySnapshot serviceTime) {
+}
\ No newline at end of file
@@ -0,0 +1,203 @@
+package org.daodao.jdbc.lookup;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Collects point lookups into batches for one multi-key query, in the manner of DataLoader. A loader is a scope,
+// typically one request: every key is fetched at most once per loader and later loads of it share the same
+// future, so create a loader per request and close it at the end instead of sharing one across requests.
+//
+// Pending keys are dispatched windowMillis after the first of them was loaded, as soon as maxBatchKeys are
+// pending, or when dispatch() is called; with windowMillis 0 only the last two apply. Futures complete with the
+// value found, or null when there is none. A failed batch fails its futures and is not cached, so loading the
+// same keys again retries them.
+public class BatchLoader<V> implements AutoCloseable {
+    
+    private static final Executor DISPATCHER = task -> Thread.ofVirtual().name("mysql-batch-loader").start(task);
+    
+    private final Function<Collection<String>, Map<String, V>> batchFunction;
+    private final long windowMillis;
+    private final int maxBatchKeys;
+    // Guards the maps and counters below; a lock rather than synchronized so virtual threads never pin
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, CompletableFuture<V>> cache = new HashMap<>();
+    private Map<String, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    private boolean windowScheduled;
+    private boolean closed;
+    private long loads;
+    private long cacheHits;
+    private long batches;
+    private long keysDispatched;
+    private int maxBatchSize;
+    
+    // batchFunction gets distinct keys and returns the values found, keyed as passed
+    public BatchLoader(Function<Collection<String>, Map<String, V>> batchFunction, long windowMillis, int maxBatchKeys) {
+        if (windowMillis < 0 || maxBatchKeys < 1) {
+            throw new IllegalArgumentException("Batch loader needs windowMillis >= 0 and maxBatchKeys >= 1 but got "
+                + windowMillis + " and " + maxBatchKeys);
+        }
+        this.batchFunction = batchFunction;
+        this.windowMillis = windowMillis;
+        this.maxBatchKeys = maxBatchKeys;
+    }
+    
+    public CompletableFuture<V> load(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Lookup keys must not be null");
+        }
+        Map<String, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Batch loader is closed");
+            }
+            loads++;
+            future = cache.get(key);
+            if (future != null) {
+                cacheHits++;
+                return future;
+            }
+            future = new CompletableFuture<>();
+            cache.put(key, future);
+            pending.put(key, future);
+            if (pending.size() >= maxBatchKeys) {
+                full = takePending();
+            } else if (windowMillis > 0 && !windowScheduled) {
+                windowScheduled = true;
+                CompletableFuture.delayedExecutor(windowMillis, TimeUnit.MILLISECONDS, DISPATCHER).execute(this::dispatchWindow);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            // The caller that filled the batch is not made to wait for it
+            Map<String, CompletableFuture<V>> batch = full;
+            DISPATCHER.execute(() -> run(batch));
+        }
+        return future;
+    }
+    
+    // Values keyed by the keys passed; keys without a value map to null
+    public CompletableFuture<Map<String, V>> loadMany(Collection<String> keys) {
+        Map<String, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (String key : keys) {
+            futures.putIfAbsent(key, load(key));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            Map<String, V> values = new LinkedHashMap<>();
+            futures.forEach((key, future) -> values.put(key, future.join()));
+            return values;
+        });
+    }
+    
+    // Runs the pending keys on the calling thread, so the futures loaded so far are complete when this returns
+    public void dispatch() {
+        Map<String, CompletableFuture<V>> batch;
+        lock.lock();
+        try {
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+        run(batch);
+    }
+    
+    private void dispatchWindow() {
+        Map<String, CompletableFuture<V>> batch;
+        lock.lock();
+        try {
+            windowScheduled = false;
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+        run(batch);
+    }
+    
+    // Caller holds the lock
+    private Map<String, CompletableFuture<V>> takePending() {
+        Map<String, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (!batch.isEmpty()) {
+            batches++;
+            keysDispatched += batch.size();
+            maxBatchSize = Math.max(maxBatchSize, batch.size());
+        }
+        return batch;
+    }
+    
+    private void run(Map<String, CompletableFuture<V>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, V> found;
+        try {
+            found = batchFunction.apply(batch.keySet());
+        } catch (RuntimeException | Error e) {
+            lock.lock();
+            try {
+                batch.forEach(cache::remove);
+            } finally {
+                lock.unlock();
+            }
+            // Callers see the failure through their futures
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+        batch.forEach((key, future) -> future.complete(found.get(key)));
+    }
+    
+    // Forgets cached values, e.g. after the request changed the rows behind them
+    public void clear(String key) {
+        lock.lock();
+        try {
+            cache.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void clearAll() {
+        lock.lock();
+        try {
+            cache.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public LoaderStats getStats() {
+        lock.lock();
+        try {
+            return new LoaderStats(loads, cacheHits, batches, keysDispatched, maxBatchSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Dispatches what is still pending, so no future is left incomplete, and drops the cache
+    @Override
+    public void close() {
+        Map<String, CompletableFuture<V>> batch;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            batch = takePending();
+            cache.clear();
+        } finally {
+            lock.unlock();
+        }
+        run(batch);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,346 @@
+package org.daodao.jdbc.lookup;
+
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.mapper.RowMapper;
+import org.daodao.jdbc.pool.PooledConnection;
+import org.daodao.jdbc.timeout.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+// Looks rows up by a unique string key for many keys at once. Keys are deduplicated and matched to the rows found
+// as the key column's collation compares them, and the work is spread over up to `parallelism` pooled connections.
+//
+// Below tempTableThreshold distinct keys, keys go out as IN-lists of at most inListKeys keys, cut early where the
+// statement would outgrow the packet limit. Each list is padded to a power of two with its last key, so the
+// statement cache sees a handful of statement texts rather than one per size. At or above the threshold, every
+// connection bulk-loads its share of the keys into a session temporary table and joins it instead, which spares
+// the server from parsing and planning thousands of IN-list entries per statement.
+public class KeyLookup {
+    
+    private static final Logger log = LoggerFactory.getLogger(KeyLookup.class);
+    
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_$]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    // MySQL prepared statements accept at most 65535 placeholders
+    private static final int MAX_PLACEHOLDERS = 65_535;
+    private static final String KEY_TABLE = "lookup_keys";
+    private static final String KEY_CHARSET_SQL = "SELECT CHARACTER_SET_NAME, COLLATION_NAME FROM information_schema.COLUMNS "
+        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+    
+    private final Supplier<PooledConnection> connections;
+    private final int inListKeys;
+    private final int tempTableThreshold;
+    private final int parallelism;
+    private final int packetLimit;
+    
+    public KeyLookup(Supplier<PooledConnection> connections, int inListKeys, int tempTableThreshold, int parallelism, int packetLimit) {
+        this.connections = connections;
+        this.inListKeys = Math.min(inListKeys, MAX_PLACEHOLDERS);
+        this.tempTableThreshold = tempTableThreshold;
+        this.parallelism = parallelism;
+        this.packetLimit = packetLimit;
+    }
+    
+    // Returns the rows found, keyed by every spelling of the key the caller passed, in the order passed
+    public <T> Map<String, T> find(String table, String keyColumn, List<String> columns, RowMapper<T> mapper,
+                                   Function<? super T, String> keyOf, Collection<String> keys) {
+        checkIdentifier(table);
+        checkIdentifier(keyColumn);
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        columns.forEach(KeyLookup::checkIdentifier);
+        
+        for (String key : keys) {
+            if (key == null) {
+                throw new IllegalArgumentException("Lookup keys must not be null");
+            }
+        }
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        
+        KeyColumn column;
+        try {
+            column = keyColumn(table, keyColumn);
+        } catch (SQLException e) {
+            log.error("Error reading the collation of {}.{}: {}", table, keyColumn, e.getMessage());
+            throw new MySqlException("Error reading the collation of " + table + "." + keyColumn, e);
+        }
+        UnaryOperator<String> comparable = comparisonKey(column.collation());
+        Map<String, List<String>> spellings = new LinkedHashMap<>();
+        for (String key : keys) {
+            List<String> known = spellings.computeIfAbsent(comparable.apply(key), k -> new ArrayList<>(1));
+            if (!known.contains(key)) {
+                known.add(key);
+            }
+        }
+        List<String> distinct = new ArrayList<>(spellings.size());
+        spellings.values().forEach(known -> distinct.add(known.get(0)));
+        
+        Map<String, T> found = new ConcurrentHashMap<>();
+        RowCollector collector = rs -> {
+            T row = mapper.mapRow(rs);
+            found.put(comparable.apply(keyOf.apply(row)), row);
+        };
+        boolean tempTable = distinct.size() >= tempTableThreshold;
+        try {
+            if (tempTable) {
+                Queue<List<String>> shares = new ConcurrentLinkedQueue<>(
+                    split(distinct, Math.min(parallelism, (distinct.size() + inListKeys - 1) / inListKeys)));
+                String createSql = "CREATE TEMPORARY TABLE " + KEY_TABLE + " (lookup_key VARCHAR(255)" + column.typeSuffix()
+                    + " NOT NULL PRIMARY KEY) ENGINE=MEMORY";
+                String joinSql = "SELECT " + prefixed(columns) + " FROM " + table + " t JOIN " + KEY_TABLE + " k ON t." + keyColumn + " = k.lookup_key";
+                run(shares.size(), () -> {
+                    List<String> share = shares.poll();
+                    try (PooledConnection conn = connections.get()) {
+                        joinKeyTable(conn, share, createSql, joinSql, collector);
+                    }
+                });
+            } else {
+                Queue<List<String>> chunks = new ConcurrentLinkedQueue<>(chunk(distinct));
+                String selectSql = "SELECT " + String.join(", ", columns) + " FROM " + table + " WHERE " + keyColumn + " IN (";
+                run(Math.min(parallelism, chunks.size()), () -> {
+                    try (PooledConnection conn = connections.get()) {
+                        List<String> chunk;
+                        while ((chunk = chunks.poll()) != null) {
+                            selectInList(conn, selectSql, chunk, collector);
+                        }
+                    }
+                });
+            }
+        } catch (SQLException e) {
+            log.error("Error looking up {} by {}: {}", table, keyColumn, e.getMessage());
+            throw new MySqlException("Error looking up " + table + " by " + keyColumn, e);
+        }
+        log.debug("Looked up {} distinct keys in {} through {}, found {}", distinct.size(), table,
+            tempTable ? "a temporary table" : "IN-lists", found.size());
+        
+        Map<String, T> result = new LinkedHashMap<>();
+        spellings.forEach((comparisonKey, known) -> {
+            T row = found.get(comparisonKey);
+            if (row != null) {
+                known.forEach(key -> result.put(key, row));
+            }
+        });
+        return Collections.unmodifiableMap(result);
+    }
+    
+    @FunctionalInterface
+    private interface RowCollector {
+        void collect(ResultSet rs) throws SQLException;
+    }
+    
+    @FunctionalInterface
+    private interface Task {
+        void run() throws SQLException;
+    }
+    
+    // One task runs on the calling thread; more run on virtual threads under the caller's deadline, the first
+    // failure, Errors included, is rethrown
+    private static void run(int tasks, Task task) throws SQLException {
+        if (tasks == 1) {
+            task.run();
+            return;
+        }
+        Deadline deadline = Deadline.current();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < tasks; i++) {
+                executor.execute(() -> Deadline.within(deadline, () -> {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                    return null;
+                }));
+            }
+        }
+        // Tasks throw nothing else
+        if (failure.get() instanceof SQLException sqlException) {
+            throw sqlException;
+        }
+        if (failure.get() instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (failure.get() instanceof Error error) {
+            throw error;
+        }
+    }
+    
+    private void selectInList(PooledConnection conn, String selectSql, List<String> chunk, RowCollector collector) throws SQLException {
+        int size = paddedSize(chunk.size());
+        PreparedStatement pstmt = conn.prepareStatement(selectSql + placeholders(size) + ")");
+        for (int i = 0; i < size; i++) {
+            pstmt.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+        }
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                collector.collect(rs);
+            }
+        }
+    }
+    
+    // Character set and collation of the key column, both null when the server does not report them
+    private record KeyColumn(String charset, String collation) {
+        
+        // For the temporary table, so the join compares keys as the table does and can use its index; the session
+        // default may differ
+        String typeSuffix() {
+            return charset == null ? "" : " CHARACTER SET " + charset + " COLLATE " + collation;
+        }
+    }
+    
+    private KeyColumn keyColumn(String table, String keyColumn) throws SQLException {
+        try (PooledConnection conn = connections.get()) {
+            PreparedStatement pstmt = conn.prepareStatement(KEY_CHARSET_SQL);
+            pstmt.setString(1, table);
+            pstmt.setString(2, keyColumn);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return new KeyColumn(null, null);
+                }
+                String charset = rs.getString(1);
+                String collation = rs.getString(2);
+                if (charset == null || collation == null || !IDENTIFIER.matcher(charset).matches() || !IDENTIFIER.matcher(collation).matches()) {
+                    return new KeyColumn(null, null);
+                }
+                return new KeyColumn(charset, collation);
+            }
+        }
+    }
+    
+    // Maps keys the collation compares as equal, and only those, to the same string: binary and case-sensitive
+    // collations compare keys as they are, _as_ci ones ignore case, and the other _ci ones, utf8mb4_0900_ai_ci
+    // among them, ignore accents as well. An unknown collation is taken to be that default. java.text.Collator is
+    // not used, as it ignores spaces and punctuation that MySQL compares.
+    private static UnaryOperator<String> comparisonKey(String collation) {
+        if (collation != null && (collation.equals("binary") || collation.endsWith("_bin") || collation.endsWith("_cs"))) {
+            return key -> key;
+        }
+        if (collation != null && collation.endsWith("_as_ci")) {
+            return key -> Normalizer.normalize(key, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        }
+        return key -> COMBINING_MARKS.matcher(Normalizer.normalize(key, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+    
+    // Not taken from the statement cache: the temporary table is recreated for every lookup
+    private void joinKeyTable(PooledConnection conn, List<String> keys, String createSql, String joinSql,
+                              RowCollector collector) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            // A lookup that failed before dropping it leaves the table behind in the session
+            stmt.execute("DROP TEMPORARY TABLE IF EXISTS " + KEY_TABLE);
+            stmt.execute(createSql);
+            try {
+                for (List<String> chunk : chunk(keys)) {
+                    StringBuilder sql = new StringBuilder(48 + chunk.size() * 5).append("INSERT IGNORE INTO ").append(KEY_TABLE).append(" (lookup_key) VALUES ");
+                    for (int i = 0; i < chunk.size(); i++) {
+                        sql.append(i == 0 ? "(?)" : ", (?)");
+                    }
+                    try (PreparedStatement insert = conn.prepareUncachedStatement(sql.toString())) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            insert.setString(i + 1, chunk.get(i));
+                        }
+                        insert.executeUpdate();
+                    }
+                }
+                try (PreparedStatement join = conn.prepareUncachedStatement(joinSql);
+                     ResultSet rs = join.executeQuery()) {
+                    while (rs.next()) {
+                        collector.collect(rs);
+                    }
+                }
+            } finally {
+                stmt.execute("DROP TEMPORARY TABLE IF EXISTS " + KEY_TABLE);
+            }
+        }
+    }
+    
+    // Cuts keys into statements of at most inListKeys keys whose estimated size, padding included, fits the packet
+    private List<List<String>> chunk(List<String> keys) {
+        List<List<String>> chunks = new ArrayList<>();
+        int from = 0;
+        while (from < keys.size()) {
+            long bytes = 0;
+            int to = from;
+            while (to < keys.size() && to - from < inListKeys) {
+                long keyBytes = estimateKeyBytes(keys.get(to));
+                int count = to - from + 1;
+                if (to > from && bytes + keyBytes * (1 + paddedSize(count) - count) > packetLimit) {
+                    break;
+                }
+                bytes += keyBytes;
+                to++;
+            }
+            chunks.add(keys.subList(from, to));
+            from = to;
+        }
+        return chunks;
+    }
+    
+    private int paddedSize(int count) {
+        int padded = count == 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+        return Math.min(padded, inListKeys);
+    }
+    
+    // Contiguous shares of nearly equal size
+    private static List<List<String>> split(List<String> keys, int parts) {
+        List<List<String>> shares = new ArrayList<>(parts);
+        for (int i = 0; i < parts; i++) {
+            shares.add(keys.subList(keys.size() * i / parts, keys.size() * (i + 1) / parts));
+        }
+        return shares;
+    }
+    
+    // Worst case for client-side interpolation: every character escaped, plus quotes and separator
+    private static long estimateKeyBytes(String key) {
+        return 2L * key.getBytes(StandardCharsets.UTF_8).length + 4;
+    }
+    
+    private static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.toString();
+    }
+    
+    private static String prefixed(List<String> columns) {
+        StringBuilder sql = new StringBuilder();
+        for (String column : columns) {
+            sql.append(sql.isEmpty() ? "t." : ", t.").append(column);
+        }
+        return sql.toString();
+    }
+    
+    private static void checkIdentifier(String name) {
+        if (name == null || !IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid identifier '" + name + "'");
+        }
+    }
+}
\ No newline at end of file
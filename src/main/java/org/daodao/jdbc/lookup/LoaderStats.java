@@ -0,0 +1,20 @@
+package org.daodao.jdbc.lookup;
+
+// loads counts every load() of a key, cacheHits those answered by an earlier load of the same key
+public record LoaderStats(
+        long loads,
+        long cacheHits,
+        long batches,
+        long keysDispatched,
+        int maxBatchSize) {
+    
+    public double meanBatchSize() {
+        return batches == 0 ? 0.0 : (double) keysDispatched / batches;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("LoaderStats[loads=%d, cacheHits=%d, batches=%d, meanBatchSize=%.1f, maxBatchSize=%d]",
+            loads, cacheHits, batches, meanBatchSize(), maxBatchSize);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package org.daodao.jdbc.mapper;
+
+import org.daodao.jdbc.model.Product;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Reads products by precomputed column positions, so no per-row label lookups
+public final class ProductRowMapper implements RowMapper<Product> {
+    
+    // Column order of "SELECT id, name, category, price, stock_quantity ..."
+    public static final ProductRowMapper DEFAULT = new ProductRowMapper(1, 2, 3, 4, 5);
+    
+    private final int idIndex;
+    private final int nameIndex;
+    private final int categoryIndex;
+    private final int priceIndex;
+    private final int stockQuantityIndex;
+    
+    public ProductRowMapper(int idIndex, int nameIndex, int categoryIndex, int priceIndex, int stockQuantityIndex) {
+        this.idIndex = idIndex;
+        this.nameIndex = nameIndex;
+        this.categoryIndex = categoryIndex;
+        this.priceIndex = priceIndex;
+        this.stockQuantityIndex = stockQuantityIndex;
+    }
+    
+    // Resolves the labels once for queries with a different column order
+    public static ProductRowMapper forResultSet(ResultSet rs) throws SQLException {
+        return new ProductRowMapper(rs.findColumn("id"), rs.findColumn("name"), rs.findColumn("category"),
+            rs.findColumn("price"), rs.findColumn("stock_quantity"));
+    }
+    
+    @Override
+    public Product mapRow(ResultSet rs) throws SQLException {
+        return new Product(rs.getInt(idIndex), rs.getString(nameIndex), rs.getString(categoryIndex),
+            rs.getBigDecimal(priceIndex), rs.getInt(stockQuantityIndex));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package org.daodao.jdbc.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Maps the current row of a ResultSet; implementations must not advance the cursor
+@FunctionalInterface
+public interface RowMapper<T> {
+    
+    T mapRow(ResultSet rs) throws SQLException;
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package org.daodao.jdbc.mapper;
+
+import org.daodao.jdbc.model.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Reads users by precomputed column positions, so no per-row label lookups
+public final class UserRowMapper implements RowMapper<User> {
+    
+    // Column order of "SELECT username, email, age, city ..."
+    public static final UserRowMapper DEFAULT = new UserRowMapper(1, 2, 3, 4);
+    
+    private final int usernameIndex;
+    private final int emailIndex;
+    private final int ageIndex;
+    private final int cityIndex;
+    
+    public UserRowMapper(int usernameIndex, int emailIndex, int ageIndex, int cityIndex) {
+        this.usernameIndex = usernameIndex;
+        this.emailIndex = emailIndex;
+        this.ageIndex = ageIndex;
+        this.cityIndex = cityIndex;
+    }
+    
+    // Resolves the labels once for queries with a different column order
+    public static UserRowMapper forResultSet(ResultSet rs) throws SQLException {
+        return new UserRowMapper(rs.findColumn("username"), rs.findColumn("email"), rs.findColumn("age"), rs.findColumn("city"));
+    }
+    
+    @Override
+    public User mapRow(ResultSet rs) throws SQLException {
+        return new User(rs.getString(usernameIndex), rs.getString(emailIndex), rs.getInt(ageIndex), rs.getString(cityIndex));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package org.daodao.jdbc.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear latency histogram in the style of HdrHistogram. Values below 256 ns get their own
+// bucket; above that every power of two is split into 128 linear sub-buckets, so a recorded
+// value is reported within 1/128 (under 0.8%) of its true value. Recording is a single atomic
+// increment and never blocks.
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // Values are clamped at 2^40 ns, roughly 18 minutes
+    private static final int MAX_VALUE_BITS = 40;
+    private static final long MAX_TRACKABLE_NANOS = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_NANOS) + 1;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS);
+        counts.incrementAndGet(bucketIndex(value));
+        totalNanos.add(value);
+        if (value > maxNanos.get()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+    
+    // Merges another histogram's samples into this one, e.g. to build a total across operations
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalNanos.add(other.totalNanos.sum());
+        maxNanos.accumulateAndGet(other.maxNanos.get(), Math::max);
+    }
+    
+    // Counts are copied bucket by bucket, so a snapshot taken during recording may be off by the in-flight values
+    public LatencySnapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        long max = maxNanos.get();
+        double mean = count == 0 ? 0.0 : (double) totalNanos.sum() / count;
+        return new LatencySnapshot(count, mean,
+            percentile(copy, count, 0.50, max),
+            percentile(copy, count, 0.90, max),
+            percentile(copy, count, 0.99, max),
+            percentile(copy, count, 0.999, max),
+            max);
+    }
+    
+    private static long percentile(long[] counts, long total, double quantile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+    
+    // index = shift * 128 + (value >> shift), where shift keeps the top 8 significant bits
+    static int bucketIndex(long value) {
+        int bits = 64 - Long.numberOfLeadingZeros(value);
+        int shift = Math.max(0, bits - (SUB_BUCKET_BITS + 1));
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+    
+    static long highestEquivalentValue(int index) {
+        int shift = index < 2 * SUB_BUCKET_COUNT ? 0 : (index >>> SUB_BUCKET_BITS) - 1;
+        long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
\ No newline at end of file
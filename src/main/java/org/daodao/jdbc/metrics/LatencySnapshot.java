@@ -0,0 +1,23 @@
+package org.daodao.jdbc.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+public record LatencySnapshot(
+        long count,
+        double meanNanos,
+        long p50Nanos,
+        long p90Nanos,
+        long p99Nanos,
+        long p999Nanos,
+        long maxNanos) {
+    
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.1fus, p50=%.1fus, p90=%.1fus, p99=%.1fus, p99.9=%.1fus, max=%.1fus",
+            count, meanNanos / 1_000.0, micros(p50Nanos), micros(p90Nanos), micros(p99Nanos), micros(p999Nanos), micros(maxNanos));
+    }
+    
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
\ No newline at end of file
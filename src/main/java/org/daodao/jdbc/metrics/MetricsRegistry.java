@@ -0,0 +1,108 @@
+package org.daodao.jdbc.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency, error and row counters per connector operation and per SQL digest.
+// Recording is lock-free: a map lookup plus a few atomic increments.
+public class MetricsRegistry {
+    
+    // Ad hoc SQL through execute() could otherwise grow the digest maps without bound
+    static final int MAX_DIGESTS = 1_000;
+    static final String OTHER_DIGEST = "<other>";
+    
+    private final boolean enabled;
+    private final long createdAtNanos = System.nanoTime();
+    private final ConcurrentHashMap<String, Metrics> operations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Metrics> statements = new ConcurrentHashMap<>();
+    // SQL text to digest, so the regex normalization runs once per distinct statement
+    private final ConcurrentHashMap<String, String> digests = new ConcurrentHashMap<>();
+    
+    private static final class Metrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        
+        void record(long nanos, long rowCount, boolean failed, boolean timedOut) {
+            latency.record(nanos);
+            if (failed) {
+                errors.increment();
+                if (timedOut) {
+                    timeouts.increment();
+                }
+            } else if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+        }
+    }
+    
+    public MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    // Either argument may be null to record only the operation or only the statement digest
+    public OperationTimer start(String operation, String sql) {
+        return enabled ? new OperationTimer(this, operation, sql, System.nanoTime()) : OperationTimer.NOOP;
+    }
+    
+    public void record(String operation, String sql, long elapsedNanos, long rows, boolean failed) {
+        record(operation, sql, elapsedNanos, rows, failed, false);
+    }
+    
+    public void record(String operation, String sql, long elapsedNanos, long rows, boolean failed, boolean timedOut) {
+        if (!enabled) {
+            return;
+        }
+        if (operation != null) {
+            operations.computeIfAbsent(operation, name -> new Metrics()).record(elapsedNanos, rows, failed, timedOut);
+        }
+        if (sql != null) {
+            statementMetrics(digest(sql)).record(elapsedNanos, rows, failed, timedOut);
+        }
+    }
+    
+    private String digest(String sql) {
+        String digest = digests.get(sql);
+        if (digest != null) {
+            return digest;
+        }
+        digest = SqlDigest.of(sql);
+        if (digests.size() < MAX_DIGESTS) {
+            digests.putIfAbsent(sql, digest);
+        }
+        return digest;
+    }
+    
+    private Metrics statementMetrics(String digest) {
+        Metrics metrics = statements.get(digest);
+        if (metrics != null) {
+            return metrics;
+        }
+        String key = statements.size() < MAX_DIGESTS ? digest : OTHER_DIGEST;
+        return statements.computeIfAbsent(key, name -> new Metrics());
+    }
+    
+    public MetricsSnapshot snapshot() {
+        long uptimeNanos = System.nanoTime() - createdAtNanos;
+        return new MetricsSnapshot(snapshot(operations, uptimeNanos), snapshot(statements, uptimeNanos),
+            TimeUnit.NANOSECONDS.toMillis(uptimeNanos));
+    }
+    
+    private static Map<String, OperationStats> snapshot(Map<String, Metrics> source, long uptimeNanos) {
+        double seconds = Math.max(uptimeNanos, 1) / 1_000_000_000.0;
+        Map<String, OperationStats> result = new TreeMap<>();
+        source.forEach((name, metrics) -> {
+            LatencySnapshot latency = metrics.latency.snapshot();
+            result.put(name, new OperationStats(name, metrics.errors.sum(), metrics.timeouts.sum(), metrics.rows.sum(), latency.count() / seconds, latency));
+        });
+        return result;
+    }
+}
\ No newline at end of file
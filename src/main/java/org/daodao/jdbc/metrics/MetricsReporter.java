@@ -0,0 +1,64 @@
+package org.daodao.jdbc.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Logs a metrics line per operation at a fixed interval, with throughput over the last interval
+public class MetricsReporter implements AutoCloseable {
+    
+    private static final Logger log = LoggerFactory.getLogger(MetricsReporter.class);
+    
+    private final MetricsRegistry registry;
+    private final long intervalMs;
+    private final Map<String, Long> previousCounts = new HashMap<>();
+    private long previousReportNanos = System.nanoTime();
+    private ScheduledExecutorService scheduler;
+    
+    public MetricsReporter(MetricsRegistry registry, long intervalMs) {
+        this.registry = registry;
+        this.intervalMs = intervalMs;
+    }
+    
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mysql-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    // Only ever called from the scheduler thread
+    void report() {
+        try {
+            MetricsSnapshot snapshot = registry.snapshot();
+            long now = System.nanoTime();
+            double seconds = Math.max(now - previousReportNanos, 1) / 1_000_000_000.0;
+            previousReportNanos = now;
+            
+            for (OperationStats stats : snapshot.operations().values()) {
+                long previous = previousCounts.getOrDefault(stats.name(), 0L);
+                previousCounts.put(stats.name(), stats.count());
+                log.info("{}: {}/s over last {}s, errors={}, timeouts={}, rows={}, {}", stats.name(),
+                    String.format("%.1f", (stats.count() - previous) / seconds), Math.round(seconds),
+                    stats.errors(), stats.timeouts(), stats.rows(), stats.latency());
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the scheduled task
+            log.warn("Failed to report metrics: {}", e.getMessage());
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package org.daodao.jdbc.metrics;
+
+import java.util.Map;
+
+// Keyed by operation name (e.g. "insertUser") and by SQL digest respectively
+public record MetricsSnapshot(Map<String, OperationStats> operations, Map<String, OperationStats> statements, long uptimeMillis) {
+    
+    public OperationStats operation(String name) {
+        return operations.get(name);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package org.daodao.jdbc.metrics;
+
+// timeouts counts the errors of calls that ran past their deadline
+public record OperationStats(String name, long errors, long timeouts, long rows, double throughputPerSecond, LatencySnapshot latency) {
+    
+    public long count() {
+        return latency.count();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s[%s, errors=%d, timeouts=%d, rows=%d, throughput=%.1f/s]", name, latency, errors, timeouts, rows, throughputPerSecond);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package org.daodao.jdbc.metrics;
+
+import org.daodao.jdbc.timeout.Deadline;
+
+// Measures one call. Use in try-with-resources and call success() before leaving normally;
+// a timer closed without success() is recorded as an error, and as a timeout once the call's deadline has passed.
+public class OperationTimer implements AutoCloseable {
+    
+    static final OperationTimer NOOP = new OperationTimer(null, null, null, 0) {
+        @Override
+        public void success(long rows) {
+        }
+        
+        @Override
+        public void close() {
+        }
+    };
+    
+    private final MetricsRegistry registry;
+    private final String operation;
+    private final String sql;
+    private final long startNanos;
+    private long rows = -1;
+    
+    OperationTimer(MetricsRegistry registry, String operation, String sql, long startNanos) {
+        this.registry = registry;
+        this.operation = operation;
+        this.sql = sql;
+        this.startNanos = startNanos;
+    }
+    
+    public void success(long rows) {
+        this.rows = Math.max(rows, 0);
+    }
+    
+    public void success() {
+        success(0);
+    }
+    
+    @Override
+    public void close() {
+        boolean failed = rows < 0;
+        Deadline deadline = failed ? Deadline.current() : null;
+        registry.record(operation, sql, System.nanoTime() - startNanos, failed ? 0 : rows, failed, deadline != null && deadline.isExpired());
+    }
+}
\ No newline at end of file
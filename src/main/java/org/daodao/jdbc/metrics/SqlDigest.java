@@ -0,0 +1,26 @@
+package org.daodao.jdbc.metrics;
+
+import java.util.regex.Pattern;
+
+// Normalizes SQL into a digest the way performance_schema does: literals become '?',
+// whitespace collapses and repeated value lists fold into one, so statements that differ
+// only in their parameters are aggregated together.
+final class SqlDigest {
+    
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'|\"(?:[^\"\\\\]|\\\\.|\"\")*\"");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])-?\\d+(?:\\.\\d+)?(?:[eE][+-]?\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern ROW_LIST = Pattern.compile("\\(\\?\\)(?:\\s*,\\s*\\(\\?\\))+");
+    
+    private SqlDigest() {
+    }
+    
+    static String of(String sql) {
+        String digest = STRING_LITERAL.matcher(sql).replaceAll("?");
+        digest = NUMBER_LITERAL.matcher(digest).replaceAll("?");
+        digest = WHITESPACE.matcher(digest).replaceAll(" ").trim();
+        digest = PLACEHOLDER_LIST.matcher(digest).replaceAll("?");
+        return ROW_LIST.matcher(digest).replaceAll("(?)");
+    }
+}
\ No newline at end of file
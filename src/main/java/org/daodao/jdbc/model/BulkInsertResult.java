@@ -0,0 +1,15 @@
+package org.daodao.jdbc.model;
+
+import java.util.List;
+
+// Outcomes are in the same order as the rows passed to insertUsers
+public record BulkInsertResult(List<InsertOutcome> outcomes, int chunks) {
+    
+    public int insertedCount() {
+        return (int) outcomes.stream().filter(outcome -> outcome == InsertOutcome.INSERTED).count();
+    }
+    
+    public int duplicateCount() {
+        return outcomes.size() - insertedCount();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package org.daodao.jdbc.model;
+
+public enum InsertOutcome {
+    INSERTED,
+    // Skipped by INSERT IGNORE because the username or email already exists
+    DUPLICATE
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package org.daodao.jdbc.model;
+
+import java.util.List;
+
+// nextPageToken is null on the last page; pass it back unchanged to fetch the following page
+public record Page<T>(List<T> items, String nextPageToken) {
+    
+    public Page {
+        items = List.copyOf(items);
+    }
+    
+    public boolean hasNext() {
+        return nextPageToken != null;
+    }
+}
\ No newline at end of file
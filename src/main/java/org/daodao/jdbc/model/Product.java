@@ -0,0 +1,6 @@
+package org.daodao.jdbc.model;
+
+import java.math.BigDecimal;
+
+public record Product(int id, String name, String category, BigDecimal price, int stockQuantity) {
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package org.daodao.jdbc.model;
+
+import java.util.Objects;
+
+public record User(String username, String email, int age, String city) {
+    
+    public User {
+        Objects.requireNonNull(username, "username");
+        Objects.requireNonNull(email, "email");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package org.daodao.jdbc.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface ConnectionFactory {
+    
+    Connection create() throws SQLException;
+}
\ No newline at end of file
@@ -0,0 +1,480 @@
+package org.daodao.jdbc.pool;
+
+import com.mysql.cj.jdbc.JdbcConnection;
+import org.daodao.jdbc.config.MySqlConfig;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.timeout.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ConnectionPool implements AutoCloseable {
+    
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPool.class);
+    
+    // Connections returned this recently are not pinged again on borrow
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    
+    private final ConnectionFactory connectionFactory;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final long maxLifetimeNanos;
+    private final long housekeepingIntervalMs;
+    private final boolean validateOnBorrow;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final long queryTimeoutMs;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    // Borrowed connections, so statements running on them can be cancelled from other threads
+    private final Set<PooledConnection> leased = ConcurrentHashMap.newKeySet();
+    private int total;
+    private int active;
+    // Threads waiting in acquire for a connection
+    private final Set<Thread> waiters = new HashSet<>();
+    private boolean closed;
+    
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder destroyedCount = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final StatementCache.Counters statementCacheCounters = new StatementCache.Counters();
+    
+    private ScheduledExecutorService housekeeper;
+    
+    public ConnectionPool(MySqlConfig config, ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+        this.minSize = config.getPoolMinSize();
+        this.maxSize = config.getPoolMaxSize();
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getPoolAcquireTimeoutMs());
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getPoolIdleTimeoutMs());
+        this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(config.getPoolMaxLifetimeMs());
+        this.housekeepingIntervalMs = config.getPoolHousekeepingIntervalMs();
+        this.validateOnBorrow = config.isPoolValidateOnBorrow();
+        this.validationTimeoutSeconds = config.getPoolValidationTimeoutSeconds();
+        this.statementCacheSize = config.getStatementCacheSize();
+        this.queryTimeoutMs = config.getQueryTimeoutMs();
+    }
+    
+    public void start() {
+        fillToMinimum();
+        
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mysql-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingIntervalMs, housekeepingIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Connection pool started (min={}, max={})", minSize, maxSize);
+    }
+    
+    // Waits no longer than the deadline of the calling thread's call, if it has one
+    public PooledConnection acquire() {
+        long start = System.nanoTime();
+        long deadline = start + acquireTimeoutNanos;
+        Deadline callDeadline = Deadline.current();
+        if (callDeadline != null && callDeadline.remainingNanos() < acquireTimeoutNanos) {
+            deadline = start + Math.max(callDeadline.remainingNanos(), 0);
+        }
+        
+        while (true) {
+            PooledConnection pooled = takeOrReserve(start, deadline);
+            if (pooled == null) {
+                // A slot was reserved for us, open the physical connection outside the lock
+                try {
+                    pooled = newPooledConnection();
+                } catch (SQLException | RuntimeException e) {
+                    releaseSlot();
+                    log.error("Failed to open pooled connection: {}", e.getMessage());
+                    throw new MySqlException("Failed to open pooled connection", e);
+                }
+            } else if (!isUsable(pooled)) {
+                destroy(pooled);
+                continue;
+            }
+            
+            pooled.lease();
+            leased.add(pooled);
+            long elapsed = System.nanoTime() - start;
+            acquireCount.increment();
+            acquireNanos.add(elapsed);
+            maxAcquireNanos.accumulateAndGet(elapsed, Math::max);
+            return pooled;
+        }
+    }
+    
+    private PooledConnection newPooledConnection() throws SQLException {
+        Connection connection = connectionFactory.create();
+        createdCount.increment();
+        return new PooledConnection(this, connection, new StatementCache(connection, statementCacheSize, statementCacheCounters), queryTimeoutMs, false);
+    }
+    
+    // A connection from factory outside the pool's slots and stats, for work that needs other connection properties.
+    // Its statements get the same query timeout and can be cancelled like pooled ones; close() closes it.
+    public PooledConnection openDedicated(ConnectionFactory factory) {
+        if (isClosed()) {
+            throw new MySqlException("Connection pool is closed");
+        }
+        Connection connection;
+        try {
+            connection = factory.create();
+        } catch (SQLException e) {
+            log.error("Failed to open dedicated connection: {}", e.getMessage());
+            throw new MySqlException("Failed to open dedicated connection", e);
+        }
+        PooledConnection dedicated = new PooledConnection(this, connection,
+            new StatementCache(connection, statementCacheSize, statementCacheCounters), queryTimeoutMs, true);
+        dedicated.lease();
+        leased.add(dedicated);
+        return dedicated;
+    }
+    
+    private PooledConnection takeOrReserve(long start, long deadline) {
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new MySqlException("Connection pool is closed");
+                }
+                PooledConnection pooled = idle.pollLast();
+                if (pooled != null) {
+                    active++;
+                    return pooled;
+                }
+                if (total < maxSize) {
+                    total++;
+                    active++;
+                    return null;
+                }
+                
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    acquireTimeouts.increment();
+                    throw new MySqlException("Timed out after " + TimeUnit.NANOSECONDS.toMillis(deadline - start)
+                        + " ms waiting for a pooled connection (active=" + active + ", max=" + maxSize + ")");
+                }
+                waiters.add(Thread.currentThread());
+                try {
+                    available.awaitNanos(remaining);
+                } finally {
+                    waiters.remove(Thread.currentThread());
+                }
+                // An interrupt that raced with a signal ends the wait as well
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MySqlException("Interrupted while waiting for a pooled connection", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            total--;
+            active--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.nanoTime();
+        if (isExpired(pooled, now)) {
+            return false;
+        }
+        if (!validateOnBorrow || now - pooled.getLastUsedAtNanos() < VALIDATION_BYPASS_NANOS) {
+            return true;
+        }
+        try {
+            return pooled.getConnection().isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            log.debug("Pooled connection failed validation: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    private boolean isExpired(PooledConnection pooled, long now) {
+        return maxLifetimeNanos > 0 && now - pooled.getCreatedAtNanos() > maxLifetimeNanos;
+    }
+    
+    void release(PooledConnection pooled) {
+        leased.remove(pooled);
+        pooled.releaseStatements();
+        if (pooled.isDedicated()) {
+            try {
+                pooled.getConnection().close();
+            } catch (SQLException e) {
+                log.debug("Error closing dedicated connection: {}", e.getMessage());
+            }
+            return;
+        }
+        boolean discard = isExpired(pooled, System.nanoTime()) || !reset(pooled.getConnection());
+        
+        lock.lock();
+        try {
+            active--;
+            if (closed || discard) {
+                total--;
+                discard = true;
+            } else {
+                pooled.touch();
+                idle.addLast(pooled);
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        
+        if (discard) {
+            closeQuietly(pooled);
+        }
+    }
+    
+    // Undo per-borrow state so the next borrower sees a clean autocommit connection
+    private boolean reset(Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            log.debug("Discarding pooled connection that failed to reset: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    private void destroy(PooledConnection pooled) {
+        lock.lock();
+        try {
+            total--;
+            active--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(pooled);
+    }
+    
+    private void closeQuietly(PooledConnection pooled) {
+        destroyedCount.increment();
+        try {
+            pooled.getConnection().close();
+        } catch (SQLException e) {
+            log.debug("Error closing pooled connection: {}", e.getMessage());
+        }
+    }
+    
+    void housekeep() {
+        List<PooledConnection> evicted = new ArrayList<>();
+        long now = System.nanoTime();
+        
+        lock.lock();
+        try {
+            // Idle deque is ordered least recently used first
+            Iterator<PooledConnection> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                PooledConnection pooled = iterator.next();
+                boolean idleTooLong = total > minSize && now - pooled.getLastUsedAtNanos() > idleTimeoutNanos;
+                if (idleTooLong || isExpired(pooled, now)) {
+                    iterator.remove();
+                    total--;
+                    evicted.add(pooled);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        if (!evicted.isEmpty()) {
+            log.debug("Evicting {} idle or expired pooled connections", evicted.size());
+            evicted.forEach(this::closeQuietly);
+        }
+        
+        try {
+            fillToMinimum();
+        } catch (MySqlException e) {
+            log.warn("Unable to refill connection pool to minimum size: {}", e.getMessage());
+        }
+    }
+    
+    private void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || total >= minSize) {
+                    return;
+                }
+                total++;
+            } finally {
+                lock.unlock();
+            }
+            
+            PooledConnection pooled;
+            try {
+                pooled = newPooledConnection();
+            } catch (SQLException | RuntimeException e) {
+                lock.lock();
+                try {
+                    total--;
+                } finally {
+                    lock.unlock();
+                }
+                throw new MySqlException("Failed to open pooled connection", e);
+            }
+            
+            lock.lock();
+            try {
+                idle.addLast(pooled);
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    // Kills the statement running on each connection borrowed by owner, the way Connector/J's Statement.cancel()
+    // does: KILL QUERY on a separate short-lived connection. The borrower sees its statement fail with error 1317
+    // and keeps a usable connection. Returns the number of connections a KILL QUERY was sent for. Each connection's
+    // lease is held until its KILL QUERY completes, so the kill never reaches a statement of a later borrower.
+    public int cancelStatements(Thread owner) {
+        int cancelled = 0;
+        for (PooledConnection pooled : leased) {
+            if (pooled.getOwner() != owner) {
+                continue;
+            }
+            pooled.lockLease();
+            try {
+                if (pooled.getOwner() == owner && killQuery(pooled)) {
+                    cancelled++;
+                }
+            } finally {
+                pooled.unlockLease();
+            }
+        }
+        return cancelled;
+    }
+    
+    // Interrupts thread only while it waits in acquire, where the interrupt ends the wait. Interrupting a thread in
+    // socket I/O would close its connection under the running statement instead.
+    public boolean interruptWaiter(Thread thread) {
+        lock.lock();
+        try {
+            if (!waiters.contains(thread)) {
+                return false;
+            }
+            thread.interrupt();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private boolean killQuery(PooledConnection pooled) {
+        long connectionId;
+        try {
+            Connection connection = pooled.getConnection();
+            if (!connection.isWrapperFor(JdbcConnection.class)) {
+                log.warn("Cannot cancel statements on {}: the driver does not expose the server connection id", connection);
+                return false;
+            }
+            connectionId = connection.unwrap(JdbcConnection.class).getId();
+        } catch (SQLException e) {
+            log.warn("Cannot cancel statements: {}", e.getMessage());
+            return false;
+        }
+        
+        try (Connection killer = connectionFactory.create();
+             Statement stmt = killer.createStatement()) {
+            stmt.execute("KILL QUERY " + connectionId);
+            log.debug("Sent KILL QUERY {}", connectionId);
+            return true;
+        } catch (SQLException e) {
+            // Typically the statement finished and the server thread moved on, or the connection is gone
+            log.warn("KILL QUERY {} failed: {}", connectionId, e.getMessage());
+            return false;
+        }
+    }
+    
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            long acquires = acquireCount.sum();
+            double averageMicros = acquires == 0 ? 0.0 : acquireNanos.sum() / 1_000.0 / acquires;
+            return new PoolStats(total, active, idle.size(), waiters.size(), acquires, acquireTimeouts.sum(),
+                averageMicros, maxAcquireNanos.get() / 1_000.0, createdCount.sum(), destroyedCount.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public StatementCacheStats getStatementCacheStats() {
+        return statementCacheCounters.snapshot();
+    }
+    
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            total -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+        toClose.forEach(this::closeQuietly);
+        log.info("Connection pool closed");
+    }
+}
\ No newline at end of file
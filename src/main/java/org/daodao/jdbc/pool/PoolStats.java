@@ -0,0 +1,20 @@
+package org.daodao.jdbc.pool;
+
+public record PoolStats(
+        int total,
+        int active,
+        int idle,
+        int waiters,
+        long acquireCount,
+        long acquireTimeouts,
+        double averageAcquireMicros,
+        double maxAcquireMicros,
+        long created,
+        long destroyed) {
+    
+    @Override
+    public String toString() {
+        return String.format("PoolStats[total=%d, active=%d, idle=%d, waiters=%d, acquires=%d, timeouts=%d, avgAcquire=%.1fus, maxAcquire=%.1fus, created=%d, destroyed=%d]",
+            total, active, idle, waiters, acquireCount, acquireTimeouts, averageAcquireMicros, maxAcquireMicros, created, destroyed);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+package org.daodao.jdbc.pool;
+
+import org.daodao.jdbc.exceptions.QueryTimeoutException;
+import org.daodao.jdbc.timeout.Deadline;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class PooledConnection implements AutoCloseable {
+    
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+    // mysql.query.timeout-ms, for statements of calls without a deadline
+    private final long queryTimeoutMs;
+    // Opened outside the pool's slots by openDedicated, and closed rather than returned
+    private final boolean dedicated;
+    // Set once a statement got a query timeout, after which cached statements are reset for calls without one
+    private boolean queryTimeoutSet;
+    private final long createdAtNanos;
+    private long lastUsedAtNanos;
+    private boolean leased;
+    // Thread that borrowed the connection, read by other threads cancelling its statements
+    private volatile Thread owner;
+    // Held from the owner check until a KILL QUERY is sent, so the connection cannot pass to another borrower under it
+    private final ReentrantLock leaseLock = new ReentrantLock();
+    
+    PooledConnection(ConnectionPool pool, Connection connection, StatementCache statementCache, long queryTimeoutMs, boolean dedicated) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.queryTimeoutMs = queryTimeoutMs;
+        this.dedicated = dedicated;
+        this.createdAtNanos = System.nanoTime();
+        this.lastUsedAtNanos = createdAtNanos;
+    }
+    
+    public Connection getConnection() {
+        return connection;
+    }
+    
+    // Statements come from the per-connection cache and must not be closed by the caller. They carry the time left
+    // before the calling thread's deadline, or mysql.query.timeout-ms, as query timeout and MAX_EXECUTION_TIME hint.
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        long timeoutMs = queryTimeoutMs();
+        PreparedStatement statement = statementCache.prepare(timeoutMs > 0 ? maxExecutionTimeHint(sql, timeoutMs) : sql);
+        applyQueryTimeout(statement, timeoutMs);
+        return statement;
+    }
+    
+    // Same timeout and hint, but outside the cache and closed by the caller, for SQL whose text varies between calls
+    public PreparedStatement prepareUncachedStatement(String sql) throws SQLException {
+        long timeoutMs = queryTimeoutMs();
+        PreparedStatement statement = connection.prepareStatement(timeoutMs > 0 ? maxExecutionTimeHint(sql, timeoutMs) : sql);
+        applyQueryTimeout(statement, timeoutMs);
+        return statement;
+    }
+    
+    // A plain statement with the same query timeout, closed by the caller; run SQL through hintMaxExecutionTime
+    public Statement createStatement() throws SQLException {
+        Statement statement = connection.createStatement();
+        applyQueryTimeout(statement, queryTimeoutMs());
+        return statement;
+    }
+    
+    public String hintMaxExecutionTime(String sql) {
+        long timeoutMs = queryTimeoutMs();
+        return timeoutMs > 0 ? maxExecutionTimeHint(sql, timeoutMs) : sql;
+    }
+    
+    private long queryTimeoutMs() {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return queryTimeoutMs;
+        }
+        long remaining = deadline.remainingMillis();
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("Deadline of " + deadline.timeout().toMillis() + " ms passed before the statement started");
+        }
+        return remaining;
+    }
+    
+    // setQueryTimeout takes whole seconds; the driver kills the statement with KILL QUERY once they have passed
+    private void applyQueryTimeout(Statement statement, long timeoutMs) throws SQLException {
+        if (timeoutMs > 0) {
+            statement.setQueryTimeout((int) Math.min((timeoutMs + 999) / 1000, Integer.MAX_VALUE));
+            queryTimeoutSet = true;
+        } else if (queryTimeoutSet) {
+            statement.setQueryTimeout(0);
+        }
+    }
+    
+    // Makes the server stop a SELECT by itself once the time is up. The limit is rounded up to a power of two
+    // milliseconds, so the statement cache holds a few variants of each query rather than one per remaining
+    // millisecond; the exact deadline is enforced by the client. Other statements ignore the hint, so it is not added.
+    static String maxExecutionTimeHint(String sql, long timeoutMs) {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        if (!sql.regionMatches(true, start, "SELECT", 0, 6) || sql.contains("/*+")) {
+            return sql;
+        }
+        long limit = timeoutMs <= 1 ? 1 : Long.highestOneBit(timeoutMs - 1) << 1;
+        return sql.substring(0, start + 6) + " /*+ MAX_EXECUTION_TIME(" + limit + ") */" + sql.substring(start + 6);
+    }
+    
+    // Returns the connection to the pool; the physical connection stays open unless the connection is dedicated
+    @Override
+    public void close() {
+        // Waits for a KILL QUERY in flight for this lease
+        leaseLock.lock();
+        try {
+            if (!leased) {
+                return;
+            }
+            leased = false;
+            owner = null;
+        } finally {
+            leaseLock.unlock();
+        }
+        pool.release(this);
+    }
+    
+    void lease() {
+        leased = true;
+        owner = Thread.currentThread();
+    }
+    
+    boolean isDedicated() {
+        return dedicated;
+    }
+    
+    Thread getOwner() {
+        return owner;
+    }
+    
+    void lockLease() {
+        leaseLock.lock();
+    }
+    
+    void unlockLease() {
+        leaseLock.unlock();
+    }
+    
+    void releaseStatements() {
+        statementCache.releaseUncached();
+    }
+    
+    void touch() {
+        lastUsedAtNanos = System.nanoTime();
+    }
+    
+    long getCreatedAtNanos() {
+        return createdAtNanos;
+    }
+    
+    long getLastUsedAtNanos() {
+        return lastUsedAtNanos;
+    }
+}
\ No newline at end of file
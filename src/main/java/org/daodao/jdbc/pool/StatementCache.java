@@ -0,0 +1,94 @@
+package org.daodao.jdbc.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// LRU cache of prepared statements keyed by SQL text, owned by a single physical connection.
+// Only the thread currently leasing the connection touches it, so it needs no locking.
+class StatementCache {
+    
+    private static final Logger log = LoggerFactory.getLogger(StatementCache.class);
+    
+    private final Connection connection;
+    private final int capacity;
+    private final Counters counters;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    // With caching disabled, statements live until the connection is returned to the pool
+    private final List<PreparedStatement> uncached = new ArrayList<>();
+    
+    StatementCache(Connection connection, int capacity, Counters counters) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.counters = counters;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                counters.evictions.increment();
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+    
+    PreparedStatement prepare(String sql) throws SQLException {
+        if (capacity <= 0) {
+            counters.misses.increment();
+            PreparedStatement statement = connection.prepareStatement(sql);
+            uncached.add(statement);
+            return statement;
+        }
+        
+        PreparedStatement cached = statements.get(sql);
+        if (cached != null && !cached.isClosed()) {
+            counters.hits.increment();
+            return cached;
+        }
+        
+        counters.misses.increment();
+        PreparedStatement statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        return statement;
+    }
+    
+    void releaseUncached() {
+        if (!uncached.isEmpty()) {
+            uncached.forEach(StatementCache::closeQuietly);
+            uncached.clear();
+        }
+    }
+    
+    int size() {
+        return statements.size();
+    }
+    
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.debug("Error closing cached statement: {}", e.getMessage());
+        }
+    }
+    
+    // Pool-wide counters shared by the caches of every connection
+    static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+        
+        StatementCacheStats snapshot() {
+            return new StatementCacheStats(hits.sum(), misses.sum(), evictions.sum());
+        }
+    }
+}
\ No newline at end of file
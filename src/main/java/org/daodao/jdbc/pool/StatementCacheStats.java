@@ -0,0 +1,15 @@
+package org.daodao.jdbc.pool;
+
+public record StatementCacheStats(long hits, long misses, long evictions) {
+    
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("StatementCacheStats[hits=%d, misses=%d, evictions=%d, hitRatio=%.3f]",
+            hits, misses, evictions, hitRatio());
+    }
+}
\ No newline at end of file
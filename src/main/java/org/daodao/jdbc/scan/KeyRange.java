@@ -0,0 +1,23 @@
+package org.daodao.jdbc.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Half-open primary key range [from, to)
+record KeyRange(long from, long to) {
+    
+    // Splits [min, max] into at most count ranges of equal width
+    static List<KeyRange> split(long min, long max, int count) {
+        List<KeyRange> ranges = new ArrayList<>(count);
+        // Width computed in floating point: max - min may overflow a long
+        double width = Math.max(1.0, ((double) max - min + 1) / count);
+        long from = min;
+        for (int i = 1; i <= count && from <= max; i++) {
+            long to = i == count ? max + 1 : Math.max(from + 1, min + (long) Math.ceil(width * i));
+            to = Math.min(to, max + 1);
+            ranges.add(new KeyRange(from, to));
+            from = to;
+        }
+        return ranges;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package org.daodao.jdbc.scan;
+
+// Each worker holds one pooled connection for the whole scan. The key range is cut into parallelism x
+// rangesPerWorker ranges that workers claim one at a time, so gaps in the key space even out. At most
+// queueBatches batches of batchRows rows wait for the consumer before workers block.
+public record ScanOptions(int parallelism, int rangesPerWorker, int batchRows, int queueBatches, boolean consistentSnapshot) {
+    
+    public static final ScanOptions DEFAULT = new ScanOptions(4, 4, 1_000, 16, true);
+    
+    public ScanOptions {
+        if (parallelism < 1 || rangesPerWorker < 1 || batchRows < 1 || queueBatches < 1) {
+            throw new IllegalArgumentException("Scan options must be at least 1 but were parallelism=" + parallelism
+                + ", rangesPerWorker=" + rangesPerWorker + ", batchRows=" + batchRows + ", queueBatches=" + queueBatches);
+        }
+    }
+    
+    public ScanOptions withParallelism(int parallelism) {
+        return new ScanOptions(parallelism, rangesPerWorker, batchRows, queueBatches, consistentSnapshot);
+    }
+    
+    public ScanOptions withRangesPerWorker(int rangesPerWorker) {
+        return new ScanOptions(parallelism, rangesPerWorker, batchRows, queueBatches, consistentSnapshot);
+    }
+    
+    public ScanOptions withBatchRows(int batchRows) {
+        return new ScanOptions(parallelism, rangesPerWorker, batchRows, queueBatches, consistentSnapshot);
+    }
+    
+    public ScanOptions withQueueBatches(int queueBatches) {
+        return new ScanOptions(parallelism, rangesPerWorker, batchRows, queueBatches, consistentSnapshot);
+    }
+    
+    public ScanOptions withConsistentSnapshot(boolean consistentSnapshot) {
+        return new ScanOptions(parallelism, rangesPerWorker, batchRows, queueBatches, consistentSnapshot);
+    }
+}
\ No newline at end of file
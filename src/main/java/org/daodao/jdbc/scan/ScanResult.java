@@ -0,0 +1,19 @@
+package org.daodao.jdbc.scan;
+
+import java.time.Duration;
+
+// consistent is false when the workers did not read one shared snapshot: either none was requested, or the table
+// could not be locked and each worker read a snapshot of its own, opened at a slightly different moment
+public record ScanResult(long rows, int ranges, int workers, boolean consistent, Duration elapsed) {
+    
+    public double rowsPerSecond() {
+        double seconds = elapsed.toNanos() / 1_000_000_000.0;
+        return seconds == 0 ? 0 : rows / seconds;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Scanned %d rows in %d ranges on %d connections%s in %.1f s (%.0f rows/s)",
+            rows, ranges, workers, consistent ? " from one snapshot" : "", elapsed.toMillis() / 1_000.0, rowsPerSecond());
+    }
+}
\ No newline at end of file
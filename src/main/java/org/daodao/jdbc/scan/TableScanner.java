@@ -0,0 +1,249 @@
+package org.daodao.jdbc.scan;
+
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.mapper.RowMapper;
+import org.daodao.jdbc.pool.PooledConnection;
+import org.daodao.jdbc.timeout.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// Scans a table with an integer primary key on several connections at once. Workers claim key ranges from a
+// shared queue, stream each range and hand rows in batches to a bounded queue that the calling thread drains
+// into the consumer, so a slow consumer holds the workers back instead of filling the heap.
+//
+// For a consistent scan the table is locked with LOCK TABLES ... READ on a coordinating connection while every
+// worker opens START TRANSACTION WITH CONSISTENT SNAPSHOT, so all workers read the same version of the table;
+// writers wait only for the few milliseconds this takes. Without the LOCK TABLES privilege each worker still reads
+// from a snapshot of its own, but they are opened one after another, so a write committing in between is seen by
+// some workers and not others; such a scan reports consistent as false.
+public class TableScanner {
+    
+    private static final Logger log = LoggerFactory.getLogger(TableScanner.class);
+    
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_$]+");
+    private static final long POLL_MILLIS = 50;
+    
+    private final Supplier<PooledConnection> connections;
+    private final ScanOptions options;
+    private final int fetchSize;
+    
+    // fetchSize 0 streams row by row; a positive size needs useCursorFetch on the connections
+    public TableScanner(Supplier<PooledConnection> connections, ScanOptions options, int fetchSize) {
+        this.connections = connections;
+        this.options = options;
+        this.fetchSize = fetchSize;
+    }
+    
+    public <T> ScanResult scan(String table, String keyColumn, List<String> columns, RowMapper<T> mapper,
+                               Consumer<? super T> consumer) throws InterruptedException {
+        checkIdentifier(table);
+        checkIdentifier(keyColumn);
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        columns.forEach(TableScanner::checkIdentifier);
+        String rangeSql = "SELECT " + String.join(", ", columns) + " FROM " + table
+            + " WHERE " + keyColumn + " >= ? AND " + keyColumn + " < ?";
+        
+        long start = System.nanoTime();
+        List<PooledConnection> workers = new ArrayList<>(options.parallelism());
+        try {
+            for (int i = 0; i < options.parallelism(); i++) {
+                workers.add(connections.get());
+            }
+            Setup setup = prepare(table, keyColumn, workers);
+            long rows = setup.ranges().isEmpty() ? 0 : run(workers, setup.ranges(), rangeSql, mapper, consumer);
+            ScanResult result = new ScanResult(rows, setup.ranges().size(), workers.size(), setup.consistent(),
+                Duration.ofNanos(System.nanoTime() - start));
+            log.info("{} of {}", result, table);
+            return result;
+        } catch (SQLException e) {
+            log.error("Error scanning {}: {}", table, e.getMessage());
+            throw new MySqlException("Error scanning " + table, e);
+        } finally {
+            for (PooledConnection conn : workers) {
+                endSnapshot(conn);
+                conn.close();
+            }
+        }
+    }
+    
+    private record Setup(List<KeyRange> ranges, boolean consistent) {
+    }
+    
+    // Worker connections are borrowed before the coordinator's, so the table is never locked while waiting on the pool
+    private Setup prepare(String table, String keyColumn, List<PooledConnection> workers) throws SQLException {
+        try (PooledConnection coordinator = connections.get();
+             Statement stmt = coordinator.createStatement()) {
+            boolean consistent = options.consistentSnapshot() && lock(stmt, table);
+            try {
+                if (options.consistentSnapshot()) {
+                    for (PooledConnection conn : workers) {
+                        try (Statement snapshot = conn.createStatement()) {
+                            snapshot.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ");
+                            snapshot.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+                        }
+                    }
+                }
+                // Read under the lock, so the bounds match the snapshot
+                try (ResultSet rs = stmt.executeQuery(coordinator.hintMaxExecutionTime(
+                        "SELECT MIN(" + keyColumn + "), MAX(" + keyColumn + ") FROM " + table))) {
+                    rs.next();
+                    long min = rs.getLong(1);
+                    if (rs.wasNull()) {
+                        return new Setup(List.of(), consistent);
+                    }
+                    long max = rs.getLong(2);
+                    return new Setup(KeyRange.split(min, max, options.parallelism() * options.rangesPerWorker()), consistent);
+                }
+            } finally {
+                if (consistent) {
+                    stmt.execute("UNLOCK TABLES");
+                }
+            }
+        }
+    }
+    
+    private static boolean lock(Statement stmt, String table) {
+        try {
+            stmt.execute("LOCK TABLES " + table + " READ");
+            return true;
+        } catch (SQLException e) {
+            // Typically a missing LOCK TABLES privilege
+            log.warn("Could not lock {} for a consistent scan, workers open their snapshots independently and may see "
+                + "different versions of it: {}", table, e.getMessage());
+            return false;
+        }
+    }
+    
+    // Runs even past the scan's deadline, so no snapshot is left open on a pooled connection
+    private static void endSnapshot(PooledConnection conn) {
+        Deadline.within(null, () -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("COMMIT");
+            } catch (SQLException e) {
+                log.debug("Error ending scan snapshot: {}", e.getMessage());
+            }
+            return null;
+        });
+    }
+    
+    private <T> long run(List<PooledConnection> workers, List<KeyRange> ranges, String rangeSql, RowMapper<T> mapper,
+                         Consumer<? super T> consumer) throws SQLException, InterruptedException {
+        Queue<KeyRange> pending = new ConcurrentLinkedQueue<>(ranges);
+        BlockingQueue<List<T>> batches = new ArrayBlockingQueue<>(options.queueBatches());
+        AtomicInteger running = new AtomicInteger(workers.size());
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        long rows = 0;
+        // Workers scan under the caller's deadline
+        Deadline deadline = Deadline.current();
+        
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (PooledConnection conn : workers) {
+                executor.execute(() -> Deadline.within(deadline, () -> {
+                    try {
+                        scanRanges(conn, pending, rangeSql, mapper, batches, stop);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                        stop.set(true);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            
+            try {
+                while (!stop.get()) {
+                    List<T> batch = batches.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (batch != null) {
+                        for (T row : batch) {
+                            consumer.accept(row);
+                        }
+                        rows += batch.size();
+                    } else if (running.get() == 0 && batches.isEmpty()) {
+                        break;
+                    }
+                }
+            } catch (RuntimeException | InterruptedException e) {
+                // Consumer failed or the caller was interrupted: workers stop at their next batch
+                stop.set(true);
+                throw e;
+            }
+        }
+        
+        if (failure.get() instanceof SQLException sqlException) {
+            throw sqlException;
+        }
+        if (failure.get() instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        return rows;
+    }
+    
+    private <T> void scanRanges(PooledConnection conn, Queue<KeyRange> pending, String rangeSql, RowMapper<T> mapper,
+                                BlockingQueue<List<T>> batches, AtomicBoolean stop) throws SQLException, InterruptedException {
+        // Forward-only and read-only, as streaming needs
+        try (PreparedStatement stmt = conn.prepareUncachedStatement(rangeSql)) {
+            stmt.setFetchSize(fetchSize > 0 ? fetchSize : Integer.MIN_VALUE);
+            KeyRange range;
+            while (!stop.get() && (range = pending.poll()) != null) {
+                stmt.setLong(1, range.from());
+                stmt.setLong(2, range.to());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    List<T> batch = new ArrayList<>(options.batchRows());
+                    while (rs.next()) {
+                        batch.add(mapper.mapRow(rs));
+                        if (batch.size() == options.batchRows()) {
+                            if (!offer(batches, batch, stop)) {
+                                return;
+                            }
+                            batch = new ArrayList<>(options.batchRows());
+                        }
+                    }
+                    if (!batch.isEmpty() && !offer(batches, batch, stop)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+    
+    // Blocks while the queue is full; returns false once the scan is stopped
+    private static <T> boolean offer(BlockingQueue<List<T>> batches, List<T> batch, AtomicBoolean stop) throws InterruptedException {
+        while (!batches.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (stop.get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static void checkIdentifier(String name) {
+        if (name == null || !IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid identifier '" + name + "'");
+        }
+    }
+}
\ No newline at end of file
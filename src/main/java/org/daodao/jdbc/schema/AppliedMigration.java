@@ -0,0 +1,6 @@
+package org.daodao.jdbc.schema;
+
+import java.time.Duration;
+
+public record AppliedMigration(int version, String description, Duration elapsed) {
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package org.daodao.jdbc.schema;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+// Statements of one migration must not depend on each other: they run in parallel on separate connections.
+// Anything that needs an earlier statement to have finished belongs in a later version.
+public record Migration(int version, String description, List<String> statements) {
+    
+    public Migration {
+        if (version < 1) {
+            throw new IllegalArgumentException("Migration versions start at 1 but was " + version);
+        }
+        if (statements.isEmpty()) {
+            throw new IllegalArgumentException("Migration " + version + " has no statements");
+        }
+        statements = List.copyOf(statements);
+    }
+    
+    public Migration(int version, String description, String... statements) {
+        this(version, description, List.of(statements));
+    }
+    
+    // SHA-256 over the statements with whitespace collapsed, so re-indenting a migration does not change it
+    public String checksum() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String statement : statements) {
+                digest.update(statement.strip().replaceAll("\\s+", " ").getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
\ No newline at end of file
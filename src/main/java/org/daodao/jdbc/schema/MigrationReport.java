@@ -0,0 +1,26 @@
+package org.daodao.jdbc.schema;
+
+import java.time.Duration;
+import java.util.List;
+
+// applied is empty on a warm start, which costs a single query against schema_version
+public record MigrationReport(int schemaVersion, List<AppliedMigration> applied, Duration elapsed) {
+    
+    public boolean isWarmStart() {
+        return applied.isEmpty();
+    }
+    
+    @Override
+    public String toString() {
+        if (applied.isEmpty()) {
+            return String.format("Schema up to date at version %d, checked in %.1f ms", schemaVersion, elapsed.toNanos() / 1_000_000.0);
+        }
+        StringBuilder report = new StringBuilder(String.format("Schema migrated to version %d in %.1f ms:",
+            schemaVersion, elapsed.toNanos() / 1_000_000.0));
+        for (AppliedMigration migration : applied) {
+            report.append(String.format("%n  V%d %-30s %8.1f ms", migration.version(), migration.description(),
+                migration.elapsed().toNanos() / 1_000_000.0));
+        }
+        return report.toString();
+    }
+}
\ No newline at end of file
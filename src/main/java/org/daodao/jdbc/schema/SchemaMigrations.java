@@ -0,0 +1,74 @@
+package org.daodao.jdbc.schema;
+
+import java.util.List;
+
+// Versions already applied to a database must never be edited: their checksums are verified on every start.
+// Change the schema by appending a new version.
+public final class SchemaMigrations {
+    
+    public static final List<Migration> ALL = List.of(
+        new Migration(1, "users and products tables",
+            """
+            CREATE TABLE IF NOT EXISTS users (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                username VARCHAR(50) NOT NULL UNIQUE,
+                email VARCHAR(100) NOT NULL UNIQUE,
+                age INT,
+                city VARCHAR(50),
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS products (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                name VARCHAR(100) NOT NULL,
+                category VARCHAR(50),
+                price DECIMAL(10,2),
+                stock_quantity INT DEFAULT 0,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+            """),
+        new Migration(2, "secondary indexes",
+            "CREATE INDEX idx_users_email ON users(email)",
+            "CREATE INDEX idx_users_username ON users(username)",
+            // Serves the keyset seek of findUsersByCityPage: WHERE city = ? AND username > ? ORDER BY username
+            "CREATE INDEX idx_users_city_username ON users(city, username)",
+            "CREATE INDEX idx_products_category ON products(category)",
+            "CREATE INDEX idx_products_price ON products(price)"),
+        new Migration(3, "user_product_summary view",
+            """
+            CREATE OR REPLACE VIEW user_product_summary AS
+            SELECT
+                u.id as user_id,
+                u.username,
+                u.email,
+                u.city,
+                COUNT(p.id) as product_count,
+                COALESCE(SUM(p.price), 0) as total_product_value
+            FROM users u
+            LEFT JOIN products p ON u.id = p.id
+            GROUP BY u.id, u.username, u.email, u.city
+            """),
+        new Migration(4, "sample data",
+            """
+            INSERT IGNORE INTO users (username, email, age, city) VALUES
+            ('john_doe', 'john.doe@example.com', 30, 'New York'),
+            ('jane_smith', 'jane.smith@example.com', 25, 'Los Angeles'),
+            ('bob_wilson', 'bob.wilson@example.com', 35, 'Chicago'),
+            ('alice_brown', 'alice.brown@example.com', 28, 'Houston'),
+            ('charlie_davis', 'charlie.davis@example.com', 32, 'Phoenix')
+            """,
+            """
+            INSERT IGNORE INTO products (name, category, price, stock_quantity) VALUES
+            ('Laptop', 'Electronics', 999.99, 50),
+            ('Smartphone', 'Electronics', 699.99, 100),
+            ('Desk Chair', 'Furniture', 199.99, 25),
+            ('Coffee Maker', 'Appliances', 89.99, 75),
+            ('Headphones', 'Electronics', 149.99, 60)
+            """)
+    );
+    
+    private SchemaMigrations() {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,231 @@
+package org.daodao.jdbc.schema;
+
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.pool.PooledConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+// Brings the database up to the latest Migration. Applied versions and their checksums live in schema_version,
+// so a warm start is one SELECT. Cold runs take a named server lock so concurrently starting clients migrate once.
+public class SchemaMigrator {
+    
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+    
+    private static final String LOCK_NAME = "daodao_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+    
+    // MySQL error codes for objects that already exist. Databases created before versioning, or a version
+    // that failed half way (DDL is not transactional), already contain part of the schema.
+    private static final int ER_TABLE_EXISTS = 1050;
+    private static final int ER_DUP_KEYNAME = 1061;
+    private static final int ER_NO_SUCH_TABLE = 1146;
+    
+    private static final String CREATE_VERSION_TABLE = """
+        CREATE TABLE IF NOT EXISTS schema_version (
+            version INT PRIMARY KEY,
+            description VARCHAR(200) NOT NULL,
+            checksum CHAR(64) NOT NULL,
+            execution_ms BIGINT NOT NULL,
+            installed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+        )
+        """;
+    private static final String SELECT_VERSIONS = "SELECT version, checksum FROM schema_version ORDER BY version";
+    private static final String INSERT_VERSION = "INSERT INTO schema_version (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)";
+    
+    private final Supplier<PooledConnection> connections;
+    private final List<Migration> migrations;
+    
+    public SchemaMigrator(Supplier<PooledConnection> connections, List<Migration> migrations) {
+        List<Migration> sorted = new ArrayList<>(migrations);
+        sorted.sort((left, right) -> Integer.compare(left.version(), right.version()));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).version() == sorted.get(i - 1).version()) {
+                throw new IllegalArgumentException("Duplicate migration version " + sorted.get(i).version());
+            }
+        }
+        this.connections = connections;
+        this.migrations = List.copyOf(sorted);
+    }
+    
+    public MigrationReport migrate() {
+        long start = System.nanoTime();
+        Map<Integer, String> applied;
+        try (PooledConnection conn = connections.get()) {
+            applied = readAppliedVersions(conn);
+        }
+        if (pending(applied).isEmpty()) {
+            MigrationReport report = new MigrationReport(latestVersion(applied), List.of(), Duration.ofNanos(System.nanoTime() - start));
+            log.info("{}", report);
+            return report;
+        }
+        
+        List<AppliedMigration> ran = new ArrayList<>();
+        try (PooledConnection lockConn = connections.get()) {
+            try (Statement stmt = lockConn.getConnection().createStatement()) {
+                stmt.execute(CREATE_VERSION_TABLE);
+            }
+            acquireLock(lockConn);
+            try {
+                // Another client may have migrated while we waited for the lock
+                applied = readAppliedVersions(lockConn);
+                for (Migration migration : pending(applied)) {
+                    ran.add(apply(migration, lockConn));
+                    applied.put(migration.version(), migration.checksum());
+                }
+            } finally {
+                releaseLock(lockConn);
+            }
+        } catch (SQLException e) {
+            log.error("Error migrating schema: {}", e.getMessage());
+            throw new MySqlException("Error migrating schema", e);
+        }
+        
+        MigrationReport report = new MigrationReport(latestVersion(applied), List.copyOf(ran), Duration.ofNanos(System.nanoTime() - start));
+        log.info("{}", report);
+        return report;
+    }
+    
+    // Returns an empty map when schema_version does not exist yet
+    private static Map<Integer, String> readAppliedVersions(PooledConnection conn) {
+        Map<Integer, String> applied = new TreeMap<>();
+        try (Statement stmt = conn.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_VERSIONS)) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        } catch (SQLException e) {
+            if (e.getErrorCode() != ER_NO_SUCH_TABLE) {
+                log.error("Error reading schema version: {}", e.getMessage());
+                throw new MySqlException("Error reading schema version", e);
+            }
+        }
+        return applied;
+    }
+    
+    private List<Migration> pending(Map<Integer, String> applied) {
+        List<Migration> pending = new ArrayList<>();
+        for (Migration migration : migrations) {
+            String checksum = applied.get(migration.version());
+            if (checksum == null) {
+                pending.add(migration);
+            } else if (!checksum.equals(migration.checksum())) {
+                throw new MySqlException("Migration V" + migration.version() + " (" + migration.description()
+                    + ") was changed after it was applied: checksum " + migration.checksum() + " does not match " + checksum);
+            }
+        }
+        return pending;
+    }
+    
+    private static int latestVersion(Map<Integer, String> applied) {
+        return applied.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+    
+    private void acquireLock(PooledConnection conn) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)");
+        pstmt.setString(1, LOCK_NAME);
+        pstmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next() || rs.getInt(1) != 1) {
+                throw new MySqlException("Timed out after " + LOCK_TIMEOUT_SECONDS + " s waiting for the schema migration lock");
+            }
+        }
+    }
+    
+    private void releaseLock(PooledConnection conn) {
+        try {
+            PreparedStatement pstmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)");
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.executeQuery().close();
+        } catch (SQLException e) {
+            // The server drops the lock with the session anyway
+            log.warn("Error releasing schema migration lock: {}", e.getMessage());
+        }
+    }
+    
+    private AppliedMigration apply(Migration migration, PooledConnection lockConn) throws SQLException {
+        long start = System.nanoTime();
+        if (migration.statements().size() == 1) {
+            executeStatement(lockConn, migration.statements().get(0));
+        } else {
+            executeInParallel(migration);
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        
+        PreparedStatement pstmt = lockConn.prepareStatement(INSERT_VERSION);
+        pstmt.setInt(1, migration.version());
+        pstmt.setString(2, migration.description());
+        pstmt.setString(3, migration.checksum());
+        pstmt.setLong(4, elapsed.toMillis());
+        pstmt.executeUpdate();
+        
+        log.info("Applied migration V{} ({}) in {} ms", migration.version(), migration.description(), elapsed.toMillis());
+        return new AppliedMigration(migration.version(), migration.description(), elapsed);
+    }
+    
+    // Each statement borrows its own pooled connection, next to the one holding the lock, so parallel migrations
+    // need mysql.pool.max-size >= 2. The first failure is rethrown once all statements have finished.
+    private void executeInParallel(Migration migration) throws SQLException {
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String sql : migration.statements()) {
+                futures.add(executor.submit(() -> {
+                    try (PooledConnection conn = connections.get()) {
+                        executeStatement(conn, sql);
+                    }
+                    return null;
+                }));
+            }
+        }
+        
+        Exception failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MySqlException("Interrupted while applying migration V" + migration.version(), e);
+            }
+        }
+        if (failure instanceof SQLException sqlException) {
+            throw sqlException;
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+    }
+    
+    private static void executeStatement(PooledConnection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.getConnection().createStatement()) {
+            log.debug("Executing migration statement: {}", sql);
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ER_TABLE_EXISTS || e.getErrorCode() == ER_DUP_KEYNAME) {
+                log.debug("Schema object already exists, skipping: {}", e.getMessage());
+                return;
+            }
+            throw e;
+        }
+    }
+}
\ No newline at end of file
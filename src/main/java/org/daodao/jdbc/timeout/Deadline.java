@@ -0,0 +1,84 @@
+package org.daodao.jdbc.timeout;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// The time by which a call must finish. The deadline of the call running on a thread is kept in a thread-local
+// scope, so the pool and every statement the call prepares see how much time is left without it being passed
+// down through each method.
+public final class Deadline {
+    
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+    
+    private final long expiresAtNanos;
+    private final Duration timeout;
+    
+    private Deadline(long expiresAtNanos, Duration timeout) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.timeout = timeout;
+    }
+    
+    public static Deadline after(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Deadline timeout must be positive but was " + timeout);
+        }
+        return new Deadline(System.nanoTime() + timeout.toNanos(), timeout);
+    }
+    
+    // Deadline of the call running on this thread, or null
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+    
+    // Runs call with this deadline as the thread's current one, restoring the previous deadline afterwards
+    public <T> T call(Supplier<T> call) {
+        return within(this, call);
+    }
+    
+    // Runs call with deadline, which may be null for none, as the thread's current one
+    public static <T> T within(Deadline deadline, Supplier<T> call) {
+        Deadline previous = CURRENT.get();
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+    
+    public Deadline earlierOf(Deadline other) {
+        return other == null || expiresAtNanos - other.expiresAtNanos <= 0 ? this : other;
+    }
+    
+    public long remainingNanos() {
+        return expiresAtNanos - System.nanoTime();
+    }
+    
+    // Rounded up, so a deadline with any time left never reads as zero
+    public long remainingMillis() {
+        long remaining = remainingNanos();
+        return remaining <= 0 ? 0 : (remaining + 999_999) / 1_000_000;
+    }
+    
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+    
+    // The time budget this deadline was created with
+    public Duration timeout() {
+        return timeout;
+    }
+    
+    @Override
+    public String toString() {
+        return "Deadline[timeout=" + timeout.toMillis() + " ms, remaining=" + remainingMillis() + " ms]";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,5 @@
+package org.daodao.jdbc.timeout;
+
+// deadlineCalls counts calls run with a deadline, statementsKilled the KILL QUERY commands sent when one expired
+public record TimeoutStats(long deadlineCalls, long timedOut, long statementsKilled) {
+}
\ No newline at end of file
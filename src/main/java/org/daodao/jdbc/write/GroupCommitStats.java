@@ -0,0 +1,19 @@
+package org.daodao.jdbc.write;
+
+// fallbacks counts groups whose write failed and whose requests were retried one by one
+public record GroupCommitStats(
+        long groups,
+        long requests,
+        int maxGroupSize,
+        long fallbacks) {
+    
+    public double meanGroupSize() {
+        return groups == 0 ? 0.0 : (double) requests / groups;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("GroupCommitStats[groups=%d, requests=%d, meanGroupSize=%.1f, maxGroupSize=%d, fallbacks=%d]",
+            groups, requests, meanGroupSize(), maxGroupSize, fallbacks);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,182 @@
+package org.daodao.jdbc.write;
+
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.timeout.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Gathers concurrent synchronous writes into groups written in one transaction, like MySQL's binlog group commit.
+// The first caller to find no open group becomes its leader: it waits up to maxWaitMicros, or until maxRows
+// requests have joined, then writes the whole group on its own thread while the next group fills behind it.
+// Every caller blocks until its own request is written and gets its own result or exception.
+//
+// If the group write fails, it is rolled back and each request is retried on its own, so one bad row (say, a
+// duplicate email in an update) fails only its own caller. A group nobody joined is written as a plain single write.
+//
+// The group is written under the latest Deadline of its callers, or none if any caller has none, so no caller's
+// write is cut short by another caller's budget; a write retried on its own runs under its caller's deadline.
+public class GroupCommitter<T, R> {
+    
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitter.class);
+    
+    private final Function<List<T>, List<R>> groupWriter;
+    private final Function<T, R> singleWriter;
+    private final long maxWaitNanos;
+    private final int maxRows;
+    // A lock rather than synchronized so waiting virtual threads never pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition groupClosed = lock.newCondition();
+    private List<Request<T, R>> open;
+    private long groups;
+    private long requests;
+    private int maxGroupSize;
+    private long fallbacks;
+    
+    private record Request<T, R>(T value, Deadline deadline, CompletableFuture<R> result) {}
+    
+    // groupWriter returns one result per request, in order, and throws to reject the whole group
+    public GroupCommitter(Function<List<T>, List<R>> groupWriter, Function<T, R> singleWriter, long maxWaitMicros, int maxRows) {
+        if (maxWaitMicros < 0 || maxRows < 1) {
+            throw new IllegalArgumentException("Group commit needs maxWaitMicros >= 0 and maxRows >= 1 but got "
+                + maxWaitMicros + " and " + maxRows);
+        }
+        this.groupWriter = groupWriter;
+        this.singleWriter = singleWriter;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.maxRows = maxRows;
+    }
+    
+    public R submit(T value) {
+        Request<T, R> request = new Request<>(value, Deadline.current(), new CompletableFuture<>());
+        List<Request<T, R>> group;
+        boolean leader;
+        lock.lock();
+        try {
+            leader = open == null;
+            if (leader) {
+                open = new ArrayList<>();
+            }
+            group = open;
+            group.add(request);
+            if (group.size() >= maxRows) {
+                open = null;
+                groupClosed.signalAll();
+            }
+            if (leader) {
+                awaitGroup(group);
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        if (leader) {
+            write(group);
+        }
+        try {
+            return request.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new MySqlException("Group commit failed", e.getCause());
+        }
+    }
+    
+    // Caller holds the lock; the group is written even if the leader is interrupted, since others wait on it
+    private void awaitGroup(List<Request<T, R>> group) {
+        long remaining = maxWaitNanos;
+        boolean interrupted = false;
+        while (open == group && remaining > 0) {
+            try {
+                remaining = groupClosed.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                interrupted = true;
+                break;
+            }
+        }
+        if (open == group) {
+            open = null;
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void write(List<Request<T, R>> group) {
+        // Counted before any caller is released, so callers see their own group in the stats
+        count(group.size(), false);
+        if (group.size() == 1) {
+            writeEach(group);
+        } else {
+            List<T> values = new ArrayList<>(group.size());
+            group.forEach(request -> values.add(request.value()));
+            try {
+                List<R> results = Deadline.within(groupDeadline(group), () -> groupWriter.apply(values));
+                for (int i = 0; i < group.size(); i++) {
+                    group.get(i).result().complete(results.get(i));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Group commit of {} requests failed, retrying them one by one: {}", group.size(), e.getMessage());
+                count(0, true);
+                writeEach(group);
+            }
+        }
+    }
+    
+    private static Deadline groupDeadline(List<? extends Request<?, ?>> group) {
+        Deadline latest = null;
+        for (Request<?, ?> request : group) {
+            if (request.deadline() == null) {
+                return null;
+            }
+            if (latest == null || request.deadline().remainingNanos() > latest.remainingNanos()) {
+                latest = request.deadline();
+            }
+        }
+        return latest;
+    }
+    
+    private void count(int groupSize, boolean fallback) {
+        lock.lock();
+        try {
+            if (groupSize > 0) {
+                groups++;
+                requests += groupSize;
+                maxGroupSize = Math.max(maxGroupSize, groupSize);
+            }
+            if (fallback) {
+                fallbacks++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void writeEach(List<Request<T, R>> group) {
+        for (Request<T, R> request : group) {
+            try {
+                request.result().complete(Deadline.within(request.deadline(), () -> singleWriter.apply(request.value())));
+            } catch (RuntimeException e) {
+                request.result().completeExceptionally(e);
+            }
+        }
+    }
+    
+    public GroupCommitStats getStats() {
+        lock.lock();
+        try {
+            return new GroupCommitStats(groups, requests, maxGroupSize, fallbacks);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,289 @@
+package org.daodao.jdbc.write;
+
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Write-behind queue over a WriteJournal. submit() journals the write and returns at once; a background thread hands
+// batches of up to batchRows writes to the batch writer every flushIntervalMillis, or as soon as a full batch is
+// waiting, and marks a batch flushed in the journal only after the writer returns. Writes left in the journal by a
+// crash are replayed ahead of new ones when the next buffer opens it.
+//
+// A batch the writer throws on stays at the head of the queue and is retried after flushIntervalMillis, so delivery is
+// at least once: the writer must tolerate a batch it already wrote, and return rather than throw for writes that can
+// never succeed. When the journal is full, submit() waits for the flusher to drain it.
+public class WriteBehindBuffer<T> implements AutoCloseable {
+    
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindBuffer.class);
+    
+    private final WriteJournal journal;
+    private final Function<T, byte[]> encoder;
+    // Returns how many writes of the batch were rejected
+    private final ToIntFunction<List<T>> batchWriter;
+    private final int batchRows;
+    private final long flushIntervalNanos;
+    // A lock rather than synchronized so submitting virtual threads never pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final Deque<Pending<T>> pending = new ArrayDeque<>();
+    private Thread flusher;
+    private boolean closed;
+    // Callers blocked on a full journal or in flush(); the flusher skips its interval while there are any
+    private int waiters;
+    private long submitted;
+    private final long replayed;
+    private long flushedCount;
+    private long batches;
+    private long failedBatches;
+    private long rejected;
+    
+    private record Pending<T>(T value, int end) {}
+    
+    public WriteBehindBuffer(WriteJournal journal, Function<T, byte[]> encoder, Function<byte[], T> decoder,
+                             ToIntFunction<List<T>> batchWriter, int batchRows, long flushIntervalMillis) {
+        if (batchRows < 1 || flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("Write-behind needs batchRows >= 1 and flushIntervalMillis >= 1 but got "
+                + batchRows + " and " + flushIntervalMillis);
+        }
+        this.journal = journal;
+        this.encoder = encoder;
+        this.batchWriter = batchWriter;
+        this.batchRows = batchRows;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        for (WriteJournal.Entry entry : journal.recovered()) {
+            pending.add(new Pending<>(decoder.apply(entry.payload()), entry.end()));
+        }
+        this.replayed = pending.size();
+        if (replayed > 0) {
+            log.info("Replaying {} unflushed writes from {}", replayed, journal.getPath());
+        }
+    }
+    
+    public void start() {
+        flusher = new Thread(this::run, "mysql-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    public void submit(T value) {
+        byte[] payload = encoder.apply(value);
+        lock.lock();
+        try {
+            int end;
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("Write-behind buffer is closed");
+                }
+                end = journal.append(payload);
+                if (end >= 0) {
+                    break;
+                }
+                awaitFlush();
+            }
+            pending.add(new Pending<>(value, end));
+            submitted++;
+            if (pending.size() >= batchRows) {
+                work.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Caller holds the lock
+    private void awaitFlush() {
+        waiters++;
+        work.signal();
+        try {
+            flushed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MySqlException("Interrupted while waiting for write-behind journal space", e);
+        } finally {
+            waiters--;
+        }
+    }
+    
+    // Waits until every write submitted before the call is flushed; false if that took longer than timeoutMillis
+    public boolean flush(long timeoutMillis) {
+        lock.lock();
+        try {
+            long target = replayed + submitted;
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            waiters++;
+            try {
+                work.signal();
+                while (flushedCount < target) {
+                    if (remaining <= 0 || closed) {
+                        return false;
+                    }
+                    remaining = flushed.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                waiters--;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void run() {
+        while (true) {
+            List<Pending<T>> batch = nextBatch();
+            if (batch == null) {
+                return;
+            }
+            if (!write(batch) && !pauseAfterFailure()) {
+                return;
+            }
+        }
+    }
+    
+    // Null once closed and drained
+    private List<Pending<T>> nextBatch() {
+        lock.lock();
+        try {
+            long remaining = flushIntervalNanos;
+            while (!closed && waiters == 0 && pending.size() < batchRows && remaining > 0) {
+                remaining = work.awaitNanos(remaining);
+            }
+            if (pending.isEmpty()) {
+                return closed ? null : List.of();
+            }
+            List<Pending<T>> batch = new ArrayList<>(Math.min(pending.size(), batchRows));
+            for (Pending<T> entry : pending) {
+                if (batch.size() == batchRows) {
+                    break;
+                }
+                batch.add(entry);
+            }
+            return batch;
+        } catch (InterruptedException e) {
+            // The flusher is private to this buffer and only close() stops it, so pending writes are never abandoned
+            return List.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private boolean write(List<Pending<T>> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        List<T> values = new ArrayList<>(batch.size());
+        batch.forEach(entry -> values.add(entry.value()));
+        int batchRejected;
+        try {
+            batchRejected = batchWriter.applyAsInt(values);
+        } catch (RuntimeException e) {
+            log.warn("Write-behind batch of {} writes failed, retrying in {} ms: {}", batch.size(),
+                TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos), e.getMessage());
+            lock.lock();
+            try {
+                failedBatches++;
+            } finally {
+                lock.unlock();
+            }
+            return false;
+        }
+        
+        lock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                pending.removeFirst();
+            }
+            journal.markFlushed(batch.get(batch.size() - 1).end());
+            flushedCount += batch.size();
+            batches++;
+            rejected += batchRejected;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+    
+    // False once closed: whatever could not be written stays in the journal for the next start
+    private boolean pauseAfterFailure() {
+        lock.lock();
+        try {
+            long remaining = flushIntervalNanos;
+            while (!closed && remaining > 0) {
+                remaining = work.awaitNanos(remaining);
+            }
+            return !closed;
+        } catch (InterruptedException e) {
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public WriteBehindStats getStats() {
+        lock.lock();
+        try {
+            return new WriteBehindStats(submitted, replayed, flushedCount, batches, failedBatches, rejected, pending.size(),
+                journal.pendingBytes());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Makes one more attempt to flush everything pending, then closes the journal
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            work.signalAll();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        
+        boolean interrupted = false;
+        if (flusher != null) {
+            while (flusher.isAlive()) {
+                try {
+                    flusher.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.error("Error closing write-behind journal {}: {}", journal.getPath(), e.getMessage());
+            throw new MySqlException("Error closing write-behind journal " + journal.getPath(), e);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        int left = pending.size();
+        if (left > 0) {
+            log.warn("Closed write-behind buffer with {} unflushed writes; they are replayed on the next start", left);
+        }
+    }
+}
\ No newline at end of file
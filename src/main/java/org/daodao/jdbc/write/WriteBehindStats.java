@@ -0,0 +1,24 @@
+package org.daodao.jdbc.write;
+
+// replayed counts writes found unflushed in the journal at start; rejected counts writes the batch writer gave up on
+public record WriteBehindStats(
+        long submitted,
+        long replayed,
+        long flushed,
+        long batches,
+        long failedBatches,
+        long rejected,
+        int pending,
+        int journalBytes) {
+    
+    public double meanBatchSize() {
+        return batches == 0 ? 0.0 : (double) flushed / batches;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("WriteBehindStats[submitted=%d, replayed=%d, flushed=%d, batches=%d, meanBatchSize=%.1f, "
+            + "failedBatches=%d, rejected=%d, pending=%d, journalBytes=%d]", submitted, replayed, flushed, batches,
+            meanBatchSize(), failedBatches, rejected, pending, journalBytes);
+    }
+}
\ No newline at end of file
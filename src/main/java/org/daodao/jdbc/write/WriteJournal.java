@@ -0,0 +1,191 @@
+package org.daodao.jdbc.write;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Append-only journal in a memory-mapped file. An append is a copy into the page cache, so an entry survives a crash
+// of this process as soon as append() returns; with force it is also synced to the device, surviving an OS crash.
+//
+// Layout: a header holding a magic number and the offset up to which entries have been flushed, then entries of
+// [length][crc32c][payload], each followed by a zero length marking the end. The length is written last, so a torn
+// append reads as the end of the journal. Once everything appended is flushed the journal starts again from the top.
+// Not thread-safe; WriteBehindBuffer serializes access.
+public class WriteJournal implements AutoCloseable {
+    
+    private static final int MAGIC = 0x57424A31;
+    private static final int FLUSHED_OFFSET_POSITION = 8;
+    private static final int HEADER_BYTES = 16;
+    // length and checksum before the payload
+    private static final int ENTRY_HEADER_BYTES = 8;
+    private static final int END_MARKER_BYTES = 4;
+    
+    private final Path path;
+    private final FileChannel channel;
+    private final FileLock fileLock;
+    private final MappedByteBuffer buffer;
+    private final boolean force;
+    private final List<Entry> recovered;
+    private int position;
+    private int flushed;
+    
+    // end is the offset just past the entry, to pass to markFlushed once the entry is written elsewhere
+    public record Entry(byte[] payload, int end) {}
+    
+    private WriteJournal(Path path, FileChannel channel, FileLock fileLock, MappedByteBuffer buffer, boolean force) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.fileLock = fileLock;
+        this.buffer = buffer;
+        this.force = force;
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putLong(FLUSHED_OFFSET_POSITION, HEADER_BYTES);
+            buffer.putInt(HEADER_BYTES, 0);
+            sync(0, HEADER_BYTES + END_MARKER_BYTES);
+        } else if (buffer.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a write-behind journal");
+        }
+        long flushedOffset = buffer.getLong(FLUSHED_OFFSET_POSITION);
+        if (flushedOffset < HEADER_BYTES || flushedOffset > buffer.capacity() - END_MARKER_BYTES) {
+            throw new IOException("Corrupt write-behind journal header in " + path + ": flushed offset " + flushedOffset);
+        }
+        this.flushed = (int) flushedOffset;
+        this.recovered = scan();
+        // Cuts off a torn entry so new appends follow the last complete one
+        buffer.putInt(position, 0);
+    }
+    
+    // Maps at least capacityBytes; an existing, larger journal keeps its size. Locked against a second opener.
+    public static WriteJournal open(Path path, int capacityBytes, boolean force) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            FileLock fileLock;
+            try {
+                fileLock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                fileLock = null;
+            }
+            if (fileLock == null) {
+                throw new IOException("Write-behind journal " + path + " is in use by another connector");
+            }
+            long size = Math.min(Math.max(channel.size(), capacityBytes), Integer.MAX_VALUE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new WriteJournal(path, channel, fileLock, buffer, force);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    private List<Entry> scan() {
+        List<Entry> entries = new ArrayList<>();
+        int offset = flushed;
+        while (true) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > maxPayloadBytes() || offset + entryBytes(length) > buffer.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + ENTRY_HEADER_BYTES, payload);
+            if (checksum(payload) != buffer.getInt(offset + 4)) {
+                break;
+            }
+            offset += ENTRY_HEADER_BYTES + length;
+            entries.add(new Entry(payload, offset));
+        }
+        position = offset;
+        return entries;
+    }
+    
+    // Entries appended but not flushed when the journal was last closed, or when its process died
+    public List<Entry> recovered() {
+        return List.copyOf(recovered);
+    }
+    
+    public int maxPayloadBytes() {
+        return buffer.capacity() - HEADER_BYTES - ENTRY_HEADER_BYTES - END_MARKER_BYTES;
+    }
+    
+    // Returns the entry's end offset, or -1 if it does not fit until the journal is flushed
+    public int append(byte[] payload) {
+        if (payload.length == 0 || payload.length > maxPayloadBytes()) {
+            throw new IllegalArgumentException("Journal entries must be 1 to " + maxPayloadBytes() + " bytes but got " + payload.length);
+        }
+        if (position + entryBytes(payload.length) > buffer.capacity()) {
+            return -1;
+        }
+        int start = position;
+        buffer.putInt(start + 4, checksum(payload));
+        buffer.put(start + ENTRY_HEADER_BYTES, payload);
+        buffer.putInt(start + ENTRY_HEADER_BYTES + payload.length, 0);
+        buffer.putInt(start, payload.length);
+        sync(start, entryBytes(payload.length));
+        position = start + ENTRY_HEADER_BYTES + payload.length;
+        return position;
+    }
+    
+    // Everything up to end has been written elsewhere and need not be replayed
+    public void markFlushed(int end) {
+        if (end < flushed || end > position) {
+            throw new IllegalArgumentException("Flushed offset " + end + " is outside " + flushed + ".." + position);
+        }
+        if (end == position) {
+            // Drained: record end as flushed before clearing the end marker at the top and moving back to it, so a
+            // crash after any of the three writes replays nothing
+            buffer.putLong(FLUSHED_OFFSET_POSITION, end);
+            sync(FLUSHED_OFFSET_POSITION, 8);
+            buffer.putInt(HEADER_BYTES, 0);
+            sync(HEADER_BYTES, END_MARKER_BYTES);
+            position = HEADER_BYTES;
+            end = HEADER_BYTES;
+        }
+        buffer.putLong(FLUSHED_OFFSET_POSITION, end);
+        sync(FLUSHED_OFFSET_POSITION, 8);
+        flushed = end;
+    }
+    
+    public int pendingBytes() {
+        return position - flushed;
+    }
+    
+    public Path getPath() {
+        return path;
+    }
+    
+    private void sync(int index, int length) {
+        if (force) {
+            buffer.force(index, length);
+        }
+    }
+    
+    private static int entryBytes(int payloadLength) {
+        return ENTRY_HEADER_BYTES + payloadLength + END_MARKER_BYTES;
+    }
+    
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            buffer.force();
+            fileLock.release();
+        } finally {
+            channel.close();
+        }
+    }
+}
\ No newline at end of file
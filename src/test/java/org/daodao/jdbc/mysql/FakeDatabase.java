@@ -0,0 +1,465 @@
+package org.daodao.jdbc.mysql;
+
+import com.mysql.cj.jdbc.JdbcConnection;
+import com.mysql.cj.jdbc.JdbcStatement;
+import org.daodao.jdbc.pool.ConnectionFactory;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * In-process stand-in for a MySQL server used by the unit tests.
+ *
+ * Connections, statements and result sets are JDK dynamic proxies. Every
+ * execution is routed to a handler which returns either an update count
+ * (Integer) or a {@link Rows} result, so tests can script the responses
+ * they need without a running MySQL instance. With localInfile(true),
+ * statements also implement Connector/J's JdbcStatement: a LOAD DATA LOCAL
+ * INFILE reaches the handler with the streamed bytes as its only parameter.
+ * Connections implement JdbcConnection with a server id, and KILL QUERY
+ * with that id fails the statement the connection is running with error
+ * 1317, as MySQL does.
+ * It is public so the JMH
+ * benchmarks under src/jmh/java can drive the connector the same way.
+ */
+public final class FakeDatabase {
+    
+    public record Call(String sql, List<Object> params) {}
+    
+    public record Rows(List<String> columns, List<Object[]> rows) {
+        
+        public static Rows of(List<String> columns, Object[]... rows) {
+            return new Rows(columns, List.of(rows));
+        }
+        
+        public static Rows empty() {
+            return new Rows(List.of(), List.of());
+        }
+    }
+    
+    // An update count with the warnings the statement reports afterwards
+    public record Update(int count, List<String> warnings) {}
+    
+    final AtomicInteger connectionsOpened = new AtomicInteger();
+    final AtomicInteger connectionsClosed = new AtomicInteger();
+    final AtomicInteger statementsPrepared = new AtomicInteger();
+    final AtomicInteger executions = new AtomicInteger();
+    final AtomicInteger openResultSets = new AtomicInteger();
+    final AtomicInteger queriesKilled = new AtomicInteger();
+    final AtomicInteger statementsCancelled = new AtomicInteger();
+    volatile int lastFetchSize;
+    volatile int lastQueryTimeout;
+    
+    private volatile Function<Call, Object> handler = call ->
+        call.sql().trim().toUpperCase().startsWith("SELECT") ? Rows.empty() : 1;
+    private volatile boolean valid = true;
+    private volatile boolean localInfile;
+    private volatile long latencyNanos;
+    private final AtomicLong nextConnectionId = new AtomicLong(1);
+    private final Map<Long, ConnectionHandler> connections = new ConcurrentHashMap<>();
+    
+    public void handler(Function<Call, Object> handler) {
+        this.handler = handler;
+    }
+    
+    void valid(boolean valid) {
+        this.valid = valid;
+    }
+    
+    void localInfile(boolean localInfile) {
+        this.localInfile = localInfile;
+    }
+    
+    public void latencyMillis(long latencyMillis) {
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+    }
+    
+    public void latencyMicros(long latencyMicros) {
+        this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+    }
+    
+    public ConnectionFactory connectionFactory() {
+        return this::newConnection;
+    }
+    
+    Connection newConnection() {
+        connectionsOpened.incrementAndGet();
+        ConnectionHandler handler = new ConnectionHandler(nextConnectionId.getAndIncrement());
+        connections.put(handler.id, handler);
+        return proxy(JdbcConnection.class, handler);
+    }
+    
+    private Object execute(ConnectionHandler connection, String sql, List<Object> params) throws SQLException {
+        if (sql.startsWith("KILL QUERY ")) {
+            kill(Long.parseLong(sql.substring("KILL QUERY ".length()).trim()));
+            return 0;
+        }
+        connection.killed = false;
+        connection.executing = Thread.currentThread();
+        executions.incrementAndGet();
+        try {
+            if (latencyNanos > 0) {
+                pause(connection, latencyNanos);
+            }
+            // Not List.copyOf: setNull parameters are null
+            Object result = handler.apply(new Call(sql, Collections.unmodifiableList(new ArrayList<>(params))));
+            if (connection.killed) {
+                throw killed();
+            }
+            if (result instanceof SQLException e) {
+                throw e;
+            }
+            return result;
+        } finally {
+            connection.executing = null;
+        }
+    }
+    
+    // Sleeps like a slow server, waking early when the statement is killed
+    private static void pause(ConnectionHandler connection, long nanos) throws SQLException {
+        long deadline = System.nanoTime() + nanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (connection.killed) {
+                throw killed();
+            }
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted", new InterruptedException());
+            }
+            LockSupport.parkNanos(remaining);
+        }
+    }
+    
+    private void kill(long connectionId) {
+        ConnectionHandler target = connections.get(connectionId);
+        Thread thread = target != null ? target.executing : null;
+        // As on MySQL, killing an idle connection's query does nothing
+        if (thread != null) {
+            queriesKilled.incrementAndGet();
+            target.killed = true;
+            LockSupport.unpark(thread);
+        }
+    }
+    
+    private static SQLException killed() {
+        return new SQLException("Query execution was interrupted", "70100", 1317);
+    }
+    
+    private Object statement(Class<?> type, StatementHandler handler) {
+        Class<?>[] types = localInfile ? new Class<?>[]{type, JdbcStatement.class} : new Class<?>[]{type};
+        return Proxy.newProxyInstance(FakeDatabase.class.getClassLoader(), types, handler);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeDatabase.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+    
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        return null;
+    }
+    
+    private final class ConnectionHandler implements InvocationHandler {
+        
+        private final long id;
+        private boolean closed;
+        private boolean autoCommit = true;
+        private volatile Thread executing;
+        private volatile boolean killed;
+        
+        ConnectionHandler(long id) {
+            this.id = id;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    statementsPrepared.incrementAndGet();
+                    return FakeDatabase.this.statement(PreparedStatement.class, new StatementHandler(this, (String) args[0]));
+                case "createStatement":
+                    return FakeDatabase.this.statement(Statement.class, new StatementHandler(this, null));
+                case "getId":
+                    return id;
+                case "isValid":
+                    return valid && !closed;
+                case "isClosed":
+                    return closed;
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        connections.remove(id);
+                        connectionsClosed.incrementAndGet();
+                    }
+                    return null;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "commit":
+                case "rollback":
+                    return null;
+                case "unwrap":
+                    return proxy;
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FakeConnection@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+    }
+    
+    private final class StatementHandler implements InvocationHandler {
+        
+        private final ConnectionHandler connection;
+        private final String preparedSql;
+        private final Map<Integer, Object> params = new TreeMap<>();
+        private final List<List<Object>> batch = new ArrayList<>();
+        private boolean closed;
+        private ResultSet lastResultSet;
+        private int lastUpdateCount = -1;
+        private InputStream localInfileStream;
+        private List<String> warnings = List.of();
+        
+        StatementHandler(ConnectionHandler connection, String preparedSql) {
+            this.connection = connection;
+            this.preparedSql = preparedSql;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                params.put(index, name.equals("setNull") ? null : args[1]);
+                return null;
+            }
+            switch (name) {
+                case "executeQuery": {
+                    Object result = execute(connection, sql(args), currentParams());
+                    lastResultSet = resultSet(result instanceof Rows rows ? rows : Rows.empty());
+                    return lastResultSet;
+                }
+                case "executeUpdate":
+                case "executeLargeUpdate": {
+                    String sql = sql(args);
+                    List<Object> params = currentParams();
+                    if (localInfileStream != null && sql.startsWith("LOAD DATA LOCAL INFILE")) {
+                        try (InputStream in = localInfileStream) {
+                            params = List.of(in.readAllBytes());
+                        }
+                        localInfileStream = null;
+                    }
+                    Object result = execute(connection, sql, params);
+                    warnings = result instanceof Update update ? update.warnings() : List.of();
+                    return result instanceof Update update ? update.count() : result instanceof Integer count ? count : 0;
+                }
+                case "setLocalInfileInputStream":
+                    localInfileStream = (InputStream) args[0];
+                    return null;
+                case "getLocalInfileInputStream":
+                    return localInfileStream;
+                case "getWarnings": {
+                    SQLWarning chain = null;
+                    for (int i = warnings.size() - 1; i >= 0; i--) {
+                        SQLWarning warning = new SQLWarning(warnings.get(i));
+                        if (chain != null) {
+                            warning.setNextWarning(chain);
+                        }
+                        chain = warning;
+                    }
+                    return chain;
+                }
+                case "clearWarnings":
+                    warnings = List.of();
+                    return null;
+                case "execute": {
+                    Object result = execute(connection, sql(args), currentParams());
+                    if (result instanceof Rows rows) {
+                        lastResultSet = resultSet(rows);
+                        lastUpdateCount = -1;
+                        return true;
+                    }
+                    lastResultSet = null;
+                    lastUpdateCount = result instanceof Integer count ? count : 0;
+                    return false;
+                }
+                case "addBatch":
+                    batch.add(currentParams());
+                    return null;
+                case "executeBatch": {
+                    int[] counts = new int[batch.size()];
+                    for (int i = 0; i < counts.length; i++) {
+                        Object result = execute(connection, preparedSql, batch.get(i));
+                        counts[i] = result instanceof Integer count ? count : 0;
+                    }
+                    batch.clear();
+                    return counts;
+                }
+                case "clearBatch":
+                    batch.clear();
+                    return null;
+                case "cancel":
+                    statementsCancelled.incrementAndGet();
+                    kill(connection.id);
+                    return null;
+                case "setFetchSize":
+                    lastFetchSize = (Integer) args[0];
+                    return null;
+                case "setQueryTimeout":
+                    lastQueryTimeout = (Integer) args[0];
+                    return null;
+                case "clearParameters":
+                    params.clear();
+                    return null;
+                case "getResultSet":
+                    return lastResultSet;
+                case "getUpdateCount":
+                    return lastUpdateCount;
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "unwrap":
+                    return proxy;
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FakeStatement[" + preparedSql + "]";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+        
+        private String sql(Object[] args) {
+            return args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql;
+        }
+        
+        private List<Object> currentParams() {
+            return new ArrayList<>(params.values());
+        }
+    }
+    
+    private ResultSet resultSet(Rows rows) {
+        openResultSets.incrementAndGet();
+        return proxy(ResultSet.class, new ResultSetHandler(rows));
+    }
+    
+    private final class ResultSetHandler implements InvocationHandler {
+        
+        private final Rows rows;
+        private int cursor = -1;
+        private boolean wasNull;
+        private boolean closed;
+        
+        ResultSetHandler(Rows rows) {
+            this.rows = rows;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "next":
+                    cursor++;
+                    return cursor < rows.rows().size();
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        openResultSets.decrementAndGet();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "wasNull":
+                    return wasNull;
+                case "findColumn":
+                    return column((String) args[0]) + 1;
+                case "getMetaData":
+                    return metaData();
+                case "unwrap":
+                    return proxy;
+                case "isWrapperFor":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FakeResultSet";
+                default:
+                    break;
+            }
+            if (name.startsWith("get") && args != null && args.length == 1) {
+                int index = args[0] instanceof Integer i ? i - 1 : column((String) args[0]);
+                Object value = rows.rows().get(cursor)[index];
+                wasNull = value == null;
+                return convert(value, method.getReturnType());
+            }
+            return defaultValue(method.getReturnType());
+        }
+        
+        private ResultSetMetaData metaData() {
+            return FakeDatabase.proxy(ResultSetMetaData.class, (metaProxy, method, args) -> switch (method.getName()) {
+                case "getColumnCount" -> rows.columns().size();
+                case "getColumnLabel", "getColumnName" -> rows.columns().get((Integer) args[0] - 1);
+                default -> defaultValue(method.getReturnType());
+            });
+        }
+        
+        private int column(String label) throws SQLException {
+            int index = rows.columns().indexOf(label);
+            if (index < 0) {
+                throw new SQLException("Column '" + label + "' not found");
+            }
+            return index;
+        }
+        
+        private static Object convert(Object value, Class<?> type) {
+            if (value == null) {
+                return defaultValue(type);
+            }
+            if (type == int.class) return ((Number) value).intValue();
+            if (type == long.class) return ((Number) value).longValue();
+            if (type == double.class) return ((Number) value).doubleValue();
+            if (type == String.class) return value.toString();
+            return value;
+        }
+    }
+}
\ No newline at end of file
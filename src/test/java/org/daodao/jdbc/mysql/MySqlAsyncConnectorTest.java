@@ -0,0 +1,322 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.AsyncMySqlConnector;
+import org.daodao.jdbc.connectors.AsyncStats;
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.model.User;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the CompletableFuture connector facade
+ *
+ * - Many concurrent calls complete with at most maxConcurrency running at once
+ * - Calls beyond the queue limit are rejected immediately
+ * - Timeouts and cancellation kill the running statement with KILL QUERY,
+ *   and interrupt only a call still waiting for a pooled connection or an identical query in flight
+ * - Cancelled queued calls never reach the database
+ * - Connector errors fail the future
+ */
+class MySqlAsyncConnectorTest {
+    
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    private final List<String> executed = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        database = new FakeDatabase();
+        database.handler(call -> {
+            synchronized (executed) {
+                executed.add(call.sql() + " " + call.params());
+            }
+            if (call.sql().contains("WHERE city = ?")) {
+                return "Nowhere".equals(call.params().get(0))
+                    ? new SQLException("Table 'testdb.users' doesn't exist", "42S02", 1146)
+                    : FakeDatabase.Rows.of(List.of("username", "email", "age", "city"),
+                        new Object[]{"alice", "alice@example.com", 30, call.params().get(0)});
+            }
+            if (call.sql().startsWith("SELECT COUNT(*)")) {
+                return FakeDatabase.Rows.of(List.of("COUNT(*)"), new Object[]{42L});
+            }
+            return call.sql().startsWith("SELECT") ? FakeDatabase.Rows.empty() : 1;
+        });
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config("mysql.pool.max-size", "8"), database.connectionFactory());
+        connector.connect();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    private static void awaitIdle(MySqlConnector connector) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (connector.getPoolStats().active() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, connector.getPoolStats().active());
+    }
+    
+    // Futures complete before their call's bookkeeping finishes
+    private static AsyncStats settledStats(AsyncMySqlConnector async) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        AsyncStats stats;
+        while (((stats = async.getStats()).running() > 0 || stats.queued() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        return stats;
+    }
+    
+    @Test
+    void testConcurrentCallsBoundedByMaxConcurrency() throws Exception {
+        database.latencyMillis(5);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try (AsyncMySqlConnector async = new AsyncMySqlConnector(connector, Executors.newVirtualThreadPerTaskExecutor(), 4, 1_000, Duration.ofSeconds(10))) {
+            List<CompletableFuture<List<User>>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String city = "City" + i;
+                futures.add(async.supplyAsync(c -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        return c.findUserRecordsByCity(city);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                }));
+            }
+            
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+            for (int i = 0; i < 200; i++) {
+                assertEquals("City" + i, futures.get(i).join().get(0).city());
+            }
+            assertEquals(4, maxRunning.get());
+            AsyncStats stats = settledStats(async);
+            assertEquals(200, stats.completed());
+            assertEquals(0, stats.running());
+            assertEquals(0, stats.queued());
+        }
+        assertTrue(connector.getPoolStats().total() <= 4);
+    }
+    
+    @Test
+    void testDefaultsFromConfiguration() throws Exception {
+        MySqlConnector configured = new MySqlConnector(MySqlConnectionPoolTest.config("mysql.pool.max-size", "3",
+            "mysql.async.virtual-threads", "false", "mysql.async.timeout-ms", "5000"), database.connectionFactory());
+        configured.connect();
+        try (AsyncMySqlConnector async = new AsyncMySqlConnector(configured)) {
+            assertTrue(async.insertUserAsync("bob", "bob@example.com", 41, "Boston").get(5, TimeUnit.SECONDS));
+            Thread thread = async.supplyAsync(c -> Thread.currentThread()).get(5, TimeUnit.SECONDS);
+            assertTrue(thread.getName().startsWith("mysql-async-"));
+            assertFalse(thread.isVirtual());
+            assertEquals(List.of("User: alice, Email: alice@example.com, Age: 30"),
+                async.findUsersByCityAsync("Boston").get(5, TimeUnit.SECONDS));
+        } finally {
+            configured.disconnect();
+        }
+    }
+    
+    @Test
+    void testCallsBeyondQueueRejected() throws Exception {
+        database.latencyMillis(200);
+        try (AsyncMySqlConnector async = new AsyncMySqlConnector(connector, Executors.newVirtualThreadPerTaskExecutor(), 1, 2, Duration.ZERO)) {
+            List<CompletableFuture<Boolean>> accepted = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                accepted.add(async.deleteUserAsync("user" + i));
+            }
+            CompletableFuture<Boolean> rejected = async.deleteUserAsync("user3");
+            
+            ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+            for (CompletableFuture<Boolean> future : accepted) {
+                assertTrue(future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, async.getStats().rejected());
+        }
+    }
+    
+    @Test
+    void testTimeoutKillsRunningStatement() throws Exception {
+        database.latencyMillis(10_000);
+        try (AsyncMySqlConnector async = new AsyncMySqlConnector(connector, Executors.newVirtualThreadPerTaskExecutor(), 4, 10, Duration.ofMillis(100))) {
+            long start = System.nanoTime();
+            CompletableFuture<List<User>> future = async.findUserRecordsByCityAsync("Boston");
+            
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, e.getCause());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+            awaitIdle(connector);
+            assertEquals(1, database.queriesKilled.get());
+            assertEquals(1, settledStats(async).timedOut());
+            assertEquals(0, settledStats(async).failed());
+        }
+    }
+    
+    @Test
+    void testCancelKillsRunningStatement() throws Exception {
+        database.latencyMillis(10_000);
+        try (AsyncMySqlConnector async = new AsyncMySqlConnector(connector, Executors.newVirtualThreadPerTaskExecutor(), 4, 10, Duration.ZERO)) {
+            int executions = database.executions.get();
+            CompletableFuture<Integer> future = async.getUserCountAsync();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (database.executions.get() == executions) {
+                assertTrue(System.nanoTime() < deadline, "Call never started");
+                Thread.sleep(5);
+            }
+            
+            assertTrue(future.cancel(true));
+            
+            assertTrue(future.isCancelled());
+            awaitIdle(connector);
+            assertEquals(1, database.queriesKilled.get());
+            assertEquals(1, async.getStats().cancelled());
+            // The connection survives the kill and serves the next call
+            database.latencyMillis(0);
+            assertEquals(42, async.getUserCountAsync().get(5, TimeUnit.SECONDS));
+        }
+    }
+    
+    @Test
+    void testCancelNeverInterruptsStatement() throws Exception {
+        CountDownLatch never = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        database.handler(call -> {
+            try {
+                never.await(300, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Connector/J would have closed the connection here
+                interrupted.set(true);
+            }
+            return FakeDatabase.Rows.empty();
+        });
+        try (AsyncMySqlConnector async = new AsyncMySqlConnector(connector, Executors.newVirtualThreadPerTaskExecutor(), 4, 10, Duration.ZERO)) {
+            CompletableFuture<List<User>> future = async.findUserRecordsByCityAsync("Boston");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (database.executions.get() == 0) {
+                assertTrue(System.nanoTime() < deadline, "Call never started");
+                Thread.sleep(5);
+            }
+            
+            assertTrue(future.cancel(true));
+            
+            awaitIdle(connector);
+            assertFalse(interrupted.get(), "The statement's thread was interrupted");
+            assertEquals(1, database.queriesKilled.get());
+        }
+    }
+    
+    @Test
+    void testCancelInterruptsPoolWait() throws Exception {
+        MySqlConnector single = new MySqlConnector(MySqlConnectionPoolTest.config(
+            "mysql.pool.min-size", "1", "mysql.pool.max-size", "1", "mysql.pool.acquire-timeout-ms", "30000"), database.connectionFactory());
+        single.connect();
+        database.latencyMillis(1_000);
+        try (AsyncMySqlConnector async = new AsyncMySqlConnector(single, Executors.newVirtualThreadPerTaskExecutor(), 2, 10, Duration.ZERO)) {
+            CompletableFuture<Void> holder = async.executeAsync("UPDATE users SET age = 31 WHERE username = 'alice'");
+            CompletableFuture<Void> waiting = async.executeAsync("UPDATE users SET age = 32 WHERE username = 'bob'");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (single.getPoolStats().waiters() == 0) {
+                assertTrue(System.nanoTime() < deadline, "No call waited for the connection");
+                Thread.sleep(1);
+            }
+            
+            long start = System.nanoTime();
+            assertTrue(waiting.cancel(true));
+            while (async.getStats().running() > 1) {
+                Thread.sleep(1);
+            }
+            
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500), "The pool wait was not interrupted");
+            assertEquals(0, single.getPoolStats().waiters());
+            assertNull(holder.get(5, TimeUnit.SECONDS));
+            assertEquals(0, database.queriesKilled.get());
+        } finally {
+            single.disconnect();
+        }
+    }
+    
+    @Test
+    void testCancelInterruptsCoalescedWait() throws Exception {
+        MySqlConnector coalescing = new MySqlConnector(MySqlConnectionPoolTest.config("mysql.single-flight.enabled", "true"),
+            database.connectionFactory());
+        coalescing.connect();
+        database.latencyMillis(1_000);
+        try (AsyncMySqlConnector async = new AsyncMySqlConnector(coalescing, Executors.newVirtualThreadPerTaskExecutor(), 2, 10, Duration.ZERO)) {
+            CompletableFuture<List<User>> leader = async.findUserRecordsByCityAsync("Boston");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (coalescing.getSingleFlightStats().inFlight() == 0) {
+                assertTrue(System.nanoTime() < deadline, "Leader never started");
+                Thread.sleep(1);
+            }
+            CompletableFuture<List<User>> follower = async.findUserRecordsByCityAsync("Boston");
+            while (coalescing.getSingleFlightStats().followers() == 0) {
+                assertTrue(System.nanoTime() < deadline, "No call joined the leader");
+                Thread.sleep(1);
+            }
+            
+            long start = System.nanoTime();
+            assertTrue(follower.cancel(true));
+            while (async.getStats().running() > 1) {
+                Thread.sleep(1);
+            }
+            
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500), "The follower's wait was not interrupted");
+            assertEquals("Boston", leader.get(5, TimeUnit.SECONDS).get(0).city());
+            assertEquals(0, database.queriesKilled.get());
+        } finally {
+            coalescing.disconnect();
+        }
+    }
+    
+    @Test
+    void testCancelledQueuedCallNeverRuns() throws Exception {
+        database.latencyMillis(300);
+        try (AsyncMySqlConnector async = new AsyncMySqlConnector(connector, Executors.newVirtualThreadPerTaskExecutor(), 1, 10, Duration.ZERO)) {
+            CompletableFuture<Boolean> first = async.updateUserEmailAsync("alice", "alice@new.example.com");
+            CompletableFuture<Boolean> queued = async.deleteUserAsync("queued");
+            
+            assertTrue(queued.cancel(true));
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (async.getStats().queued() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            synchronized (executed) {
+                assertTrue(executed.stream().noneMatch(sql -> sql.contains("queued")), executed.toString());
+            }
+            assertEquals(0, database.queriesKilled.get());
+        }
+    }
+    
+    @Test
+    void testConnectorErrorFailsFuture() throws Exception {
+        try (AsyncMySqlConnector async = new AsyncMySqlConnector(connector, Executors.newVirtualThreadPerTaskExecutor(), 4, 10, Duration.ofSeconds(5))) {
+            CompletableFuture<List<User>> future = async.findUserRecordsByCityAsync("Nowhere");
+            
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(MySqlException.class, e.getCause());
+            assertInstanceOf(SQLException.class, e.getCause().getCause());
+            assertEquals(1, settledStats(async).failed());
+            assertThrows(IllegalArgumentException.class, () -> new AsyncMySqlConnector(connector,
+                Executors.newVirtualThreadPerTaskExecutor(), 0, 10, Duration.ZERO));
+        }
+    }
+}
\ No newline at end of file
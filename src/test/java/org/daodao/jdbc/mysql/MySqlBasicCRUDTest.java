@@ -3,11 +3,16 @@ package org.daodao.jdbc.mysql;
 import org.daodao.jdbc.config.MySqlConfig;
 import org.daodao.jdbc.connectors.MySqlConnector;
 import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.model.BulkInsertResult;
+import org.daodao.jdbc.model.InsertOutcome;
+import org.daodao.jdbc.model.User;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.function.Executable;
 import org.opentest4j.TestAbortedException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,6 +68,14 @@ class MySqlBasicCRUDTest {
         assertTrue(users.size() >= 5); // Should have at least 5 sample users
     }
     
+    @Test
+    void testStreamAllUsers() {
+        int expected = mysqlConnector.findAllUsers().size();
+        try (Stream<User> users = mysqlConnector.streamAllUsers()) {
+            assertEquals(expected, users.count());
+        }
+    }
+    
     @Test
     void testInsertUser() {
         String username = "test_user_" + System.currentTimeMillis();
@@ -78,6 +91,23 @@ class MySqlBasicCRUDTest {
         assertTrue(users.stream().anyMatch(user -> user.contains(username)));
     }
     
+    @Test
+    void testInsertUsers() {
+        String prefix = "bulk_user_" + System.currentTimeMillis() + "_";
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            users.add(new User(prefix + i, prefix + i + "@example.com", 20 + i, "Bulk City"));
+        }
+        users.add(new User("john_doe", "bulk.duplicate@example.com", 40, "Bulk City")); // Existing user
+        
+        BulkInsertResult result = mysqlConnector.insertUsers(users);
+        assertEquals(50, result.insertedCount());
+        assertEquals(InsertOutcome.DUPLICATE, result.outcomes().get(50));
+        
+        List<String> bulkCityUsers = mysqlConnector.findUsersByCity("Bulk City");
+        assertTrue(bulkCityUsers.size() >= 50);
+    }
+    
     @Test
     void testUpdateUserEmail() {
         String username = "john_doe"; // Existing user from sample data
@@ -0,0 +1,173 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.lookup.BatchLoader;
+import org.daodao.jdbc.lookup.LoaderStats;
+import org.daodao.jdbc.metrics.OperationStats;
+import org.daodao.jdbc.model.User;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for DataLoader-style batching of point lookups
+ *
+ * - Loads issued within the window are dispatched as one query
+ * - Keys are cached per loader, failed keys are not
+ * - With no window, batches go out on dispatch(), when full, or on close()
+ * - Batch sizes are reported per loader and through the loadUsers metrics
+ */
+class MySqlBatchLoaderTest {
+    
+    private final List<List<Object>> lookups = new CopyOnWriteArrayList<>();
+    private volatile boolean failing;
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    
+    private void connect(String... overrides) {
+        database = new FakeDatabase();
+        database.handler(call -> {
+            if (!call.sql().contains("WHERE username IN")) {
+                return call.sql().startsWith("SELECT") ? FakeDatabase.Rows.empty() : 0;
+            }
+            lookups.add(call.params());
+            if (failing) {
+                return new SQLException("Too many connections", "08004", 1040);
+            }
+            List<Object[]> rows = new ArrayList<>();
+            call.params().stream().distinct().filter(key -> ((String) key).startsWith("user_")).forEach(key ->
+                rows.add(new Object[]{key, key + "@example.com", 30, "Boston"}));
+            return new FakeDatabase.Rows(List.of("username", "email", "age", "city"), rows);
+        });
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config(overrides), database.connectionFactory());
+        connector.connect();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    @Test
+    void testLoadsWithinWindowShareOneQuery() throws Exception {
+        connect("mysql.loader.window-ms", "50");
+        List<CompletableFuture<User>> futures = new CopyOnWriteArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        
+        try (BatchLoader<User> loader = connector.newUserLoader();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 40; i++) {
+                String username = "user_" + i;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    futures.add(loader.load(username));
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            
+            for (CompletableFuture<User> future : futures) {
+                assertNotNull(future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, lookups.size());
+            LoaderStats stats = loader.getStats();
+            assertEquals(40, stats.loads());
+            assertEquals(1, stats.batches());
+            assertEquals(40, stats.maxBatchSize());
+            assertEquals(40.0, stats.meanBatchSize(), 1e-9);
+        }
+    }
+    
+    @Test
+    void testKeysCachedPerLoader() throws Exception {
+        connect("mysql.loader.window-ms", "0");
+        try (BatchLoader<User> loader = connector.newUserLoader()) {
+            CompletableFuture<User> first = loader.load("user_1");
+            assertSame(first, loader.load("user_1"));
+            CompletableFuture<User> missing = loader.load("nobody");
+            loader.dispatch();
+            
+            assertEquals("user_1@example.com", first.join().email());
+            assertNull(missing.join());
+            assertSame(first, loader.load("user_1"));
+            assertEquals(1, lookups.size());
+            
+            loader.clear("user_1");
+            CompletableFuture<User> reloaded = loader.load("user_1");
+            assertNotSame(first, reloaded);
+            loader.dispatch();
+            assertEquals("user_1", reloaded.join().username());
+            assertEquals(2, lookups.size());
+            assertEquals(new LoaderStats(5, 2, 2, 3, 2), loader.getStats());
+        }
+        // A new loader is a new scope
+        try (BatchLoader<User> loader = connector.newUserLoader()) {
+            CompletableFuture<User> again = loader.load("user_1");
+            loader.dispatch();
+            assertNotNull(again.join());
+            assertEquals(3, lookups.size());
+        }
+    }
+    
+    @Test
+    void testManualDispatchFullBatchesAndClose() throws Exception {
+        connect("mysql.loader.window-ms", "0", "mysql.loader.max-batch-keys", "10");
+        List<CompletableFuture<User>> futures = new ArrayList<>();
+        BatchLoader<User> loader = connector.newUserLoader();
+        for (int i = 0; i < 25; i++) {
+            futures.add(loader.load("user_" + i));
+        }
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        Thread.sleep(50);
+        assertFalse(futures.get(24).isDone());
+        
+        loader.close();
+        
+        assertTrue(futures.stream().allMatch(future -> future.isDone() && !future.isCompletedExceptionally()));
+        assertEquals(new LoaderStats(25, 0, 3, 25, 10), loader.getStats());
+        assertThrows(IllegalStateException.class, () -> loader.load("user_1"));
+        
+        OperationStats batches = connector.getMetricsSnapshot().operation("loadUsers");
+        assertEquals(3, batches.count());
+        assertEquals(25, batches.rows());
+    }
+    
+    @Test
+    void testLoadManyAndFailedBatchNotCached() {
+        connect("mysql.loader.window-ms", "5");
+        try (BatchLoader<User> loader = connector.newUserLoader()) {
+            failing = true;
+            CompletableFuture<Map<String, User>> failed = loader.loadMany(List.of("user_1", "user_2"));
+            CompletionException e = assertThrows(CompletionException.class, failed::join);
+            assertInstanceOf(MySqlException.class, e.getCause());
+            
+            failing = false;
+            Map<String, User> users = loader.loadMany(List.of("user_2", "nobody", "user_1")).join();
+            assertEquals(List.of("user_2", "nobody", "user_1"), List.copyOf(users.keySet()));
+            assertEquals("user_1", users.get("user_1").username());
+            assertNull(users.get("nobody"));
+            assertEquals(2, lookups.size());
+        }
+        assertThrows(IllegalArgumentException.class, () -> connector.newUserLoader().load(null));
+    }
+}
\ No newline at end of file
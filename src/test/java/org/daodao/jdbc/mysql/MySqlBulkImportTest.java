@@ -0,0 +1,361 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.export.DelimitedWriter;
+import org.daodao.jdbc.export.ExportFormat;
+import org.daodao.jdbc.ingest.DelimitedReader;
+import org.daodao.jdbc.ingest.ImportOptions;
+import org.daodao.jdbc.ingest.ImportRequest;
+import org.daodao.jdbc.ingest.ImportResult;
+import org.daodao.jdbc.ingest.RejectedRow;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for bulk import
+ *
+ * The FakeDatabase stands in for Connector/J's local infile support and
+ * hands each LOAD DATA LOCAL INFILE the bytes it streamed:
+ * - Input is split into chunks loaded through LOAD DATA as escaped TSV
+ * - Column mapping, skipped fields, NULLs and escapes survive the trip
+ * - LOAD DATA runs on connections opened for the import, never on pooled ones
+ * - Multi-row INSERT fallback when local infile is disabled on either side,
+ *   split by the packet limit
+ * - Malformed rows and server warnings, duplicate keys included, are
+ *   reported with their input line
+ * - CSV/TSV reading round-trips what the exporter writes
+ */
+class MySqlBulkImportTest {
+    
+    @TempDir
+    Path dir;
+    
+    private final ConcurrentLinkedQueue<FakeDatabase.Call> loads = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<FakeDatabase.Call> inserts = new ConcurrentLinkedQueue<>();
+    private volatile Function<FakeDatabase.Call, Object> loadResponse = call -> rowsOf(call).size();
+    private final AtomicInteger importConnections = new AtomicInteger();
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    
+    @AfterEach
+    void tearDown() {
+        if (connector != null) {
+            connector.disconnect();
+        }
+    }
+    
+    private void connect(boolean driverSupport, String... overrides) {
+        database = new FakeDatabase();
+        database.localInfile(driverSupport);
+        database.handler(call -> {
+            if (call.sql().startsWith("LOAD DATA LOCAL INFILE")) {
+                loads.add(call);
+                return loadResponse.apply(call);
+            }
+            if (call.sql().startsWith("INSERT IGNORE INTO `users`")) {
+                inserts.add(call);
+                return call.params().size() / 4;
+            }
+            return call.sql().startsWith("SELECT") ? FakeDatabase.Rows.empty() : 0;
+        });
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config(overrides), database.connectionFactory(), () -> {
+            importConnections.incrementAndGet();
+            return database.connectionFactory().create();
+        });
+        connector.connect();
+    }
+    
+    private static List<List<String>> rowsOf(FakeDatabase.Call load) {
+        try (DelimitedReader reader = new DelimitedReader(
+                new InputStreamReader(new ByteArrayInputStream((byte[]) load.params().get(0)), StandardCharsets.UTF_8), ExportFormat.TSV)) {
+            List<List<String>> rows = new ArrayList<>();
+            for (List<String> row; (row = reader.next()) != null; ) {
+                rows.add(row);
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+    
+    private static ByteArrayInputStream csv(int rows) {
+        StringBuilder text = new StringBuilder("username,email,age,city\n");
+        for (int i = 0; i < rows; i++) {
+            text.append("imp_").append(i).append(",imp_").append(i).append("@example.com,").append(20 + i % 60).append(",Boston\n");
+        }
+        return new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    void testLoadDataInChunks() {
+        connect(true, "mysql.import.local-infile", "true");
+        
+        ImportResult result = connector.importStream(csv(2_500), ImportOptions.forTable("users").withChunkRows(1_000).withParallelism(2));
+        
+        assertTrue(result.localInfile());
+        assertEquals(2_500, result.rowsRead());
+        assertEquals(2_500, result.rowsImported());
+        assertEquals(0, result.rowsSkipped());
+        assertEquals(3, loads.size());
+        assertTrue(inserts.isEmpty());
+        assertTrue(loads.peek().sql().contains("IGNORE INTO TABLE `users`"), loads.peek().sql());
+        assertTrue(loads.peek().sql().endsWith("(`username`, `email`, `age`, `city`)"), loads.peek().sql());
+        
+        List<String> usernames = loads.stream().flatMap(load -> rowsOf(load).stream()).map(row -> row.get(0)).sorted().toList();
+        assertEquals(2_500, usernames.size());
+        assertEquals(2_500, usernames.stream().distinct().count());
+        assertTrue(usernames.contains("imp_2499"));
+        assertEquals(0, connector.getPoolStats().active());
+    }
+    
+    @Test
+    void testLoadDataOnDedicatedConnections() {
+        connect(true, "mysql.import.local-infile", "true", "mysql.pool.min-size", "1");
+        long pooled = connector.getPoolStats().created();
+        
+        connector.importStream(csv(5_000), ImportOptions.forTable("users").withChunkRows(500).withParallelism(2));
+        
+        assertEquals(10, loads.size());
+        // Chunks reuse the import's connections, which are closed when it ends
+        assertTrue(importConnections.get() >= 1 && importConnections.get() <= 2, importConnections.toString());
+        assertEquals(pooled, connector.getPoolStats().created());
+        assertEquals(pooled + importConnections.get(), database.connectionsOpened.get());
+        assertEquals(importConnections.get(), database.connectionsClosed.get());
+    }
+    
+    @Test
+    void testColumnMappingAndEscaping() {
+        connect(true, "mysql.import.local-infile", "true");
+        String tsv = "1\tan\\tna\tanna@example.com\t\\N\tSan José\n"
+            + "2\tbob\tbob@example.com\t41\tline\\nbreak\n";
+        
+        connector.importStream(new ByteArrayInputStream(tsv.getBytes(StandardCharsets.UTF_8)), ImportOptions.forTable("users")
+            .withFormat(ExportFormat.TSV)
+            .withColumns(List.of("-", "username", "email", "age", "city"))
+            .withHeader(false));
+        
+        FakeDatabase.Call load = loads.poll();
+        assertTrue(load.sql().endsWith("(`username`, `email`, `age`, `city`)"));
+        assertEquals(List.of(
+            Arrays.asList("an\tna", "anna@example.com", null, "San José"),
+            List.of("bob", "bob@example.com", "41", "line\nbreak")), rowsOf(load));
+    }
+    
+    @Test
+    void testFallbackWhenServerDisablesLocalInfile() {
+        connect(true, "mysql.import.local-infile", "true");
+        loadResponse = call -> new SQLException("Loading local data is disabled; this must be enabled on both the client and server sides", "42000", 3948);
+        
+        ImportResult result = connector.importStream(csv(2_500), ImportOptions.forTable("users").withChunkRows(1_000).withParallelism(1));
+        
+        assertFalse(result.localInfile());
+        assertEquals(2_500, result.rowsImported());
+        // Only the first chunk tries LOAD DATA
+        assertEquals(1, loads.size());
+        assertEquals(3, inserts.size());
+        FakeDatabase.Call insert = inserts.peek();
+        assertTrue(insert.sql().startsWith("INSERT IGNORE INTO `users` (`username`, `email`, `age`, `city`) VALUES (?, ?, ?, ?), (?, ?, ?, ?)"));
+        assertEquals(List.of("imp_0", "imp_0@example.com", "20", "Boston"), insert.params().subList(0, 4));
+    }
+    
+    @Test
+    void testInsertFallbackSplitByPacketLimit() {
+        // 3072 bytes left after the headroom, about 84 bytes per row in the worst case
+        connect(true, "mysql.bulk.max-packet-bytes", "4096");
+        
+        ImportResult result = connector.importStream(csv(100), ImportOptions.forTable("users"));
+        
+        assertEquals(100, result.rowsImported());
+        assertEquals(List.of(37, 36, 27), inserts.stream().map(insert -> insert.params().size() / 4).toList());
+        assertEquals(0, importConnections.get());
+    }
+    
+    @Test
+    void testInsertsWhenLocalInfileNotEnabled() {
+        // The connector never asks the driver for local infile unless mysql.import.local-infile is set
+        connect(true);
+        
+        ImportResult result = connector.importStream(csv(10), ImportOptions.forTable("users"));
+        
+        assertFalse(result.localInfile());
+        assertEquals(10, result.rowsImported());
+        assertTrue(loads.isEmpty());
+        assertEquals(1, inserts.size());
+        
+        // A driver without local infile streams falls back as well
+        connector.disconnect();
+        inserts.clear();
+        connect(false, "mysql.import.local-infile", "true");
+        assertEquals(10, connector.importStream(csv(10), ImportOptions.forTable("users")).rowsImported());
+        assertTrue(loads.isEmpty());
+        assertEquals(1, inserts.size());
+    }
+    
+    @Test
+    void testRejectedRowsReportTheirLine() {
+        connect(true, "mysql.import.local-infile", "true");
+        loadResponse = call -> new FakeDatabase.Update(rowsOf(call).size() - 1,
+            List.of("Data truncated for column 'age' at row 2"));
+        String input = """
+            username,email,age,city
+            ok_1,ok_1@example.com,30,Boston
+            "multi
+            line",multi@example.com,abc,Boston
+            short,short@example.com
+            ok_2,ok_2@example.com,31,Boston
+            """;
+        
+        ImportResult result = connector.importStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+            ImportOptions.forTable("users"));
+        
+        assertEquals(4, result.rowsRead());
+        assertEquals(2, result.rowsImported());
+        assertEquals(2, result.rowsSkipped());
+        assertEquals(List.of(
+            new RejectedRow(3, "Data truncated for column 'age' at row 2"),
+            new RejectedRow(5, "Expected 4 fields but found 2")), result.rejected());
+    }
+    
+    @Test
+    void testDuplicateKeyWarningsMappedToRows() {
+        connect(true, "mysql.import.local-infile", "true");
+        loadResponse = call -> new FakeDatabase.Update(rowsOf(call).size() - 3, List.of(
+            "Duplicate entry 'dup@example.com' for key 'users.email'",
+            "Duplicate entry 'dup@example.com' for key 'users.email'",
+            "Duplicate entry 'Boston-30' for key 'users.city_age'"));
+        String input = """
+            username,email,age,city
+            first,dup@example.com,30,Boston
+            other,other@example.com,30,Boston
+            second,dup@example.com,31,Boston
+            third,dup@example.com,32,Boston
+            """;
+        
+        ImportResult result = connector.importStream(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+            ImportOptions.forTable("users"));
+        
+        // The later rows with a key are the skipped ones; a composite key names no single field
+        assertEquals(List.of(
+            new RejectedRow(0, "Duplicate entry 'Boston-30' for key 'users.city_age'"),
+            new RejectedRow(4, "Duplicate entry 'dup@example.com' for key 'users.email'"),
+            new RejectedRow(5, "Duplicate entry 'dup@example.com' for key 'users.email'")), result.rejected());
+    }
+    
+    @Test
+    void testServerErrorFailsImport() {
+        connect(true, "mysql.import.local-infile", "true");
+        loadResponse = call -> new SQLException("Unknown column 'nickname' in 'field list'", "42S22", 1054);
+        
+        MySqlException e = assertThrows(MySqlException.class,
+            () -> connector.importStream(csv(100), ImportOptions.forTable("users").withChunkRows(10)));
+        assertInstanceOf(SQLException.class, e.getCause());
+        assertEquals(0, connector.getPoolStats().active());
+    }
+    
+    @Test
+    void testImportGzipFile() throws IOException {
+        connect(true, "mysql.import.local-infile", "true");
+        Path file = dir.resolve("users.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            csv(500).transferTo(out);
+        }
+        
+        ImportRequest request = ImportRequest.parse("--table=users", "--file=" + file, "--chunk-rows=200");
+        ImportResult result = connector.importFile(request.source(), request.options());
+        
+        assertEquals(500, result.rowsImported());
+        assertEquals(3, loads.size());
+    }
+    
+    @Test
+    void testReaderRoundTripsWriter() throws IOException {
+        SplittableRandom random = new SplittableRandom(11);
+        String alphabet = "ab,\"\t\n\r\\Né東";
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            List<String> row = new ArrayList<>();
+            for (int column = 0; column < 3; column++) {
+                int length = random.nextInt(-1, 8);
+                if (length < 0) {
+                    row.add(null);
+                    continue;
+                }
+                StringBuilder value = new StringBuilder();
+                for (int c = 0; c < length; c++) {
+                    value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                row.add(value.toString());
+            }
+            rows.add(row);
+        }
+        
+        for (ExportFormat format : ExportFormat.values()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DelimitedWriter writer = new DelimitedWriter(Channels.newChannel(bytes), format, 4096)) {
+                for (List<String> row : rows) {
+                    for (String value : row) {
+                        writer.field(value);
+                    }
+                    writer.endRow();
+                }
+            }
+            List<List<String>> read = new ArrayList<>();
+            try (DelimitedReader reader = new DelimitedReader(new StringReader(bytes.toString(StandardCharsets.UTF_8)), format)) {
+                for (List<String> row; (row = reader.next()) != null; ) {
+                    read.add(row);
+                }
+            }
+            assertEquals(rows, read, format.name());
+        }
+    }
+    
+    @Test
+    void testReaderHandlesCrlfAndUnterminatedQuotes() throws IOException {
+        DelimitedReader reader = new DelimitedReader(new StringReader("a,\"b\r\nc\"\r\n,\"\"\r\n"), ExportFormat.CSV);
+        assertEquals(List.of("a", "b\r\nc"), reader.next());
+        assertEquals(Arrays.asList(null, ""), reader.next());
+        assertEquals(3, reader.recordLine());
+        assertNull(reader.next());
+        
+        DelimitedReader broken = new DelimitedReader(new StringReader("a,\"never closed\n"), ExportFormat.CSV);
+        assertThrows(IOException.class, broken::next);
+    }
+    
+    @Test
+    void testInvalidOptionsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ImportOptions.forTable("users; DROP TABLE users"));
+        assertThrows(IllegalArgumentException.class, () -> ImportOptions.forTable("users").withColumns(List.of("username", "username")));
+        assertThrows(IllegalArgumentException.class, () -> ImportOptions.forTable("users").withColumns(List.of("-", "-")));
+        assertThrows(IllegalArgumentException.class, () -> ImportOptions.forTable("users").withHeader(false));
+        assertThrows(IllegalArgumentException.class, () -> ImportRequest.parse("--file=users.csv"));
+        assertThrows(IllegalArgumentException.class, () -> ImportRequest.parse("--table=users"));
+        assertThrows(IllegalArgumentException.class, () -> ImportRequest.parse("--table=users", "--file=users.csv", "--parallelism=0"));
+        
+        ImportRequest request = ImportRequest.parse("--table=users", "--file=users.tsv", "--columns=username, -, email", "--header=false");
+        assertEquals(ExportFormat.TSV, request.options().format());
+        assertEquals(List.of("username", "-", "email"), request.options().columns());
+    }
+}
\ No newline at end of file
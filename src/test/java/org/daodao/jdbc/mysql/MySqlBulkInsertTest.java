@@ -0,0 +1,143 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.model.BulkInsertResult;
+import org.daodao.jdbc.model.InsertOutcome;
+import org.daodao.jdbc.model.User;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for MySqlConnector.insertUsers bulk loading
+ *
+ * The FakeDatabase handler emulates the users table's unique username and
+ * email keys so the per-row INSERT IGNORE outcomes, chunking by row count
+ * and chunking by packet size can be checked without a MySQL server.
+ */
+class MySqlBulkInsertTest {
+    
+    private final Map<String, String> usersByName = new ConcurrentHashMap<>();
+    private final AtomicInteger insertStatements = new AtomicInteger();
+    private FakeDatabase database;
+    
+    @BeforeEach
+    void setUp() {
+        database = new FakeDatabase();
+        database.handler(this::handle);
+        usersByName.put("john_doe", "john.doe@example.com");
+    }
+    
+    private Object handle(FakeDatabase.Call call) {
+        String sql = call.sql();
+        List<Object> params = call.params();
+        if (sql.startsWith("SELECT @@max_allowed_packet")) {
+            return FakeDatabase.Rows.of(List.of("@@max_allowed_packet"), new Object[]{64L * 1024 * 1024});
+        }
+        if (sql.startsWith("SELECT username, email FROM users")) {
+            List<Object[]> rows = new ArrayList<>();
+            usersByName.forEach((username, email) -> {
+                if (params.contains(username) || params.contains(email)) {
+                    rows.add(new Object[]{username, email});
+                }
+            });
+            return new FakeDatabase.Rows(List.of("username", "email"), rows);
+        }
+        if (sql.startsWith("INSERT IGNORE INTO users")) {
+            insertStatements.incrementAndGet();
+            int inserted = 0;
+            for (int i = 0; i < params.size(); i += 4) {
+                String username = (String) params.get(i);
+                String email = (String) params.get(i + 1);
+                if (!usersByName.containsKey(username) && !usersByName.containsValue(email)) {
+                    usersByName.put(username, email);
+                    inserted++;
+                }
+            }
+            return inserted;
+        }
+        return 0;
+    }
+    
+    private MySqlConnector connector(String... overrides) {
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config(overrides), database.connectionFactory());
+        connector.connect();
+        return connector;
+    }
+    
+    private static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User("bulk_user_" + i, "bulk_user_" + i + "@example.com", 20 + i % 50, "Bulk City"));
+        }
+        return users;
+    }
+    
+    @Test
+    void testChunksByRowCount() {
+        MySqlConnector connector = connector("mysql.bulk.batch-rows", "1000");
+        try {
+            BulkInsertResult result = connector.insertUsers(users(2500));
+            assertEquals(3, result.chunks());
+            assertEquals(3, insertStatements.get());
+            assertEquals(2500, result.insertedCount());
+            assertEquals(2501, usersByName.size());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testChunksByPacketSize() {
+        MySqlConnector connector = connector("mysql.bulk.batch-rows", "1000", "mysql.bulk.max-packet-bytes", "8192");
+        try {
+            BulkInsertResult result = connector.insertUsers(users(500));
+            assertTrue(result.chunks() > 1);
+            assertEquals(500, result.insertedCount());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testDuplicateOutcomesReportedPerRow() {
+        MySqlConnector connector = connector();
+        try {
+            List<User> users = List.of(
+                new User("new_user_1", "new_user_1@example.com", 30, "Chicago"),
+                new User("john_doe", "someone.else@example.com", 30, "Chicago"),
+                new User("new_user_2", "JOHN.DOE@example.com", 30, "Chicago"),
+                new User("new_user_1", "again@example.com", 30, "Chicago"),
+                new User("new_user_3", "new_user_3@example.com", 30, "Chicago"));
+            
+            BulkInsertResult result = connector.insertUsers(users);
+            
+            assertEquals(List.of(InsertOutcome.INSERTED, InsertOutcome.DUPLICATE, InsertOutcome.DUPLICATE,
+                InsertOutcome.DUPLICATE, InsertOutcome.INSERTED), result.outcomes());
+            assertEquals(2, result.insertedCount());
+            assertEquals(3, result.duplicateCount());
+            assertEquals(1, insertStatements.get());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testEmptyCollection() {
+        MySqlConnector connector = connector();
+        try {
+            BulkInsertResult result = connector.insertUsers(List.of());
+            assertEquals(0, result.chunks());
+            assertTrue(result.outcomes().isEmpty());
+            assertEquals(0, insertStatements.get());
+        } finally {
+            connector.disconnect();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,249 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.config.MySqlConfig;
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.pool.ConnectionFactory;
+import org.daodao.jdbc.pool.ConnectionPool;
+import org.daodao.jdbc.pool.PoolStats;
+import org.daodao.jdbc.pool.PooledConnection;
+import org.junit.jupiter.api.*;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the built-in connection pool
+ *
+ * These tests run against the in-process FakeDatabase stand-in, so they
+ * do not need a MySQL server:
+ * - Pool sizing and connection reuse
+ * - Acquire timeout and waiter counting
+ * - Validation on borrow and max lifetime
+ * - Idle eviction back down to the minimum size
+ * - Returning a connection waits for a KILL QUERY in flight for it
+ * - MySqlConnector CRUD methods borrowing from the pool
+ */
+class MySqlConnectionPoolTest {
+    
+    private FakeDatabase database;
+    
+    @BeforeEach
+    void setUp() {
+        database = new FakeDatabase();
+    }
+    
+    static MySqlConfig config(String... overrides) {
+        Properties properties = new Properties();
+        properties.setProperty("mysql.host", "localhost");
+        properties.setProperty("mysql.port", "3306");
+        properties.setProperty("mysql.database", "testdb");
+        properties.setProperty("mysql.username", "root");
+        properties.setProperty("mysql.password", "secret");
+        for (int i = 0; i + 1 < overrides.length; i += 2) {
+            properties.setProperty(overrides[i], overrides[i + 1]);
+        }
+        return new MySqlConfig(properties);
+    }
+    
+    @Test
+    void testPoolConfigDefaults() {
+        MySqlConfig config = config();
+        assertEquals(2, config.getPoolMinSize());
+        assertEquals(10, config.getPoolMaxSize());
+        assertEquals(30_000, config.getPoolAcquireTimeoutMs());
+        assertTrue(config.isPoolValidateOnBorrow());
+    }
+    
+    @Test
+    void testInvalidPoolSizeRejected() {
+        assertThrows(RuntimeException.class, () -> config("mysql.pool.min-size", "5", "mysql.pool.max-size", "2"));
+    }
+    
+    @Test
+    void testStartFillsMinimumAndReusesConnections() {
+        try (ConnectionPool pool = new ConnectionPool(config("mysql.pool.min-size", "2"), database.connectionFactory())) {
+            pool.start();
+            assertEquals(2, database.connectionsOpened.get());
+            
+            for (int i = 0; i < 20; i++) {
+                try (PooledConnection conn = pool.acquire()) {
+                    assertNotNull(conn.getConnection());
+                }
+            }
+            
+            PoolStats stats = pool.getStats();
+            assertEquals(2, database.connectionsOpened.get());
+            assertEquals(20, stats.acquireCount());
+            assertEquals(0, stats.active());
+            assertEquals(2, stats.idle());
+        }
+    }
+    
+    @Test
+    void testAcquireTimesOutWhenExhausted() {
+        MySqlConfig config = config("mysql.pool.min-size", "0", "mysql.pool.max-size", "1", "mysql.pool.acquire-timeout-ms", "50");
+        try (ConnectionPool pool = new ConnectionPool(config, database.connectionFactory())) {
+            pool.start();
+            try (PooledConnection held = pool.acquire()) {
+                assertThrows(MySqlException.class, pool::acquire);
+                assertEquals(1, pool.getStats().acquireTimeouts());
+                assertEquals(1, pool.getStats().active());
+            }
+            assertEquals(1, pool.getStats().idle());
+        }
+    }
+    
+    @Test
+    void testWaiterIsHandedReleasedConnection() throws Exception {
+        MySqlConfig config = config("mysql.pool.min-size", "0", "mysql.pool.max-size", "1");
+        try (ConnectionPool pool = new ConnectionPool(config, database.connectionFactory())) {
+            pool.start();
+            PooledConnection held = pool.acquire();
+            CountDownLatch acquired = new CountDownLatch(1);
+            
+            Thread waiter = Thread.ofVirtual().start(() -> {
+                try (PooledConnection conn = pool.acquire()) {
+                    acquired.countDown();
+                }
+            });
+            
+            while (pool.getStats().waiters() == 0) {
+                Thread.sleep(1);
+            }
+            held.close();
+            
+            assertTrue(acquired.await(5, TimeUnit.SECONDS));
+            waiter.join();
+            assertEquals(1, database.connectionsOpened.get());
+        }
+    }
+    
+    @Test
+    void testInvalidConnectionReplacedOnBorrow() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(config("mysql.pool.min-size", "1"), database.connectionFactory())) {
+            pool.start();
+            // Let the idle connection age past the validation bypass window
+            Thread.sleep(600);
+            database.valid(false);
+            
+            try (PooledConnection conn = pool.acquire()) {
+                assertNotNull(conn);
+            }
+            
+            assertEquals(2, database.connectionsOpened.get());
+            assertEquals(1, database.connectionsClosed.get());
+        }
+    }
+    
+    @Test
+    void testExpiredConnectionRetiredOnReturn() throws Exception {
+        MySqlConfig config = config("mysql.pool.min-size", "0", "mysql.pool.max-lifetime-ms", "20");
+        try (ConnectionPool pool = new ConnectionPool(config, database.connectionFactory())) {
+            pool.start();
+            PooledConnection conn = pool.acquire();
+            Thread.sleep(30);
+            conn.close();
+            
+            assertEquals(0, pool.getStats().total());
+            assertEquals(1, database.connectionsClosed.get());
+        }
+    }
+    
+    @Test
+    void testIdleConnectionsEvictedDownToMinimum() throws Exception {
+        MySqlConfig config = config("mysql.pool.min-size", "1", "mysql.pool.idle-timeout-ms", "200",
+            "mysql.pool.housekeeping-interval-ms", "10");
+        try (ConnectionPool pool = new ConnectionPool(config, database.connectionFactory())) {
+            pool.start();
+            PooledConnection first = pool.acquire();
+            PooledConnection second = pool.acquire();
+            PooledConnection third = pool.acquire();
+            first.close();
+            second.close();
+            third.close();
+            assertEquals(3, pool.getStats().idle());
+            
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (pool.getStats().total() > 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, pool.getStats().total());
+        }
+    }
+    
+    @Test
+    void testReleaseWaitsForInFlightKill() throws Exception {
+        CountDownLatch killerRequested = new CountDownLatch(1);
+        CountDownLatch killerReleased = new CountDownLatch(1);
+        AtomicInteger opened = new AtomicInteger();
+        ConnectionFactory factory = () -> {
+            // The first connection is the pooled one, any later one is the killer
+            if (opened.getAndIncrement() > 0) {
+                killerRequested.countDown();
+                try {
+                    killerReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return database.connectionFactory().create();
+        };
+        MySqlConfig config = config("mysql.pool.min-size", "0", "mysql.pool.max-size", "1");
+        try (ConnectionPool pool = new ConnectionPool(config, factory)) {
+            pool.start();
+            CountDownLatch leased = new CountDownLatch(1);
+            CountDownLatch returned = new CountDownLatch(1);
+            Thread borrower = Thread.ofVirtual().start(() -> {
+                PooledConnection conn = pool.acquire();
+                leased.countDown();
+                try {
+                    killerRequested.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                conn.close();
+                returned.countDown();
+            });
+            leased.await();
+            Thread killer = Thread.ofVirtual().start(() -> pool.cancelStatements(borrower));
+            
+            assertFalse(returned.await(200, TimeUnit.MILLISECONDS), "The connection was returned while a kill was in flight");
+            killerReleased.countDown();
+            assertTrue(returned.await(5, TimeUnit.SECONDS));
+            killer.join();
+            borrower.join();
+            assertEquals(0, pool.getStats().active());
+        }
+    }
+    
+    @Test
+    void testConnectorCrudBorrowsFromPool() {
+        MySqlConnector connector = new MySqlConnector(config("mysql.pool.max-size", "3"), database.connectionFactory());
+        connector.connect();
+        try {
+            assertTrue(connector.insertUser("pool_user", "pool_user@example.com", 30, "Pool City"));
+            assertTrue(connector.updateUserEmail("pool_user", "pool_user2@example.com"));
+            assertTrue(connector.findUsersByCity("Pool City").isEmpty());
+            assertTrue(connector.deleteUser("pool_user"));
+            
+            PoolStats stats = connector.getPoolStats();
+            assertEquals(0, stats.active());
+            assertTrue(stats.total() <= 3);
+            assertTrue(stats.acquireCount() >= 4);
+        } finally {
+            connector.disconnect();
+        }
+        assertEquals(database.connectionsOpened.get(), database.connectionsClosed.get());
+    }
+    
+    @Test
+    void testConnectorRequiresConnect() {
+        MySqlConnector connector = new MySqlConnector(config(), database.connectionFactory());
+        assertThrows(MySqlException.class, () -> connector.insertUser("u", "u@example.com", 1, "c"));
+    }
+}
\ No newline at end of file
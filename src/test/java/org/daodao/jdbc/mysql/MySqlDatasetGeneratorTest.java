@@ -0,0 +1,188 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.dataset.DatasetGenerator;
+import org.daodao.jdbc.dataset.DatasetLoadResult;
+import org.daodao.jdbc.dataset.DatasetSpec;
+import org.daodao.jdbc.dataset.ZipfDistribution;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.model.Product;
+import org.daodao.jdbc.model.User;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the synthetic dataset generator
+ *
+ * - Rows depend only on seed and index
+ * - Zipf sampling matches its probabilities and skews cities and categories
+ * - Parallel loading inserts every generated row exactly once in multi-row chunks
+ * - A failed chunk stops the load with a MySqlException
+ * - Command line parsing and spec validation
+ */
+class MySqlDatasetGeneratorTest {
+    
+    private static DatasetSpec spec(long seed) {
+        return new DatasetSpec(10_000, 2_500, seed, "gen", 1.0, 1.0, 500, 4);
+    }
+    
+    @Test
+    void testRowsAreDeterministic() {
+        DatasetGenerator first = new DatasetGenerator(spec(7));
+        DatasetGenerator second = new DatasetGenerator(spec(7));
+        DatasetGenerator otherSeed = new DatasetGenerator(spec(8));
+        
+        assertEquals(first.users(0, 1_000), second.users(0, 1_000));
+        assertEquals(first.products(0, 1_000), second.products(0, 1_000));
+        assertEquals(first.users(400, 600), first.users(0, 1_000).subList(400, 600));
+        assertNotEquals(first.users(0, 1_000), otherSeed.users(0, 1_000));
+        
+        User user = first.user(123);
+        assertEquals("gen_123", user.username());
+        assertEquals("gen_123@example.com", user.email());
+        assertTrue(user.age() >= 18 && user.age() <= 90);
+        Product product = first.product(5);
+        assertTrue(product.price().signum() > 0);
+        assertEquals(2, product.price().scale());
+    }
+    
+    @Test
+    void testZipfMatchesProbabilities() {
+        ZipfDistribution zipf = new ZipfDistribution(30, 1.0);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] counts = new int[zipf.size()];
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            counts[zipf.sample(random)]++;
+        }
+        
+        for (int rank : new int[]{0, 1, 9, 29}) {
+            assertEquals(zipf.probability(rank), counts[rank] / (double) samples, 0.005, "rank " + rank);
+        }
+        assertEquals(10.0, zipf.probability(0) / zipf.probability(9), 1e-9);
+        
+        ZipfDistribution uniform = new ZipfDistribution(4, 0);
+        assertEquals(0.25, uniform.probability(3), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(0, 1.0));
+    }
+    
+    @Test
+    void testCitiesAreSkewed() {
+        Map<String, Long> byCity = new DatasetGenerator(spec(1)).users(0, 20_000).stream()
+            .collect(Collectors.groupingBy(User::city, Collectors.counting()));
+        
+        long newYork = byCity.get("New York");
+        long baltimore = byCity.getOrDefault("Baltimore", 0L);
+        assertTrue(newYork > 10 * baltimore, "New York " + newYork + " vs Baltimore " + baltimore);
+        
+        Map<String, Long> uniform = new DatasetGenerator(new DatasetSpec(0, 0, 1, "gen", 0, 0, 500, 1)).users(0, 20_000).stream()
+            .collect(Collectors.groupingBy(User::city, Collectors.counting()));
+        assertTrue(uniform.get("New York") < 2 * uniform.get("Baltimore"));
+    }
+    
+    @Test
+    void testParallelLoadInsertsEveryRowOnce() throws Exception {
+        Set<String> usernames = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicateUsernames = new AtomicInteger();
+        AtomicInteger productRows = new AtomicInteger();
+        AtomicInteger insertStatements = new AtomicInteger();
+        
+        FakeDatabase database = new FakeDatabase();
+        database.latencyMillis(1);
+        database.handler(call -> {
+            String sql = call.sql();
+            if (sql.startsWith("SELECT @@max_allowed_packet")) {
+                return FakeDatabase.Rows.of(List.of("@@max_allowed_packet"), new Object[]{64L * 1024 * 1024});
+            }
+            if (sql.startsWith("SELECT")) {
+                return FakeDatabase.Rows.empty();
+            }
+            if (sql.startsWith("INSERT IGNORE INTO users")) {
+                insertStatements.incrementAndGet();
+                for (int i = 0; i < call.params().size(); i += 4) {
+                    if (!usernames.add((String) call.params().get(i))) {
+                        duplicateUsernames.incrementAndGet();
+                    }
+                }
+                return call.params().size() / 4;
+            }
+            if (sql.startsWith("INSERT INTO products")) {
+                insertStatements.incrementAndGet();
+                productRows.addAndGet(call.params().size() / 4);
+                return call.params().size() / 4;
+            }
+            return 1;
+        });
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config("mysql.pool.max-size", "4"), database.connectionFactory());
+        connector.connect();
+        try {
+            DatasetLoadResult result = new DatasetGenerator(spec(3)).load(connector);
+            
+            assertEquals(10_000, result.usersInserted());
+            assertEquals(0, result.skippedUsers());
+            assertEquals(2_500, result.productsInserted());
+            assertEquals(10_000, usernames.size());
+            assertEquals(0, duplicateUsernames.get());
+            assertEquals(2_500, productRows.get());
+            // 20 user chunks and 5 product chunks of 500 rows
+            assertEquals(25, insertStatements.get());
+            assertTrue(result.rowsPerSecond() > 0);
+            assertEquals(0, connector.getPoolStats().active());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testLoadFailurePropagates() {
+        FakeDatabase database = new FakeDatabase();
+        database.handler(call -> {
+            if (call.sql().startsWith("SELECT @@max_allowed_packet")) {
+                return FakeDatabase.Rows.of(List.of("@@max_allowed_packet"), new Object[]{64L * 1024 * 1024});
+            }
+            if (call.sql().startsWith("INSERT INTO products")) {
+                return new SQLException("Table 'testdb.products' doesn't exist", "42S02", 1146);
+            }
+            return call.sql().startsWith("SELECT") ? FakeDatabase.Rows.empty() : call.params().size() / 4;
+        });
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config(), database.connectionFactory());
+        connector.connect();
+        try {
+            MySqlException e = assertThrows(MySqlException.class, () -> new DatasetGenerator(spec(3)).load(connector));
+            assertInstanceOf(MySqlException.class, e.getCause());
+            assertEquals(0, connector.getPoolStats().active());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testParseOptions() {
+        DatasetSpec parsed = DatasetSpec.parse("--users=10m", "--products=500k", "--seed=7", "--prefix=bench",
+            "--city-skew=1.2", "--category-skew=0", "--chunk-rows=2000", "--parallelism=8");
+        
+        assertEquals(10_000_000, parsed.users());
+        assertEquals(500_000, parsed.products());
+        assertEquals(7, parsed.seed());
+        assertEquals("bench", parsed.prefix());
+        assertEquals(1.2, parsed.citySkew());
+        assertEquals(0.0, parsed.categorySkew());
+        assertEquals(2_000, parsed.chunkRows());
+        assertEquals(8, parsed.parallelism());
+        assertEquals(DatasetSpec.DEFAULT, DatasetSpec.parse());
+        
+        for (String invalid : List.of("--users=-1", "--users=lots", "--prefix=bad_prefix", "--parallelism=0", "--rows=5", "users=5")) {
+            assertThrows(IllegalArgumentException.class, () -> DatasetSpec.parse(invalid), invalid);
+        }
+    }
+}
\ No newline at end of file
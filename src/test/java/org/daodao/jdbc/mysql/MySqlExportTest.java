@@ -0,0 +1,180 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.export.ExportFormat;
+import org.daodao.jdbc.export.ExportOptions;
+import org.daodao.jdbc.export.ExportRequest;
+import org.daodao.jdbc.export.ExportResult;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for streaming query export
+ *
+ * - CSV quoting and TSV escaping, including NULL, empty strings and non-ASCII text
+ * - Gzip output decompresses to the plain export
+ * - Exports larger than the write buffer, fetch size and connection release
+ * - Failed exports leave no partial file behind
+ * - Command line parsing of the export subcommand
+ */
+class MySqlExportTest {
+    
+    @TempDir
+    Path dir;
+    
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    private volatile Object result = FakeDatabase.Rows.empty();
+    
+    @BeforeEach
+    void setUp() {
+        database = new FakeDatabase();
+        database.handler(call -> result);
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config(), database.connectionFactory());
+        connector.connect();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    private static FakeDatabase.Rows awkwardRows() {
+        return FakeDatabase.Rows.of(List.of("username", "note", "city"),
+            new Object[]{"alice", "plain", "New York"},
+            new Object[]{"bob", "has, comma", null},
+            new Object[]{"carol", "say \"hi\"", ""},
+            new Object[]{"dave", "two\nlines\tand\\slash", "Zürich"},
+            new Object[]{"émile", "emoji 😀", "東京"});
+    }
+    
+    @Test
+    void testCsvQuoting() throws IOException {
+        result = awkwardRows();
+        Path target = dir.resolve("users.csv");
+        
+        ExportResult export = connector.exportQuery("SELECT username, note, city FROM users", target, ExportOptions.DEFAULT);
+        
+        String expected = """
+            username,note,city
+            alice,plain,New York
+            bob,"has, comma",
+            carol,"say ""hi""\",""
+            dave,"two
+            lines	and\\slash",Zürich
+            émile,emoji 😀,東京
+            """;
+        assertEquals(expected, Files.readString(target));
+        assertEquals(5, export.rows());
+        assertEquals(Files.size(target), export.bytes());
+        assertEquals(export.bytes(), export.fileBytes());
+    }
+    
+    @Test
+    void testTsvEscaping() throws IOException {
+        result = awkwardRows();
+        Path target = dir.resolve("users.tsv");
+        
+        connector.exportQuery("SELECT username, note, city FROM users", target,
+            ExportOptions.DEFAULT.withFormat(ExportFormat.TSV).withHeader(false));
+        
+        List<String> lines = Files.readAllLines(target);
+        assertEquals(5, lines.size());
+        assertEquals("bob\thas, comma\t\\N", lines.get(1));
+        assertEquals("carol\tsay \"hi\"\t", lines.get(2));
+        assertEquals("dave\ttwo\\nlines\\tand\\\\slash\tZürich", lines.get(3));
+    }
+    
+    @Test
+    void testGzipMatchesPlainExport() throws IOException {
+        result = awkwardRows();
+        Path plain = dir.resolve("users.csv");
+        Path gzipped = dir.resolve("users.csv.gz");
+        
+        connector.exportQuery("SELECT * FROM users", plain, ExportOptions.DEFAULT);
+        ExportResult export = connector.exportQuery("SELECT * FROM users", gzipped, ExportOptions.DEFAULT.withGzip(true));
+        
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzipped))) {
+            assertArrayEquals(Files.readAllBytes(plain), in.readAllBytes());
+        }
+        assertEquals(Files.size(plain), export.bytes());
+        assertEquals(Files.size(gzipped), export.fileBytes());
+    }
+    
+    @Test
+    void testExportLargerThanBuffer() throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            rows.add(new Object[]{i, "user_" + i, "user_" + i + "@example.com", 20 + i % 50});
+        }
+        result = new FakeDatabase.Rows(List.of("id", "username", "email", "age"), rows);
+        Path target = dir.resolve("big.csv");
+        
+        ExportResult export = connector.exportQuery("SELECT id, username, email, age FROM users", target,
+            ExportOptions.DEFAULT.withBufferBytes(4096));
+        
+        assertEquals(20_000, export.rows());
+        assertEquals(Files.size(target), export.bytes());
+        List<String> lines = Files.readAllLines(target);
+        assertEquals(20_001, lines.size());
+        assertEquals("19999,user_19999,user_19999@example.com,69", lines.get(20_000));
+        assertTrue(export.rowsPerSecond() > 0 && export.megabytesPerSecond() > 0);
+        // Row-by-row streaming, and the connection and result set are released
+        assertEquals(Integer.MIN_VALUE, database.lastFetchSize);
+        assertEquals(0, connector.getPoolStats().active());
+        assertEquals(0, database.openResultSets.get());
+    }
+    
+    @Test
+    void testFailedExportLeavesNoPartialFile() throws IOException {
+        Path target = dir.resolve("users.csv");
+        Files.writeString(target, "previous export\n");
+        result = new SQLException("Table 'testdb.nope' doesn't exist", "42S02", 1146);
+        
+        assertThrows(MySqlException.class, () -> connector.exportQuery("SELECT * FROM nope", target, ExportOptions.DEFAULT));
+        
+        assertEquals("previous export\n", Files.readString(target));
+        assertFalse(Files.exists(dir.resolve("users.csv.part")));
+        assertEquals(0, connector.getPoolStats().active());
+    }
+    
+    @Test
+    void testParseRequest() {
+        ExportRequest byTable = ExportRequest.parse("--table=users", "--out=/tmp/users.tsv.gz");
+        assertEquals("SELECT * FROM users", byTable.sql());
+        assertEquals(ExportFormat.TSV, byTable.options().format());
+        assertTrue(byTable.options().gzip());
+        
+        ExportRequest byQuery = ExportRequest.parse("--query=SELECT city, COUNT(*) FROM users GROUP BY city",
+            "--out=cities.txt", "--format=csv", "--header=false", "--fetch-size=500", "--buffer-kb=64");
+        assertEquals("SELECT city, COUNT(*) FROM users GROUP BY city", byQuery.sql());
+        assertEquals(ExportFormat.CSV, byQuery.options().format());
+        assertFalse(byQuery.options().gzip());
+        assertFalse(byQuery.options().header());
+        assertEquals(500, byQuery.options().fetchSize());
+        assertEquals(64 * 1024, byQuery.options().bufferBytes());
+        
+        for (String[] invalid : List.of(
+                new String[]{"--table=users"},
+                new String[]{"--out=x.csv"},
+                new String[]{"--table=users; DROP TABLE users", "--out=x.csv"},
+                new String[]{"--table=users", "--query=SELECT 1", "--out=x.csv"},
+                new String[]{"--table=users", "--out=x.csv", "--format=xml"},
+                new String[]{"--table=users", "--out=x.csv", "--gzip=yes"},
+                new String[]{"--table=users", "--out=x.csv", "--buffer-kb=1"})) {
+            assertThrows(IllegalArgumentException.class, () -> ExportRequest.parse(invalid), String.join(" ", invalid));
+        }
+    }
+}
\ No newline at end of file
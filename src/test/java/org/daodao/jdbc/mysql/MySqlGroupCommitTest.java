@@ -0,0 +1,279 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.write.GroupCommitStats;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for group commit of concurrent insertUser and updateUserEmail calls
+ *
+ * The FakeDatabase handler emulates the users table's case-insensitive unique
+ * username and email keys, so every caller's own result can be checked:
+ * - Concurrent inserts share multi-row statements, duplicates report false
+ * - Inserts and email updates mix in one group
+ * - A failing group is retried write by write, failing only the bad write
+ * - A full group is written without waiting, a lone write uses the plain statement
+ * - The leader's deadline does not cut short the writes of callers without one
+ */
+class MySqlGroupCommitTest {
+    
+    private final Map<String, String> emailsByUsername = new ConcurrentHashMap<>();
+    private final List<FakeDatabase.Call> writes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger rejectedUpdates = new AtomicInteger();
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    
+    @BeforeEach
+    void setUp() {
+        emailsByUsername.put("john_doe", "john.doe@example.com");
+        emailsByUsername.put("jane_roe", "jane.roe@example.com");
+        database = new FakeDatabase();
+        database.handler(this::handle);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    private Object handle(FakeDatabase.Call call) {
+        String sql = call.sql();
+        List<Object> params = call.params();
+        if (sql.startsWith("SELECT username, email FROM users")) {
+            List<Object[]> rows = new ArrayList<>();
+            emailsByUsername.forEach((username, email) -> {
+                if (containsIgnoreCase(params, username) || containsIgnoreCase(params, email)) {
+                    rows.add(new Object[]{username, email});
+                }
+            });
+            return new FakeDatabase.Rows(List.of("username", "email"), rows);
+        }
+        if (sql.startsWith("SELECT username FROM users") && sql.endsWith("FOR UPDATE")) {
+            List<Object[]> rows = new ArrayList<>();
+            emailsByUsername.keySet().stream().filter(username -> containsIgnoreCase(params, username))
+                .forEach(username -> rows.add(new Object[]{username}));
+            return new FakeDatabase.Rows(List.of("username"), rows);
+        }
+        if (sql.startsWith("INSERT IGNORE INTO users")) {
+            writes.add(call);
+            int inserted = 0;
+            for (int i = 0; i < params.size(); i += 4) {
+                String username = ((String) params.get(i)).toLowerCase(Locale.ROOT);
+                String email = (String) params.get(i + 1);
+                if (!emailsByUsername.containsKey(username) && !emailInUse(email, null)) {
+                    emailsByUsername.put(username, email);
+                    inserted++;
+                }
+            }
+            return inserted;
+        }
+        if (sql.startsWith("UPDATE users SET email = CASE username")) {
+            writes.add(call);
+            int pairs = params.size() / 3;
+            for (int i = 0; i < pairs * 2; i += 2) {
+                if (emailInUse((String) params.get(i + 1), (String) params.get(i))) {
+                    rejectedUpdates.incrementAndGet();
+                    return new SQLException("Duplicate entry for key 'users.email'", "23000", 1062);
+                }
+            }
+            for (int i = 0; i < pairs * 2; i += 2) {
+                emailsByUsername.put(((String) params.get(i)).toLowerCase(Locale.ROOT), (String) params.get(i + 1));
+            }
+            return pairs;
+        }
+        if (sql.startsWith("UPDATE users SET email = ?")) {
+            writes.add(call);
+            String username = ((String) params.get(1)).toLowerCase(Locale.ROOT);
+            if (emailInUse((String) params.get(0), username)) {
+                return new SQLException("Duplicate entry for key 'users.email'", "23000", 1062);
+            }
+            return emailsByUsername.computeIfPresent(username, (key, email) -> (String) params.get(0)) != null ? 1 : 0;
+        }
+        return sql.startsWith("SELECT") ? FakeDatabase.Rows.empty() : 0;
+    }
+    
+    private static boolean containsIgnoreCase(List<Object> params, String value) {
+        return params.stream().anyMatch(param -> param instanceof String s && s.equalsIgnoreCase(value));
+    }
+    
+    private boolean emailInUse(String email, String exceptUsername) {
+        return emailsByUsername.entrySet().stream()
+            .anyMatch(entry -> entry.getValue().equalsIgnoreCase(email) && !entry.getKey().equalsIgnoreCase(exceptUsername));
+    }
+    
+    private void connect(String maxWaitMicros, String maxRows) {
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config("mysql.group-commit.enabled", "true",
+            "mysql.group-commit.max-wait-micros", maxWaitMicros, "mysql.group-commit.max-rows", maxRows), database.connectionFactory());
+        connector.connect();
+    }
+    
+    // Starts all callers at once; each result is the call's return value or its exception
+    private static List<Object> concurrently(List<Callable<Boolean>> calls) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Callable<Boolean> call : calls) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+        }
+        List<Object> results = new ArrayList<>();
+        for (Future<Boolean> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                results.add(e.getCause());
+            }
+        }
+        return results;
+    }
+    
+    @Test
+    void testConcurrentInsertsShareStatements() throws Exception {
+        connect("50000", "100");
+        List<Callable<Boolean>> calls = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String username = "group_user_" + i;
+            calls.add(() -> connector.insertUser(username, username + "@example.com", 30, "Boston"));
+        }
+        // Existing username, existing email in another case, and two callers racing for one new username
+        calls.add(() -> connector.insertUser("John_Doe", "someone@example.com", 30, "Boston"));
+        calls.add(() -> connector.insertUser("new_user", "JANE.ROE@example.com", 30, "Boston"));
+        calls.add(() -> connector.insertUser("twin", "twin.a@example.com", 30, "Boston"));
+        calls.add(() -> connector.insertUser("TWIN", "twin.b@example.com", 30, "Boston"));
+        
+        List<Object> results = concurrently(calls);
+        
+        assertTrue(results.subList(0, 40).stream().allMatch(Boolean.TRUE::equals));
+        assertEquals(false, results.get(40));
+        assertEquals(false, results.get(41));
+        assertEquals(1, results.subList(42, 44).stream().filter(Boolean.TRUE::equals).count());
+        assertEquals(43, emailsByUsername.size());
+        GroupCommitStats stats = connector.getGroupCommitStats();
+        assertEquals(44, stats.requests());
+        assertEquals(0, stats.fallbacks());
+        assertTrue(writes.size() <= 3, "Ran " + writes.size() + " insert statements");
+        assertEquals(0, connector.getPoolStats().active());
+    }
+    
+    @Test
+    void testInsertsAndUpdatesInOneGroup() throws Exception {
+        connect("50000", "100");
+        List<Callable<Boolean>> calls = List.of(
+            () -> connector.insertUser("alice", "alice@example.com", 25, "Denver"),
+            () -> connector.updateUserEmail("john_doe", "john@example.org"),
+            () -> connector.updateUserEmail("JANE_ROE", "jane@example.org"),
+            () -> connector.updateUserEmail("nobody", "nobody@example.org"),
+            // Updates a user inserted by the same group
+            () -> connector.updateUserEmail("alice", "alice@example.org"));
+        
+        List<Object> results = concurrently(calls);
+        
+        assertEquals(List.of(true, true, true, false, true), results);
+        assertEquals("john@example.org", emailsByUsername.get("john_doe"));
+        assertEquals("jane@example.org", emailsByUsername.get("jane_roe"));
+        assertEquals("alice@example.org", emailsByUsername.get("alice"));
+        assertEquals(new GroupCommitStats(1, 5, 5, 0), connector.getGroupCommitStats());
+    }
+    
+    @Test
+    void testFailedGroupRetriedWriteByWrite() throws Exception {
+        connect("50000", "100");
+        emailsByUsername.put("sam", "sam@example.com");
+        List<Callable<Boolean>> calls = List.of(
+            () -> connector.updateUserEmail("john_doe", "john@example.org"),
+            // Taken by sam: fails the group statement, then only this call
+            () -> connector.updateUserEmail("jane_roe", "SAM@example.com"),
+            () -> connector.updateUserEmail("nobody", "nobody@example.org"));
+        
+        List<Object> results = concurrently(calls);
+        
+        assertEquals(1, rejectedUpdates.get());
+        assertEquals(1, connector.getGroupCommitStats().fallbacks());
+        assertEquals(true, results.get(0));
+        assertInstanceOf(MySqlException.class, results.get(1));
+        assertEquals(false, results.get(2));
+        assertEquals("john@example.org", emailsByUsername.get("john_doe"));
+        assertEquals("jane.roe@example.com", emailsByUsername.get("jane_roe"));
+        assertEquals(0, connector.getPoolStats().active());
+    }
+    
+    @Test
+    void testFullGroupWrittenWithoutWaiting() throws Exception {
+        connect("10000000", "5");
+        List<Callable<Boolean>> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String username = "full_user_" + i;
+            calls.add(() -> connector.insertUser(username, username + "@example.com", 30, "Boston"));
+        }
+        
+        long start = System.nanoTime();
+        List<Object> results = concurrently(calls);
+        
+        assertTrue(System.nanoTime() - start < 5_000_000_000L, "Waited for the full 10 s window");
+        assertTrue(results.stream().allMatch(Boolean.TRUE::equals));
+        assertEquals(new GroupCommitStats(1, 5, 5, 0), connector.getGroupCommitStats());
+        assertEquals(20, writes.get(0).params().size());
+    }
+    
+    @Test
+    void testLeaderDeadlineSparesFollowers() throws Exception {
+        connect("200000", "100");
+        database.latencyMillis(150);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        List<Callable<Boolean>> calls = List.of(
+            () -> connector.withTimeout(Duration.ofMillis(100), c -> {
+                leaderStarted.countDown();
+                return c.insertUser("leader", "leader@example.com", 30, "Boston");
+            }),
+            () -> {
+                leaderStarted.await();
+                Thread.sleep(20);
+                return connector.insertUser("follower", "follower@example.com", 30, "Boston");
+            });
+        
+        List<Object> results = concurrently(calls);
+        
+        assertEquals(List.of(true, true), results);
+        assertEquals(0, database.queriesKilled.get());
+        assertEquals(new GroupCommitStats(1, 2, 2, 0), connector.getGroupCommitStats());
+        assertTrue(emailsByUsername.containsKey("follower"));
+    }
+    
+    @Test
+    void testLoneWriteUsesPlainStatement() {
+        connect("1000", "100");
+        
+        assertTrue(connector.insertUser("solo", "solo@example.com", 30, "Boston"));
+        assertFalse(connector.updateUserEmail("nobody", "nobody@example.org"));
+        
+        assertEquals(2, writes.size());
+        assertEquals("INSERT IGNORE INTO users (username, email, age, city) VALUES (?, ?, ?, ?)", writes.get(0).sql());
+        assertTrue(writes.get(1).sql().startsWith("UPDATE users SET email = ?"));
+        assertEquals(new GroupCommitStats(2, 2, 1, 0), connector.getGroupCommitStats());
+        assertEquals(2, connector.getMetricsSnapshot().operation("insertUser").count()
+            + connector.getMetricsSnapshot().operation("updateUserEmail").count());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,147 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.load.LoadGenerator;
+import org.daodao.jdbc.load.LoadProfile;
+import org.daodao.jdbc.load.LoadReport;
+import org.daodao.jdbc.load.OperationResult;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the load generator
+ *
+ * These tests run against the in-process FakeDatabase stand-in:
+ * - Command line parsing and profile validation
+ * - Closed loop runs follow the configured operation mix
+ * - Open loop runs issue calls at the target rate
+ * - Open loop latency includes queueing delay when the server falls behind
+ * - Cache hits and collapsed reads of the measured window are reported, and only with --cache=true
+ */
+class MySqlLoadGeneratorTest {
+    
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    
+    @BeforeEach
+    void setUp() {
+        database = new FakeDatabase();
+        connector = new MySqlConnector(
+            MySqlConnectionPoolTest.config("mysql.pool.max-size", "8", "mysql.query-cache.enabled", "false"),
+            database.connectionFactory());
+        connector.connect();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    @Test
+    void testParseOptions() {
+        LoadProfile profile = LoadProfile.parse("--mix=50,20,20,10", "--concurrency=32", "--rate=500",
+            "--duration=2m", "--warmup=500ms", "--cleanup=false", "--cache=true");
+        
+        assertEquals(50, profile.readWeight());
+        assertEquals(10, profile.deleteWeight());
+        assertEquals(32, profile.concurrency());
+        assertEquals(500.0, profile.targetRate());
+        assertEquals(Duration.ofMinutes(2), profile.duration());
+        assertEquals(Duration.ofMillis(500), profile.warmup());
+        assertFalse(profile.cleanup());
+        assertTrue(profile.cache());
+        assertTrue(profile.isOpenLoop());
+        
+        assertEquals(LoadProfile.DEFAULT, LoadProfile.parse());
+        assertFalse(LoadProfile.DEFAULT.isOpenLoop());
+        assertFalse(LoadProfile.DEFAULT.cache());
+    }
+    
+    @Test
+    void testInvalidOptionsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("--mix=1,2,3"));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("--mix=0,0,0,0"));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("--concurrency=0"));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("--rate=-1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("--duration=abc"));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("--threads=4"));
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("concurrency=4"));
+    }
+    
+    @Test
+    void testClosedLoopFollowsMix() throws Exception {
+        LoadProfile profile = new LoadProfile(70, 10, 15, 5, 4, 0, Duration.ofMillis(500), Duration.ZERO, true, false);
+        
+        LoadReport report = new LoadGenerator(connector, profile).run();
+        
+        long total = report.total().count();
+        assertTrue(total > 1_000, "Expected a busy closed loop but got " + total + " calls");
+        assertEquals(0, report.total().errors());
+        assertEquals(0.70, share(report, "read"), 0.05);
+        assertEquals(0.10, share(report, "insert"), 0.05);
+        assertEquals(0.15, share(report, "update"), 0.05);
+        assertEquals(0.05, share(report, "delete"), 0.05);
+        assertEquals(0, report.poolStats().active());
+        assertTrue(report.toString().contains("Read caching: off"), report.toString());
+        
+        // Cleanup removes the rows this run inserted
+        assertTrue(database.executions.get() > total);
+    }
+    
+    @Test
+    void testOpenLoopHoldsTargetRate() throws Exception {
+        LoadProfile profile = new LoadProfile(100, 0, 0, 0, 4, 400, Duration.ofSeconds(1), Duration.ofMillis(100), false, false);
+        
+        LoadReport report = new LoadGenerator(connector, profile).run();
+        
+        assertEquals(400, report.total().count(), 20);
+        assertEquals(400, report.throughputPerSecond(), 40);
+    }
+    
+    @Test
+    void testOpenLoopCountsQueueingDelay() throws Exception {
+        // Two workers at 20 ms per call can serve 100 ops/s, so a 200 ops/s schedule falls further behind every call
+        database.latencyMillis(20);
+        LoadProfile profile = new LoadProfile(100, 0, 0, 0, 2, 200, Duration.ofSeconds(1), Duration.ZERO, false, false);
+        
+        LoadReport report = new LoadGenerator(connector, profile).run();
+        
+        OperationResult total = report.total();
+        assertTrue(total.serviceTime().p99Nanos() < 100_000_000L,
+            "Service time should stay near the 20 ms server latency but was " + total.serviceTime());
+        assertTrue(total.responseTime().p99Nanos() > 500_000_000L,
+            "Response time should include the growing backlog but was " + total.responseTime());
+        assertTrue(total.responseTime().meanNanos() > 5 * total.serviceTime().meanNanos());
+    }
+    
+    @Test
+    void testCacheCountsReported() throws Exception {
+        MySqlConnector cached = new MySqlConnector(MySqlConnectionPoolTest.config("mysql.pool.max-size", "8",
+            "mysql.query-cache.enabled", "true", "mysql.single-flight.enabled", "true"), database.connectionFactory());
+        cached.connect();
+        try {
+            LoadProfile profile = new LoadProfile(100, 0, 0, 0, 4, 0, Duration.ofMillis(300), Duration.ofMillis(100), false, true);
+            
+            LoadReport report = new LoadGenerator(cached, profile).run();
+            
+            // Five cities are loaded once, during the warmup, and every measured read is a hit; reads in flight at
+            // either end of the window may fall on the other side of the counter snapshots
+            assertEquals(report.total().count(), report.queryCache().hits(), 2 * profile.concurrency());
+            assertEquals(0, report.queryCache().misses());
+            assertEquals(0, report.singleFlight().leaders());
+            assertTrue(report.toString().contains("Read caching: " + report.queryCache().hits() + " cache hits"), report.toString());
+        } finally {
+            cached.disconnect();
+        }
+    }
+    
+    private static double share(LoadReport report, String operation) {
+        return report.operations().stream()
+            .filter(result -> result.name().equals(operation))
+            .mapToLong(OperationResult::count)
+            .sum() / (double) report.total().count();
+    }
+}
\ No newline at end of file
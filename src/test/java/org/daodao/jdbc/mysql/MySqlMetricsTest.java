@@ -0,0 +1,138 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.metrics.LatencyHistogram;
+import org.daodao.jdbc.metrics.LatencySnapshot;
+import org.daodao.jdbc.metrics.MetricsRegistry;
+import org.daodao.jdbc.metrics.MetricsSnapshot;
+import org.daodao.jdbc.metrics.OperationStats;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for latency histograms and the metrics registry
+ *
+ * - Histogram percentiles stay within the 1/128 bucket precision
+ * - Concurrent recording loses no samples
+ * - MySqlConnector records count, rows and errors per operation
+ * - Statements differing only in literals share one SQL digest
+ */
+class MySqlMetricsTest {
+    
+    @Test
+    void testHistogramPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+        
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.count());
+        assertEquals(50_000_000, snapshot.p50Nanos(), 50_000_000 / 128.0);
+        assertEquals(99_000_000, snapshot.p99Nanos(), 99_000_000 / 128.0);
+        assertEquals(99_900_000, snapshot.p999Nanos(), 99_900_000 / 128.0);
+        assertEquals(100_000_000, snapshot.maxNanos());
+        assertEquals(50_000_500, snapshot.meanNanos(), 1.0);
+    }
+    
+    @Test
+    void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(7);
+        histogram.record(7);
+        histogram.record(200);
+        
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(7, snapshot.p50Nanos());
+        assertEquals(200, snapshot.p99Nanos());
+    }
+    
+    @Test
+    void testConcurrentRecordingLosesNothing() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(true);
+        int threads = 8;
+        int perThread = 50_000;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        registry.record("op", "SELECT * FROM users WHERE id = " + (i % 10), i, 1, i % 100 == 0);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        
+        MetricsSnapshot snapshot = registry.snapshot();
+        OperationStats op = snapshot.operation("op");
+        assertEquals((long) threads * perThread, op.count());
+        assertEquals((long) threads * perThread / 100, op.errors());
+        assertEquals(1, snapshot.statements().size());
+        assertTrue(snapshot.statements().containsKey("SELECT * FROM users WHERE id = ?"));
+    }
+    
+    @Test
+    void testConnectorRecordsOperations() {
+        FakeDatabase database = new FakeDatabase();
+        database.handler(call -> {
+            if (call.sql().startsWith("DELETE")) {
+                return new SQLException("Lock wait timeout exceeded");
+            }
+            if (call.sql().startsWith("SELECT")) {
+                return FakeDatabase.Rows.of(List.of("username", "email", "age", "city"),
+                    new Object[]{"alice", "alice@example.com", 28, "Beijing"},
+                    new Object[]{"bob", "bob@example.com", 35, "Beijing"});
+            }
+            return 1;
+        });
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config(), database.connectionFactory());
+        connector.connect();
+        try {
+            connector.insertUser("carol", "carol@example.com", 40, "Beijing");
+            connector.insertUser("dave", "dave@example.com", 41, "Beijing");
+            connector.findUsersByCity("Beijing");
+            assertThrows(MySqlException.class, () -> connector.deleteUser("carol"));
+            connector.execute("UPDATE users SET age = 30 WHERE username = 'alice'");
+            connector.execute("UPDATE users SET age = 31 WHERE username = 'bob'");
+            
+            MetricsSnapshot snapshot = connector.getMetricsSnapshot();
+            assertEquals(2, snapshot.operation("insertUser").count());
+            assertEquals(2, snapshot.operation("insertUser").rows());
+            assertEquals(2, snapshot.operation("findUserRecordsByCity").rows());
+            assertEquals(1, snapshot.operation("deleteUser").errors());
+            assertEquals(2, snapshot.operation("execute").count());
+            
+            OperationStats update = snapshot.statements().get("UPDATE users SET age = ? WHERE username = ?");
+            assertNotNull(update, snapshot.statements().keySet().toString());
+            assertEquals(2, update.count());
+            assertNotNull(snapshot.statements().get("SELECT username, email, age, city FROM users WHERE city = ? ORDER BY username"));
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testDisabledRegistryRecordsNothing() {
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config("mysql.metrics.enabled", "false"),
+            new FakeDatabase().connectionFactory());
+        connector.connect();
+        try {
+            connector.insertUser("erin", "erin@example.com", 22, "Beijing");
+            assertTrue(connector.getMetricsSnapshot().operations().isEmpty());
+        } finally {
+            connector.disconnect();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,276 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.model.User;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for MySqlConnector.findUsersByUsernames multi-key lookups
+ *
+ * The FakeDatabase handler answers IN-list lookups and emulates the session
+ * temporary table per worker thread, so strategy selection, chunking by key
+ * count and packet size, deduplication and matching under the key column's
+ * collation, parallelism, the temporary table's key collation and failures
+ * of worker threads can be checked without a MySQL server.
+ */
+class MySqlMultiKeyLookupTest {
+    
+    private static final int STORED_USERS = 5_000;
+    
+    private final Map<String, User> stored = new ConcurrentHashMap<>();
+    private final List<FakeDatabase.Call> lookups = new CopyOnWriteArrayList<>();
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private final Map<Thread, List<String>> keyTables = new ConcurrentHashMap<>();
+    private final Set<Thread> lookupThreads = ConcurrentHashMap.newKeySet();
+    private volatile boolean failing;
+    private volatile boolean crashing;
+    private volatile String collation = "utf8mb4_0900_ai_ci";
+    private FakeDatabase database;
+    
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < STORED_USERS; i++) {
+            User user = new User("user_" + i, "user_" + i + "@example.com", 20 + i % 50, "Boston");
+            stored.put(user.username(), user);
+        }
+        database = new FakeDatabase();
+        database.handler(this::handle);
+    }
+    
+    private Object handle(FakeDatabase.Call call) {
+        String sql = call.sql();
+        statements.add(sql);
+        if (sql.contains("WHERE username IN")) {
+            lookups.add(call);
+            lookupThreads.add(Thread.currentThread());
+            if (failing) {
+                return new SQLException("Lock wait timeout exceeded", "HY000", 1205);
+            }
+            if (crashing) {
+                throw new StackOverflowError("Mapper recursion");
+            }
+            return rowsFor(call.params());
+        }
+        if (sql.contains("FROM information_schema.COLUMNS")) {
+            return List.of("users", "username").equals(call.params())
+                ? FakeDatabase.Rows.of(List.of("CHARACTER_SET_NAME", "COLLATION_NAME"), new Object[]{"utf8mb4", collation})
+                : FakeDatabase.Rows.empty();
+        }
+        if (sql.startsWith("CREATE TEMPORARY TABLE")) {
+            keyTables.put(Thread.currentThread(), new CopyOnWriteArrayList<>());
+        } else if (sql.startsWith("INSERT IGNORE INTO lookup_keys")) {
+            keyTables.get(Thread.currentThread()).addAll(call.params().stream().map(String.class::cast).toList());
+            return call.params().size();
+        } else if (sql.contains("JOIN lookup_keys")) {
+            lookupThreads.add(Thread.currentThread());
+            return rowsFor(new ArrayList<>(keyTables.get(Thread.currentThread())));
+        }
+        return sql.startsWith("SELECT") ? FakeDatabase.Rows.empty() : 0;
+    }
+    
+    // Matches as the users table's collation does: exactly under utf8mb4_bin, ignoring case and accents otherwise
+    private FakeDatabase.Rows rowsFor(List<?> keys) {
+        Map<String, User> index = new HashMap<>();
+        stored.values().forEach(user -> index.put(fold(user.username()), user));
+        List<Object[]> rows = new ArrayList<>();
+        keys.stream().map(key -> fold((String) key)).distinct().forEach(key -> {
+            User user = index.get(key);
+            if (user != null) {
+                rows.add(new Object[]{user.username(), user.email(), user.age(), user.city()});
+            }
+        });
+        return new FakeDatabase.Rows(List.of("username", "email", "age", "city"), rows);
+    }
+    
+    private String fold(String key) {
+        return collation.endsWith("_bin") ? key
+            : Normalizer.normalize(key, Normalizer.Form.NFD).replaceAll("\\p{M}+", "").toLowerCase(Locale.ROOT);
+    }
+    
+    private MySqlConnector connector(String... overrides) {
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config(overrides), database.connectionFactory());
+        connector.connect();
+        return connector;
+    }
+    
+    private static List<String> usernames(int from, int to) {
+        List<String> usernames = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            usernames.add("user_" + i);
+        }
+        return usernames;
+    }
+    
+    @Test
+    void testInListLookupChunksAndPads() {
+        MySqlConnector connector = connector("mysql.lookup.in-list-keys", "1000");
+        try {
+            // 2,400 stored users and 100 unknown ones
+            Map<String, User> users = connector.findUsersByUsernames(usernames(2_600, 5_100));
+            
+            assertEquals(2_400, users.size());
+            assertEquals("user_2600@example.com", users.get("user_2600").email());
+            assertFalse(users.containsKey("user_5000"));
+            assertEquals(3, lookups.size());
+            List<Integer> sizes = lookups.stream().map(call -> call.params().size()).sorted().toList();
+            assertEquals(List.of(512, 1000, 1000), sizes);
+            assertTrue(statements.stream().noneMatch(sql -> sql.contains("lookup_keys")));
+            assertEquals(0, connector.getPoolStats().active());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testDuplicateAndCaseVariantKeysSentOnce() {
+        MySqlConnector connector = connector();
+        try {
+            Map<String, User> users = connector.findUsersByUsernames(List.of("user_1", "USER_1", "user_1", "user_2", "nobody"));
+            
+            assertEquals(List.of("user_1", "USER_1", "user_2"), List.copyOf(users.keySet()));
+            assertSame(users.get("user_1"), users.get("USER_1"));
+            assertEquals(1, lookups.size());
+            // user_1, user_2 and nobody, padded to four with the last key
+            assertEquals(List.of("user_1", "user_2", "nobody", "nobody"), lookups.get(0).params());
+            assertThrows(UnsupportedOperationException.class, () -> users.put("x", null));
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testAccentInsensitiveCollationMatchesAccentedKeys() {
+        stored.put("José", new User("José", "jose@example.com", 41, "Madrid"));
+        MySqlConnector connector = connector();
+        try {
+            Map<String, User> users = connector.findUsersByUsernames(List.of("Jose", "JOSÉ", "josé"));
+            
+            assertEquals(List.of("Jose", "JOSÉ", "josé"), List.copyOf(users.keySet()));
+            assertEquals("jose@example.com", users.get("Jose").email());
+            assertSame(users.get("Jose"), users.get("josé"));
+            assertEquals(List.of("Jose"), lookups.get(0).params());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testBinaryCollationKeepsCaseVariantsApart() {
+        collation = "utf8mb4_bin";
+        stored.put("Alice", new User("Alice", "upper@example.com", 30, "Boston"));
+        stored.put("alice", new User("alice", "lower@example.com", 31, "Boston"));
+        MySqlConnector connector = connector();
+        try {
+            Map<String, User> users = connector.findUsersByUsernames(List.of("Alice", "alice", "ALICE"));
+            
+            assertEquals(List.of("Alice", "alice"), List.copyOf(users.keySet()));
+            assertEquals("upper@example.com", users.get("Alice").email());
+            assertEquals("lower@example.com", users.get("alice").email());
+            assertEquals(List.of("Alice", "alice", "ALICE", "ALICE"), lookups.get(0).params());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testTempTableAboveThreshold() {
+        MySqlConnector connector = connector("mysql.lookup.temp-table-threshold", "1000", "mysql.lookup.in-list-keys", "500",
+            "mysql.lookup.parallelism", "2");
+        try {
+            Map<String, User> users = connector.findUsersByUsernames(usernames(0, 3_000));
+            
+            assertEquals(3_000, users.size());
+            assertTrue(lookups.isEmpty());
+            // The key column declares the collation of users.username, not the session default
+            assertEquals(2, statements.stream().filter(sql -> sql.equals("CREATE TEMPORARY TABLE lookup_keys "
+                + "(lookup_key VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL PRIMARY KEY) ENGINE=MEMORY")).count());
+            assertEquals(2, statements.stream().filter(sql -> sql.contains("JOIN lookup_keys")).count());
+            // Each connection loads its 1,500 keys in chunks of at most 500
+            assertEquals(6, statements.stream().filter(sql -> sql.startsWith("INSERT IGNORE INTO lookup_keys")).count());
+            // Dropped before creating, in case an earlier lookup failed, and after joining
+            assertEquals(4, statements.stream().filter(sql -> sql.startsWith("DROP TEMPORARY TABLE IF EXISTS lookup_keys")).count());
+            assertEquals(2, lookupThreads.size());
+            assertEquals(0, connector.getPoolStats().active());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testInListCutAtPacketLimit() {
+        String padding = "x".repeat(100);
+        for (int i = 0; i < 50; i++) {
+            stored.put("long_" + i + padding, new User("long_" + i + padding, "long_" + i + "@example.com", 30, "Boston"));
+        }
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            keys.add("long_" + i + padding);
+        }
+        MySqlConnector connector = connector("mysql.bulk.max-packet-bytes", "1024");
+        try {
+            Map<String, User> users = connector.findUsersByUsernames(keys);
+            
+            assertEquals(50, users.size());
+            // About 210 bytes per escaped key: four keys fit in 1 KiB, a fifth would be padded to eight
+            assertTrue(lookups.stream().allMatch(call -> call.params().size() <= 4), "Statements exceeded the packet limit");
+            assertEquals(13, lookups.size());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testChunksRunInParallel() {
+        MySqlConnector connector = connector("mysql.lookup.in-list-keys", "100", "mysql.lookup.parallelism", "4");
+        database.latencyMillis(50);
+        try {
+            Map<String, User> users = connector.findUsersByUsernames(usernames(0, 800));
+            
+            assertEquals(800, users.size());
+            assertEquals(8, lookups.size());
+            assertEquals(4, lookupThreads.size());
+            assertEquals(0, connector.getPoolStats().active());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testFailuresAndInvalidInput() {
+        MySqlConnector connector = connector("mysql.lookup.in-list-keys", "100");
+        try {
+            int executions = database.executions.get();
+            assertEquals(Map.of(), connector.findUsersByUsernames(List.of()));
+            assertEquals(executions, database.executions.get());
+            List<String> withNull = new ArrayList<>(List.of("user_1"));
+            withNull.add(null);
+            assertThrows(IllegalArgumentException.class, () -> connector.findUsersByUsernames(withNull));
+            
+            failing = true;
+            assertThrows(MySqlException.class, () -> connector.findUsersByUsernames(usernames(0, 500)));
+            assertEquals(0, connector.getPoolStats().active());
+            
+            // Errors on worker threads reach the caller instead of leaving rows out
+            failing = false;
+            crashing = true;
+            assertThrows(StackOverflowError.class, () -> connector.findUsersByUsernames(usernames(0, 500)));
+            assertEquals(0, connector.getPoolStats().active());
+        } finally {
+            connector.disconnect();
+        }
+    }
+}
\ No newline at end of file
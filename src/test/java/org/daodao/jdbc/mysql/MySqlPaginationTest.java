@@ -0,0 +1,146 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.model.Page;
+import org.daodao.jdbc.model.User;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for keyset pagination
+ *
+ * The FakeDatabase handler evaluates the seek predicates and LIMIT over a
+ * sorted in-memory users table:
+ * - Walking every page returns each user exactly once, in order
+ * - The last page carries no continuation token, even when full
+ * - Deep pages seek on the last key instead of using OFFSET
+ * - Tokens from another query or city, tampered tokens and bad page sizes are rejected
+ */
+class MySqlPaginationTest {
+    
+    private static final List<String> CITIES = List.of("Chicago", "Houston", "New York");
+    
+    private final List<User> table = new ArrayList<>();
+    private final List<FakeDatabase.Call> calls = new CopyOnWriteArrayList<>();
+    private MySqlConnector connector;
+    
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 95; i++) {
+            String username = String.format("user_%03d", i);
+            table.add(new User(username, username + "@example.com", 20 + i % 40, CITIES.get(i % CITIES.size())));
+        }
+        
+        FakeDatabase database = new FakeDatabase();
+        database.handler(this::query);
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config(), database.connectionFactory());
+        connector.connect();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    // Evaluates "[city = ?] [AND] [username > ?] ORDER BY username LIMIT ?" against the table
+    private Object query(FakeDatabase.Call call) {
+        calls.add(call);
+        String sql = call.sql();
+        List<Object> params = call.params();
+        int next = 0;
+        String city = sql.contains("city = ?") ? (String) params.get(next++) : null;
+        String after = sql.contains("username > ?") ? (String) params.get(next++) : null;
+        int limit = (Integer) params.get(next);
+        
+        List<Object[]> rows = new ArrayList<>();
+        for (User user : table) {
+            if ((city == null || city.equals(user.city())) && (after == null || user.username().compareTo(after) > 0) && rows.size() < limit) {
+                rows.add(new Object[]{user.username(), user.email(), user.age(), user.city()});
+            }
+        }
+        return new FakeDatabase.Rows(List.of("username", "email", "age", "city"), rows);
+    }
+    
+    @Test
+    void testWalkAllPagesInOrder() {
+        List<User> seen = new ArrayList<>();
+        int pages = 0;
+        String token = null;
+        do {
+            Page<User> page = connector.findUsersPage(token, 10);
+            seen.addAll(page.items());
+            token = page.nextPageToken();
+            pages++;
+        } while (token != null);
+        
+        assertEquals(10, pages);
+        assertEquals(table, seen);
+    }
+    
+    @Test
+    void testFullLastPageHasNoToken() {
+        table.subList(90, table.size()).clear();
+        
+        Page<User> page = connector.findUsersPage(null, 45);
+        assertTrue(page.hasNext());
+        page = connector.findUsersPage(page.nextPageToken(), 45);
+        
+        assertEquals(45, page.items().size());
+        assertFalse(page.hasNext());
+        assertEquals(2, calls.size());
+    }
+    
+    @Test
+    void testDeepPageSeeksOnLastKey() {
+        Page<User> page = connector.findUsersPage(null, 20);
+        page = connector.findUsersPage(page.nextPageToken(), 20);
+        page = connector.findUsersPage(page.nextPageToken(), 20);
+        
+        FakeDatabase.Call last = calls.get(calls.size() - 1);
+        assertFalse(last.sql().toUpperCase().contains("OFFSET"));
+        assertEquals(List.of("user_039", 21), last.params());
+        assertEquals("user_040", page.items().get(0).username());
+    }
+    
+    @Test
+    void testWalkCityPages() {
+        List<User> expected = table.stream().filter(user -> user.city().equals("Houston")).toList();
+        List<User> seen = new ArrayList<>();
+        String token = null;
+        do {
+            Page<User> page = connector.findUsersByCityPage("Houston", token, 7);
+            seen.addAll(page.items());
+            token = page.nextPageToken();
+        } while (token != null);
+        
+        assertEquals(expected, seen);
+        FakeDatabase.Call last = calls.get(calls.size() - 1);
+        assertTrue(last.sql().contains("WHERE city = ? AND username > ?"));
+        assertEquals("Houston", last.params().get(0));
+    }
+    
+    @Test
+    void testForeignTokensRejected() {
+        String cityToken = connector.findUsersByCityPage("Chicago", null, 5).nextPageToken();
+        String usersToken = connector.findUsersPage(null, 5).nextPageToken();
+        
+        assertThrows(IllegalArgumentException.class, () -> connector.findUsersByCityPage("Houston", cityToken, 5));
+        assertThrows(IllegalArgumentException.class, () -> connector.findUsersPage(cityToken, 5));
+        assertThrows(IllegalArgumentException.class, () -> connector.findUsersByCityPage("Chicago", usersToken, 5));
+        assertThrows(IllegalArgumentException.class, () -> connector.findUsersPage("not a token!", 5));
+        assertThrows(IllegalArgumentException.class, () -> connector.findUsersPage(usersToken.substring(0, 6), 5));
+        assertThrows(IllegalArgumentException.class, () -> connector.findUsersPage(usersToken + "AAAA", 5));
+    }
+    
+    @Test
+    void testPageSizeValidated() {
+        assertThrows(IllegalArgumentException.class, () -> connector.findUsersPage(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> connector.findUsersPage(null, 10_001));
+        assertEquals(95, connector.findUsersPage(null, 10_000).items().size());
+    }
+}
\ No newline at end of file
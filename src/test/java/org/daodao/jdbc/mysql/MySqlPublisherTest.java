@@ -0,0 +1,208 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.mapper.RowMapper;
+import org.daodao.jdbc.model.User;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for Flow.Publisher streaming of query results
+ *
+ * - All rows arrive in order, followed by onComplete and the connection release
+ * - Rows are read only as requested, plus at most the read-ahead buffer
+ * - Cancelling mid-stream cancels the statement and releases the connection
+ * - Query errors and invalid requests reach onError
+ * - Every subscriber runs its own query
+ */
+class MySqlPublisherTest {
+    
+    private static final int ROWS = 10_000;
+    
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    private final AtomicInteger mapped = new AtomicInteger();
+    
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{String.format("user_%05d", i), "user_" + i + "@example.com", 20 + i % 50, "Boston"});
+        }
+        database = new FakeDatabase();
+        database.handler(call -> call.sql().contains("missing")
+            ? new SQLException("Table 'testdb.missing' doesn't exist", "42S02", 1146)
+            : new FakeDatabase.Rows(List.of("username", "email", "age", "city"), rows));
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config(), database.connectionFactory());
+        connector.connect();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    private final RowMapper<String> usernames = rs -> {
+        mapped.incrementAndGet();
+        return rs.getString("username");
+    };
+    
+    // Records signals; requests batch rows on subscribe and again after every batch until stopAfter rows
+    private static final class RecordingSubscriber<T> implements Flow.Subscriber<T> {
+        
+        final List<T> items = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch terminated = new CountDownLatch(1);
+        final long batch;
+        final int stopAfter;
+        volatile Flow.Subscription subscription;
+        volatile boolean completed;
+        volatile Throwable error;
+        
+        RecordingSubscriber(long batch, int stopAfter) {
+            this.batch = batch;
+            this.stopAfter = stopAfter;
+        }
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(batch);
+        }
+        
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+            if (stopAfter >= 0 && items.size() >= stopAfter) {
+                return;
+            }
+            if (items.size() % batch == 0) {
+                subscription.request(batch);
+            }
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+        
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+    }
+    
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+    
+    @Test
+    void testAllRowsDeliveredInOrder() throws InterruptedException {
+        RecordingSubscriber<User> subscriber = new RecordingSubscriber<>(100, -1);
+        
+        connector.publishAllUsers().subscribe(subscriber);
+        
+        assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertEquals(ROWS, subscriber.items.size());
+        assertEquals("user_00000", subscriber.items.get(0).username());
+        assertEquals("user_09999", subscriber.items.get(ROWS - 1).username());
+        await(() -> connector.getPoolStats().active() == 0);
+        assertEquals(0, database.openResultSets.get());
+        assertEquals(Integer.MIN_VALUE, database.lastFetchSize);
+    }
+    
+    @Test
+    void testRowsReadOnlyOnDemand() throws InterruptedException {
+        RecordingSubscriber<String> subscriber = new RecordingSubscriber<>(5, 5);
+        
+        connector.publishQuery("SELECT username, email, age, city FROM users", usernames, 16).subscribe(subscriber);
+        
+        await(() -> subscriber.items.size() == 5);
+        // Give the emitter time to run ahead if it were going to
+        Thread.sleep(100);
+        assertEquals(5, subscriber.items.size());
+        assertEquals(5 + 16, mapped.get());
+        assertEquals(1, connector.getPoolStats().active());
+        
+        subscriber.subscription.request(10);
+        await(() -> subscriber.items.size() == 15);
+        Thread.sleep(50);
+        assertEquals(15 + 16, mapped.get());
+        subscriber.subscription.cancel();
+    }
+    
+    @Test
+    void testCancelReleasesConnection() throws InterruptedException {
+        RecordingSubscriber<String> subscriber = new RecordingSubscriber<>(10, 10);
+        
+        connector.publishQuery("SELECT username, email, age, city FROM users", usernames, 64).subscribe(subscriber);
+        await(() -> subscriber.items.size() == 10);
+        subscriber.subscription.cancel();
+        
+        await(() -> connector.getPoolStats().active() == 0);
+        assertEquals(1, database.statementsCancelled.get());
+        assertEquals(0, database.openResultSets.get());
+        assertFalse(subscriber.terminated.await(100, TimeUnit.MILLISECONDS));
+        assertTrue(mapped.get() <= 10 + 64);
+    }
+    
+    @Test
+    void testQueryErrorSignalsOnError() throws InterruptedException {
+        RecordingSubscriber<String> subscriber = new RecordingSubscriber<>(10, -1);
+        
+        connector.publishQuery("SELECT * FROM missing", usernames).subscribe(subscriber);
+        
+        assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(MySqlException.class, subscriber.error);
+        assertTrue(subscriber.items.isEmpty());
+        await(() -> connector.getPoolStats().active() == 0);
+    }
+    
+    @Test
+    void testInvalidRequestSignalsOnError() throws InterruptedException {
+        RecordingSubscriber<String> subscriber = new RecordingSubscriber<>(0, -1);
+        
+        connector.publishQuery("SELECT username, email, age, city FROM users", usernames).subscribe(subscriber);
+        
+        assertTrue(subscriber.terminated.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        await(() -> connector.getPoolStats().active() == 0);
+        assertThrows(IllegalArgumentException.class, () -> connector.publishQuery("SELECT 1", usernames, 0));
+    }
+    
+    @Test
+    void testEachSubscriberRunsItsOwnQuery() throws InterruptedException {
+        Flow.Publisher<String> publisher = connector.publishQuery("SELECT username, email, age, city FROM users", usernames);
+        RecordingSubscriber<String> fast = new RecordingSubscriber<>(Long.MAX_VALUE, -1);
+        RecordingSubscriber<String> slow = new RecordingSubscriber<>(1_000, -1);
+        int executions = database.executions.get();
+        
+        publisher.subscribe(fast);
+        publisher.subscribe(slow);
+        
+        assertTrue(fast.terminated.await(5, TimeUnit.SECONDS));
+        assertTrue(slow.terminated.await(5, TimeUnit.SECONDS));
+        assertEquals(ROWS, fast.items.size());
+        assertEquals(ROWS, slow.items.size());
+        assertEquals(executions + 2, database.executions.get());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.cache.QueryCacheStats;
+import org.daodao.jdbc.cache.QueryResultCache;
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the read-through query result cache
+ *
+ * Runs against the FakeDatabase stand-in:
+ * - Repeated findUsersByCity / getUserCount calls are served from the cache
+ * - insertUser, updateUserEmail, deleteUser and execute() invalidate the users table
+ * - Writes to other tables leave cached users results alone
+ * - Byte budget eviction, TTL expiry and loads racing with an invalidation
+ */
+class MySqlQueryCacheTest {
+    
+    private FakeDatabase database;
+    
+    @BeforeEach
+    void setUp() {
+        database = new FakeDatabase();
+        database.handler(call -> {
+            String sql = call.sql();
+            if (sql.startsWith("SELECT COUNT(*)")) {
+                return FakeDatabase.Rows.of(List.of("COUNT(*)"), new Object[]{42});
+            }
+            if (sql.startsWith("SELECT")) {
+                return FakeDatabase.Rows.of(List.of("username", "email", "age", "city"),
+                    new Object[]{"alice", "alice@example.com", 28, call.params().get(0)});
+            }
+            return 1;
+        });
+    }
+    
+    private MySqlConnector connector(String... overrides) {
+        String[] settings = new String[overrides.length + 2];
+        settings[0] = "mysql.query-cache.enabled";
+        settings[1] = "true";
+        System.arraycopy(overrides, 0, settings, 2, overrides.length);
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config(settings), database.connectionFactory());
+        connector.connect();
+        return connector;
+    }
+    
+    @Test
+    void testRepeatedReadsServedFromCache() {
+        MySqlConnector connector = connector();
+        try {
+            int before = database.executions.get();
+            for (int i = 0; i < 10; i++) {
+                assertEquals(1, connector.findUsersByCity("Beijing").size());
+                assertEquals(42, connector.getUserCount());
+            }
+            assertEquals(2, database.executions.get() - before);
+            
+            QueryCacheStats stats = connector.getQueryCacheStats();
+            assertEquals(18, stats.hits());
+            assertEquals(2, stats.misses());
+            assertEquals(0.9, stats.hitRatio(), 1e-9);
+            assertEquals(2, stats.entries());
+            assertTrue(stats.usedBytes() > 0);
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testUserWritesInvalidate() {
+        MySqlConnector connector = connector();
+        try {
+            connector.findUsersByCity("Beijing");
+            connector.insertUser("bob", "bob@example.com", 30, "Beijing");
+            connector.findUsersByCity("Beijing");
+            connector.updateUserEmail("bob", "bob@example.org");
+            connector.findUsersByCity("Beijing");
+            connector.deleteUser("bob");
+            connector.findUsersByCity("Beijing");
+            connector.execute("UPDATE users SET age = age + 1");
+            connector.findUsersByCity("Beijing");
+            
+            QueryCacheStats stats = connector.getQueryCacheStats();
+            assertEquals(0, stats.hits());
+            assertEquals(5, stats.misses());
+            assertEquals(4, stats.invalidations());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testOtherTableWritesKeepUsersCached() {
+        MySqlConnector connector = connector();
+        try {
+            connector.getUserCount();
+            connector.execute("UPDATE products SET stock_quantity = 0 WHERE id = 1");
+            connector.execute("SHOW TABLES");
+            connector.getUserCount();
+            
+            assertEquals(1, connector.getQueryCacheStats().hits());
+            assertEquals(0, connector.getQueryCacheStats().invalidations());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testDisabledCacheAlwaysQueries() {
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config(), database.connectionFactory());
+        connector.connect();
+        try {
+            int before = database.executions.get();
+            connector.getUserCount();
+            connector.getUserCount();
+            assertEquals(2, database.executions.get() - before);
+            assertEquals(0, connector.getQueryCacheStats().entries());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testByteBudgetEvictsLeastRecentlyUsed() {
+        QueryResultCache cache = new QueryResultCache(1_000, 0);
+        for (int i = 0; i < 20; i++) {
+            String city = "City " + i;
+            cache.get("users", "SELECT ...", List.of(city), value -> 200, () -> city);
+        }
+        
+        QueryCacheStats stats = cache.getStats();
+        assertTrue(stats.usedBytes() <= 1_000);
+        assertTrue(stats.evictions() > 0);
+        assertEquals(20, stats.entries() + stats.evictions());
+        
+        // Values larger than the whole budget are returned but never cached
+        assertEquals("big", cache.get("users", "SELECT big", List.of(), value -> 10_000, () -> "big"));
+        assertEquals(stats.entries(), cache.getStats().entries());
+    }
+    
+    @Test
+    void testEntriesExpireAfterTtl() throws Exception {
+        QueryResultCache cache = new QueryResultCache(1_000_000, 20);
+        cache.get("users", "SELECT 1", List.of(), value -> 16, () -> 1);
+        Thread.sleep(40);
+        assertEquals(2, cache.get("users", "SELECT 1", List.of(), value -> 16, () -> 2));
+        assertEquals(1, cache.getStats().expirations());
+    }
+    
+    @Test
+    void testLoadRacingWithInvalidationIsNotCached() {
+        QueryResultCache cache = new QueryResultCache(1_000_000, 0);
+        cache.get("users", "SELECT 1", List.of(), value -> 16, () -> {
+            cache.invalidate("users");
+            return 1;
+        });
+        assertEquals(0, cache.getStats().entries());
+        assertEquals(2, cache.get("users", "SELECT 1", List.of(), value -> 16, () -> 2));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,248 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.AsyncMySqlConnector;
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.count.CountMode;
+import org.daodao.jdbc.exceptions.PropertyException;
+import org.daodao.jdbc.exceptions.QueryTimeoutException;
+import org.daodao.jdbc.timeout.Deadline;
+import org.daodao.jdbc.timeout.TimeoutStats;
+import org.junit.jupiter.api.*;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for call deadlines, statement timeouts and KILL QUERY cancellation
+ *
+ * - A deadline becomes the statement's query timeout and MAX_EXECUTION_TIME hint
+ * - A statement still running at the deadline is killed and the call times out
+ * - An expired deadline fails the call before any statement runs
+ * - Nested deadlines keep the earlier one, and bound the wait for a pooled connection
+ * - Cached reads time out waiting for an identical query in flight, and a killed load is not cached
+ * - Async timeouts propagate as deadlines to the connector
+ * - Exact counts and the worker threads of a multi-key lookup run under the deadline
+ * - mysql.query.timeout-ms applies to calls without a deadline
+ */
+class MySqlQueryTimeoutTest {
+    
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    
+    @BeforeEach
+    void setUp() {
+        database = new FakeDatabase();
+        database.handler(call -> {
+            executed.add(call.sql());
+            if (call.sql().contains("FROM users WHERE city = ?")) {
+                return FakeDatabase.Rows.of(List.of("username", "email", "age", "city"),
+                    new Object[]{"alice", "alice@example.com", 30, call.params().get(0)});
+            }
+            if (call.sql().contains("COUNT(*)")) {
+                return FakeDatabase.Rows.of(List.of("COUNT(*)"), new Object[]{3L});
+            }
+            return call.sql().startsWith("SELECT") ? FakeDatabase.Rows.empty() : 1;
+        });
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    private void connect(String... overrides) {
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config(overrides), database.connectionFactory());
+        connector.connect();
+    }
+    
+    @Test
+    void testDeadlineBecomesStatementTimeout() throws Exception {
+        connect();
+        
+        assertEquals(1, connector.withTimeout(Duration.ofSeconds(2), c -> c.findUserRecordsByCity("Boston")).size());
+        
+        assertEquals("SELECT /*+ MAX_EXECUTION_TIME(2048) */ username, email, age, city FROM users WHERE city = ? ORDER BY username",
+            executed.get(0));
+        assertEquals(2, database.lastQueryTimeout);
+        
+        // Without a deadline the statement runs as written and without a timeout
+        connector.findUserRecordsByCity("Denver");
+        assertEquals("SELECT username, email, age, city FROM users WHERE city = ? ORDER BY username", executed.get(1));
+        assertEquals(0, database.lastQueryTimeout);
+        
+        // Plain statements get the timeout too, but only SELECTs get the hint
+        connector.withTimeout(Duration.ofMillis(500), c -> {
+            c.execute("UPDATE users SET age = 31 WHERE username = 'alice'");
+            try (ResultSet rs = c.executeQuery("SELECT COUNT(*) FROM products")) {
+                return rs.next();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals("UPDATE users SET age = 31 WHERE username = 'alice'", executed.get(2));
+        assertEquals("SELECT /*+ MAX_EXECUTION_TIME(512) */ COUNT(*) FROM products", executed.get(3));
+        assertEquals(1, database.lastQueryTimeout);
+        assertEquals(new TimeoutStats(2, 0, 0), connector.getTimeoutStats());
+    }
+    
+    @Test
+    void testDeadlineReachesCountsAndLookupWorkers() {
+        connect("mysql.lookup.in-list-keys", "2", "mysql.lookup.parallelism", "4");
+        
+        connector.withTimeout(Duration.ofSeconds(2), c -> {
+            c.getUserCount(CountMode.EXACT);
+            return c.findUsersByUsernames(List.of("amy", "ben", "cal", "dan", "eve", "fay"));
+        });
+        
+        assertTrue(executed.contains("SELECT /*+ MAX_EXECUTION_TIME(2048) */ COUNT(*) FROM users"), executed.toString());
+        List<String> lookups = executed.stream().filter(sql -> sql.contains("WHERE username IN")).toList();
+        assertEquals(3, lookups.size());
+        assertTrue(lookups.stream().allMatch(sql -> sql.contains("MAX_EXECUTION_TIME(2048)")), lookups.toString());
+    }
+    
+    @Test
+    void testStatementKilledAtDeadline() {
+        connect();
+        database.latencyMillis(5_000);
+        
+        long start = System.nanoTime();
+        QueryTimeoutException e = assertThrows(QueryTimeoutException.class,
+            () -> connector.withTimeout(Duration.ofMillis(100), c -> c.findUserRecordsByCity("Boston")));
+        
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3), "The statement was not killed");
+        assertTrue(e.getMessage().contains("100 ms"), e.getMessage());
+        assertEquals(1, database.queriesKilled.get());
+        assertEquals(new TimeoutStats(1, 1, 1), connector.getTimeoutStats());
+        assertEquals(1, connector.getMetricsSnapshot().operation("findUserRecordsByCity").timeouts());
+        assertEquals(0, connector.getPoolStats().active());
+        
+        // The killed connection stays usable
+        database.latencyMillis(0);
+        assertEquals(1, connector.findUserRecordsByCity("Boston").size());
+    }
+    
+    @Test
+    void testExpiredDeadlineFailsBeforeStatement() throws Exception {
+        connect();
+        Deadline deadline = Deadline.after(Duration.ofMillis(1));
+        Thread.sleep(5);
+        
+        assertThrows(QueryTimeoutException.class, () -> connector.withDeadline(deadline, c -> c.findUserRecordsByCity("Boston")));
+        // The deadline passes while the call is busy before its first statement
+        assertThrows(QueryTimeoutException.class, () -> connector.withTimeout(Duration.ofMillis(20), c -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return c.findUserRecordsByCity("Boston");
+        }));
+        
+        assertEquals(0, database.executions.get());
+        assertEquals(new TimeoutStats(2, 2, 0), connector.getTimeoutStats());
+        assertThrows(IllegalArgumentException.class, () -> Deadline.after(Duration.ZERO));
+    }
+    
+    @Test
+    void testNestedDeadlineKeepsEarlierOne() {
+        connect();
+        database.latencyMillis(5_000);
+        
+        long start = System.nanoTime();
+        assertThrows(QueryTimeoutException.class, () -> connector.withTimeout(Duration.ofMillis(100),
+            outer -> outer.withTimeout(Duration.ofSeconds(10), inner -> inner.findUserRecordsByCity("Boston"))));
+        
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3), "The inner deadline replaced the outer one");
+        assertTrue(executed.isEmpty() || executed.get(0).contains("MAX_EXECUTION_TIME(128)"), executed.toString());
+    }
+    
+    @Test
+    void testPoolWaitBoundedByDeadline() throws Exception {
+        connect("mysql.pool.min-size", "1", "mysql.pool.max-size", "1", "mysql.pool.acquire-timeout-ms", "30000");
+        database.latencyMillis(1_000);
+        Thread holder = Thread.ofVirtual().start(() -> connector.findUserRecordsByCity("Denver"));
+        while (database.executions.get() == 0) {
+            Thread.sleep(1);
+        }
+        
+        long start = System.nanoTime();
+        assertThrows(QueryTimeoutException.class,
+            () -> connector.withTimeout(Duration.ofMillis(100), c -> c.findUserRecordsByCity("Boston")));
+        
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(900), "Waited for the pool's acquire timeout");
+        assertEquals(1, database.executions.get());
+        holder.join();
+    }
+    
+    @Test
+    void testCachedReadsRunUnderDeadline() throws Exception {
+        connect("mysql.query-cache.enabled", "true", "mysql.single-flight.enabled", "true");
+        database.latencyMillis(1_000);
+        Thread holder = Thread.ofVirtual().start(connector::getUserCount);
+        while (database.executions.get() == 0) {
+            Thread.sleep(1);
+        }
+        
+        long start = System.nanoTime();
+        assertThrows(QueryTimeoutException.class, () -> connector.withTimeout(Duration.ofMillis(100), MySqlConnector::getUserCount));
+        
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(600), "Waited for the identical query in flight");
+        holder.join();
+        assertEquals(3, (int) connector.withTimeout(Duration.ofMillis(100), MySqlConnector::getUserCount));
+        assertEquals(1, database.executions.get());
+        
+        database.latencyMillis(5_000);
+        assertThrows(QueryTimeoutException.class,
+            () -> connector.withTimeout(Duration.ofMillis(100), c -> c.findUserRecordsByCity("Boston")));
+        database.latencyMillis(0);
+        assertEquals(1, connector.findUserRecordsByCity("Boston").size());
+        
+        assertEquals(3, database.executions.get());
+        assertEquals(new TimeoutStats(3, 2, 1), connector.getTimeoutStats());
+    }
+    
+    @Test
+    void testAsyncTimeoutPropagatesAsDeadline() throws Exception {
+        connect();
+        try (AsyncMySqlConnector async = new AsyncMySqlConnector(connector)) {
+            assertEquals(1, async.supplyAsync(c -> c.findUserRecordsByCity("Boston"), Duration.ofSeconds(2)).get().size());
+            assertTrue(executed.get(0).contains("MAX_EXECUTION_TIME(2048)"), executed.get(0));
+            
+            database.latencyMillis(5_000);
+            CompletableFuture<Integer> slow = async.supplyAsync(c -> c.findUserRecordsByCity("Denver").size(), Duration.ofMillis(100));
+            ExecutionException e = assertThrows(ExecutionException.class, slow::get);
+            assertInstanceOf(TimeoutException.class, e.getCause());
+            
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (connector.getTimeoutStats().timedOut() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(2, connector.getTimeoutStats().deadlineCalls());
+            assertEquals(1, connector.getTimeoutStats().timedOut());
+            assertTrue(database.queriesKilled.get() >= 1);
+        }
+    }
+    
+    @Test
+    void testDefaultQueryTimeout() {
+        connect("mysql.query.timeout-ms", "1500");
+        
+        connector.findUserRecordsByCity("Boston");
+        
+        assertEquals("SELECT /*+ MAX_EXECUTION_TIME(2048) */ username, email, age, city FROM users WHERE city = ? ORDER BY username",
+            executed.get(0));
+        assertEquals(2, database.lastQueryTimeout);
+        assertEquals(1500, connector.getConfig().getQueryTimeoutMs());
+        assertEquals(0, MySqlConnectionPoolTest.config().getQueryTimeoutMs());
+        assertThrows(PropertyException.class, () -> MySqlConnectionPoolTest.config("mysql.query.timeout-ms", "-1"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,173 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.count.CountMode;
+import org.daodao.jdbc.count.RowCounter;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.metrics.MetricsRegistry;
+import org.daodao.jdbc.model.User;
+import org.daodao.jdbc.pool.ConnectionPool;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for exact, cached, approximate and tracked row counts
+ *
+ * These tests run against the in-process FakeDatabase stand-in, which
+ * counts the COUNT(*) scans it is asked for:
+ * - EXACT scans on every call, CACHED once per TTL
+ * - APPROXIMATE reads TABLE_ROWS from information_schema
+ * - TRACKED is seeded once and follows the connector's own inserts and deletes
+ * - Ad-hoc writes through execute() force a tracked count to re-seed
+ */
+class MySqlRowCountTest {
+    
+    private final AtomicLong serverRows = new AtomicLong(1_000);
+    private final AtomicInteger countScans = new AtomicInteger();
+    private final AtomicInteger estimates = new AtomicInteger();
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    
+    @BeforeEach
+    void setUp() {
+        connector = connect("mysql.count.cache-ttl-ms", "60000");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    private MySqlConnector connect(String... overrides) {
+        database = new FakeDatabase();
+        database.handler(call -> {
+            String sql = call.sql();
+            if (sql.equals("SELECT COUNT(*) FROM users")) {
+                countScans.incrementAndGet();
+                return FakeDatabase.Rows.of(List.of("COUNT(*)"), new Object[]{serverRows.get()});
+            }
+            if (sql.contains("information_schema.TABLES")) {
+                estimates.incrementAndGet();
+                return call.params().equals(List.of("users"))
+                    ? FakeDatabase.Rows.of(List.of("TABLE_ROWS"), new Object[]{987L})
+                    : FakeDatabase.Rows.empty();
+            }
+            if (sql.startsWith("SELECT @@max_allowed_packet")) {
+                return FakeDatabase.Rows.of(List.of("@@max_allowed_packet"), new Object[]{64L * 1024 * 1024});
+            }
+            if (sql.startsWith("SELECT")) {
+                return FakeDatabase.Rows.empty();
+            }
+            if (sql.startsWith("INSERT")) {
+                return Math.max(1, call.params().size() / 4);
+            }
+            return 1;
+        });
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config(overrides), database.connectionFactory());
+        connector.connect();
+        return connector;
+    }
+    
+    @Test
+    void testExactScansEveryTime() {
+        assertEquals(1_000, connector.getUserCount(CountMode.EXACT));
+        serverRows.set(1_001);
+        assertEquals(1_001, connector.getUserCount(CountMode.EXACT));
+        assertEquals(2, countScans.get());
+    }
+    
+    @Test
+    void testCachedScansOncePerTtl() throws Exception {
+        assertEquals(1_000, connector.getUserCount(CountMode.CACHED));
+        serverRows.set(1_500);
+        assertEquals(1_000, connector.getUserCount(CountMode.CACHED));
+        assertEquals(1, countScans.get());
+        
+        connector.disconnect();
+        connector = connect("mysql.count.cache-ttl-ms", "20");
+        assertEquals(1_500, connector.getUserCount(CountMode.CACHED));
+        Thread.sleep(30);
+        serverRows.set(1_600);
+        assertEquals(1_600, connector.getUserCount(CountMode.CACHED));
+        assertEquals(3, countScans.get());
+    }
+    
+    @Test
+    void testApproximateReadsTableStatistics() {
+        assertEquals(987, connector.getUserCount(CountMode.APPROXIMATE));
+        assertEquals(1, estimates.get());
+        assertEquals(0, countScans.get());
+    }
+    
+    @Test
+    void testTrackedFollowsOwnWrites() {
+        assertEquals(1_000, connector.getUserCount(CountMode.TRACKED));
+        
+        connector.insertUser("tracked_1", "tracked_1@example.com", 30, "Chicago");
+        connector.insertUsers(List.of(
+            new User("tracked_2", "tracked_2@example.com", 31, "Chicago"),
+            new User("tracked_3", "tracked_3@example.com", 32, "Chicago")));
+        connector.deleteUser("tracked_1");
+        connector.updateUserEmail("tracked_2", "tracked_2@example.org");
+        
+        assertEquals(1_002, connector.getUserCount(CountMode.TRACKED));
+        assertEquals(1, countScans.get());
+    }
+    
+    @Test
+    void testAdHocWriteForcesReseed() {
+        assertEquals(1_000, connector.getUserCount(CountMode.TRACKED));
+        serverRows.set(400);
+        connector.execute("DELETE FROM users WHERE age > 60");
+        
+        assertEquals(400, connector.getUserCount(CountMode.TRACKED));
+        assertEquals(2, countScans.get());
+        
+        // Writes to unrelated tables keep the tracked count
+        connector.execute("DELETE FROM products WHERE stock_quantity = 0");
+        assertEquals(400, connector.getUserCount(CountMode.TRACKED));
+        assertEquals(2, countScans.get());
+    }
+    
+    @Test
+    void testConcurrentTrackedReadersSeedOnce() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> connector.getUserCount(CountMode.TRACKED)));
+            }
+            for (Future<Long> future : futures) {
+                assertEquals(1_000, future.get());
+            }
+        }
+        assertEquals(1, countScans.get());
+    }
+    
+    @Test
+    void testInvalidTablesRejected() {
+        RowCounter counter = new RowCounter(() -> {
+            throw new AssertionError("No query expected");
+        }, new MetricsRegistry(false), 1_000, 0);
+        
+        assertThrows(IllegalArgumentException.class, () -> counter.count("users; DROP TABLE users", CountMode.EXACT));
+        assertThrows(IllegalArgumentException.class, () -> counter.count(null, CountMode.TRACKED));
+    }
+    
+    @Test
+    void testApproximateMissingTableFails() {
+        try (ConnectionPool pool = new ConnectionPool(MySqlConnectionPoolTest.config(), database.connectionFactory())) {
+            pool.start();
+            RowCounter counter = new RowCounter(pool::acquire, new MetricsRegistry(false), 1_000, 0);
+            assertThrows(MySqlException.class, () -> counter.count("no_such_table", CountMode.APPROXIMATE));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.model.Product;
+import org.daodao.jdbc.model.User;
+import org.junit.jupiter.api.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the typed read methods and row mappers
+ *
+ * Runs against the FakeDatabase stand-in:
+ * - findAllUserRecords / findUserRecordsByCity map rows to User records
+ * - findAllProducts / findProductsByCategory map rows to Product records
+ * - The legacy string methods keep their exact output format
+ */
+class MySqlRowMapperTest {
+    
+    private static final List<String> USER_COLUMNS = List.of("username", "email", "age", "city");
+    private static final List<String> PRODUCT_COLUMNS = List.of("id", "name", "category", "price", "stock_quantity");
+    
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    
+    @BeforeEach
+    void setUp() {
+        database = new FakeDatabase();
+        database.handler(call -> {
+            if (call.sql().contains("FROM products")) {
+                return FakeDatabase.Rows.of(PRODUCT_COLUMNS,
+                    new Object[]{1, "Laptop", "Electronics", new BigDecimal("999.99"), 50},
+                    new Object[]{2, "Mouse", "Electronics", new BigDecimal("29.99"), 200});
+            }
+            return FakeDatabase.Rows.of(USER_COLUMNS,
+                new Object[]{"alice", "alice@example.com", 28, "Beijing"},
+                new Object[]{"bob", "bob@example.com", 35, "Shanghai"});
+        });
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config(), database.connectionFactory());
+        connector.connect();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    @Test
+    void testFindAllUserRecords() {
+        List<User> users = connector.findAllUserRecords();
+        assertEquals(List.of(
+            new User("alice", "alice@example.com", 28, "Beijing"),
+            new User("bob", "bob@example.com", 35, "Shanghai")), users);
+        assertEquals(0, database.openResultSets.get());
+    }
+    
+    @Test
+    void testFindUserRecordsByCityBindsCity() {
+        List<FakeDatabase.Call> calls = new CopyOnWriteArrayList<>();
+        database.handler(call -> {
+            calls.add(call);
+            return FakeDatabase.Rows.of(USER_COLUMNS, new Object[]{"alice", "alice@example.com", 28, "Beijing"});
+        });
+        
+        List<User> users = connector.findUserRecordsByCity("Beijing");
+        assertEquals(1, users.size());
+        assertEquals(28, users.get(0).age());
+        assertEquals(List.of("Beijing"), calls.get(calls.size() - 1).params());
+    }
+    
+    @Test
+    void testLegacyStringFormatsUnchanged() {
+        assertEquals(List.of(
+            "User: alice, Email: alice@example.com, Age: 28, City: Beijing",
+            "User: bob, Email: bob@example.com, Age: 35, City: Shanghai"), connector.findAllUsers());
+        assertEquals(List.of(
+            "User: alice, Email: alice@example.com, Age: 28",
+            "User: bob, Email: bob@example.com, Age: 35"), connector.findUsersByCity("Beijing"));
+    }
+    
+    @Test
+    void testFindProducts() {
+        List<Product> products = connector.findAllProducts();
+        assertEquals(2, products.size());
+        assertEquals(new Product(1, "Laptop", "Electronics", new BigDecimal("999.99"), 50), products.get(0));
+        assertEquals(200, connector.findProductsByCategory("Electronics").get(1).stockQuantity());
+    }
+}
\ No newline at end of file
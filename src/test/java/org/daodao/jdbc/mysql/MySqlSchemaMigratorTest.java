@@ -0,0 +1,193 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.pool.ConnectionPool;
+import org.daodao.jdbc.schema.AppliedMigration;
+import org.daodao.jdbc.schema.Migration;
+import org.daodao.jdbc.schema.MigrationReport;
+import org.daodao.jdbc.schema.SchemaMigrations;
+import org.daodao.jdbc.schema.SchemaMigrator;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for versioned schema migrations
+ *
+ * The FakeDatabase handler keeps schema_version in memory and times DDL:
+ * - A cold start applies every migration and records its checksum
+ * - A warm start is a single query
+ * - Statements of one migration run in parallel
+ * - Edited migrations are rejected by checksum
+ * - Objects that already exist are skipped, other failures leave the version unrecorded
+ */
+class MySqlSchemaMigratorTest {
+    
+    private final Map<Integer, String> versions = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile boolean versionTableExists;
+    private volatile long ddlLatencyMillis;
+    private volatile String failingStatement;
+    private volatile int failingErrorCode;
+    
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    
+    @BeforeEach
+    void setUp() {
+        database = new FakeDatabase();
+        database.handler(this::execute);
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config("mysql.pool.max-size", "8"), database.connectionFactory());
+        connector.connect();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    private Object execute(FakeDatabase.Call call) {
+        String sql = call.sql().strip();
+        if (sql.startsWith("SELECT version, checksum FROM schema_version")) {
+            if (!versionTableExists) {
+                return new SQLException("Table 'testdb.schema_version' doesn't exist", "42S02", 1146);
+            }
+            return new FakeDatabase.Rows(List.of("version", "checksum"), versions.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                .toList());
+        }
+        if (sql.startsWith("CREATE TABLE IF NOT EXISTS schema_version")) {
+            versionTableExists = true;
+            return 0;
+        }
+        if (sql.startsWith("INSERT INTO schema_version")) {
+            versions.put((Integer) call.params().get(0), (String) call.params().get(2));
+            return 1;
+        }
+        if (sql.startsWith("SELECT GET_LOCK") || sql.startsWith("SELECT RELEASE_LOCK")) {
+            return FakeDatabase.Rows.of(List.of("lock"), new Object[]{1});
+        }
+        if (sql.equals(failingStatement)) {
+            return new SQLException("Simulated failure", "42000", failingErrorCode);
+        }
+        
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(ddlLatencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        return 0;
+    }
+    
+    @Test
+    void testColdStartAppliesAllMigrations() {
+        MigrationReport report = connector.migrate();
+        
+        assertFalse(report.isWarmStart());
+        assertEquals(4, report.schemaVersion());
+        assertEquals(List.of(1, 2, 3, 4), report.applied().stream().map(AppliedMigration::version).toList());
+        for (Migration migration : SchemaMigrations.ALL) {
+            assertEquals(migration.checksum(), versions.get(migration.version()));
+        }
+    }
+    
+    @Test
+    void testWarmStartIsOneQuery() {
+        connector.migrate();
+        int before = database.executions.get();
+        
+        MigrationReport report = connector.migrate();
+        
+        assertTrue(report.isWarmStart());
+        assertEquals(4, report.schemaVersion());
+        assertEquals(1, database.executions.get() - before);
+    }
+    
+    @Test
+    void testMigrationStatementsRunInParallel() {
+        ddlLatencyMillis = 100;
+        
+        MigrationReport report = connector.migrate();
+        
+        // V2 creates five indexes; serially that would take 500 ms
+        AppliedMigration indexes = report.applied().get(1);
+        assertTrue(indexes.elapsed().toMillis() < 400, "Indexes took " + indexes.elapsed());
+        assertTrue(maxInFlight.get() >= 2, "Expected overlapping DDL but max in flight was " + maxInFlight.get());
+    }
+    
+    @Test
+    void testEditedMigrationRejected() {
+        connector.migrate();
+        versions.put(3, "0".repeat(64));
+        
+        MySqlException e = assertThrows(MySqlException.class, connector::migrate);
+        assertTrue(e.getMessage().contains("V3"));
+    }
+    
+    @Test
+    void testExistingIndexSkipped() {
+        failingStatement = "CREATE INDEX idx_users_email ON users(email)";
+        failingErrorCode = 1061;
+        
+        assertEquals(4, connector.migrate().schemaVersion());
+    }
+    
+    @Test
+    void testFailedMigrationNotRecorded() {
+        failingStatement = "CREATE INDEX idx_products_price ON products(price)";
+        failingErrorCode = 1064;
+        
+        assertThrows(MySqlException.class, connector::migrate);
+        assertEquals(Map.of(1, SchemaMigrations.ALL.get(0).checksum()), versions);
+        
+        // Once fixed, the next start resumes at V2
+        failingStatement = null;
+        MigrationReport report = connector.migrate();
+        assertEquals(List.of(2, 3, 4), report.applied().stream().map(AppliedMigration::version).toList());
+    }
+    
+    @Test
+    void testNewVersionAppliedOnTopOfExisting() {
+        connector.migrate();
+        Migration addColumn = new Migration(5, "users.phone", "ALTER TABLE users ADD COLUMN phone VARCHAR(20)");
+        
+        try (ConnectionPool pool = new ConnectionPool(MySqlConnectionPoolTest.config(), database.connectionFactory())) {
+            pool.start();
+            List<Migration> migrations = new ArrayList<>(SchemaMigrations.ALL);
+            migrations.add(addColumn);
+            MigrationReport report = new SchemaMigrator(pool::acquire, migrations).migrate();
+            
+            assertEquals(5, report.schemaVersion());
+            assertEquals(1, report.applied().size());
+        }
+    }
+    
+    @Test
+    void testInvalidMigrationsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Migration(0, "zero", "SELECT 1"));
+        assertThrows(IllegalArgumentException.class, () -> new Migration(1, "empty", List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new SchemaMigrator(() -> null,
+            List.of(new Migration(1, "a", "SELECT 1"), new Migration(1, "b", "SELECT 2"))));
+    }
+    
+    @Test
+    void testChecksumIgnoresWhitespace() {
+        String checksum = new Migration(1, "t", "CREATE TABLE t (id INT)").checksum();
+        assertEquals(64, checksum.length());
+        assertEquals(checksum, new Migration(1, "t", "  CREATE TABLE t\n    (id   INT)\n").checksum());
+        assertNotEquals(checksum, new Migration(1, "t", "CREATE TABLE t (id BIGINT)").checksum());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,248 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.cache.SingleFlightStats;
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.exceptions.QueryTimeoutException;
+import org.daodao.jdbc.model.User;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for request coalescing of identical concurrent reads
+ *
+ * - Concurrent identical reads run one query and share its result
+ * - Different parameters are never coalesced
+ * - A failing leader fails its followers and leaves nothing in flight
+ * - A follower waits no longer than its own deadline
+ * - Followers of a leader that timed out retry instead of failing with it
+ * - A write stops new readers from joining a read that started before it
+ * - Coalescing can be disabled
+ */
+class MySqlSingleFlightTest {
+    
+    private final AtomicInteger cityQueries = new AtomicInteger();
+    private final AtomicInteger countQueries = new AtomicInteger();
+    private volatile boolean failing;
+    private FakeDatabase database;
+    
+    private MySqlConnector connect(String enabled) {
+        database = new FakeDatabase();
+        database.handler(call -> {
+            if (call.sql().contains("WHERE city = ?")) {
+                cityQueries.incrementAndGet();
+                if (failing) {
+                    return new SQLException("Deadlock found when trying to get lock", "40001", 1213);
+                }
+                return FakeDatabase.Rows.of(List.of("username", "email", "age", "city"),
+                    new Object[]{"alice", "alice@example.com", 30, call.params().get(0)});
+            }
+            if (call.sql().startsWith("SELECT COUNT(*)")) {
+                countQueries.incrementAndGet();
+                return FakeDatabase.Rows.of(List.of("COUNT(*)"), new Object[]{7L});
+            }
+            return call.sql().startsWith("SELECT") ? FakeDatabase.Rows.empty() : 1;
+        });
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config("mysql.single-flight.enabled", enabled), database.connectionFactory());
+        connector.connect();
+        return connector;
+    }
+    
+    // Starts all callers at once and returns their results in order
+    private static <T> List<T> concurrently(int callers, Callable<T> call) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+        }
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+    
+    @Test
+    void testIdenticalReadsShareOneQuery() throws Exception {
+        MySqlConnector connector = connect("true");
+        database.latencyMillis(200);
+        try {
+            List<List<User>> results = concurrently(50, () -> connector.findUserRecordsByCity("New York"));
+            
+            assertEquals(1, cityQueries.get());
+            assertTrue(results.stream().allMatch(users -> users == results.get(0)));
+            assertEquals("New York", results.get(0).get(0).city());
+            SingleFlightStats stats = connector.getSingleFlightStats();
+            assertEquals(1, stats.leaders());
+            assertEquals(49, stats.followers());
+            assertEquals(0, stats.inFlight());
+            assertEquals(0.98, stats.collapsedRatio(), 1e-9);
+            
+            List<Integer> counts = concurrently(20, connector::getUserCount);
+            assertEquals(1, countQueries.get());
+            assertTrue(counts.stream().allMatch(count -> count == 7));
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testDifferentParametersNotCoalesced() throws Exception {
+        MySqlConnector connector = connect("true");
+        database.latencyMillis(100);
+        try {
+            List<List<User>> results = concurrently(20, () -> {
+                String city = Thread.currentThread().threadId() % 2 == 0 ? "Boston" : "Chicago";
+                List<User> users = connector.findUserRecordsByCity(city);
+                assertEquals(city, users.get(0).city());
+                return users;
+            });
+            
+            assertEquals(20, results.size());
+            assertTrue(cityQueries.get() <= 2, "Ran " + cityQueries.get() + " queries");
+            assertEquals(cityQueries.get(), connector.getSingleFlightStats().leaders());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testLeaderFailureSharedWithFollowers() throws Exception {
+        MySqlConnector connector = connect("true");
+        database.latencyMillis(200);
+        failing = true;
+        try {
+            List<Throwable> errors = concurrently(10, () -> {
+                try {
+                    connector.findUserRecordsByCity("New York");
+                    return null;
+                } catch (MySqlException e) {
+                    return e;
+                }
+            });
+            
+            assertEquals(1, cityQueries.get());
+            assertTrue(errors.stream().allMatch(error -> error instanceof MySqlException));
+            assertEquals(0, connector.getSingleFlightStats().inFlight());
+            
+            failing = false;
+            database.latencyMillis(0);
+            assertEquals(1, connector.findUserRecordsByCity("New York").size());
+            assertEquals(2, cityQueries.get());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    private static void awaitInFlight(MySqlConnector connector) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (connector.getSingleFlightStats().inFlight() == 0) {
+            assertTrue(System.nanoTime() < deadline, "Read never started");
+            Thread.sleep(5);
+        }
+    }
+    
+    @Test
+    void testFollowerDeadlineShorterThanLeader() throws Exception {
+        MySqlConnector connector = connect("true");
+        database.latencyMillis(1_000);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<User>> leader = executor.submit(() -> connector.findUserRecordsByCity("New York"));
+            awaitInFlight(connector);
+            
+            long start = System.nanoTime();
+            assertThrows(QueryTimeoutException.class,
+                () -> connector.withTimeout(Duration.ofMillis(100), c -> c.findUserRecordsByCity("New York")));
+            
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(600), "The follower outwaited its deadline");
+            assertEquals("New York", leader.get(5, TimeUnit.SECONDS).get(0).city());
+            assertEquals(1, cityQueries.get());
+            assertEquals(1, connector.getSingleFlightStats().followers());
+            assertEquals(1, connector.getTimeoutStats().timedOut());
+            assertEquals(0, database.queriesKilled.get());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testFollowersRetryAfterLeaderTimeout() throws Exception {
+        MySqlConnector connector = connect("true");
+        database.latencyMillis(500);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<User>> leader = executor.submit(
+                () -> connector.withTimeout(Duration.ofMillis(100), c -> c.findUserRecordsByCity("New York")));
+            awaitInFlight(connector);
+            Future<List<User>> follower = executor.submit(() -> connector.findUserRecordsByCity("New York"));
+            
+            ExecutionException e = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(QueryTimeoutException.class, e.getCause());
+            assertEquals("New York", follower.get(5, TimeUnit.SECONDS).get(0).city());
+            // The killed statement never reached the handler; the follower ran the query again
+            assertEquals(1, database.queriesKilled.get());
+            assertEquals(1, cityQueries.get());
+            SingleFlightStats stats = connector.getSingleFlightStats();
+            assertEquals(2, stats.leaders());
+            assertEquals(0, stats.followers());
+            assertEquals(0, stats.inFlight());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testWriteStopsJoiningEarlierRead() throws Exception {
+        MySqlConnector connector = connect("true");
+        database.latencyMillis(300);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<User>> before = executor.submit(() -> connector.findUserRecordsByCity("New York"));
+            awaitInFlight(connector);
+            
+            connector.insertUser("bob", "bob@example.com", 41, "New York");
+            Future<List<User>> after = executor.submit(() -> connector.findUserRecordsByCity("New York"));
+            
+            before.get(5, TimeUnit.SECONDS);
+            after.get(5, TimeUnit.SECONDS);
+            assertEquals(2, cityQueries.get());
+            assertEquals(0, connector.getSingleFlightStats().followers());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testCoalescingDisabled() throws Exception {
+        MySqlConnector connector = connect("false");
+        database.latencyMillis(100);
+        try {
+            concurrently(10, () -> connector.findUserRecordsByCity("New York"));
+            
+            assertEquals(10, cityQueries.get());
+            assertEquals(new SingleFlightStats(0, 0, 0), connector.getSingleFlightStats());
+        } catch (ExecutionException e) {
+            fail(e.getCause());
+        } finally {
+            connector.disconnect();
+        }
+    }
+}
\ No newline at end of file
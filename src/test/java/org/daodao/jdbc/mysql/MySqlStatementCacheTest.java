@@ -0,0 +1,123 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.model.User;
+import org.daodao.jdbc.pool.ConnectionPool;
+import org.daodao.jdbc.pool.PooledConnection;
+import org.daodao.jdbc.pool.StatementCacheStats;
+import org.junit.jupiter.api.*;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the per-connection prepared statement cache
+ *
+ * Runs against the in-process FakeDatabase stand-in and checks that the
+ * CRUD methods reuse prepared statements, that the LRU evicts and closes
+ * the least recently used statement, that variable-size bulk statements
+ * stay out of the cache, and that a size of 0 disables caching.
+ */
+class MySqlStatementCacheTest {
+    
+    private FakeDatabase database;
+    
+    @BeforeEach
+    void setUp() {
+        database = new FakeDatabase();
+    }
+    
+    @Test
+    void testCrudMethodsReusePreparedStatements() {
+        MySqlConnector connector = new MySqlConnector(
+            MySqlConnectionPoolTest.config("mysql.pool.min-size", "1", "mysql.pool.max-size", "1"),
+            database.connectionFactory());
+        connector.connect();
+        try {
+            for (int i = 0; i < 10; i++) {
+                connector.insertUser("cache_user_" + i, "cache_user_" + i + "@example.com", 30, "Cache City");
+                connector.findUsersByCity("Cache City");
+            }
+            
+            StatementCacheStats stats = connector.getStatementCacheStats();
+            assertEquals(2, database.statementsPrepared.get());
+            assertEquals(2, stats.misses());
+            assertEquals(18, stats.hits());
+            assertEquals(0.9, stats.hitRatio(), 0.0001);
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testLeastRecentlyUsedStatementEvicted() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(
+                MySqlConnectionPoolTest.config("mysql.pool.min-size", "1", "mysql.pool.max-size", "1", "mysql.statement-cache.size", "2"),
+                database.connectionFactory())) {
+            pool.start();
+            try (PooledConnection conn = pool.acquire()) {
+                PreparedStatement first = conn.prepareStatement("SELECT 1");
+                conn.prepareStatement("SELECT 2");
+                assertSame(first, conn.prepareStatement("SELECT 1"));
+                
+                // SELECT 2 is now least recently used and makes room for SELECT 3
+                conn.prepareStatement("SELECT 3");
+                assertSame(first, conn.prepareStatement("SELECT 1"));
+                conn.prepareStatement("SELECT 2");
+            }
+            
+            StatementCacheStats stats = pool.getStatementCacheStats();
+            assertEquals(4, stats.misses());
+            assertEquals(2, stats.hits());
+            assertEquals(2, stats.evictions());
+        }
+    }
+    
+    @Test
+    void testBulkStatementsBypassCache() {
+        MySqlConnector connector = new MySqlConnector(
+            MySqlConnectionPoolTest.config("mysql.pool.min-size", "1", "mysql.pool.max-size", "1", "mysql.statement-cache.size", "2"),
+            database.connectionFactory());
+        connector.connect();
+        try {
+            connector.findUsersByCity("Cache City");
+            for (int size = 1; size <= 4; size++) {
+                List<User> users = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    users.add(new User("bulk_" + size + "_" + i, "bulk_" + size + "_" + i + "@example.com", 30, "Cache City"));
+                }
+                connector.insertUsers(users);
+            }
+            connector.findUsersByCity("Cache City");
+            
+            // The lookups and inserts sized to each chunk were prepared outside the cache and left the find cached
+            StatementCacheStats stats = connector.getStatementCacheStats();
+            assertEquals(1, stats.misses());
+            assertEquals(1, stats.hits());
+            assertEquals(0, stats.evictions());
+            assertTrue(database.statementsPrepared.get() >= 9);
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testZeroCapacityDisablesCaching() {
+        MySqlConnector connector = new MySqlConnector(
+            MySqlConnectionPoolTest.config("mysql.pool.min-size", "1", "mysql.pool.max-size", "1", "mysql.statement-cache.size", "0"),
+            database.connectionFactory());
+        connector.connect();
+        try {
+            for (int i = 0; i < 5; i++) {
+                connector.deleteUser("nobody_" + i);
+            }
+            assertEquals(5, database.statementsPrepared.get());
+            assertEquals(0, connector.getStatementCacheStats().hits());
+        } finally {
+            connector.disconnect();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.model.User;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the streaming query API
+ *
+ * Checks against the FakeDatabase stand-in that streamAllUsers maps rows
+ * lazily, requests a streaming fetch size, and always releases the result
+ * set, statement and pooled connection: on Stream.close(), on exhaustion
+ * and when a row fails to map.
+ */
+class MySqlStreamingTest {
+    
+    private static final int ROWS = 1_000;
+    
+    private FakeDatabase database;
+    
+    @BeforeEach
+    void setUp() {
+        database = new FakeDatabase();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{String.format("user_%04d", i), "user_" + i + "@example.com", 20 + i % 50, "City " + i % 7});
+        }
+        database.handler(call -> new FakeDatabase.Rows(List.of("username", "email", "age", "city"), rows));
+    }
+    
+    private MySqlConnector connector(String... overrides) {
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config(overrides), database.connectionFactory());
+        connector.connect();
+        return connector;
+    }
+    
+    @Test
+    void testStreamsAllRowsAndReleasesConnection() {
+        MySqlConnector connector = connector();
+        try {
+            long count;
+            try (Stream<User> users = connector.streamAllUsers()) {
+                assertEquals(1, connector.getPoolStats().active());
+                count = users.filter(user -> user.age() >= 20).count();
+            }
+            assertEquals(ROWS, count);
+            assertEquals(Integer.MIN_VALUE, database.lastFetchSize);
+            assertEquals(0, database.openResultSets.get());
+            assertEquals(0, connector.getPoolStats().active());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testPartialConsumptionReleasedOnClose() {
+        MySqlConnector connector = connector();
+        try {
+            try (Stream<User> users = connector.streamAllUsers()) {
+                List<User> firstPage = users.limit(10).toList();
+                assertEquals(10, firstPage.size());
+                assertEquals(new User("user_0000", "user_0@example.com", 20, "City 0"), firstPage.get(0));
+                assertEquals(1, database.openResultSets.get());
+            }
+            assertEquals(0, database.openResultSets.get());
+            assertEquals(0, connector.getPoolStats().active());
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testCursorFetchSizeFromConfig() {
+        MySqlConnector connector = connector("mysql.stream.fetch-size", "500");
+        try {
+            try (Stream<User> users = connector.streamAllUsers()) {
+                users.findFirst();
+            }
+            assertEquals(500, database.lastFetchSize);
+        } finally {
+            connector.disconnect();
+        }
+    }
+    
+    @Test
+    void testMappingErrorReleasesResources() {
+        MySqlConnector connector = connector();
+        try {
+            try (Stream<String> values = connector.streamQuery("SELECT username FROM users", rs -> rs.getString("missing"))) {
+                assertThrows(MySqlException.class, values::toList);
+            }
+            assertEquals(0, database.openResultSets.get());
+            assertEquals(0, connector.getPoolStats().active());
+        } finally {
+            connector.disconnect();
+        }
+    }
+}
\ No newline at end of file
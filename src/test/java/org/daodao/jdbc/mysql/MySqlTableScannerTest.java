@@ -0,0 +1,265 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.scan.ScanOptions;
+import org.daodao.jdbc.scan.ScanResult;
+import org.junit.jupiter.api.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the parallel primary key range scanner
+ *
+ * The FakeDatabase handler serves a users table with gaps in its ids:
+ * - Every row is delivered exactly once across ranges and workers
+ * - Ranges are scanned concurrently on separate connections
+ * - Worker snapshots are opened while the table is locked
+ * - Without the lock each worker still reads its own snapshot, and the scan is reported as not consistent
+ * - A slow consumer bounds the rows buffered by the workers
+ * - Failures stop the scan and release every connection
+ */
+class MySqlTableScannerTest {
+    
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private final AtomicInteger rangeQueries = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile long rangeLatencyMillis;
+    private volatile int tableSize = 10_000;
+    private volatile boolean lockDenied;
+    private volatile boolean rangeFails;
+    
+    private MySqlConnector connector;
+    
+    @BeforeEach
+    void setUp() {
+        connector = connect("mysql.pool.max-size", "10");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        connector.disconnect();
+    }
+    
+    private MySqlConnector connect(String... overrides) {
+        FakeDatabase database = new FakeDatabase();
+        database.handler(this::execute);
+        MySqlConnector connector = new MySqlConnector(MySqlConnectionPoolTest.config(overrides), database.connectionFactory());
+        connector.connect();
+        return connector;
+    }
+    
+    // Every third id is missing, so ranges hold different row counts
+    private static boolean exists(long id) {
+        return id % 3 != 0;
+    }
+    
+    private Object execute(FakeDatabase.Call call) {
+        String sql = call.sql();
+        if (sql.startsWith("SELECT MIN(id), MAX(id) FROM users")) {
+            return tableSize == 0
+                ? FakeDatabase.Rows.of(List.of("MIN(id)", "MAX(id)"), new Object[]{null, null})
+                : FakeDatabase.Rows.of(List.of("MIN(id)", "MAX(id)"), new Object[]{1L, (long) tableSize});
+        }
+        if (sql.startsWith("SELECT username, email, age, city FROM users WHERE id >= ? AND id < ?")) {
+            rangeQueries.incrementAndGet();
+            if (rangeFails) {
+                return new SQLException("Lost connection to MySQL server during query", "08S01", 2013);
+            }
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(rangeLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            List<Object[]> rows = new ArrayList<>();
+            for (long id = (Long) call.params().get(0); id < (Long) call.params().get(1); id++) {
+                if (exists(id)) {
+                    rows.add(new Object[]{"scan_" + id, "scan_" + id + "@example.com", (int) (id % 70), "Boston"});
+                }
+            }
+            return new FakeDatabase.Rows(List.of("username", "email", "age", "city"), rows);
+        }
+        statements.add(sql);
+        if (sql.startsWith("LOCK TABLES") && lockDenied) {
+            return new SQLException("Access denied for user 'app'@'%' to database 'testdb'", "42000", 1044);
+        }
+        return 0;
+    }
+    
+    private long expectedRows() {
+        long expected = 0;
+        for (long id = 1; id <= tableSize; id++) {
+            expected += exists(id) ? 1 : 0;
+        }
+        return expected;
+    }
+    
+    @Test
+    void testEveryRowDeliveredOnce() {
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        
+        ScanResult result = connector.scanUsers(user -> {
+            if (!seen.add(user.username())) {
+                duplicates.incrementAndGet();
+            }
+        }, ScanOptions.DEFAULT);
+        
+        assertEquals(expectedRows(), result.rows());
+        assertEquals(expectedRows(), seen.size());
+        assertEquals(0, duplicates.get());
+        assertEquals(16, result.ranges());
+        assertEquals(16, rangeQueries.get());
+        assertEquals(4, result.workers());
+        assertTrue(result.consistent());
+        assertEquals(0, connector.getPoolStats().active());
+    }
+    
+    @Test
+    void testRangesScannedConcurrently() {
+        rangeLatencyMillis = 50;
+        
+        ScanResult result = connector.scanUsers(user -> { }, ScanOptions.DEFAULT);
+        
+        // 16 ranges of 50 ms would take 800 ms on one connection
+        assertTrue(result.elapsed().toMillis() < 600, "Scan took " + result.elapsed());
+        assertEquals(4, maxInFlight.get());
+    }
+    
+    @Test
+    void testSnapshotsOpenedUnderLock() {
+        connector.scanUsers(user -> { }, ScanOptions.DEFAULT.withParallelism(3));
+        
+        int lock = statements.indexOf("LOCK TABLES users READ");
+        int unlock = statements.indexOf("UNLOCK TABLES");
+        assertTrue(lock >= 0 && unlock > lock, statements.toString());
+        List<Integer> snapshots = new ArrayList<>();
+        for (int i = 0; i < statements.size(); i++) {
+            if (statements.get(i).startsWith("START TRANSACTION WITH CONSISTENT SNAPSHOT")) {
+                snapshots.add(i);
+            }
+        }
+        assertEquals(3, snapshots.size());
+        assertTrue(snapshots.stream().allMatch(index -> index > lock && index < unlock), statements.toString());
+        assertEquals(3, statements.stream().filter("COMMIT"::equals).count());
+    }
+    
+    @Test
+    void testScanWithoutLockPrivilege() {
+        lockDenied = true;
+        
+        ScanResult result = connector.scanUsers(user -> { }, ScanOptions.DEFAULT);
+        
+        assertFalse(result.consistent());
+        assertFalse(result.toString().contains("from one snapshot"));
+        assertEquals(expectedRows(), result.rows());
+        assertFalse(statements.contains("UNLOCK TABLES"));
+        assertEquals(4, statements.stream().filter(sql -> sql.startsWith("START TRANSACTION WITH CONSISTENT SNAPSHOT")).count());
+        assertEquals(4, statements.stream().filter("COMMIT"::equals).count());
+        assertEquals(0, connector.getPoolStats().active());
+    }
+    
+    @Test
+    void testScanWithoutSnapshot() {
+        ScanResult result = connector.scanUsers(user -> { }, ScanOptions.DEFAULT.withConsistentSnapshot(false));
+        
+        assertFalse(result.consistent());
+        assertEquals(expectedRows(), result.rows());
+        assertTrue(statements.stream().noneMatch(sql -> sql.startsWith("LOCK TABLES") || sql.startsWith("START TRANSACTION")));
+    }
+    
+    @Test
+    void testSlowConsumerBoundsBufferedRows() {
+        ScanOptions options = ScanOptions.DEFAULT.withBatchRows(50).withQueueBatches(2);
+        AtomicLong mapped = new AtomicLong();
+        AtomicLong consumed = new AtomicLong();
+        AtomicLong maxBuffered = new AtomicLong();
+        
+        ScanResult result = connector.scanTable("users", "id", List.of("username", "email", "age", "city"), rs -> {
+            mapped.incrementAndGet();
+            return rs.getString("username");
+        }, username -> {
+            maxBuffered.accumulateAndGet(mapped.get() - consumed.incrementAndGet(), Math::max);
+            if (consumed.get() % 50 == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }, options);
+        
+        assertEquals(expectedRows(), result.rows());
+        // Queued batches, one batch being filled per worker and the one the consumer is working through
+        long bound = (options.queueBatches() + options.parallelism() + 1L) * options.batchRows();
+        assertTrue(maxBuffered.get() <= bound, "Buffered " + maxBuffered.get() + " rows, bound " + bound);
+    }
+    
+    @Test
+    void testEmptyTable() {
+        tableSize = 0;
+        
+        ScanResult result = connector.scanUsers(user -> fail("No rows expected"), ScanOptions.DEFAULT);
+        
+        assertEquals(0, result.rows());
+        assertEquals(0, result.ranges());
+        assertEquals(0, rangeQueries.get());
+        assertEquals(0, connector.getPoolStats().active());
+    }
+    
+    @Test
+    void testWorkerFailureStopsScan() {
+        rangeFails = true;
+        
+        MySqlException e = assertThrows(MySqlException.class, () -> connector.scanUsers(user -> { }, ScanOptions.DEFAULT));
+        
+        assertInstanceOf(SQLException.class, e.getCause());
+        assertEquals(0, connector.getPoolStats().active());
+    }
+    
+    @Test
+    void testConsumerFailureStopsScan() {
+        AtomicInteger delivered = new AtomicInteger();
+        
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> connector.scanUsers(user -> {
+            if (delivered.incrementAndGet() == 10) {
+                throw new IllegalStateException("consumer gave up");
+            }
+        }, ScanOptions.DEFAULT.withBatchRows(5).withQueueBatches(1)));
+        
+        assertEquals("consumer gave up", e.getMessage());
+        assertEquals(10, delivered.get());
+        assertEquals(0, connector.getPoolStats().active());
+    }
+    
+    @Test
+    void testParallelismLimitedByPool() {
+        connector.disconnect();
+        connector = connect("mysql.pool.max-size", "3");
+        
+        ScanResult result = connector.scanUsers(user -> { }, ScanOptions.DEFAULT.withParallelism(8));
+        
+        assertEquals(2, result.workers());
+        assertEquals(expectedRows(), result.rows());
+    }
+    
+    @Test
+    void testInvalidIdentifiersRejected() {
+        assertThrows(IllegalArgumentException.class, () -> connector.scanTable("users u", "id", List.of("username"),
+            rs -> rs.getString(1), row -> { }, ScanOptions.DEFAULT));
+        assertThrows(IllegalArgumentException.class, () -> connector.scanTable("users", "id", List.of("*"),
+            rs -> rs.getString(1), row -> { }, ScanOptions.DEFAULT));
+        assertThrows(IllegalArgumentException.class, () -> ScanOptions.DEFAULT.withQueueBatches(0));
+    }
+}
\ No newline at end of file
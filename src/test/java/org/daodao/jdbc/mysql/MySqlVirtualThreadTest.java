@@ -0,0 +1,110 @@
+package org.daodao.jdbc.mysql;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.pool.PoolStats;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency test for MySqlConnector on virtual threads
+ *
+ * Drives 10,000 virtual threads through the CRUD methods against the
+ * in-process FakeDatabase stand-in (1 ms simulated server latency) with a
+ * small pool, so almost every caller has to wait for a connection. A JFR
+ * recording captures jdk.VirtualThreadPinned events; the pool and connector
+ * must not pin carrier threads while callers wait.
+ */
+class MySqlVirtualThreadTest {
+    
+    private static final int CALLERS = 10_000;
+    
+    @Test
+    void testTenThousandVirtualThreadCallers() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        database.latencyMillis(1);
+        MySqlConnector connector = new MySqlConnector(
+            MySqlConnectionPoolTest.config("mysql.pool.min-size", "4", "mysql.pool.max-size", "16",
+                "mysql.pool.acquire-timeout-ms", "60000"),
+            database.connectionFactory());
+        connector.connect();
+        
+        Path jfrFile = Files.createTempFile("virtual-thread-pinning", ".jfr");
+        AtomicInteger succeeded = new AtomicInteger();
+        long elapsedNanos;
+        
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            
+            long start = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>(CALLERS);
+                for (int i = 0; i < CALLERS; i++) {
+                    int caller = i;
+                    futures.add(executor.submit(() -> {
+                        String username = "vt_user_" + caller;
+                        switch (caller % 4) {
+                            case 0 -> connector.insertUser(username, username + "@example.com", 20 + caller % 50, "City " + caller % 10);
+                            case 1 -> connector.findUsersByCity("City " + caller % 10);
+                            case 2 -> connector.updateUserEmail(username, username + "@example.org");
+                            default -> connector.deleteUser(username);
+                        }
+                        succeeded.incrementAndGet();
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+            elapsedNanos = System.nanoTime() - start;
+            
+            recording.stop();
+            recording.dump(jfrFile);
+        }
+        
+        PoolStats stats = connector.getPoolStats();
+        connector.disconnect();
+        
+        List<RecordedEvent> pinned = RecordingFile.readAllEvents(jfrFile);
+        long pinnedInClient = pinned.stream().filter(MySqlVirtualThreadTest::involvesClientCode).count();
+        Files.deleteIfExists(jfrFile);
+        
+        double throughput = CALLERS / (elapsedNanos / 1_000_000_000.0);
+        System.out.printf("Virtual thread run: %d calls in %d ms (%.0f ops/s), pinned events=%d (client code=%d), %s%n",
+            CALLERS, elapsedNanos / 1_000_000, throughput, pinned.size(), pinnedInClient, stats);
+        
+        assertEquals(CALLERS, succeeded.get());
+        assertEquals(CALLERS, database.executions.get());
+        assertEquals(0, stats.active());
+        assertTrue(stats.total() <= 16);
+        assertEquals(0, stats.acquireTimeouts());
+        assertEquals(0, pinnedInClient, "Virtual threads pinned inside org.daodao code");
+    }
+    
+    private static boolean involvesClientCode(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return false;
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith("org.daodao.jdbc")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,328 @@
+package org.daodao.jdbc.mysql;
+
+import org.daodao.jdbc.connectors.MySqlConnector;
+import org.daodao.jdbc.exceptions.MySqlException;
+import org.daodao.jdbc.write.WriteBehindStats;
+import org.daodao.jdbc.write.WriteJournal;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the write-behind buffer and its memory-mapped journal
+ *
+ * - Queued writes are acknowledged at once and flushed in batches
+ * - Writes that could not be flushed are replayed from the journal after a restart
+ * - A torn journal entry is dropped on recovery
+ * - A crash while the journal is drained replays nothing
+ * - A write that fails on bad data is rejected without holding up the others
+ * - A full journal makes writers wait for the flusher
+ * - Writes of one batch are applied in the order they were queued
+ */
+class MySqlWriteBehindTest {
+    
+    @TempDir
+    Path dir;
+    
+    private final Map<String, String> emailsByUsername = new ConcurrentHashMap<>();
+    private final AtomicInteger insertStatements = new AtomicInteger();
+    private volatile boolean serverDown;
+    private FakeDatabase database;
+    private MySqlConnector connector;
+    
+    @BeforeEach
+    void setUp() {
+        emailsByUsername.put("john_doe", "john.doe@example.com");
+        emailsByUsername.put("jane_roe", "jane.roe@example.com");
+        database = new FakeDatabase();
+        database.handler(this::handle);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (connector != null) {
+            connector.disconnect();
+        }
+    }
+    
+    private Object handle(FakeDatabase.Call call) {
+        String sql = call.sql();
+        List<Object> params = call.params();
+        if (serverDown && (sql.startsWith("INSERT") || sql.startsWith("UPDATE"))) {
+            return new SQLException("Communications link failure", "08S01", 0);
+        }
+        if (sql.startsWith("SELECT username, email FROM users")) {
+            List<Object[]> rows = new ArrayList<>();
+            emailsByUsername.forEach((username, email) -> {
+                if (containsIgnoreCase(params, username) || containsIgnoreCase(params, email)) {
+                    rows.add(new Object[]{username, email});
+                }
+            });
+            return new FakeDatabase.Rows(List.of("username", "email"), rows);
+        }
+        if (sql.startsWith("SELECT username FROM users") && sql.endsWith("FOR UPDATE")) {
+            List<Object[]> rows = new ArrayList<>();
+            emailsByUsername.keySet().stream().filter(username -> containsIgnoreCase(params, username))
+                .forEach(username -> rows.add(new Object[]{username}));
+            return new FakeDatabase.Rows(List.of("username"), rows);
+        }
+        if (sql.startsWith("INSERT IGNORE INTO users")) {
+            insertStatements.incrementAndGet();
+            int inserted = 0;
+            for (int i = 0; i < params.size(); i += 4) {
+                String username = ((String) params.get(i)).toLowerCase(Locale.ROOT);
+                String email = (String) params.get(i + 1);
+                if (!emailsByUsername.containsKey(username) && !emailInUse(email, null)) {
+                    emailsByUsername.put(username, email);
+                    inserted++;
+                }
+            }
+            return inserted;
+        }
+        if (sql.startsWith("UPDATE users SET email = CASE username")) {
+            int pairs = params.size() / 3;
+            for (int i = 0; i < pairs * 2; i += 2) {
+                if (emailInUse((String) params.get(i + 1), (String) params.get(i))) {
+                    return new SQLException("Duplicate entry for key 'users.email'", "23000", 1062);
+                }
+            }
+            for (int i = 0; i < pairs * 2; i += 2) {
+                emailsByUsername.put(((String) params.get(i)).toLowerCase(Locale.ROOT), (String) params.get(i + 1));
+            }
+            return pairs;
+        }
+        if (sql.startsWith("UPDATE users SET email = ?")) {
+            String username = ((String) params.get(1)).toLowerCase(Locale.ROOT);
+            if (emailInUse((String) params.get(0), username)) {
+                return new SQLException("Duplicate entry for key 'users.email'", "23000", 1062);
+            }
+            return emailsByUsername.computeIfPresent(username, (key, email) -> (String) params.get(0)) != null ? 1 : 0;
+        }
+        return sql.startsWith("SELECT") ? FakeDatabase.Rows.empty() : 0;
+    }
+    
+    private static boolean containsIgnoreCase(List<Object> params, String value) {
+        return params.stream().anyMatch(param -> param instanceof String s && s.equalsIgnoreCase(value));
+    }
+    
+    private boolean emailInUse(String email, String exceptUsername) {
+        return emailsByUsername.entrySet().stream()
+            .anyMatch(entry -> entry.getValue().equalsIgnoreCase(email) && !entry.getKey().equalsIgnoreCase(exceptUsername));
+    }
+    
+    private Path journalPath() {
+        return dir.resolve("write-behind.journal");
+    }
+    
+    private MySqlConnector connect(String... overrides) {
+        List<String> settings = new ArrayList<>(List.of("mysql.write-behind.enabled", "true",
+            "mysql.write-behind.journal-path", journalPath().toString()));
+        settings.addAll(List.of(overrides));
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config(settings.toArray(String[]::new)), database.connectionFactory());
+        connector.connect();
+        return connector;
+    }
+    
+    @Test
+    void testQueuedWritesFlushedInBatches() {
+        connect("mysql.write-behind.batch-rows", "100", "mysql.write-behind.flush-interval-ms", "20");
+        for (int i = 0; i < 250; i++) {
+            connector.queueInsertUser("event_user_" + i, "event_user_" + i + "@example.com", 30, i % 2 == 0 ? "Boston" : null);
+        }
+        
+        assertTrue(connector.flushWriteBehind(5_000));
+        
+        assertEquals(252, emailsByUsername.size());
+        WriteBehindStats stats = connector.getWriteBehindStats();
+        assertEquals(250, stats.submitted());
+        assertEquals(250, stats.flushed());
+        assertTrue(stats.batches() >= 3, stats.toString());
+        assertEquals(stats.batches(), insertStatements.get());
+        assertEquals(0, stats.pending());
+        assertEquals(0, stats.journalBytes());
+        assertEquals(stats.batches(), connector.getMetricsSnapshot().operation("writeBehindFlush").count());
+    }
+    
+    @Test
+    void testUnflushedWritesReplayedAfterRestart() {
+        serverDown = true;
+        connect("mysql.write-behind.flush-interval-ms", "10");
+        connector.queueInsertUser("alice", "alice@example.com", 25, "Denver");
+        connector.queueInsertUser("bob", "bob@example.com", 35, null);
+        connector.queueUpdateUserEmail("john_doe", "john@example.org");
+        
+        assertFalse(connector.flushWriteBehind(100));
+        WriteBehindStats stats = connector.getWriteBehindStats();
+        assertTrue(stats.failedBatches() >= 1);
+        assertEquals(3, stats.pending());
+        // Closing makes one more attempt, which fails too, so the writes stay in the journal
+        connector.disconnect();
+        assertEquals(2, emailsByUsername.size());
+        
+        serverDown = false;
+        connect();
+        
+        assertTrue(connector.flushWriteBehind(5_000));
+        assertEquals(3, connector.getWriteBehindStats().replayed());
+        assertEquals(3, connector.getWriteBehindStats().flushed());
+        assertEquals("alice@example.com", emailsByUsername.get("alice"));
+        assertEquals("bob@example.com", emailsByUsername.get("bob"));
+        assertEquals("john@example.org", emailsByUsername.get("john_doe"));
+        
+        // Nothing is replayed twice
+        connector.disconnect();
+        connect();
+        assertEquals(0, connector.getWriteBehindStats().replayed());
+    }
+    
+    @Test
+    void testTornEntryDroppedOnRecovery() throws Exception {
+        int tornEntryStart;
+        try (WriteJournal journal = WriteJournal.open(journalPath(), 4096, false)) {
+            int first = journal.append("first".getBytes(StandardCharsets.UTF_8));
+            tornEntryStart = journal.append("second".getBytes(StandardCharsets.UTF_8));
+            journal.append("third".getBytes(StandardCharsets.UTF_8));
+            journal.markFlushed(first);
+        }
+        // Damage the payload of the third entry, as a crash in the middle of the append would
+        try (RandomAccessFile file = new RandomAccessFile(journalPath().toFile(), "rw")) {
+            file.seek(tornEntryStart + 8);
+            file.write('X');
+        }
+        
+        try (WriteJournal journal = WriteJournal.open(journalPath(), 4096, false)) {
+            List<WriteJournal.Entry> recovered = journal.recovered();
+            assertEquals(1, recovered.size());
+            assertEquals("second", new String(recovered.get(0).payload(), StandardCharsets.UTF_8));
+            int fourth = journal.append("fourth".getBytes(StandardCharsets.UTF_8));
+            assertEquals(recovered.get(0).end() + 8 + 6, fourth);
+        }
+        try (WriteJournal journal = WriteJournal.open(journalPath(), 4096, false)) {
+            List<WriteJournal.Entry> recovered = journal.recovered();
+            assertEquals(List.of("second", "fourth"), recovered.stream()
+                .map(entry -> new String(entry.payload(), StandardCharsets.UTF_8)).toList());
+            journal.markFlushed(recovered.get(1).end());
+            assertEquals(0, journal.pendingBytes());
+        }
+        try (WriteJournal journal = WriteJournal.open(journalPath(), 4096, false)) {
+            assertTrue(journal.recovered().isEmpty());
+        }
+    }
+    
+    @Test
+    void testCrashWhileDrainingReplaysNothing() throws Exception {
+        int second;
+        try (WriteJournal journal = WriteJournal.open(journalPath(), 4096, false)) {
+            int first = journal.append("first".getBytes(StandardCharsets.UTF_8));
+            second = journal.append("second".getBytes(StandardCharsets.UTF_8));
+            journal.markFlushed(first);
+        }
+        // Draining with markFlushed(second) records second as the flushed offset, clears the end marker at the top
+        // and then moves the flushed offset back to the top; reopen after each of the first two writes
+        try (RandomAccessFile file = new RandomAccessFile(journalPath().toFile(), "rw")) {
+            file.seek(8);
+            file.writeLong(second);
+        }
+        try (WriteJournal journal = WriteJournal.open(journalPath(), 4096, false)) {
+            assertTrue(journal.recovered().isEmpty());
+            assertEquals(0, journal.pendingBytes());
+        }
+        try (RandomAccessFile file = new RandomAccessFile(journalPath().toFile(), "rw")) {
+            file.seek(16);
+            file.writeInt(0);
+        }
+        try (WriteJournal journal = WriteJournal.open(journalPath(), 4096, false)) {
+            assertTrue(journal.recovered().isEmpty());
+            assertEquals(second + 8 + 5, journal.append("third".getBytes(StandardCharsets.UTF_8)));
+        }
+        try (WriteJournal journal = WriteJournal.open(journalPath(), 4096, false)) {
+            assertEquals(List.of("third"), journal.recovered().stream()
+                .map(entry -> new String(entry.payload(), StandardCharsets.UTF_8)).toList());
+        }
+    }
+    
+    @Test
+    void testBadWriteRejectedOthersFlushed() {
+        connect("mysql.write-behind.flush-interval-ms", "10");
+        connector.queueInsertUser("alice", "alice@example.com", 25, "Denver");
+        // Taken by john_doe, so this update can never succeed
+        connector.queueUpdateUserEmail("jane_roe", "JOHN.DOE@example.com");
+        connector.queueInsertUser("bob", "bob@example.com", 35, "Austin");
+        
+        assertTrue(connector.flushWriteBehind(5_000));
+        
+        WriteBehindStats stats = connector.getWriteBehindStats();
+        assertEquals(3, stats.flushed());
+        assertEquals(1, stats.rejected());
+        assertEquals(0, stats.failedBatches());
+        assertEquals("jane.roe@example.com", emailsByUsername.get("jane_roe"));
+        assertTrue(emailsByUsername.containsKey("alice"));
+        assertTrue(emailsByUsername.containsKey("bob"));
+    }
+    
+    @Test
+    void testFullJournalWaitsForFlush() throws Exception {
+        // Room for about 60 entries; the interval is long, so only the full journal triggers flushes
+        connect("mysql.write-behind.journal-bytes", "4096", "mysql.write-behind.batch-rows", "1000",
+            "mysql.write-behind.flush-interval-ms", "60000");
+        for (int i = 0; i < 300; i++) {
+            connector.queueInsertUser("burst_user_" + i, "burst_user_" + i + "@example.com", 30, "Boston");
+        }
+        
+        assertTrue(connector.flushWriteBehind(5_000));
+        
+        assertEquals(302, emailsByUsername.size());
+        assertTrue(connector.getWriteBehindStats().batches() >= 5);
+        assertEquals(4096, Files.size(journalPath()));
+    }
+    
+    @Test
+    void testBatchAppliedInQueueOrder() {
+        connect("mysql.write-behind.flush-interval-ms", "60000");
+        // bob's insert only succeeds once john_doe has given up the email
+        connector.queueUpdateUserEmail("john_doe", "john@example.org");
+        connector.queueInsertUser("bob", "john.doe@example.com", 35, "Austin");
+        connector.queueUpdateUserEmail("bob", "bob@example.org");
+        connector.queueInsertUser("carol", "john.doe@example.com", 41, null);
+        
+        assertTrue(connector.flushWriteBehind(5_000));
+        
+        WriteBehindStats stats = connector.getWriteBehindStats();
+        assertEquals(1, stats.batches());
+        assertEquals(4, stats.flushed());
+        assertEquals("john@example.org", emailsByUsername.get("john_doe"));
+        assertEquals("bob@example.org", emailsByUsername.get("bob"));
+        assertEquals("john.doe@example.com", emailsByUsername.get("carol"));
+        assertEquals(2, insertStatements.get());
+    }
+    
+    @Test
+    void testQueueMisuse() {
+        connector = new MySqlConnector(MySqlConnectionPoolTest.config(), database.connectionFactory());
+        connector.connect();
+        assertThrows(MySqlException.class, () -> connector.queueInsertUser("alice", "alice@example.com", 25, "Denver"));
+        assertEquals(new WriteBehindStats(0, 0, 0, 0, 0, 0, 0, 0), connector.getWriteBehindStats());
+        connector.disconnect();
+        
+        connect();
+        assertThrows(IllegalArgumentException.class, () -> connector.queueInsertUser(null, "alice@example.com", 25, "Denver"));
+        assertThrows(IllegalArgumentException.class, () -> connector.queueUpdateUserEmail("alice", null));
+        // The journal is locked while its connector is connected
+        MySqlConnector second = new MySqlConnector(MySqlConnectionPoolTest.config("mysql.write-behind.enabled", "true",
+            "mysql.write-behind.journal-path", journalPath().toString()), database.connectionFactory());
+        assertThrows(MySqlException.class, second::connect);
+    }
+}
\ No newline at end of file
@@ -8,13 +8,37 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Test Suite for MySQL JDBC Client Tests
- * 
+ *
  * This test suite includes all MySQL-related test cases:
  * - Basic CRUD operations
  * - MySQL 8.0+ new features (Window Functions, CTE, JSON, Generated Columns)
  * - Security and Performance features (Authentication, Performance Schema, Histograms)
  * - Mockito-based unit tests for edge cases and error handling
- * 
+ * - Connection pool behaviour against an in-process database stand-in
+ * - 10,000 concurrent virtual-thread callers with JFR pinning detection
+ * - Per-connection prepared statement caching
+ * - Bulk user inserts with multi-row VALUES chunking
+ * - Streaming query results with guaranteed resource release
+ * - Typed User/Product records and index-based row mappers
+ * - Read-through query result cache with write invalidation
+ * - Latency histograms and per-operation / per-digest metrics
+ * - Open and closed-loop load generation
+ * - Keyset pagination with continuation tokens
+ * - Exact, cached, approximate and tracked row counts
+ * - Versioned schema migrations
+ * - Seeded synthetic dataset generation
+ * - Streaming CSV/TSV query export
+ * - Bulk import with LOAD DATA LOCAL INFILE
+ * - Parallel primary key range table scans
+ * - Async facade timeouts and statement cancellation
+ * - Flow.Publisher result streaming with backpressure
+ * - Single-flight coalescing of identical reads
+ * - Multi-key lookups through IN-lists and temporary tables
+ * - DataLoader-style batching of point lookups
+ * - Group commit of concurrent single-row writes
+ * - Write-behind through a memory-mapped journal
+ * - Call deadlines, statement timeouts and KILL QUERY cancellation
+ *
  * The suite ensures comprehensive testing of MySQL connectivity and functionality
  * while maintaining high test coverage and reliability.
  */
@@ -24,7 +48,31 @@ import org.slf4j.LoggerFactory;
     MySqlBasicCRUDTest.class,
     MySqlNewFeaturesTest.class,
     MySqlSecurityPerformanceTest.class,
-    MySqlConnectorMockitoTest.class
+    MySqlConnectorMockitoTest.class,
+    MySqlConnectionPoolTest.class,
+    MySqlVirtualThreadTest.class,
+    MySqlStatementCacheTest.class,
+    MySqlBulkInsertTest.class,
+    MySqlStreamingTest.class,
+    MySqlRowMapperTest.class,
+    MySqlQueryCacheTest.class,
+    MySqlMetricsTest.class,
+    MySqlLoadGeneratorTest.class,
+    MySqlPaginationTest.class,
+    MySqlRowCountTest.class,
+    MySqlSchemaMigratorTest.class,
+    MySqlDatasetGeneratorTest.class,
+    MySqlExportTest.class,
+    MySqlBulkImportTest.class,
+    MySqlTableScannerTest.class,
+    MySqlAsyncConnectorTest.class,
+    MySqlPublisherTest.class,
+    MySqlSingleFlightTest.class,
+    MySqlMultiKeyLookupTest.class,
+    MySqlBatchLoaderTest.class,
+    MySqlGroupCommitTest.class,
+    MySqlWriteBehindTest.class,
+    MySqlQueryTimeoutTest.class
 })
 public class TestSuite {
     
@@ -37,6 +85,30 @@ public class TestSuite {
         logger.info("  - MySqlNewFeaturesTest: MySQL 8.0+ new features testing");
         logger.info("  - MySqlSecurityPerformanceTest: Security and Performance features testing");
         logger.info("  - MySqlConnectorMockitoTest: Mockito-based unit testing");
+        logger.info("  - MySqlConnectionPoolTest: Connection pool testing");
+        logger.info("  - MySqlVirtualThreadTest: Virtual thread concurrency testing");
+        logger.info("  - MySqlStatementCacheTest: Prepared statement cache testing");
+        logger.info("  - MySqlBulkInsertTest: Bulk insert testing");
+        logger.info("  - MySqlStreamingTest: Streaming query testing");
+        logger.info("  - MySqlRowMapperTest: Typed row mapper testing");
+        logger.info("  - MySqlQueryCacheTest: Query result cache testing");
+        logger.info("  - MySqlMetricsTest: Latency metrics testing");
+        logger.info("  - MySqlLoadGeneratorTest: Load generator testing");
+        logger.info("  - MySqlPaginationTest: Keyset pagination testing");
+        logger.info("  - MySqlRowCountTest: Row count testing");
+        logger.info("  - MySqlSchemaMigratorTest: Schema migration testing");
+        logger.info("  - MySqlDatasetGeneratorTest: Synthetic dataset testing");
+        logger.info("  - MySqlExportTest: Query export testing");
+        logger.info("  - MySqlBulkImportTest: Bulk import testing");
+        logger.info("  - MySqlTableScannerTest: Table scan testing");
+        logger.info("  - MySqlAsyncConnectorTest: Async API testing");
+        logger.info("  - MySqlPublisherTest: Reactive streaming testing");
+        logger.info("  - MySqlSingleFlightTest: Request coalescing testing");
+        logger.info("  - MySqlMultiKeyLookupTest: Multi-key lookup testing");
+        logger.info("  - MySqlBatchLoaderTest: Batched point lookup testing");
+        logger.info("  - MySqlGroupCommitTest: Group commit testing");
+        logger.info("  - MySqlWriteBehindTest: Write-behind journal testing");
+        logger.info("  - MySqlQueryTimeoutTest: Query timeout and deadline testing");
         logger.info("Suite initialization completed");
     }
 }
\ No newline at end of file